@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Synthetic, deterministic XML corpora used by the benchmarks.
+ * <p>
+ * Every document is a flat catalog of <code>item</code> records in
+ * the {@link #NAMESPACE} namespace and is valid against {@link #SCHEMA}.
+ * The record count is chosen so that the encoded document is at least
+ * the requested number of bytes. The size of the {@link Size#LARGE}
+ * corpus may be overridden with the <code>xerces.benchmark.large</code>
+ * system property (in megabytes).
+ *
+ * @author CodeLibs Project
+ */
+public final class Corpus {
+
+    //
+    // Constants
+    //
+
+    /** Namespace of the generated documents. */
+    public static final String NAMESPACE = "http://www.codelibs.org/xerces/benchmark";
+
+    /** Schema for the generated documents. */
+    public static final String SCHEMA = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\"\n" + "           targetNamespace=\"" + NAMESPACE + "\"\n"
+            + "           xmlns:b=\"" + NAMESPACE + "\" elementFormDefault=\"qualified\">\n" + " <xs:element name=\"catalog\">\n"
+            + "  <xs:complexType>\n" + "   <xs:sequence>\n"
+            + "    <xs:element name=\"item\" type=\"b:itemType\" minOccurs=\"0\" maxOccurs=\"unbounded\"/>\n" + "   </xs:sequence>\n"
+            + "  </xs:complexType>\n" + " </xs:element>\n" + " <xs:complexType name=\"itemType\">\n" + "  <xs:sequence>\n"
+            + "   <xs:element name=\"name\" type=\"xs:string\"/>\n" + "   <xs:element name=\"price\" type=\"b:priceType\"/>\n"
+            + "   <xs:element name=\"quantity\" type=\"xs:nonNegativeInteger\"/>\n"
+            + "   <xs:element name=\"updated\" type=\"xs:dateTime\"/>\n" + "   <xs:element name=\"description\" type=\"xs:string\"/>\n"
+            + "  </xs:sequence>\n" + "  <xs:attribute name=\"id\" type=\"xs:ID\" use=\"required\"/>\n"
+            + "  <xs:attribute name=\"status\" type=\"b:statusType\" use=\"required\"/>\n" + " </xs:complexType>\n"
+            + " <xs:complexType name=\"priceType\">\n" + "  <xs:simpleContent>\n" + "   <xs:extension base=\"xs:decimal\">\n"
+            + "    <xs:attribute name=\"currency\" type=\"b:currencyType\" use=\"required\"/>\n" + "   </xs:extension>\n"
+            + "  </xs:simpleContent>\n" + " </xs:complexType>\n" + " <xs:simpleType name=\"statusType\">\n"
+            + "  <xs:restriction base=\"xs:token\">\n" + "   <xs:enumeration value=\"active\"/>\n"
+            + "   <xs:enumeration value=\"retired\"/>\n" + "   <xs:enumeration value=\"pending\"/>\n" + "  </xs:restriction>\n"
+            + " </xs:simpleType>\n" + " <xs:simpleType name=\"currencyType\">\n" + "  <xs:restriction base=\"xs:string\">\n"
+            + "   <xs:pattern value=\"[A-Z]{3}\"/>\n" + "  </xs:restriction>\n" + " </xs:simpleType>\n" + "</xs:schema>\n";
+
+    /** Sample text used for ASCII descriptions. */
+    private static final String ASCII_TEXT = "Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor "
+            + "incididunt ut labore et dolore magna aliqua. Ut enim ad minim veniam, quis nostrud exercitation.";
+
+    /** Sample text mixing two-, three- and four-byte UTF-8 sequences. */
+    private static final String MIXED_TEXT = "Grüße aus München, ça va très bien; "
+            + "日本語のテキスト Русский текст "
+            + "😀 αβγ plain ascii tail for the common case.";
+
+    private static final String[] STATUS = { "active", "retired", "pending" };
+
+    private static final String[] CURRENCY = { "USD", "EUR", "JPY", "GBP" };
+
+    //
+    // Enums
+    //
+
+    /** Corpus sizes. */
+    public enum Size {
+
+        /** A few kilobytes; dominated by per-parse setup cost. */
+        SMALL(4 * 1024),
+
+        /** About one megabyte; a typical large message. */
+        MEDIUM(1024 * 1024),
+
+        /** Several hundred megabytes; a bulk feed file. */
+        LARGE(Long.getLong("xerces.benchmark.large", 256) * 1024 * 1024);
+
+        /** Minimum encoded size in bytes. */
+        final long bytes;
+
+        Size(long bytes) {
+            this.bytes = bytes;
+        }
+
+    } // enum Size
+
+    //
+    // Constructors
+    //
+
+    private Corpus() {
+    }
+
+    //
+    // Public static methods
+    //
+
+    /**
+     * Generates a catalog document encoded in UTF-8.
+     *
+     * @param size  the minimum document size
+     * @param ascii true to generate pure ASCII character data, false to
+     *              mix in non-ASCII text
+     */
+    public static byte[] generate(Size size, boolean ascii) {
+        return generate(size, ascii, StandardCharsets.UTF_8);
+    } // generate(Size,boolean):byte[]
+
+    /**
+     * Generates a catalog document in the given encoding.
+     *
+     * @param size     the minimum document size
+     * @param ascii    true to generate pure ASCII character data, false to
+     *                 mix in non-ASCII text
+     * @param charset  the document encoding
+     */
+    public static byte[] generate(Size size, boolean ascii, Charset charset) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) Math.min(Integer.MAX_VALUE - 8, size.bytes + 4096));
+        try (Writer out = new OutputStreamWriter(bytes, charset)) {
+            out.write("<?xml version=\"1.0\" encoding=\"");
+            out.write(charset.name());
+            out.write("\"?>\n<catalog xmlns=\"");
+            out.write(NAMESPACE);
+            out.write("\">\n");
+            String text = ascii ? ASCII_TEXT : MIXED_TEXT;
+            for (int i = 0; bytes.size() < size.bytes; i++) {
+                out.write(" <item id=\"i");
+                out.write(Integer.toString(i));
+                out.write("\" status=\"");
+                out.write(STATUS[i % STATUS.length]);
+                out.write("\">\n  <name>Item ");
+                out.write(Integer.toString(i));
+                out.write("</name>\n  <price currency=\"");
+                out.write(CURRENCY[i % CURRENCY.length]);
+                out.write("\">");
+                out.write(Integer.toString(i % 1000));
+                out.write('.');
+                out.write(Integer.toString(10 + i % 90));
+                out.write("</price>\n  <quantity>");
+                out.write(Integer.toString(i % 97));
+                out.write("</quantity>\n  <updated>2024-0");
+                out.write(Integer.toString(1 + i % 9));
+                out.write("-1");
+                out.write(Integer.toString(i % 10));
+                out.write("T12:00:00Z</updated>\n  <description>");
+                out.write(text);
+                out.write(" &amp; #");
+                out.write(Integer.toString(i));
+                out.write("</description>\n </item>\n");
+                // flush so that bytes.size() tracks the encoded output
+                out.flush();
+            }
+            out.write("</catalog>\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    } // generate(Size,boolean,Charset):byte[]
+
+} // class Corpus
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.codelibs.xerces.parsers.DOMParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+/**
+ * Measures DOM construction with the deferred (DeferredDocumentImpl)
+ * and non-deferred (DocumentImpl) builders. The deferred case is
+ * measured both as built and after a full traversal, since deferral only
+ * moves node creation to first access.
+ * <p>
+ * The large corpus is not part of the default parameter set; run it with
+ * <code>-p size=LARGE</code> and a heap of several gigabytes.
+ *
+ * @author CodeLibs Project
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class DOMParserBenchmark {
+
+    /** Feature identifier: defer node expansion. */
+    private static final String DEFER_NODE_EXPANSION = "http://apache.org/xml/features/dom/defer-node-expansion";
+
+    @Param({ "SMALL", "MEDIUM" })
+    public Corpus.Size size;
+
+    @Param({ "true", "false" })
+    public boolean deferred;
+
+    private byte[] document;
+
+    private DOMParser parser;
+
+    @Setup
+    public void setup() throws Exception {
+        document = Corpus.generate(size, true);
+        parser = new DOMParser();
+        parser.setFeature("http://xml.org/sax/features/namespaces", true);
+        parser.setFeature(DEFER_NODE_EXPANSION, deferred);
+    }
+
+    @Benchmark
+    public Document parse() throws Exception {
+        parser.parse(new InputSource(new ByteArrayInputStream(document)));
+        Document doc = parser.getDocument();
+        parser.dropDocumentReferences();
+        return doc;
+    }
+
+    @Benchmark
+    public int parseAndTraverse() throws Exception {
+        parser.parse(new InputSource(new ByteArrayInputStream(document)));
+        Document doc = parser.getDocument();
+        parser.dropDocumentReferences();
+        return count(doc);
+    }
+
+    private static int count(Node node) {
+        int count = 1;
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            count += count(child);
+        }
+        return count;
+    }
+
+} // class DOMParserBenchmark
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.codelibs.xerces.impl.io.UTF16Reader;
+import org.codelibs.xerces.impl.io.UTF8Reader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the UTF8Reader and UTF16Reader decoders in isolation, reading
+ * into a char buffer of the size the entity scanner uses.
+ *
+ * @author CodeLibs Project
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class DecoderBenchmark {
+
+    @Param({ "SMALL", "MEDIUM", "LARGE" })
+    public Corpus.Size size;
+
+    @Param({ "true", "false" })
+    public boolean ascii;
+
+    private byte[] utf8;
+
+    private byte[] utf16;
+
+    private final char[] buffer = new char[8192];
+
+    @Setup
+    public void setup() {
+        utf8 = Corpus.generate(size, ascii, StandardCharsets.UTF_8);
+        utf16 = Corpus.generate(size, ascii, StandardCharsets.UTF_16BE);
+    }
+
+    @Benchmark
+    public long utf8Reader() throws IOException {
+        return drain(new UTF8Reader(new ByteArrayInputStream(utf8)));
+    }
+
+    @Benchmark
+    public long utf16Reader() throws IOException {
+        return drain(new UTF16Reader(new ByteArrayInputStream(utf16), true));
+    }
+
+    private long drain(Reader reader) throws IOException {
+        long checksum = 0;
+        int count;
+        while ((count = reader.read(buffer, 0, buffer.length)) != -1) {
+            checksum += count + buffer[count - 1];
+        }
+        return checksum;
+    }
+
+} // class DecoderBenchmark
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.codelibs.xerces.parsers.SAXParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Measures the non-validating scanner through the SAX API. The parser
+ * instance is reused across invocations, as a parser pool would.
+ *
+ * @author CodeLibs Project
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class SAXParserBenchmark {
+
+    @Param({ "SMALL", "MEDIUM", "LARGE" })
+    public Corpus.Size size;
+
+    @Param({ "true", "false" })
+    public boolean ascii;
+
+    private byte[] document;
+
+    private SAXParser parser;
+
+    private CountingHandler handler;
+
+    @Setup
+    public void setup() throws Exception {
+        document = Corpus.generate(size, ascii);
+        parser = new SAXParser();
+        parser.setFeature("http://xml.org/sax/features/namespaces", true);
+        handler = new CountingHandler();
+        parser.setContentHandler(handler);
+    }
+
+    @Benchmark
+    public void parse(Blackhole bh) throws Exception {
+        parser.parse(new InputSource(new ByteArrayInputStream(document)));
+        bh.consume(handler.elements);
+        bh.consume(handler.characters);
+    }
+
+    /** Counts events so that the callbacks cannot be optimized away. */
+    static final class CountingHandler extends DefaultHandler {
+
+        int elements;
+
+        long characters;
+
+        public void startDocument() {
+            elements = 0;
+            characters = 0;
+        }
+
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            elements += 1 + attributes.getLength();
+        }
+
+        public void characters(char[] ch, int start, int length) {
+            characters += length;
+        }
+
+    } // class CountingHandler
+
+} // class SAXParserBenchmark
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.codelibs.xerces.parsers.SAXParser;
+import org.codelibs.xerces.parsers.XMLGrammarPreparser;
+import org.codelibs.xerces.util.SymbolTable;
+import org.codelibs.xerces.util.XMLGrammarPoolImpl;
+import org.codelibs.xerces.xni.grammars.XMLGrammarDescription;
+import org.codelibs.xerces.xni.parser.XMLInputSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Measures XMLSchemaValidator throughput against a grammar that has been
+ * preparsed into a locked XMLGrammarPoolImpl, so that schema loading is
+ * excluded from the measurement.
+ *
+ * @author CodeLibs Project
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class SchemaValidationBenchmark {
+
+    private static final String NAMESPACES_FEATURE_ID = "http://xml.org/sax/features/namespaces";
+
+    private static final String VALIDATION_FEATURE_ID = "http://xml.org/sax/features/validation";
+
+    private static final String SCHEMA_VALIDATION_FEATURE_ID = "http://apache.org/xml/features/validation/schema";
+
+    private static final String GRAMMAR_POOL = "http://apache.org/xml/properties/internal/grammar-pool";
+
+    @Param({ "SMALL", "MEDIUM", "LARGE" })
+    public Corpus.Size size;
+
+    private byte[] document;
+
+    private SAXParser parser;
+
+    @Setup
+    public void setup() throws Exception {
+        document = Corpus.generate(size, true);
+
+        SymbolTable symbolTable = new SymbolTable();
+        XMLGrammarPoolImpl grammarPool = new XMLGrammarPoolImpl();
+        XMLGrammarPreparser preparser = new XMLGrammarPreparser(symbolTable);
+        preparser.registerPreparser(XMLGrammarDescription.XML_SCHEMA, null);
+        preparser.setProperty(GRAMMAR_POOL, grammarPool);
+        preparser.setFeature(NAMESPACES_FEATURE_ID, true);
+        preparser.setFeature(VALIDATION_FEATURE_ID, true);
+        preparser.setFeature(SCHEMA_VALIDATION_FEATURE_ID, true);
+        preparser.preparseGrammar(XMLGrammarDescription.XML_SCHEMA,
+                new XMLInputSource(null, "catalog.xsd", null, new StringReader(Corpus.SCHEMA), null));
+        grammarPool.lockPool();
+
+        parser = new SAXParser(symbolTable, grammarPool);
+        parser.setFeature(NAMESPACES_FEATURE_ID, true);
+        parser.setFeature(VALIDATION_FEATURE_ID, true);
+        parser.setFeature(SCHEMA_VALIDATION_FEATURE_ID, true);
+        parser.setErrorHandler(new FailingHandler());
+    }
+
+    @Benchmark
+    public void validate() throws Exception {
+        parser.parse(new InputSource(new ByteArrayInputStream(document)));
+    }
+
+    /** Fails the run if the corpus does not validate. */
+    static final class FailingHandler extends DefaultHandler {
+
+        public void error(SAXParseException e) throws SAXParseException {
+            throw e;
+        }
+
+    } // class FailingHandler
+
+} // class SchemaValidationBenchmark
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.codelibs.xerces.dom.DOMOutputImpl;
+import org.codelibs.xerces.parsers.DOMParser;
+import org.codelibs.xerces.xml.serialize.DOMSerializerImpl;
+import org.codelibs.xerces.xml.serialize.OutputFormat;
+import org.codelibs.xerces.xml.serialize.XMLSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+/**
+ * Measures serialization of a fully built DOM through the legacy
+ * XMLSerializer and through the DOM Level 3 LSSerializer implementation
+ * (DOMSerializerImpl). Output is discarded so that only the serializer
+ * and its encoder are measured.
+ *
+ * @author CodeLibs Project
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+@SuppressWarnings("deprecation")
+public class SerializerBenchmark {
+
+    @Param({ "SMALL", "MEDIUM" })
+    public Corpus.Size size;
+
+    @Param({ "true", "false" })
+    public boolean ascii;
+
+    private Document document;
+
+    private DOMSerializerImpl lsSerializer;
+
+    @Setup
+    public void setup() throws Exception {
+        DOMParser parser = new DOMParser();
+        parser.setFeature("http://xml.org/sax/features/namespaces", true);
+        parser.setFeature("http://apache.org/xml/features/dom/defer-node-expansion", false);
+        parser.parse(new InputSource(new ByteArrayInputStream(Corpus.generate(size, ascii))));
+        document = parser.getDocument();
+        lsSerializer = new DOMSerializerImpl();
+    }
+
+    @Benchmark
+    public void xmlSerializer() throws Exception {
+        XMLSerializer serializer = new XMLSerializer(OutputStream.nullOutputStream(), new OutputFormat(document, "UTF-8", false));
+        serializer.setNamespaces(true);
+        serializer.serialize(document);
+    }
+
+    @Benchmark
+    public boolean lsSerializer() {
+        DOMOutputImpl output = new DOMOutputImpl();
+        output.setByteStream(OutputStream.nullOutputStream());
+        output.setEncoding("UTF-8");
+        return lsSerializer.write(document, output);
+    }
+
+} // class SerializerBenchmark
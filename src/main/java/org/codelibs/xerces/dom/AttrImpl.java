@@ -424,6 +424,8 @@ public class AttrImpl extends NodeImpl implements Attr, TypeInfo {
             value = newvalue;
             hasStringValue(true);
             changed();
+            // notify document
+            ownerDocument.modifiedAttrValue(this, oldvalue);
         }
         if (isIdAttribute() && ownerElement != null) {
             ownerDocument.putIdentifier(newvalue, ownerElement);
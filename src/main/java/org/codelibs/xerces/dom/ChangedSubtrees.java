@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.dom;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.w3c.dom.Node;
+
+/**
+ * Records the parts of a document changed since it was last validated,
+ * so that {@link DOMNormalizer} only validates these again.
+ * <p>
+ * A change is recorded as the nearest element whose content or attributes
+ * changed. A change outside of the document element, or any change before
+ * the first validation, calls for validating the whole document.
+ *
+ * @author CodeLibs Project
+ */
+final class ChangedSubtrees {
+
+    //
+    // Data
+    //
+
+    /** The elements whose subtrees changed. */
+    private final HashSet fElements = new HashSet();
+
+    /** Whether the whole document must be validated. */
+    private boolean fAll = true;
+
+    /** Settings of the last validation, null until a validation completes. */
+    private Object[] fSettings;
+
+    //
+    // Methods
+    //
+
+    /**
+     * Records that the content or the attributes of the given node
+     * changed. Text changes are recorded on the enclosing element and
+     * attribute changes on the owner element.
+     *
+     * @param node the changed node
+     */
+    void changed(Node node) {
+        if (fAll) {
+            return;
+        }
+        while (node != null) {
+            switch (node.getNodeType()) {
+            case Node.ELEMENT_NODE:
+                fElements.add(node);
+                return;
+            case Node.ATTRIBUTE_NODE:
+                node = ((AttrImpl) node).getOwnerElement();
+                break;
+            case Node.DOCUMENT_NODE:
+                fElements.clear();
+                fAll = true;
+                return;
+            default:
+                node = node.getParentNode();
+            }
+        }
+    } // changed(Node)
+
+    /**
+     * Returns the elements whose subtrees changed since the last
+     * validation with the given settings, or null if the whole document
+     * must be validated.
+     *
+     * @param settings the settings of the validation about to start
+     */
+    HashSet getElements(Object[] settings) {
+        return fAll || !Arrays.deepEquals(fSettings, settings) ? null : fElements;
+    } // getElements(Object[]):HashSet
+
+    /**
+     * Records that a validation with the given settings completed. Changes
+     * made since, including by the normalization that went with the
+     * validation, are recorded again from here.
+     *
+     * @param settings the settings of the completed validation
+     */
+    void validated(Object[] settings) {
+        fElements.clear();
+        fAll = false;
+        fSettings = settings;
+    } // validated(Object[])
+
+} // class ChangedSubtrees
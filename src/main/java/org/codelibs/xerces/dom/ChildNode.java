@@ -46,6 +46,10 @@ public abstract class ChildNode extends NodeImpl {
     /** Next sibling. */
     protected ChildNode nextSibling;
 
+    /** Slot of this node in the child array of its parent, if the parent
+        has one; only valid while the array holds this node in that slot. */
+    transient int fChildSlot;
+
     //
     // Constructors
     //
@@ -0,0 +1,315 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.dom;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Node;
+
+/**
+ * A text node whose content is kept in fixed size chunks instead of a
+ * single string. The DOM parser creates such nodes for runs of character
+ * data longer than the large text threshold, appending each block of
+ * characters reported by the scanner to the last chunk, so that the text
+ * is never copied into a growing buffer.
+ * <p>
+ * Chunks holding only characters up to U+00FF are stored one byte per
+ * character. The string value is only created the first time it is
+ * asked for, after which the chunks are released and the node behaves
+ * like any other text node. The length, substrings and a reader over the
+ * content are available without creating the string.
+ *
+ * @author CodeLibs Project
+ */
+public class ChunkedTextImpl extends TextImpl {
+
+    //
+    // Constants
+    //
+
+    /** Serialization version. */
+    static final long serialVersionUID = -1757426391860283563L;
+
+    /** Number of bits used for the position in a chunk. */
+    private static final int CHUNK_SHIFT = 13;
+
+    /** Number of characters per chunk. */
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+    /** Mask for the position in a chunk. */
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    //
+    // Data
+    //
+
+    /** The chunks: byte[] for Latin-1 content, char[] otherwise. */
+    private Object[] fChunks = new Object[8];
+
+    /** Number of characters in the chunks. */
+    private int fCount;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Factory constructor.
+     *
+     * @param ownerDoc The document that owns this node
+     */
+    public ChunkedTextImpl(CoreDocumentImpl ownerDoc) {
+        super(ownerDoc, null);
+        needsSyncData(true);
+    } // <init>(CoreDocumentImpl)
+
+    //
+    // Public methods
+    //
+
+    /**
+     * NON-DOM (used by DOMParser): Appends characters to the content of
+     * this node.
+     *
+     * @param ch the characters
+     * @param offset the offset of the first character
+     * @param length the number of characters
+     */
+    public void appendChars(char[] ch, int offset, int length) {
+        if (!needsSyncData()) {
+            data = data.concat(new String(ch, offset, length));
+            return;
+        }
+        while (length > 0) {
+            int index = fCount >> CHUNK_SHIFT;
+            int pos = fCount & CHUNK_MASK;
+            if (pos == 0) {
+                if (index == fChunks.length) {
+                    Object[] chunks = new Object[index << 1];
+                    System.arraycopy(fChunks, 0, chunks, 0, index);
+                    fChunks = chunks;
+                }
+                fChunks[index] = new byte[CHUNK_SIZE];
+            }
+            int count = Math.min(length, CHUNK_SIZE - pos);
+            Object chunk = fChunks[index];
+            if (chunk instanceof byte[]) {
+                byte[] bytes = (byte[]) chunk;
+                int i = 0;
+                while (i < count && ch[offset + i] <= 0xFF) {
+                    bytes[pos + i] = (byte) ch[offset + i];
+                    i++;
+                }
+                if (i < count) {
+                    // widen the chunk
+                    char[] chars = new char[CHUNK_SIZE];
+                    for (int j = 0; j < pos + i; j++) {
+                        chars[j] = (char) (bytes[j] & 0xFF);
+                    }
+                    System.arraycopy(ch, offset + i, chars, pos + i, count - i);
+                    fChunks[index] = chars;
+                }
+            } else {
+                System.arraycopy(ch, offset, (char[]) chunk, pos, count);
+            }
+            fCount += count;
+            offset += count;
+            length -= count;
+        }
+    } // appendChars(char[],int,int)
+
+    /**
+     * NON-DOM: Returns a reader over the content of this node, without
+     * creating its string value. The reader reflects the content at the
+     * time it is created.
+     *
+     * @return a reader over the content
+     */
+    public Reader getReader() {
+        if (needsSyncData()) {
+            return new ChunkReader(fChunks, fCount);
+        }
+        return new StringReader(data);
+    } // getReader():Reader
+
+    /** Returns whether the content is still held in chunks. */
+    public boolean isChunked() {
+        return needsSyncData();
+    }
+
+    //
+    // Node methods
+    //
+
+    /** Returns a copy of this node, which gets its own last chunk. */
+    public Node cloneNode(boolean deep) {
+        ChunkedTextImpl newnode = (ChunkedTextImpl) super.cloneNode(deep);
+        if (fChunks != null) {
+            newnode.fChunks = fChunks.clone();
+            int last = fCount >> CHUNK_SHIFT;
+            if ((fCount & CHUNK_MASK) != 0) {
+                Object chunk = fChunks[last];
+                newnode.fChunks[last] = chunk instanceof byte[] ? (Object) ((byte[]) chunk).clone() : ((char[]) chunk).clone();
+            }
+        }
+        return newnode;
+    } // cloneNode(boolean):Node
+
+    //
+    // Text methods
+    //
+
+    /**
+     * NON-DOM: Set whether this Text is ignorable whitespace, without
+     * creating its string value.
+     */
+    public void setIgnorableWhitespace(boolean ignore) {
+        isIgnorableWhitespace(ignore);
+    }
+
+    /**
+     * NON-DOM: Returns whether this Text is ignorable whitespace, without
+     * creating its string value.
+     */
+    public boolean isIgnorableWhitespace() {
+        return internalIsIgnorableWhitespace();
+    }
+
+    //
+    // CharacterData methods
+    //
+
+    /**
+     * Report number of characters currently stored in this node's
+     * data, without creating its string value.
+     */
+    public int getLength() {
+        if (needsSyncData()) {
+            return fCount;
+        }
+        return data.length();
+    }
+
+    /**
+     * Extracts a range of data from the node, without creating its string
+     * value.
+     */
+    public String substringData(int offset, int count) throws DOMException {
+        if (!needsSyncData()) {
+            return super.substringData(offset, count);
+        }
+        if (count < 0 || offset < 0 || offset > fCount - 1) {
+            String msg = DOMMessageFormatter.formatMessage(DOMMessageFormatter.DOM_DOMAIN, "INDEX_SIZE_ERR", null);
+            throw new DOMException(DOMException.INDEX_SIZE_ERR, msg);
+        }
+        int end = Math.min(offset + count, fCount);
+        char[] chars = new char[end - offset];
+        getChars(fChunks, offset, end, chars, 0);
+        return new String(chars);
+    } // substringData(int,int):String
+
+    //
+    // Protected methods
+    //
+
+    /** Creates the string value and releases the chunks. */
+    protected void synchronizeData() {
+        needsSyncData(false);
+        char[] chars = new char[fCount];
+        getChars(fChunks, 0, fCount, chars, 0);
+        data = new String(chars);
+        fChunks = null;
+        fCount = 0;
+    } // synchronizeData()
+
+    //
+    // Private methods
+    //
+
+    /** Copies the characters from begin to end out of the given chunks. */
+    private static void getChars(Object[] chunks, int begin, int end, char[] dest, int destOffset) {
+        while (begin < end) {
+            int pos = begin & CHUNK_MASK;
+            int count = Math.min(end - begin, CHUNK_SIZE - pos);
+            Object chunk = chunks[begin >> CHUNK_SHIFT];
+            if (chunk instanceof byte[]) {
+                byte[] bytes = (byte[]) chunk;
+                for (int i = 0; i < count; i++) {
+                    dest[destOffset + i] = (char) (bytes[pos + i] & 0xFF);
+                }
+            } else {
+                System.arraycopy((char[]) chunk, pos, dest, destOffset, count);
+            }
+            begin += count;
+            destOffset += count;
+        }
+    } // getChars(Object[],int,int,char[],int)
+
+    //
+    // Classes
+    //
+
+    /** A reader over chunks. */
+    private static final class ChunkReader extends Reader {
+
+        /** The chunks. */
+        private final Object[] fChunks;
+
+        /** Number of characters. */
+        private final int fCount;
+
+        /** Position of the next character. */
+        private int fPosition;
+
+        ChunkReader(Object[] chunks, int count) {
+            fChunks = chunks;
+            fCount = count;
+        }
+
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (fPosition == fCount) {
+                return -1;
+            }
+            int end = fPosition + Math.min(length, fCount - fPosition);
+            getChars(fChunks, fPosition, end, buffer, offset);
+            length = end - fPosition;
+            fPosition = end;
+            return length;
+        }
+
+        public int read() throws IOException {
+            if (fPosition == fCount) {
+                return -1;
+            }
+            int pos = fPosition & CHUNK_MASK;
+            Object chunk = fChunks[fPosition++ >> CHUNK_SHIFT];
+            return chunk instanceof byte[] ? ((byte[]) chunk)[pos] & 0xFF : ((char[]) chunk)[pos];
+        }
+
+        public void close() {
+        }
+
+    } // class ChunkReader
+
+} // class ChunkedTextImpl
@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.lang.reflect.Constructor;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Hashtable;
@@ -114,6 +115,12 @@ public class CoreDocumentImpl extends ParentNode implements Document {
     /** NodeListCache free list */
     transient NodeListCache fFreeNLCache;
 
+    /**
+     * Whether subtrees are being changed by several threads, during which
+     * the NodeListCache free list is not used.
+     */
+    transient boolean fConcurrentChanges;
+
     /**Experimental DOM Level 3 feature: Document encoding */
     protected String encoding;
 
@@ -189,6 +196,27 @@ public class CoreDocumentImpl extends ParentNode implements Document {
     /** Bypass error checking. */
     protected boolean errorChecking = true;
 
+    /** Whether the document was frozen; see {@link #freeze()}. */
+    protected boolean fFrozen = false;
+
+    /** Call user data handlers; see {@link #setUserDataHandlers(boolean)}. */
+    protected boolean userDataHandlers = true;
+
+    /** Index elements by name; see {@link #setElementIndexing(boolean)}. */
+    protected boolean elementIndexEnabled = false;
+
+    /** The element index, built on first use. */
+    transient ElementIndex elementIndex;
+
+    /** Child count from which children are held in an array; see {@link #setChildArrayThreshold(int)}. */
+    protected int childArrayThreshold = 0;
+
+    /** Validate changed subtrees only; see {@link #setIncrementalValidation(boolean)}. */
+    protected boolean incrementalValidation = false;
+
+    /** The parts of the document changed since the last validation. */
+    transient ChangedSubtrees changedSubtrees;
+
     /**
      * Indicates whether the XML version was changed at any point when the document was created.
      * This field helps optimize the normalizeDocument operation.
@@ -350,6 +378,11 @@ public class CoreDocumentImpl extends ParentNode implements Document {
      */
     protected void cloneNode(CoreDocumentImpl newdoc, boolean deep) {
 
+        newdoc.userDataHandlers = userDataHandlers;
+        newdoc.elementIndexEnabled = elementIndexEnabled;
+        newdoc.childArrayThreshold = childArrayThreshold;
+        newdoc.setIncrementalValidation(incrementalValidation);
+
         // clone the children by importing them
         if (needsSyncChildren()) {
             synchronizeChildren();
@@ -752,7 +785,8 @@ public class CoreDocumentImpl extends ParentNode implements Document {
      */
 
     public void setErrorChecking(boolean check) {
-        errorChecking = check;
+        // read only checks of a frozen document cannot be turned off
+        errorChecking = check || fFrozen;
     }
 
     /**
@@ -762,7 +796,7 @@ public class CoreDocumentImpl extends ParentNode implements Document {
      * @param check true to enable strict error checking, false to disable
      */
     public void setStrictErrorChecking(boolean check) {
-        errorChecking = check;
+        errorChecking = check || fFrozen;
     }
 
     /**
@@ -781,6 +815,128 @@ public class CoreDocumentImpl extends ParentNode implements Document {
         return errorChecking;
     }
 
+    /**
+     * NON-DOM: Makes this document read-only so that it can be read by
+     * several threads at the same time.
+     * <p>
+     * Nodes of a deferred document are created as they are first read, and
+     * positional access to children goes through a cache; both modify the
+     * document, which is why a document cannot be shared between threads,
+     * even for reading. Freezing the document creates all the nodes that
+     * have not been created yet and marks every node read-only. After that,
+     * any attempt to modify the tree raises a <code>DOMException</code>
+     * with code <code>NO_MODIFICATION_ALLOWED_ERR</code>, and reading the
+     * tree no longer modifies it.
+     * <p>
+     * A document cannot be unfrozen. Application data attached with
+     * <code>setUserData</code> can still be set and retrieved. The document
+     * must be handed to other threads only after this method returns.
+     */
+    public void freeze() {
+        if (fFrozen) {
+            return;
+        }
+        freezeSubtree(this);
+        // the index must not be built lazily by concurrent readers
+        getElementIndex();
+        // no list cache is used from now on
+        fFreeNLCache = null;
+        if (userData == null) {
+            userData = new WeakHashMap();
+        }
+        userData = Collections.synchronizedMap(userData);
+        errorChecking = true;
+        fFrozen = true;
+    } // freeze()
+
+    /**
+     * NON-DOM: Returns true if this document was frozen.
+     *
+     * @return true if the document is frozen
+     * @see #freeze()
+     */
+    public boolean isFrozen() {
+        return fFrozen;
+    }
+
+    /**
+     * Creates the pending nodes of the given subtree and marks them
+     * read-only. The tree is walked without recursion since it can be
+     * arbitrarily deep.
+     */
+    private void freezeSubtree(NodeImpl root) {
+        Node node = root;
+        while (true) {
+            freezeNode((NodeImpl) node);
+            // also brings in deferred children
+            Node next = node.getFirstChild();
+            while (next == null && node != root) {
+                next = node.getNextSibling();
+                if (next == null) {
+                    node = node.getParentNode();
+                }
+            }
+            if (next == null) {
+                break;
+            }
+            node = next;
+        }
+    } // freezeSubtree(NodeImpl)
+
+    /** Creates the pending data of the given node and marks it read-only. */
+    private void freezeNode(NodeImpl node) {
+        if (node.needsSyncData()) {
+            node.synchronizeData();
+        }
+        switch (node.getNodeType()) {
+        case Node.ELEMENT_NODE:
+        case NodeImpl.ELEMENT_DEFINITION_NODE: {
+            // getAttributes() creates the map if needed
+            freezeMap((NamedNodeMapImpl) node.getAttributes());
+            break;
+        }
+        case Node.DOCUMENT_TYPE_NODE: {
+            DocumentTypeImpl doctype = (DocumentTypeImpl) node;
+            freezeMap((NamedNodeMapImpl) doctype.getEntities());
+            freezeMap((NamedNodeMapImpl) doctype.getNotations());
+            freezeMap((NamedNodeMapImpl) doctype.getElements());
+            break;
+        }
+        case Node.ATTRIBUTE_NODE: {
+            // the value is turned into a Text node on first access
+            ((AttrImpl) node).makeChildNode();
+            break;
+        }
+        }
+        if (node instanceof ParentNode) {
+            ((ParentNode) node).fNodeListCache = null;
+            if (childArrayThreshold > 0) {
+                // readers only use the arrays built here
+                ((ParentNode) node).buildChildArray(childArrayThreshold);
+            }
+        }
+        node.isReadOnly(true);
+    } // freezeNode(NodeImpl)
+
+    /** Freezes the nodes of the given map and the map itself. */
+    private void freezeMap(NamedNodeMapImpl map) {
+        for (int i = 0; i < map.getLength(); i++) {
+            freezeSubtree((NodeImpl) map.item(i));
+        }
+        map.isReadOnly(true);
+    } // freezeMap(NamedNodeMapImpl)
+
+    /**
+     * Throws a <code>NO_MODIFICATION_ALLOWED_ERR</code> if this document
+     * is frozen.
+     */
+    void checkFrozen() {
+        if (fFrozen) {
+            String msg = DOMMessageFormatter.formatMessage(DOMMessageFormatter.DOM_DOMAIN, "NO_MODIFICATION_ALLOWED_ERR", null);
+            throw new DOMException(DOMException.NO_MODIFICATION_ALLOWED_ERR, msg);
+        }
+    }
+
     /**
      * DOM Level 3 CR - Experimental. (Was getActualEncoding)
      *
@@ -860,6 +1016,7 @@ public class CoreDocumentImpl extends ParentNode implements Document {
      * the version number of this document.
      */
     public void setXmlVersion(String value) {
+        checkFrozen();
         if (value.equals("1.0") || value.equals("1.1")) {
             //we need to change the flag value only --
             // when the version set is different than already set.
@@ -927,6 +1084,7 @@ public class CoreDocumentImpl extends ParentNode implements Document {
      * @since DOM Level 3
      */
     public void setXmlStandalone(boolean value) throws DOMException {
+        checkFrozen();
         standalone = value;
     }
 
@@ -998,6 +1156,8 @@ public class CoreDocumentImpl extends ParentNode implements Document {
      */
     public Node renameNode(Node n, String namespaceURI, String name) throws DOMException {
 
+        checkFrozen();
+
         if (errorChecking && n.getOwnerDocument() != this && n != this) {
             String msg = DOMMessageFormatter.formatMessage(DOMMessageFormatter.DOM_DOMAIN, "WRONG_DOCUMENT_ERR", null);
             throw new DOMException(DOMException.WRONG_DOCUMENT_ERR, msg);
@@ -1146,6 +1306,7 @@ public class CoreDocumentImpl extends ParentNode implements Document {
         if (isNormalized() && !isNormalizeDocRequired()) {
             return;
         }
+        checkFrozen();
         if (needsSyncChildren()) {
             synchronizeChildren();
         }
@@ -1205,6 +1366,7 @@ public class CoreDocumentImpl extends ParentNode implements Document {
      * DOM Level 3 WD - Experimental.
      */
     public void setDocumentURI(String documentURI) {
+        checkFrozen();
         fDocumentURI = documentURI;
     }
 
@@ -1448,9 +1610,19 @@ public class CoreDocumentImpl extends ParentNode implements Document {
     // other non-DOM methods
 
     /** NON-DOM:  Get the number associated with this document.   Used to
-     * order documents in the implementation.
+     * order documents in the implementation. Only frozen documents, which
+     * may be read by several threads, synchronize.
      */
     protected int getNodeNumber() {
+        if (fFrozen) {
+            synchronized (this) {
+                return documentNumber();
+            }
+        }
+        return documentNumber();
+    }
+
+    private int documentNumber() {
         if (documentNumber == 0) {
 
             CoreDOMImplementationImpl cd = (CoreDOMImplementationImpl) CoreDOMImplementationImpl.getDOMImplementation();
@@ -1467,6 +1639,15 @@ public class CoreDocumentImpl extends ParentNode implements Document {
      * @return the node number associated with the given node
      */
     protected int getNodeNumber(Node node) {
+        if (fFrozen) {
+            synchronized (this) {
+                return nodeNumber(node);
+            }
+        }
+        return nodeNumber(node);
+    }
+
+    private int nodeNumber(Node node) {
 
         // Check if the node is already in the hash
         // If so, retrieve the node number
@@ -1528,7 +1709,7 @@ public class CoreDocumentImpl extends ParentNode implements Document {
         //  newnode.ownerDocument=this;
         // }
         // else
-        if (source instanceof NodeImpl)
+        if (userDataHandlers && source instanceof NodeImpl)
             userData = ((NodeImpl) source).getUserDataRecord();
         int type = source.getNodeType();
         switch (type) {
@@ -2271,7 +2452,7 @@ public class CoreDocumentImpl extends ParentNode implements Document {
      * Returns a NodeListCache for the given node.
      */
     NodeListCache getNodeListCache(ParentNode owner) {
-        if (fFreeNLCache == null) {
+        if (fFreeNLCache == null || fConcurrentChanges) {
             return new NodeListCache(owner);
         }
         NodeListCache c = fFreeNLCache;
@@ -2279,6 +2460,7 @@ public class CoreDocumentImpl extends ParentNode implements Document {
         c.fChild = null;
         c.fChildIndex = -1;
         c.fLength = -1;
+        c.fChildren = null;
         // revoke previous ownership
         if (c.fOwner != null) {
             c.fOwner.fNodeListCache = null;
@@ -2293,6 +2475,10 @@ public class CoreDocumentImpl extends ParentNode implements Document {
      * Note: The owner node can keep using it until we reuse it
      */
     void freeNodeListCache(NodeListCache c) {
+        if (fConcurrentChanges) {
+            // the owner keeps it
+            return;
+        }
         c.next = fFreeNLCache;
         fFreeNLCache = c;
     }
@@ -2314,38 +2500,34 @@ public class CoreDocumentImpl extends ParentNode implements Document {
      * REVISIT: we could use a free list of UserDataRecord here
      */
     public Object setUserData(Node n, String key, Object data, UserDataHandler handler) {
-        if (data == null) {
-            if (userData != null) {
-                Hashtable t = (Hashtable) userData.get(n);
-                if (t != null) {
-                    Object o = t.remove(key);
-                    if (o != null) {
-                        UserDataRecord r = (UserDataRecord) o;
-                        return r.fData;
-                    }
-                }
+        if (fFrozen) {
+            synchronized (userData) {
+                return putUserData(n, key, data, handler);
             }
-            return null;
-        } else {
-            Hashtable t;
-            if (userData == null) {
-                userData = new WeakHashMap();
-                t = new Hashtable();
-                userData.put(n, t);
-            } else {
-                t = (Hashtable) userData.get(n);
-                if (t == null) {
-                    t = new Hashtable();
-                    userData.put(n, t);
+        }
+        return putUserData(n, key, data, handler);
+    }
+
+    private Object putUserData(Node n, String key, Object data, UserDataHandler handler) {
+        Hashtable t = getUserDataRecord(n);
+        if (data == null) {
+            if (t != null) {
+                UserDataRecord r = (UserDataRecord) t.remove(key);
+                if (r != null) {
+                    return r.fData;
                 }
             }
-            Object o = t.put(key, new UserDataRecord(data, handler));
-            if (o != null) {
-                UserDataRecord r = (UserDataRecord) o;
-                return r.fData;
-            }
             return null;
         }
+        if (t == null) {
+            t = new Hashtable();
+            setUserDataTable(n, t);
+        }
+        UserDataRecord r = (UserDataRecord) t.put(key, new UserDataRecord(data, handler));
+        if (r != null) {
+            return r.fData;
+        }
+        return null;
     }
 
     /**
@@ -2359,36 +2541,40 @@ public class CoreDocumentImpl extends ParentNode implements Document {
      * @since DOM Level 3
      */
     public Object getUserData(Node n, String key) {
-        if (userData == null) {
-            return null;
+        if (fFrozen) {
+            synchronized (userData) {
+                return lookupUserData(n, key);
+            }
         }
-        Hashtable t = (Hashtable) userData.get(n);
+        return lookupUserData(n, key);
+    }
+
+    private Object lookupUserData(Node n, String key) {
+        Hashtable t = getUserDataRecord(n);
         if (t == null) {
             return null;
         }
-        Object o = t.get(key);
-        if (o != null) {
-            UserDataRecord r = (UserDataRecord) o;
+        UserDataRecord r = (UserDataRecord) t.get(key);
+        if (r != null) {
             return r.fData;
         }
         return null;
     }
 
     /**
-     * Retrieves the user data record hashtable for the specified node.
+     * Retrieves the user data record hashtable for the specified node. Nodes
+     * that never had user data are answered without a table lookup. The
+     * per-node tables, like the identifier table, are Hashtables because
+     * subclasses get them through this method.
      *
      * @param n the node to retrieve the user data record for
      * @return the hashtable containing user data records, or null if none exists
      */
     protected Hashtable getUserDataRecord(Node n) {
-        if (userData == null) {
-            return null;
-        }
-        Hashtable t = (Hashtable) userData.get(n);
-        if (t == null) {
+        if (userData == null || (n instanceof NodeImpl && !((NodeImpl) n).hasUserData())) {
             return null;
         }
-        return t;
+        return (Hashtable) userData.get(n);
     }
 
     /**
@@ -2397,10 +2583,7 @@ public class CoreDocumentImpl extends ParentNode implements Document {
      * @return The removed table.
      */
     Hashtable removeUserDataTable(Node n) {
-        if (userData == null) {
-            return null;
-        }
-        return (Hashtable) userData.get(n);
+        return getUserDataRecord(n);
     }
 
     /**
@@ -2414,9 +2597,162 @@ public class CoreDocumentImpl extends ParentNode implements Document {
         }
         if (data != null) {
             userData.put(n, data);
+            if (n instanceof NodeImpl) {
+                ((NodeImpl) n).hasUserData(true);
+            }
         }
     }
 
+    /**
+     * NON-DOM: Sets whether the user data handlers are called when nodes
+     * are cloned, imported, adopted or renamed. Turning the handlers off
+     * saves looking up the user data of every node copied by
+     * <code>cloneNode</code> and <code>importNode</code>; the user data
+     * itself is still available. The default is true.
+     *
+     * @param handlers true to call the user data handlers
+     */
+    public void setUserDataHandlers(boolean handlers) {
+        userDataHandlers = handlers;
+    }
+
+    /**
+     * NON-DOM: Returns whether the user data handlers are called.
+     *
+     * @return true if the user data handlers are called
+     * @see #setUserDataHandlers(boolean)
+     */
+    public boolean getUserDataHandlers() {
+        return userDataHandlers;
+    }
+
+    /**
+     * NON-DOM: Sets whether the elements of this document are indexed by
+     * name. With the index, <code>getElementsByTagName</code> and
+     * <code>getElementsByTagNameNS</code> find the matching elements without
+     * walking the tree. The index is built by the first lookup and then
+     * kept up to date as nodes are inserted, removed and renamed, which
+     * makes these operations slightly more expensive. The default is false.
+     *
+     * @param enabled true to index the elements
+     */
+    public void setElementIndexing(boolean enabled) {
+        elementIndexEnabled = enabled;
+        if (!enabled) {
+            elementIndex = null;
+        } else if (fFrozen) {
+            getElementIndex();
+        }
+    }
+
+    /**
+     * NON-DOM: Returns whether the elements of this document are indexed by
+     * name.
+     *
+     * @return true if the elements are indexed
+     * @see #setElementIndexing(boolean)
+     */
+    public boolean getElementIndexing() {
+        return elementIndexEnabled;
+    }
+
+    /**
+     * NON-DOM: Sets the number of children from which the children of a
+     * node are also held in an array, so that <code>item(i)</code> and
+     * <code>getLength()</code> on its child list take constant time
+     * whatever the access pattern. The array is built on the first such
+     * call once the node has that many children, and is then kept up to
+     * date by <code>insertBefore</code> and <code>removeChild</code> at an
+     * amortized constant cost, except that inserting in the middle, where
+     * no removed child left room, shifts the children on one side.
+     * Zero, the default, disables the arrays. On a frozen document the
+     * arrays are built by {@link #freeze()}, so this must be set before.
+     *
+     * @param threshold the number of children, or 0
+     */
+    public void setChildArrayThreshold(int threshold) {
+        childArrayThreshold = threshold < 0 ? 0 : threshold;
+    }
+
+    /**
+     * NON-DOM: Returns the number of children from which the children of
+     * a node are held in an array, or 0 if they never are.
+     *
+     * @return the child count threshold
+     * @see #setChildArrayThreshold(int)
+     */
+    public int getChildArrayThreshold() {
+        return childArrayThreshold;
+    }
+
+    /**
+     * NON-DOM: Sets whether <code>normalizeDocument</code> only validates,
+     * and normalizes, again the parts of this document changed since it
+     * was last validated against an XML Schema. The changes are followed
+     * from here on, and the next validation covers the whole document.
+     * <p>
+     * Each changed element is validated again from the nearest element
+     * known to the previous validation, or from the outermost ancestor
+     * with identity constraints, as these cover the whole subtree of the
+     * element declaring them. This relies on the declarations kept by PSVI
+     * elements, so the document must be created with PSVI support and the
+     * <code>psvi</code> parameter set. The whole document is validated again
+     * when the validation settings change, when a node outside of the
+     * document element changes and when the document has ID attributes,
+     * which are checked across the whole document. Errors are only
+     * reported for the parts validated. The default is false.
+     *
+     * @param enabled true to only validate the changed parts
+     */
+    public void setIncrementalValidation(boolean enabled) {
+        incrementalValidation = enabled;
+        changedSubtrees = enabled ? new ChangedSubtrees() : null;
+    }
+
+    /**
+     * NON-DOM: Returns whether only the changed parts of this document are
+     * validated again.
+     *
+     * @return true if only the changed parts are validated again
+     * @see #setIncrementalValidation(boolean)
+     */
+    public boolean getIncrementalValidation() {
+        return incrementalValidation;
+    }
+
+    /**
+     * Returns true if separate subtrees of this document can be changed by
+     * several threads at the same time, which requires that nothing
+     * outside of the subtrees follows the changes. The changes must be
+     * made between calls to {@link #setConcurrentChanges(boolean)}.
+     * They may still reach the change count, which the caller updates
+     * afterwards, but none of the other tables of the document: the
+     * identifiers, the user data, the event listeners and the node numbers.
+     */
+    boolean canChangeSubtreesConcurrently() {
+        return elementIndex == null && changedSubtrees == null;
+    }
+
+    /**
+     * Starts or ends changing subtrees on several threads. In between,
+     * node list caches are neither taken from nor put into the free
+     * list shared by the nodes of this document.
+     */
+    void setConcurrentChanges(boolean concurrent) {
+        fConcurrentChanges = concurrent;
+    }
+
+    /**
+     * Returns the element index, building it if needed, or null if the
+     * elements are not indexed.
+     */
+    ElementIndex getElementIndex() {
+        if (elementIndex == null && elementIndexEnabled) {
+            elementIndex = new ElementIndex(this);
+        }
+        return elementIndex;
+    }
+
     /**
      * Call user data handlers when a node is deleted (finalized)
      * @param n The node this operation applies to.
@@ -2424,10 +2760,9 @@ public class CoreDocumentImpl extends ParentNode implements Document {
      * @param operation The operation - import, clone, or delete.
      */
     protected void callUserDataHandlers(Node n, Node c, short operation) {
-        if (userData == null) {
+        if (userData == null || !userDataHandlers) {
             return;
         }
-        //Hashtable t = (Hashtable) userData.get(n);
         if (n instanceof NodeImpl) {
             Hashtable t = ((NodeImpl) n).getUserDataRecord();
             if (t == null || t.isEmpty()) {
@@ -2445,7 +2780,7 @@ public class CoreDocumentImpl extends ParentNode implements Document {
      * @param handlers Data associated with n.
     */
     void callUserDataHandlers(Node n, Node c, short operation, Hashtable userData) {
-        if (userData == null || userData.isEmpty()) {
+        if (userData == null || userData.isEmpty() || !userDataHandlers) {
             return;
         }
         Iterator entries = userData.entrySet().iterator();
@@ -2697,6 +3032,9 @@ public class CoreDocumentImpl extends ParentNode implements Document {
      * A method to be called when a character data node has been modified
      */
     void modifiedCharacterData(NodeImpl node, String oldvalue, String value, boolean replace) {
+        if (changedSubtrees != null) {
+            changedSubtrees.changed(node);
+        }
     }
 
     /**
@@ -2709,18 +3047,30 @@ public class CoreDocumentImpl extends ParentNode implements Document {
      * A method to be called when a node has been inserted in the tree.
      */
     void insertedNode(NodeImpl node, NodeImpl newInternal, boolean replace) {
+        if (elementIndex != null) {
+            elementIndex.inserted(newInternal);
+        }
+        if (changedSubtrees != null) {
+            changedSubtrees.changed(node);
+        }
     }
 
     /**
      * A method to be called when a node is about to be removed from the tree.
      */
     void removingNode(NodeImpl node, NodeImpl oldChild, boolean replace) {
+        if (elementIndex != null) {
+            elementIndex.removing(oldChild);
+        }
     }
 
     /**
      * A method to be called when a node has been removed from the tree.
      */
     void removedNode(NodeImpl node, boolean replace) {
+        if (changedSubtrees != null) {
+            changedSubtrees.changed(node);
+        }
     }
 
     /**
@@ -2751,18 +3101,27 @@ public class CoreDocumentImpl extends ParentNode implements Document {
      * A method to be called when an attribute value has been modified
      */
     void modifiedAttrValue(AttrImpl attr, String oldvalue) {
+        if (changedSubtrees != null) {
+            changedSubtrees.changed(attr);
+        }
     }
 
     /**
      * A method to be called when an attribute node has been set
      */
     void setAttrNode(AttrImpl attr, AttrImpl previous) {
+        if (changedSubtrees != null) {
+            changedSubtrees.changed(attr);
+        }
     }
 
     /**
      * A method to be called when an attribute node has been removed
      */
     void removedAttrNode(AttrImpl attr, NodeImpl oldOwner, String name) {
+        if (changedSubtrees != null) {
+            changedSubtrees.changed(oldOwner);
+        }
     }
 
     /**
@@ -2777,6 +3136,21 @@ public class CoreDocumentImpl extends ParentNode implements Document {
     void renamedElement(Element oldEl, Element newEl) {
     }
 
+    /**
+     * A method to be called when the name of an element was changed in place
+     */
+    void changedElementName(ElementImpl el, String oldTagName, String oldLocalName) {
+        if (elementIndex != null) {
+            elementIndex.renamed(el, oldTagName, oldLocalName);
+        }
+        if (changedSubtrees != null) {
+            // the content of the parent no longer has the same names
+            changedSubtrees.changed(el.getParentNode());
+        }
+        // lists of elements by name must be refreshed
+        changed();
+    }
+
     /**
      * The serialized forms of the user data and node table
      * maps are Hashtables. Convert them into WeakHashMaps
@@ -2790,10 +3164,20 @@ public class CoreDocumentImpl extends ParentNode implements Document {
         in.defaultReadObject();
         if (userData != null) {
             userData = new WeakHashMap(userData);
+            // streams written by older versions do not flag the nodes
+            for (Iterator nodes = userData.keySet().iterator(); nodes.hasNext();) {
+                Object node = nodes.next();
+                if (node instanceof NodeImpl) {
+                    ((NodeImpl) node).hasUserData(true);
+                }
+            }
         }
         if (nodeTable != null) {
             nodeTable = new WeakHashMap(nodeTable);
         }
+        if (fFrozen) {
+            userData = Collections.synchronizedMap(userData != null ? userData : new WeakHashMap());
+        }
     }
 
     /**
@@ -144,6 +144,12 @@ public class DOMConfigurationImpl extends ParserConfigurationSettings implements
     /** property identifier: security manager. */
     protected static final String SECURITY_MANAGER = Constants.XERCES_PROPERTY_PREFIX + Constants.SECURITY_MANAGER_PROPERTY;
 
+    /** Property identifier: document normalization threads. */
+    protected static final String NORMALIZATION_THREADS = Constants.XERCES_PROPERTY_PREFIX + Constants.DOM_NORMALIZATION_THREADS_PROPERTY;
+
+    /** Property identifier: root element declaration, used when validating parts of a document. */
+    protected static final String ROOT_ELEMENT_DECL = Constants.XERCES_PROPERTY_PREFIX + Constants.ROOT_ELEMENT_DECLARATION_PROPERTY;
+
     /** Property identifier: error handler. */
     protected static final String ERROR_HANDLER = Constants.XERCES_PROPERTY_PREFIX + Constants.ERROR_HANDLER_PROPERTY;
 
@@ -311,7 +317,8 @@ public class DOMConfigurationImpl extends ParserConfigurationSettings implements
         // add default recognized properties
         final String[] recognizedProperties = { XML_STRING, SYMBOL_TABLE, ERROR_HANDLER, ENTITY_RESOLVER, ERROR_REPORTER, ENTITY_MANAGER,
                 VALIDATION_MANAGER, GRAMMAR_POOL, SECURITY_MANAGER, JAXP_SCHEMA_SOURCE, JAXP_SCHEMA_LANGUAGE, SCHEMA_LOCATION,
-                SCHEMA_NONS_LOCATION, DTD_VALIDATOR_PROPERTY, DTD_VALIDATOR_FACTORY_PROPERTY, SCHEMA_DV_FACTORY };
+                SCHEMA_NONS_LOCATION, DTD_VALIDATOR_PROPERTY, DTD_VALIDATOR_FACTORY_PROPERTY, SCHEMA_DV_FACTORY, NORMALIZATION_THREADS,
+                ROOT_ELEMENT_DECL };
         addRecognizedProperties(recognizedProperties);
 
         // set default values for normalization features
@@ -745,6 +752,12 @@ public class DOMConfigurationImpl extends ParserConfigurationSettings implements
                 } else {
                     throw newTypeMismatchError(name);
                 }
+            } else if (name.equalsIgnoreCase(NORMALIZATION_THREADS)) {
+                if (value instanceof Integer || value == null) {
+                    setProperty(NORMALIZATION_THREADS, value);
+                } else {
+                    throw newTypeMismatchError(name);
+                }
             } else {
                 // REVISIT: check if this is a boolean parameter -- type mismatch should be thrown.
                 //parameter is not recognized
@@ -813,6 +826,8 @@ public class DOMConfigurationImpl extends ParserConfigurationSettings implements
             return getProperty(GRAMMAR_POOL);
         } else if (name.equalsIgnoreCase(SECURITY_MANAGER)) {
             return getProperty(SECURITY_MANAGER);
+        } else if (name.equalsIgnoreCase(NORMALIZATION_THREADS)) {
+            return getProperty(NORMALIZATION_THREADS);
         } else {
             throw newFeatureNotFoundError(name);
         }
@@ -883,6 +898,8 @@ public class DOMConfigurationImpl extends ParserConfigurationSettings implements
             return (value instanceof XMLGrammarPool) ? true : false;
         } else if (name.equalsIgnoreCase(SECURITY_MANAGER)) {
             return (value instanceof org.codelibs.xerces.util.SecurityManager) ? true : false;
+        } else if (name.equalsIgnoreCase(NORMALIZATION_THREADS)) {
+            return (value instanceof Integer) ? true : false;
         } else {
             //false if the parameter is not recognized or the requested value is not supported.
             return false;
@@ -934,6 +951,7 @@ public class DOMConfigurationImpl extends ParserConfigurationSettings implements
             parameters.add(SECURITY_MANAGER);
             parameters.add(SYMBOL_TABLE);
             parameters.add(SEND_PSVI);
+            parameters.add(NORMALIZATION_THREADS);
 
             fRecognizedParameters = new DOMStringListImpl(parameters);
 
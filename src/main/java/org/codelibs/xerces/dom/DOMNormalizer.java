@@ -19,7 +19,12 @@ package org.codelibs.xerces.dom;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 import org.codelibs.xerces.impl.Constants;
 import org.codelibs.xerces.impl.RevalidationHandler;
@@ -47,11 +52,13 @@ import org.codelibs.xerces.xni.parser.XMLComponent;
 import org.codelibs.xerces.xni.parser.XMLDocumentSource;
 import org.codelibs.xerces.xs.AttributePSVI;
 import org.codelibs.xerces.xs.ElementPSVI;
+import org.codelibs.xerces.xs.XSElementDeclaration;
 import org.codelibs.xerces.xs.XSTypeDefinition;
 import org.w3c.dom.Attr;
 import org.w3c.dom.Comment;
 import org.w3c.dom.DOMError;
 import org.w3c.dom.DOMErrorHandler;
+import org.w3c.dom.DOMLocator;
 import org.w3c.dom.Document;
 import org.w3c.dom.DocumentType;
 import org.w3c.dom.Element;
@@ -102,6 +109,9 @@ public class DOMNormalizer implements XMLDocumentHandler {
     /** prefix added by namespace fixup algorithm should follow a pattern "NS" + index*/
     protected final static String PREFIX = "NS";
 
+    /** Minimum number of element children for these to be normalized on several threads. */
+    private static final int MIN_CONCURRENT_CHILDREN = 8;
+
     //
     // Data
     //
@@ -138,7 +148,7 @@ public class DOMNormalizer implements XMLDocumentHandler {
     protected boolean fPSVI = false;
 
     /** The namespace context of this document: stores namespaces in scope */
-    protected final NamespaceContext fNamespaceContext = new NamespaceSupport();
+    protected final NamespaceContext fNamespaceContext = new NamespaceBindings();
 
     /** Stores all namespace bindings on the current element */
     protected final NamespaceContext fLocalNSBinder = new NamespaceSupport();
@@ -173,6 +183,18 @@ public class DOMNormalizer implements XMLDocumentHandler {
     // Check if element content is all "ignorable whitespace"
     private boolean fAllWhitespace = false;
 
+    /** Pool normalizing element subtrees, or null when normalizing on the calling thread only. */
+    private ForkJoinPool fPool;
+
+    /** Tasks submitted to the pool. */
+    private ArrayList fTasks;
+
+    /**
+     * Errors reported so far when normalizing on several threads, in
+     * document order: errors and subtrees whose errors are reported there.
+     */
+    private ArrayList fErrors;
+
     // Constructor
     //
 
@@ -198,6 +220,9 @@ public class DOMNormalizer implements XMLDocumentHandler {
         String xmlVersion = fDocument.getXmlVersion();
         String schemaType = null;
         String[] schemaLocations = null;
+        // settings of an incremental validation and the elements to validate
+        Object[] settings = null;
+        ArrayList roots = null;
 
         // intialize and reset DOMNormalizer component
         //
@@ -219,6 +244,19 @@ public class DOMNormalizer implements XMLDocumentHandler {
 
                 // check if we need to fill in PSVI
                 fPSVI = ((fConfiguration.features & DOMConfigurationImpl.PSVI) != 0) ? true : false;
+
+                // the declarations kept by PSVI elements allow validating parts of the document
+                if (fPSVI && fDocument.changedSubtrees != null) {
+                    settings = new Object[] { Short.valueOf(fConfiguration.features), xmlVersion,
+                            fConfiguration.getProperty(DOMConfigurationImpl.JAXP_SCHEMA_SOURCE),
+                            fConfiguration.getProperty(DOMConfigurationImpl.SCHEMA_LOCATION),
+                            fConfiguration.getProperty(DOMConfigurationImpl.SCHEMA_NONS_LOCATION),
+                            fConfiguration.getProperty(DOMConfigurationImpl.GRAMMAR_POOL) };
+                    HashSet changed = fDocument.changedSubtrees.getElements(settings);
+                    if (changed != null) {
+                        roots = revalidationRoots(changed);
+                    }
+                }
             } else {
                 schemaType = XMLGrammarDescription.XML_DTD;
                 if (schemaLang != null) {
@@ -245,32 +283,45 @@ public class DOMNormalizer implements XMLDocumentHandler {
         fErrorHandler = (DOMErrorHandler) fConfiguration.getParameter(Constants.DOM_ERROR_HANDLER);
         if (fValidationHandler != null) {
             fValidationHandler.setDocumentHandler(this);
-            fValidationHandler.startDocument(new SimpleLocator(fDocument.fDocumentURI, fDocument.fDocumentURI, -1, -1), fDocument.encoding,
-                    fNamespaceContext, null);
-            fValidationHandler.xmlDecl(fDocument.getXmlVersion(), fDocument.getXmlEncoding(), fDocument.getXmlStandalone() ? "yes" : "no",
-                    null);
+            if (roots == null) {
+                startValidation();
+            }
         }
         try {
             if (schemaType == XMLGrammarDescription.XML_DTD) {
                 processDTD(xmlVersion, schemaLocations != null ? schemaLocations[0] : null);
             }
 
-            Node kid, next;
-            for (kid = fDocument.getFirstChild(); kid != null; kid = next) {
-                next = kid.getNextSibling();
-                kid = normalizeNode(kid);
-                if (kid != null) { // don't advance
-                    next = kid;
+            Integer threads = (Integer) fConfiguration.getProperty(DOMConfigurationImpl.NORMALIZATION_THREADS);
+            if (roots != null) {
+                revalidate(roots);
+            } else if (threads != null && threads.intValue() > 1 && fValidationHandler == null && fDocument.canChangeSubtreesConcurrently()
+                    && ((fConfiguration.features & DOMConfigurationImpl.NSDECL) != 0 || fDocument.identifiers == null
+                            || fDocument.identifiers.isEmpty())) {
+                normalizeConcurrently(threads.intValue());
+            } else {
+                Node kid, next;
+                for (kid = fDocument.getFirstChild(); kid != null; kid = next) {
+                    next = kid.getNextSibling();
+                    kid = normalizeNode(kid);
+                    if (kid != null) { // don't advance
+                        next = kid;
+                    }
                 }
             }
 
             // release resources
             if (fValidationHandler != null) {
-                fValidationHandler.endDocument(null);
+                if (roots == null) {
+                    fValidationHandler.endDocument(null);
+                }
                 fValidationHandler.setDocumentHandler(null);
                 CoreDOMImplementationImpl.singleton.releaseValidator(schemaType, xmlVersion, fValidationHandler);
                 fValidationHandler = null;
             }
+            if (settings != null) {
+                fDocument.changedSubtrees.validated(settings);
+            }
         } catch (RuntimeException e) {
             // release resources
             if (fValidationHandler != null) {
@@ -414,11 +465,13 @@ public class DOMNormalizer implements XMLDocumentHandler {
 
             // normalize children
             Node kid, next;
-            for (kid = elem.getFirstChild(); kid != null; kid = next) {
-                next = kid.getNextSibling();
-                kid = normalizeNode(kid);
-                if (kid != null) {
-                    next = kid; // don't advance
+            if (fPool == null || !normalizeChildrenConcurrently(elem)) {
+                for (kid = elem.getFirstChild(); kid != null; kid = next) {
+                    next = kid.getNextSibling();
+                    kid = normalizeNode(kid);
+                    if (kid != null) {
+                        next = kid; // don't advance
+                    }
                 }
             }
             if (DEBUG_ND) {
@@ -674,6 +727,279 @@ public class DOMNormalizer implements XMLDocumentHandler {
         return null;
     }//normalizeNode
 
+    /**
+     * Starts a validation, of the whole document or of one of its parts.
+     */
+    private void startValidation() {
+        fValidationHandler.startDocument(new SimpleLocator(fDocument.fDocumentURI, fDocument.fDocumentURI, -1, -1), fDocument.encoding,
+                fNamespaceContext, null);
+        fValidationHandler.xmlDecl(fDocument.getXmlVersion(), fDocument.getXmlEncoding(), fDocument.getXmlStandalone() ? "yes" : "no", null);
+    } // startValidation()
+
+    /**
+     * Returns the elements from which to validate the given changed
+     * elements again, or null if the whole document must be validated.
+     * An element is validated from the nearest ancestor-or-self that has
+     * a declaration, or from the outermost one whose declaration has
+     * identity constraints.
+     */
+    private ArrayList revalidationRoots(HashSet changed) {
+        // ID and IDREF values are checked across the whole document
+        if (fDocument.identifiers != null && !fDocument.identifiers.isEmpty()) {
+            return null;
+        }
+        Node documentElement = fDocument.getDocumentElement();
+        HashSet roots = new HashSet();
+        for (Iterator i = changed.iterator(); i.hasNext();) {
+            Node root = null;
+            Node node = (Node) i.next();
+            for (; node != null && node != fDocument; node = node.getParentNode()) {
+                if (node instanceof PSVIElementNSImpl) {
+                    XSElementDeclaration decl = ((PSVIElementNSImpl) node).getElementDeclaration();
+                    if (decl != null && (root == null || decl.getIdentityConstraints().getLength() != 0)) {
+                        root = node;
+                    }
+                }
+            }
+            if (node == null) {
+                // no longer in the document
+                continue;
+            }
+            if (root == null || root == documentElement) {
+                return null;
+            }
+            roots.add(root);
+        }
+        // the subtrees of the roots must not overlap
+        ArrayList list = new ArrayList();
+        for (Iterator i = roots.iterator(); i.hasNext();) {
+            Node root = (Node) i.next();
+            Node ancestor = root.getParentNode();
+            while (ancestor != null && !roots.contains(ancestor)) {
+                ancestor = ancestor.getParentNode();
+            }
+            if (ancestor == null) {
+                list.add(root);
+            }
+        }
+        return list;
+    } // revalidationRoots(HashSet):ArrayList
+
+    /**
+     * Normalizes and validates the subtrees of the given elements, each
+     * against the declaration the element was last validated against and
+     * in the scope of the namespaces declared by its ancestors.
+     */
+    private void revalidate(ArrayList roots) {
+        try {
+            for (int i = 0; i < roots.size(); i++) {
+                PSVIElementNSImpl root = (PSVIElementNSImpl) roots.get(i);
+                fConfiguration.setProperty(DOMConfigurationImpl.ROOT_ELEMENT_DECL, root.getElementDeclaration());
+                fConfiguration.fValidationManager.reset();
+                ((XMLComponent) fValidationHandler).reset(fConfiguration);
+
+                fNamespaceContext.reset();
+                fNamespaceContext.declarePrefix(XMLSymbols.EMPTY_STRING, null);
+                declareAncestorNamespaces(root.getParentNode());
+
+                startValidation();
+                normalizeNode(root);
+                fValidationHandler.endDocument(null);
+            }
+        } finally {
+            fConfiguration.setProperty(DOMConfigurationImpl.ROOT_ELEMENT_DECL, null);
+        }
+    } // revalidate(ArrayList)
+
+    /**
+     * Declares the namespaces declared by the given element and its
+     * ancestors, outermost first.
+     */
+    private void declareAncestorNamespaces(Node node) {
+        if (node == null || node.getNodeType() == Node.DOCUMENT_NODE) {
+            return;
+        }
+        declareAncestorNamespaces(node.getParentNode());
+        if (node.getNodeType() != Node.ELEMENT_NODE) {
+            return;
+        }
+        fNamespaceContext.pushContext();
+        NamedNodeMap attributes = node.getAttributes();
+        for (int k = 0; k < attributes.getLength(); k++) {
+            Attr attr = (Attr) attributes.item(k);
+            if (NamespaceContext.XMLNS_URI.equals(attr.getNamespaceURI())) {
+                String value = fSymbolTable.addSymbol(attr.getNodeValue());
+                if (XMLSymbols.PREFIX_XMLNS.equals(attr.getPrefix())) {
+                    if (value.length() != 0) {
+                        fNamespaceContext.declarePrefix(fSymbolTable.addSymbol(attr.getLocalName()), value);
+                    }
+                } else {
+                    fNamespaceContext.declarePrefix(XMLSymbols.EMPTY_STRING, value.length() != 0 ? value : null);
+                }
+            }
+        }
+    } // declareAncestorNamespaces(Node)
+
+    /**
+     * Normalizes the children of the document, handing the subtrees of
+     * elements with many element children over to a pool of threads. The
+     * subtrees are independent: their nodes are only changed by the thread
+     * normalizing them. Errors are collected and reported once all the
+     * subtrees are normalized, in the order in which normalizing on a
+     * single thread reports them. Since the subtrees are normalized before
+     * the errors are reported, stopping on an error does not prevent the
+     * later subtrees from being normalized.
+     * @param threads the number of threads
+     */
+    private void normalizeConcurrently(int threads) {
+        // nodes must not be created on the pool
+        synchronizeTree(fDocument);
+        DOMErrorHandler errorHandler = fErrorHandler;
+        fErrors = new ArrayList();
+        fErrorHandler = new ErrorList(fErrors);
+        fTasks = new ArrayList();
+        fDocument.setConcurrentChanges(true);
+        fPool = new ForkJoinPool(threads);
+        try {
+            Node kid, next;
+            for (kid = fDocument.getFirstChild(); kid != null; kid = next) {
+                next = kid.getNextSibling();
+                kid = normalizeNode(kid);
+                if (kid != null) { // don't advance
+                    next = kid;
+                }
+            }
+        } catch (RuntimeException e) {
+            // a fatal error was recorded, report it in order
+            if (e != abort) {
+                throw e;
+            }
+        } finally {
+            // the tree must not change once this method returns
+            for (int i = 0; i < fTasks.size(); i++) {
+                ((ForkJoinTask) fTasks.get(i)).quietlyJoin();
+            }
+            // the change count is not updated atomically by the threads
+            fDocument.changed();
+            fDocument.setConcurrentChanges(false);
+            fPool.shutdown();
+            fPool = null;
+            fTasks = null;
+            fErrorHandler = errorHandler;
+        }
+        ArrayList errors = fErrors;
+        fErrors = null;
+        reportErrors(errors, errorHandler);
+    } // normalizeConcurrently(int)
+
+    /**
+     * Normalizes the children of the given element, handing its element
+     * children over to the pool if there are enough of them.
+     * @return false if the children were not normalized
+     */
+    private boolean normalizeChildrenConcurrently(ElementImpl elem) {
+        int count = 0;
+        for (Node kid = elem.getFirstChild(); kid != null; kid = kid.getNextSibling()) {
+            if (kid.getNodeType() == Node.ELEMENT_NODE) {
+                count++;
+            }
+        }
+        if (count < MIN_CONCURRENT_CHILDREN) {
+            return false;
+        }
+        // a few tasks per thread, to balance the load
+        int size = Math.max(1, count / (fPool.getParallelism() * 4));
+        String[] bindings = ((NamespaceBindings) fNamespaceContext).getBindings();
+        SubtreeTask task = null;
+        Node kid, next;
+        for (kid = elem.getFirstChild(); kid != null; kid = next) {
+            next = kid.getNextSibling();
+            if (kid.getNodeType() == Node.ELEMENT_NODE) {
+                if (task == null) {
+                    task = new SubtreeTask(this, bindings, size);
+                }
+                Subtree subtree = new Subtree((ElementImpl) kid);
+                task.fSubtrees[task.fCount++] = subtree;
+                fErrors.add(subtree);
+                if (task.fCount == size) {
+                    fTasks.add(fPool.submit(task));
+                    task = null;
+                }
+                continue;
+            }
+            kid = normalizeNode(kid);
+            if (kid != null) {
+                next = kid; // don't advance
+            }
+        }
+        if (task != null) {
+            fTasks.add(fPool.submit(task));
+        }
+        return true;
+    } // normalizeChildrenConcurrently(ElementImpl):boolean
+
+    /**
+     * Reports the collected errors to the given handler, stopping as
+     * reportDOMError does.
+     */
+    private static void reportErrors(ArrayList errors, DOMErrorHandler errorHandler) {
+        for (int i = 0; i < errors.size(); i++) {
+            Object entry = errors.get(i);
+            if (entry instanceof Subtree) {
+                Subtree subtree = (Subtree) entry;
+                if (subtree.fErrors != null) {
+                    reportErrors(subtree.fErrors, errorHandler);
+                }
+                if (subtree.fException != null) {
+                    throw subtree.fException;
+                }
+                continue;
+            }
+            DOMError error = (DOMError) entry;
+            if (errorHandler != null && !errorHandler.handleError(error)) {
+                throw abort;
+            }
+            if (error.getSeverity() == DOMError.SEVERITY_FATAL_ERROR) {
+                throw abort;
+            }
+        }
+    } // reportErrors(ArrayList,DOMErrorHandler)
+
+    /**
+     * Creates the pending nodes and data of the given tree, which must not
+     * be done by several threads at the same time.
+     */
+    private static void synchronizeTree(CoreDocumentImpl document) {
+        Node node = document;
+        while (node != null) {
+            NodeImpl impl = (NodeImpl) node;
+            if (impl.needsSyncData()) {
+                impl.synchronizeData();
+            }
+            if (node.getNodeType() == Node.ELEMENT_NODE && node.hasAttributes()) {
+                NamedNodeMap attributes = node.getAttributes();
+                for (int i = 0; i < attributes.getLength(); i++) {
+                    AttrImpl attr = (AttrImpl) attributes.item(i);
+                    if (attr.needsSyncData()) {
+                        attr.synchronizeData();
+                    }
+                    if (attr.needsSyncChildren()) {
+                        attr.synchronizeChildren();
+                    }
+                }
+            }
+            // also brings in deferred children and entity reference content
+            Node next = node.getFirstChild();
+            while (next == null && node != document) {
+                next = node.getNextSibling();
+                if (next == null) {
+                    node = node.getParentNode();
+                }
+            }
+            node = next;
+        }
+    } // synchronizeTree(CoreDocumentImpl)
+
     private void processDTD(String xmlVersion, String schemaLocation) {
 
         String rootName = null;
@@ -1403,6 +1729,139 @@ public class DOMNormalizer implements XMLDocumentHandler {
         return value;
     }
 
+    /**
+     * Namespace context whose bindings can be copied to the context of
+     * another normalizer.
+     */
+    private static final class NamespaceBindings extends NamespaceSupport {
+
+        /** Returns the bindings in scope, outermost first. */
+        String[] getBindings() {
+            String[] bindings = new String[fNamespaceSize];
+            System.arraycopy(fNamespace, 0, bindings, 0, fNamespaceSize);
+            return bindings;
+        }
+
+        /** Resets this context to the given bindings. */
+        void setBindings(String[] bindings) {
+            reset();
+            if (fNamespace.length < bindings.length) {
+                fNamespace = new String[bindings.length * 2];
+            }
+            System.arraycopy(bindings, 0, fNamespace, 0, bindings.length);
+            fNamespaceSize = bindings.length;
+            fContext[fCurrentContext] = fNamespaceSize;
+        }
+
+    } // class NamespaceBindings
+
+    /**
+     * Error handler keeping copies of the errors, which normalizing
+     * reuses.
+     */
+    private static class ErrorList implements DOMErrorHandler {
+
+        /** The errors, created on first use. */
+        ArrayList fErrors;
+
+        ErrorList(ArrayList errors) {
+            fErrors = errors;
+        }
+
+        public boolean handleError(DOMError error) {
+            DOMErrorImpl copy = new DOMErrorImpl();
+            copy.fSeverity = error.getSeverity();
+            copy.fMessage = error.getMessage();
+            copy.fType = error.getType();
+            copy.fRelatedData = error.getRelatedData();
+            copy.fException = (Exception) error.getRelatedException();
+            DOMLocator locator = error.getLocation();
+            if (locator != null) {
+                copy.fLocator = new DOMLocatorImpl(locator.getLineNumber(), locator.getColumnNumber(), locator.getByteOffset(),
+                        locator.getRelatedNode(), locator.getUri(), locator.getUtf16Offset());
+            }
+            if (fErrors == null) {
+                fErrors = new ArrayList(2);
+            }
+            fErrors.add(copy);
+            // going on, the application is asked when the errors are reported
+            return true;
+        }
+
+    } // class ErrorList
+
+    /**
+     * An element normalized on the pool, with the errors found in its
+     * subtree.
+     */
+    private static final class Subtree extends ErrorList {
+
+        /** The element. */
+        final ElementImpl fElement;
+
+        /** Exception thrown while normalizing the subtree, if any. */
+        RuntimeException fException;
+
+        Subtree(ElementImpl element) {
+            super(null);
+            fElement = element;
+        }
+
+    } // class Subtree
+
+    /**
+     * Normalizes a few sibling subtrees in a row, with a normalizer of
+     * its own. Only the nodes of the subtrees may be changed; see
+     * CoreDocumentImpl#canChangeSubtreesConcurrently for the document
+     * state that must never be reached from here.
+     */
+    private static final class SubtreeTask extends RecursiveAction {
+
+        /** Serialization version. */
+        private static final long serialVersionUID = 3571402593466219083L;
+
+        /** The normalizer handing the subtrees over. */
+        private final DOMNormalizer fOwner;
+
+        /** Namespace bindings in scope for the subtrees. */
+        private final String[] fBindings;
+
+        /** The subtrees. */
+        final Subtree[] fSubtrees;
+
+        /** Number of subtrees. */
+        int fCount;
+
+        SubtreeTask(DOMNormalizer owner, String[] bindings, int size) {
+            fOwner = owner;
+            fBindings = bindings;
+            fSubtrees = new Subtree[size];
+        }
+
+        protected void compute() {
+            DOMNormalizer normalizer = new DOMNormalizer();
+            normalizer.fDocument = fOwner.fDocument;
+            normalizer.fConfiguration = fOwner.fConfiguration;
+            // symbols are interned, a table of its own gives the same strings
+            normalizer.fSymbolTable = new SymbolTable();
+            ((NamespaceBindings) normalizer.fNamespaceContext).setBindings(fBindings);
+            for (int i = 0; i < fCount; i++) {
+                Subtree subtree = fSubtrees[i];
+                normalizer.fErrorHandler = subtree;
+                try {
+                    normalizer.normalizeNode(subtree.fElement);
+                } catch (RuntimeException e) {
+                    // a fatal error stops normalizing, as on a single thread
+                    if (e != abort) {
+                        subtree.fException = e;
+                    }
+                    return;
+                }
+            }
+        }
+
+    } // class SubtreeTask
+
     /**
      * Proxy class that provides XMLAttributes interface access to DOM AttributeMap.
      * This allows DOM attributes to be accessed through the Xerces Native Interface.
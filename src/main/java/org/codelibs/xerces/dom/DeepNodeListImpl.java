@@ -91,6 +91,9 @@ public class DeepNodeListImpl implements NodeList {
     /** Flag indicating whether namespace support is enabled. */
     protected boolean enableNS = false;
 
+    /** Whether the nodes were all taken from the document's element index. */
+    protected boolean indexed = false;
+
     //
     // Constructors
     //
@@ -139,6 +142,17 @@ public class DeepNodeListImpl implements NodeList {
         if (rootNode.changes() != changes) {
             nodes = new ArrayList();
             changes = rootNode.changes();
+            indexed = false;
+        }
+
+        // Take all matching elements from the document's index, if any;
+        // subclasses may match elements differently
+        if (!indexed && nodes.isEmpty() && getClass() == DeepNodeListImpl.class) {
+            ElementIndex elementIndex = rootNode.ownerDocument().getElementIndex();
+            if (elementIndex != null && elementIndex.covers(rootNode)) {
+                elementIndex.getElements(rootNode, nsName, tagName, enableNS, nodes);
+                indexed = true;
+            }
         }
 
         // In the cache
@@ -146,6 +160,10 @@ public class DeepNodeListImpl implements NodeList {
         if (index < currentSize) {
             return (Node) nodes.get(index);
         }
+        // All matching elements were taken from the document's index
+        else if (indexed) {
+            return null;
+        }
         // Not yet seen
         else {
 
@@ -115,6 +115,15 @@ public class DocumentImpl extends CoreDocumentImpl implements DocumentTraversal,
     /** Bypass mutation events firing. */
     protected boolean mutationEvents = false;
 
+    /** Number of batches begun and not ended; see {@link #beginBatch()}. */
+    protected transient int batchDepth;
+
+    /** Number of notifications suppressed by batches. */
+    protected transient long suppressedNotifications;
+
+    /** Whether mutation events were suppressed by the current batch. */
+    private transient boolean batchMutated;
+
     //
     // Constructors
     //
@@ -233,6 +242,11 @@ public class DocumentImpl extends CoreDocumentImpl implements DocumentTraversal,
         }
 
         NodeIterator iterator = new NodeIteratorImpl(this, root, whatToShow, filter, entityReferenceExpansion);
+        if (fFrozen) {
+            // a frozen document never changes, so the iterator needs no
+            // notification and is not registered
+            return iterator;
+        }
         if (iterators == null) {
             iterators = new LinkedList();
             iteratorReferenceQueue = new ReferenceQueue();
@@ -346,6 +360,10 @@ public class DocumentImpl extends CoreDocumentImpl implements DocumentTraversal,
      */
     public Range createRange() {
 
+        if (fFrozen) {
+            // same as for node iterators
+            return new RangeImpl(this);
+        }
         if (ranges == null) {
             ranges = new LinkedList();
             rangeReferenceQueue = new ReferenceQueue();
@@ -392,7 +410,7 @@ public class DocumentImpl extends CoreDocumentImpl implements DocumentTraversal,
      */
     void replacedText(CharacterDataImpl node) {
         // notify ranges
-        if (ranges != null) {
+        if (ranges != null && notifying()) {
             notifyRangesReplacedText(node);
         }
     }
@@ -418,7 +436,7 @@ public class DocumentImpl extends CoreDocumentImpl implements DocumentTraversal,
      */
     void deletedText(CharacterDataImpl node, int offset, int count) {
         // notify ranges
-        if (ranges != null) {
+        if (ranges != null && notifying()) {
             notifyRangesDeletedText(node, offset, count);
         }
     }
@@ -444,7 +462,7 @@ public class DocumentImpl extends CoreDocumentImpl implements DocumentTraversal,
      */
     void insertedText(CharacterDataImpl node, int offset, int count) {
         // notify ranges
-        if (ranges != null) {
+        if (ranges != null && notifying()) {
             notifyRangesInsertedText(node, offset, count);
         }
     }
@@ -470,7 +488,7 @@ public class DocumentImpl extends CoreDocumentImpl implements DocumentTraversal,
      */
     void splitData(Node node, Node newNode, int offset) {
         // notify ranges
-        if (ranges != null) {
+        if (ranges != null && notifying()) {
             notifyRangesSplitData(node, newNode, offset);
         }
     }
@@ -550,6 +568,115 @@ public class DocumentImpl extends CoreDocumentImpl implements DocumentTraversal,
         return mutationEvents;
     }
 
+    /**
+     * NON-DOM: Begins a batch of changes. Until the matching call to
+     * {@link #endBatch()}, changes to the document are not notified to its
+     * ranges and node iterators and do not fire mutation events, which
+     * saves their cost when building or rewriting large trees. Batches
+     * can be nested; only the outermost one counts.
+     */
+    public void beginBatch() {
+        batchDepth++;
+    }
+
+    /**
+     * NON-DOM: Ends a batch of changes begun by {@link #beginBatch()}.
+     * Ending the outermost batch brings the ranges and node iterators back
+     * in line with the tree: a range whose boundaries are no longer in
+     * order or no longer in the same tree is collapsed at the start of the
+     * document, offsets past the end of their container are moved to its
+     * end, and an iterator whose reference node was removed goes back
+     * before its first node. If mutation events were suppressed, a single
+     * <code>DOMSubtreeModified</code> event is then dispatched to the
+     * document.
+     *
+     * @throws DOMException INVALID_STATE_ERR: Raised if no batch was begun.
+     */
+    public void endBatch() {
+        if (batchDepth == 0) {
+            String msg = DOMMessageFormatter.formatMessage(DOMMessageFormatter.DOM_DOMAIN, "INVALID_STATE_ERR", null);
+            throw new DOMException(DOMException.INVALID_STATE_ERR, msg);
+        }
+        if (--batchDepth > 0) {
+            return;
+        }
+        if (iterators != null) {
+            removeStaleIteratorReferences();
+            for (Iterator i = iterators.iterator(); i.hasNext();) {
+                NodeIteratorImpl iterator = (NodeIteratorImpl) ((Reference) i.next()).get();
+                if (iterator != null) {
+                    iterator.receiveBatchEnd();
+                }
+            }
+        }
+        if (ranges != null) {
+            removeStaleRangeReferences();
+            for (Iterator i = ranges.iterator(); i.hasNext();) {
+                RangeImpl range = (RangeImpl) ((Reference) i.next()).get();
+                if (range != null) {
+                    range.receiveBatchEnd();
+                }
+            }
+        }
+        if (batchMutated) {
+            batchMutated = false;
+            if (mutationEvents) {
+                LCount lc = LCount.lookup(MutationEventImpl.DOM_SUBTREE_MODIFIED);
+                if (lc.total > 0) {
+                    MutationEvent me = new MutationEventImpl();
+                    me.initMutationEvent(MutationEventImpl.DOM_SUBTREE_MODIFIED, true, false, null, null, null, null, (short) 0);
+                    dispatchEvent(this, me);
+                }
+            }
+        }
+    }
+
+    /**
+     * NON-DOM: Returns whether a batch of changes is in progress.
+     *
+     * @return true between {@link #beginBatch()} and the matching
+     *         {@link #endBatch()}
+     */
+    public boolean inBatch() {
+        return batchDepth > 0;
+    }
+
+    /**
+     * NON-DOM: Returns the number of notifications to ranges, node
+     * iterators and mutation event listeners suppressed by batches so far.
+     * A single change may account for several notifications.
+     *
+     * @return the number of suppressed notifications
+     */
+    public long getSuppressedNotificationCount() {
+        return suppressedNotifications;
+    }
+
+    /**
+     * Returns true if a change is to be notified, which it is outside of
+     * batches, and counts the notification otherwise.
+     */
+    private boolean notifying() {
+        if (batchDepth == 0) {
+            return true;
+        }
+        suppressedNotifications++;
+        if (mutationEvents) {
+            batchMutated = true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if separate subtrees of this document can be changed by
+     * several threads at the same time: no mutation event is sent and no
+     * range or iterator is attached to the document.
+     */
+    boolean canChangeSubtreesConcurrently() {
+        return super.canChangeSubtreesConcurrently() && !mutationEvents && (ranges == null || ranges.isEmpty())
+                && (iterators == null || iterators.isEmpty());
+    }
+
     /**
      * Store event listener registered on a given node
      * This is another place where we could use weak references! Indeed, the
@@ -1102,7 +1229,7 @@ public class DocumentImpl extends CoreDocumentImpl implements DocumentTraversal,
      * A method to be called when a character data node has been modified
      */
     void modifyingCharacterData(NodeImpl node, boolean replace) {
-        if (mutationEvents) {
+        if (mutationEvents && notifying()) {
             if (!replace) {
                 saveEnclosingAttr(node);
             }
@@ -1113,7 +1240,9 @@ public class DocumentImpl extends CoreDocumentImpl implements DocumentTraversal,
      * A method to be called when a character data node has been modified
      */
     void modifiedCharacterData(NodeImpl node, String oldvalue, String value, boolean replace) {
-        if (mutationEvents) {
+        super.modifiedCharacterData(node, oldvalue, value, replace);
+
+        if (mutationEvents && notifying()) {
             mutationEventsModifiedCharacterData(node, oldvalue, value, replace);
         }
     }
@@ -1149,7 +1278,7 @@ public class DocumentImpl extends CoreDocumentImpl implements DocumentTraversal,
      * A method to be called when a node is about to be inserted in the tree.
      */
     void insertingNode(NodeImpl node, boolean replace) {
-        if (mutationEvents) {
+        if (mutationEvents && notifying()) {
             if (!replace) {
                 saveEnclosingAttr(node);
             }
@@ -1160,12 +1289,14 @@ public class DocumentImpl extends CoreDocumentImpl implements DocumentTraversal,
      * A method to be called when a node has been inserted in the tree.
      */
     void insertedNode(NodeImpl node, NodeImpl newInternal, boolean replace) {
-        if (mutationEvents) {
+        super.insertedNode(node, newInternal, replace);
+
+        if (mutationEvents && notifying()) {
             mutationEventsInsertedNode(node, newInternal, replace);
         }
 
         // notify the range of insertions
-        if (ranges != null) {
+        if (ranges != null && notifying()) {
             notifyRangesInsertedNode(newInternal);
         }
     }
@@ -1235,18 +1366,20 @@ public class DocumentImpl extends CoreDocumentImpl implements DocumentTraversal,
      */
     void removingNode(NodeImpl node, NodeImpl oldChild, boolean replace) {
 
+        super.removingNode(node, oldChild, replace);
+
         // notify iterators
-        if (iterators != null) {
+        if (iterators != null && notifying()) {
             notifyIteratorsRemovingNode(oldChild);
         }
 
         // notify ranges
-        if (ranges != null) {
+        if (ranges != null && notifying()) {
             notifyRangesRemovingNode(oldChild);
         }
 
         // mutation events
-        if (mutationEvents) {
+        if (mutationEvents && notifying()) {
             mutationEventsRemovingNode(node, oldChild, replace);
         }
     }
@@ -1322,7 +1455,9 @@ public class DocumentImpl extends CoreDocumentImpl implements DocumentTraversal,
      * A method to be called when a node has been removed from the tree.
      */
     void removedNode(NodeImpl node, boolean replace) {
-        if (mutationEvents) {
+        super.removedNode(node, replace);
+
+        if (mutationEvents && notifying()) {
             // MUTATION POST-EVENTS:
             // Subroutine: Transmit DOMAttrModified and DOMSubtreeModified,
             // if required. (Common to most kinds of mutation)
@@ -1336,7 +1471,7 @@ public class DocumentImpl extends CoreDocumentImpl implements DocumentTraversal,
      * A method to be called when a node is about to be replaced in the tree.
      */
     void replacingNode(NodeImpl node) {
-        if (mutationEvents) {
+        if (mutationEvents && notifying()) {
             saveEnclosingAttr(node);
         }
     }
@@ -1345,7 +1480,7 @@ public class DocumentImpl extends CoreDocumentImpl implements DocumentTraversal,
      * A method to be called when character data is about to be replaced in the tree.
      */
     void replacingData(NodeImpl node) {
-        if (mutationEvents) {
+        if (mutationEvents && notifying()) {
             saveEnclosingAttr(node);
         }
     }
@@ -1354,7 +1489,7 @@ public class DocumentImpl extends CoreDocumentImpl implements DocumentTraversal,
      * A method to be called when a node has been replaced in the tree.
      */
     void replacedNode(NodeImpl node) {
-        if (mutationEvents) {
+        if (mutationEvents && notifying()) {
             dispatchAggregateEvents(node, savedEnclosingAttr);
         }
     }
@@ -1363,7 +1498,9 @@ public class DocumentImpl extends CoreDocumentImpl implements DocumentTraversal,
      * A method to be called when an attribute value has been modified
      */
     void modifiedAttrValue(AttrImpl attr, String oldvalue) {
-        if (mutationEvents) {
+        super.modifiedAttrValue(attr, oldvalue);
+
+        if (mutationEvents && notifying()) {
             // MUTATION POST-EVENTS:
             dispatchAggregateEvents(attr, attr, oldvalue, MutationEvent.MODIFICATION);
         }
@@ -1373,7 +1510,9 @@ public class DocumentImpl extends CoreDocumentImpl implements DocumentTraversal,
      * A method to be called when an attribute node has been set
      */
     void setAttrNode(AttrImpl attr, AttrImpl previous) {
-        if (mutationEvents) {
+        super.setAttrNode(attr, previous);
+
+        if (mutationEvents && notifying()) {
             // MUTATION POST-EVENTS:
             if (previous == null) {
                 dispatchAggregateEvents(attr.ownerNode, attr, null, MutationEvent.ADDITION);
@@ -1387,10 +1526,12 @@ public class DocumentImpl extends CoreDocumentImpl implements DocumentTraversal,
      * A method to be called when an attribute node has been removed
      */
     void removedAttrNode(AttrImpl attr, NodeImpl oldOwner, String name) {
+        super.removedAttrNode(attr, oldOwner, name);
+
         // We can't use the standard dispatchAggregate, since it assumes
         // that the Attr is still attached to an owner. This code is
         // similar but dispatches to the previous owner, "element".
-        if (mutationEvents) {
+        if (mutationEvents && notifying()) {
             mutationEventsRemovedAttrNode(attr, oldOwner, name);
         }
     }
@@ -114,8 +114,10 @@ public class ElementImpl extends ParentNode implements Element, ElementTraversal
                 throw new DOMException(DOMException.INVALID_CHARACTER_ERR, msg);
             }
         }
+        String oldName = this.name;
         this.name = name;
         reconcileDefaultAttributes();
+        ownerDocument.changedElementName(this, oldName, null);
     }
 
     //
@@ -0,0 +1,397 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.dom;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.w3c.dom.Node;
+
+/**
+ * An index of the elements of a document by tag name and by local name,
+ * used to answer <code>getElementsByTagName</code> and
+ * <code>getElementsByTagNameNS</code> without walking the tree.
+ * <p>
+ * The index is built by a single walk of the document and then kept up to
+ * date by the document as subtrees are inserted, removed and renamed. Every
+ * list holds the elements connected to the document, in document order.
+ * The elements of a subtree always form a run in each list, which is what
+ * makes the updates and the subtree queries cheap.
+ *
+ * @author CodeLibs Project
+ */
+final class ElementIndex {
+
+    //
+    // Constants
+    //
+
+    /** Number of siblings looked at before using the parent's child array. */
+    private static final int NEARBY_SIBLINGS = 8;
+
+    //
+    // Data
+    //
+
+    /** The document. */
+    private final CoreDocumentImpl fDocument;
+
+    /** All elements. */
+    private final ArrayList fElements = new ArrayList();
+
+    /** Elements by tag name. */
+    private final HashMap fTagNames = new HashMap();
+
+    /** Elements by local name; elements without local name are not listed. */
+    private final HashMap fLocalNames = new HashMap();
+
+    /** Whether the index is being updated; nested notifications are ignored. */
+    private boolean fUpdating;
+
+    //
+    // Constructors
+    //
+
+    /** Builds the index of the given document. */
+    ElementIndex(CoreDocumentImpl document) {
+        fDocument = document;
+        fUpdating = true;
+        try {
+            ArrayList elements = collect(document);
+            for (int i = 0; i < elements.size(); i++) {
+                ElementImpl element = (ElementImpl) elements.get(i);
+                fElements.add(element);
+                list(fTagNames, element.getTagName()).add(element);
+                if (element.getLocalName() != null) {
+                    list(fLocalNames, element.getLocalName()).add(element);
+                }
+            }
+        } finally {
+            fUpdating = false;
+        }
+    } // <init>(CoreDocumentImpl)
+
+    //
+    // Package methods
+    //
+
+    /** Adds the elements of a subtree that was inserted in the tree. */
+    void inserted(NodeImpl node) {
+        if (fUpdating || !isConnected(node)) {
+            return;
+        }
+        fUpdating = true;
+        try {
+            ArrayList elements = collect(node);
+            if (elements.isEmpty()) {
+                return;
+            }
+            insertRun(fElements, elements);
+            for (Iterator runs = group(elements, false).entrySet().iterator(); runs.hasNext();) {
+                Map.Entry run = (Map.Entry) runs.next();
+                insertRun(list(fTagNames, (String) run.getKey()), (ArrayList) run.getValue());
+            }
+            for (Iterator runs = group(elements, true).entrySet().iterator(); runs.hasNext();) {
+                Map.Entry run = (Map.Entry) runs.next();
+                insertRun(list(fLocalNames, (String) run.getKey()), (ArrayList) run.getValue());
+            }
+        } finally {
+            fUpdating = false;
+        }
+    } // inserted(NodeImpl)
+
+    /** Removes the elements of a subtree that is about to be removed. */
+    void removing(NodeImpl node) {
+        if (fUpdating || !isConnected(node)) {
+            return;
+        }
+        fUpdating = true;
+        try {
+            ArrayList elements = collect(node);
+            if (elements.isEmpty()) {
+                return;
+            }
+            removeRun(fElements, elements);
+            for (Iterator runs = group(elements, false).entrySet().iterator(); runs.hasNext();) {
+                Map.Entry run = (Map.Entry) runs.next();
+                removeRun(list(fTagNames, (String) run.getKey()), (ArrayList) run.getValue());
+            }
+            for (Iterator runs = group(elements, true).entrySet().iterator(); runs.hasNext();) {
+                Map.Entry run = (Map.Entry) runs.next();
+                removeRun(list(fLocalNames, (String) run.getKey()), (ArrayList) run.getValue());
+            }
+        } finally {
+            fUpdating = false;
+        }
+    } // removing(NodeImpl)
+
+    /** Moves an element whose name changed to the lists of its new name. */
+    void renamed(ElementImpl element, String oldTagName, String oldLocalName) {
+        if (!isConnected(element)) {
+            return;
+        }
+        remove(list(fTagNames, oldTagName), element);
+        insert(list(fTagNames, element.getTagName()), element);
+        if (oldLocalName != null) {
+            remove(list(fLocalNames, oldLocalName), element);
+        }
+        if (element.getLocalName() != null) {
+            insert(list(fLocalNames, element.getLocalName()), element);
+        }
+    } // renamed(ElementImpl,String,String)
+
+    /**
+     * Returns whether the descendants of the given node can be looked up
+     * in the index.
+     */
+    boolean covers(NodeImpl root) {
+        return isConnected(root);
+    }
+
+    /**
+     * Adds the matching descendants of the given root to the list, in
+     * document order. The arguments are those of a
+     * <code>DeepNodeListImpl</code>.
+     */
+    void getElements(NodeImpl root, String nsName, String tagName, boolean enableNS, ArrayList result) {
+        ArrayList candidates;
+        boolean filter = false;
+        if (tagName.equals("*")) {
+            candidates = fElements;
+            filter = enableNS && !"*".equals(nsName);
+        } else if (enableNS) {
+            candidates = (ArrayList) fLocalNames.get(tagName);
+            filter = !"*".equals(nsName);
+        } else {
+            candidates = (ArrayList) fTagNames.get(tagName);
+        }
+        if (candidates == null) {
+            return;
+        }
+        int start = 0;
+        if (root != fDocument) {
+            start = search(candidates, root);
+            start = start >= 0 ? start + 1 : -start - 1;
+        }
+        for (int i = start; i < candidates.size(); i++) {
+            ElementImpl element = (ElementImpl) candidates.get(i);
+            if (root != fDocument && !isDescendant(element, root)) {
+                break;
+            }
+            if (filter) {
+                String namespaceURI = element.getNamespaceURI();
+                if (nsName == null ? namespaceURI != null : !nsName.equals(namespaceURI)) {
+                    continue;
+                }
+            }
+            result.add(element);
+        }
+    } // getElements(NodeImpl,String,String,boolean,ArrayList)
+
+    //
+    // Private methods
+    //
+
+    /** Returns whether the node is in the tree of the document. */
+    private boolean isConnected(NodeImpl node) {
+        while (node != null) {
+            if (node == fDocument) {
+                return true;
+            }
+            node = node.parentNode();
+        }
+        return false;
+    } // isConnected(NodeImpl):boolean
+
+    /** Returns the elements of a subtree, root included, in document order. */
+    private static ArrayList collect(Node root) {
+        ArrayList elements = new ArrayList();
+        Node node = root;
+        while (node != null) {
+            if (node.getNodeType() == Node.ELEMENT_NODE) {
+                elements.add(node);
+            }
+            Node next = node.getFirstChild();
+            while (next == null && node != root) {
+                next = node.getNextSibling();
+                if (next == null) {
+                    node = node.getParentNode();
+                }
+            }
+            node = next;
+        }
+        return elements;
+    } // collect(Node):ArrayList
+
+    /** Groups elements by tag name or local name, keeping their order. */
+    private static HashMap group(ArrayList elements, boolean localNames) {
+        HashMap groups = new HashMap();
+        for (int i = 0; i < elements.size(); i++) {
+            ElementImpl element = (ElementImpl) elements.get(i);
+            String name = localNames ? element.getLocalName() : element.getTagName();
+            if (name != null) {
+                list(groups, name).add(element);
+            }
+        }
+        return groups;
+    } // group(ArrayList,boolean):HashMap
+
+    /** Returns the list for the given name, creating it if needed. */
+    private static ArrayList list(HashMap lists, String name) {
+        ArrayList list = (ArrayList) lists.get(name);
+        if (list == null) {
+            list = new ArrayList();
+            lists.put(name, list);
+        }
+        return list;
+    } // list(HashMap,String):ArrayList
+
+    /** Inserts a run of elements, in document order, into a list. */
+    private static void insertRun(ArrayList list, ArrayList run) {
+        int index = search(list, (NodeImpl) run.get(0));
+        if (index >= 0) {
+            // already listed; insert one by one
+            for (int i = 0; i < run.size(); i++) {
+                insert(list, (NodeImpl) run.get(i));
+            }
+            return;
+        }
+        list.addAll(-index - 1, run);
+    } // insertRun(ArrayList,ArrayList)
+
+    /** Removes a run of elements from a list. */
+    private static void removeRun(ArrayList list, ArrayList run) {
+        int index = search(list, (NodeImpl) run.get(0));
+        if (index >= 0 && index + run.size() <= list.size() && list.get(index + run.size() - 1) == run.get(run.size() - 1)) {
+            list.subList(index, index + run.size()).clear();
+            return;
+        }
+        for (int i = 0; i < run.size(); i++) {
+            remove(list, (NodeImpl) run.get(i));
+        }
+    } // removeRun(ArrayList,ArrayList)
+
+    private static void insert(ArrayList list, NodeImpl node) {
+        int index = search(list, node);
+        if (index < 0) {
+            list.add(-index - 1, node);
+        }
+    }
+
+    private static void remove(ArrayList list, NodeImpl node) {
+        int index = search(list, node);
+        if (index >= 0) {
+            list.remove(index);
+        }
+    }
+
+    /**
+     * Searches a list in document order. Returns the index of the node, or
+     * <code>(-(insertion point) - 1)</code> if it is not listed.
+     */
+    private static int search(ArrayList list, NodeImpl node) {
+        int high = list.size() - 1;
+        // nodes are mostly appended
+        if (high < 0 || compare((NodeImpl) list.get(high), node) < 0) {
+            return -(high + 1) - 1;
+        }
+        int low = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int c = compare((NodeImpl) list.get(mid), node);
+            if (c < 0) {
+                low = mid + 1;
+            } else if (c > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -low - 1;
+    } // search(ArrayList,NodeImpl):int
+
+    /** Compares the positions of two nodes of the tree in document order. */
+    private static int compare(NodeImpl a, NodeImpl b) {
+        if (a == b) {
+            return 0;
+        }
+        int depthA = depth(a);
+        int depthB = depth(b);
+        NodeImpl ancestorA = a;
+        NodeImpl ancestorB = b;
+        for (; depthA > depthB; depthA--) {
+            ancestorA = ancestorA.parentNode();
+        }
+        for (; depthB > depthA; depthB--) {
+            ancestorB = ancestorB.parentNode();
+        }
+        if (ancestorA == ancestorB) {
+            // ancestors come first
+            return a == ancestorA ? -1 : 1;
+        }
+        while (ancestorA.parentNode() != ancestorB.parentNode()) {
+            ancestorA = ancestorA.parentNode();
+            ancestorB = ancestorB.parentNode();
+        }
+        // look for the other sibling nearby in both directions, then by
+        // the positions in the parent's child array, if it has one
+        ChildNode next = ((ChildNode) ancestorA).nextSibling;
+        ChildNode previous = ancestorA.previousSibling();
+        for (int steps = 0; next != null || previous != null; steps++) {
+            if (next == ancestorB) {
+                return -1;
+            }
+            if (previous == ancestorB) {
+                return 1;
+            }
+            if (steps == NEARBY_SIBLINGS) {
+                int c = ((ParentNode) ancestorA.parentNode()).compareChildren((ChildNode) ancestorA, (ChildNode) ancestorB);
+                if (c != 0) {
+                    return c;
+                }
+            }
+            if (next != null) {
+                next = next.nextSibling;
+            }
+            if (previous != null) {
+                previous = previous.previousSibling();
+            }
+        }
+        return 0;
+    } // compare(NodeImpl,NodeImpl):int
+
+    private static int depth(NodeImpl node) {
+        int depth = 0;
+        for (NodeImpl parent = node.parentNode(); parent != null; parent = parent.parentNode()) {
+            depth++;
+        }
+        return depth;
+    }
+
+    private static boolean isDescendant(NodeImpl node, NodeImpl root) {
+        for (NodeImpl parent = node.parentNode(); parent != null; parent = parent.parentNode()) {
+            if (parent == root) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+} // class ElementIndex
@@ -172,9 +172,12 @@ public class ElementNSImpl extends ElementImpl {
         if (needsSyncData()) {
             synchronizeData();
         }
+        String oldName = this.name;
+        String oldLocalName = localName;
         this.name = qualifiedName;
         setName(namespaceURI, qualifiedName);
         reconcileDefaultAttributes();
+        ownerDocument.changedElementName(this, oldName, oldLocalName);
     }
 
     //
@@ -265,11 +268,13 @@ public class ElementNSImpl extends ElementImpl {
 
         }
         // update node name with new qualifiedName
+        String oldName = name;
         if (prefix != null && prefix.length() != 0) {
             name = prefix + ":" + localName;
         } else {
             name = localName;
         }
+        ownerDocument.changedElementName(this, oldName, localName);
     }
 
     /**
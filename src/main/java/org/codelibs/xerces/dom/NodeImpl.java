@@ -212,6 +212,10 @@ public abstract class NodeImpl implements Node, NodeList, EventTarget, Cloneable
      * Flag indicating this attribute node is an ID.
      */
     protected final static short ID = 0x1 << 9;
+    /**
+     * Flag indicating user data was attached to this node.
+     */
+    protected final static short USERDATA = 0x1 << 10;
 
     //
     // Constructors
@@ -332,6 +336,9 @@ public abstract class NodeImpl implements Node, NodeList, EventTarget, Cloneable
         // this is overriden in readonly subclasses
         newnode.isReadOnly(false);
 
+        // user data is not copied
+        newnode.hasUserData(false);
+
         ownerDocument().callUserDataHandlers(this, newnode, UserDataHandler.NODE_CLONED);
 
         return newnode;
@@ -1964,6 +1971,14 @@ public abstract class NodeImpl implements Node, NodeList, EventTarget, Cloneable
         flags = (short) (value ? flags | ID : flags & ~ID);
     }
 
+    final boolean hasUserData() {
+        return (flags & USERDATA) != 0;
+    }
+
+    final void hasUserData(boolean value) {
+        flags = (short) (value ? flags | USERDATA : flags & ~USERDATA);
+    }
+
     //
     // Object methods
     //
@@ -368,6 +368,22 @@ public class NodeIteratorImpl implements NodeIterator {
 
     }
 
+    /**
+     * Fix-up the iterator at the end of a batch of changes, which it was
+     * not notified of: if the reference node is no longer under the root,
+     * the iterator goes back before its first node.
+     */
+    void receiveBatchEnd() {
+        Node n = fCurrentNode;
+        while (n != null && n != fRoot) {
+            n = n.getParentNode();
+        }
+        if (n == null) {
+            fCurrentNode = null;
+            fForward = true;
+        }
+    }
+
     public void detach() {
         fDetach = true;
         fDocument.removeNodeIterator(this);
@@ -43,6 +43,19 @@ class NodeListCache implements Serializable {
     /** Last requested node. */
     ChildNode fChild;
 
+    /** Children of the owner, in document order from index fChildrenStart
+        to fChildrenEnd, once the owner has reached the document's child
+        array threshold; fLength is then the number of children. Slots
+        left by removed children are null until the array is packed. A
+        cache holding an array is never freed. */
+    ChildNode[] fChildren;
+
+    /** Index in fChildren of the first child. */
+    int fChildrenStart;
+
+    /** Index in fChildren after the last child. */
+    int fChildrenEnd;
+
     /** Owner of this cache */
     ParentNode fOwner;
 
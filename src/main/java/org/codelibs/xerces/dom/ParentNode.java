@@ -425,7 +425,9 @@ public abstract class ParentNode extends ChildNode {
         changed();
 
         // update cached length if we have any
-        if (fNodeListCache != null) {
+        if (fNodeListCache != null && fNodeListCache.fChildren != null) {
+            childArrayInserted(fNodeListCache, newInternal);
+        } else if (fNodeListCache != null) {
             if (fNodeListCache.fLength != -1) {
                 fNodeListCache.fLength++;
             }
@@ -495,7 +497,9 @@ public abstract class ParentNode extends ChildNode {
         final ChildNode oldPreviousSibling = oldInternal.previousSibling();
 
         // update cached length if we have any
-        if (fNodeListCache != null) {
+        if (fNodeListCache != null && fNodeListCache.fChildren != null) {
+            childArrayRemoving(fNodeListCache, oldInternal);
+        } else if (fNodeListCache != null) {
             if (fNodeListCache.fLength != -1) {
                 fNodeListCache.fLength--;
             }
@@ -656,6 +660,20 @@ public abstract class ParentNode extends ChildNode {
      */
     private int nodeListGetLength() {
 
+        if (ownerDocument.fFrozen) {
+            // the cache is not used on frozen documents, which may be
+            // read by several threads, except for the child arrays built
+            // when the document was frozen
+            NodeListCache c = fNodeListCache;
+            if (c != null && c.fChildren != null) {
+                return c.fLength;
+            }
+            int l = 0;
+            for (ChildNode n = firstChild; n != null; n = n.nextSibling) {
+                l++;
+            }
+            return l;
+        }
         if (fNodeListCache == null) {
             if (needsSyncChildren()) {
                 synchronizeChildren();
@@ -687,6 +705,10 @@ public abstract class ParentNode extends ChildNode {
             }
             fNodeListCache.fLength = l;
         }
+        if (fNodeListCache.fChildren == null && ownerDocument.childArrayThreshold > 0
+                && fNodeListCache.fLength >= ownerDocument.childArrayThreshold) {
+            fillChildArray(fNodeListCache.fLength);
+        }
 
         return fNodeListCache.fLength;
 
@@ -707,6 +729,20 @@ public abstract class ParentNode extends ChildNode {
      */
     private Node nodeListItem(int index) {
 
+        if (ownerDocument.fFrozen) {
+            NodeListCache c = fNodeListCache;
+            if (c != null && c.fChildren != null) {
+                return index >= 0 && index < c.fLength ? c.fChildren[c.fChildrenStart + index] : null;
+            }
+            if (index < 0) {
+                return null;
+            }
+            ChildNode n = firstChild;
+            for (int i = 0; i < index && n != null; i++) {
+                n = n.nextSibling;
+            }
+            return n;
+        }
         if (fNodeListCache == null) {
             if (needsSyncChildren()) {
                 synchronizeChildren();
@@ -718,6 +754,17 @@ public abstract class ParentNode extends ChildNode {
             // otherwise request a cache object
             fNodeListCache = ownerDocument.getNodeListCache(this);
         }
+        if (fNodeListCache.fChildren == null && ownerDocument.childArrayThreshold > 0) {
+            // switches to the array if there are enough children
+            nodeListGetLength();
+        }
+        if (fNodeListCache.fChildren != null) {
+            NodeListCache c = fNodeListCache;
+            if (c.fChildrenEnd - c.fChildrenStart != c.fLength) {
+                packChildArray(c);
+            }
+            return index >= 0 && index < c.fLength ? c.fChildren[c.fChildrenStart + index] : null;
+        }
         int i = fNodeListCache.fChildIndex;
         ChildNode n = fNodeListCache.fChild;
         boolean firstAccess = true;
@@ -774,6 +821,237 @@ public abstract class ParentNode extends ChildNode {
         return nodeListItem(index);
     } // item(int):Node
 
+    /**
+     * Holds the children in an array if there are at least as many as the
+     * given threshold. Used when freezing the document.
+     */
+    final void buildChildArray(int threshold) {
+        if (needsSyncChildren()) {
+            synchronizeChildren();
+        }
+        int length = 0;
+        for (ChildNode n = firstChild; n != null; n = n.nextSibling) {
+            length++;
+        }
+        if (length >= threshold) {
+            fillChildArray(length);
+        }
+    } // buildChildArray(int)
+
+    /**
+     * Replaces the list cache by one holding the given number of children
+     * in an array.
+     */
+    private void fillChildArray(int length) {
+        if (fNodeListCache != null) {
+            // the old cache may be in the document's pool; make sure
+            // reusing it does not revoke the new one
+            fNodeListCache.fOwner = null;
+        }
+        NodeListCache c = new NodeListCache(this);
+        c.fChildren = new ChildNode[length + (length >> 1) + 16];
+        c.fChildrenStart = (c.fChildren.length - length) >> 1;
+        c.fLength = length;
+        int i = c.fChildrenStart;
+        for (ChildNode n = firstChild; n != null; n = n.nextSibling) {
+            n.fChildSlot = i;
+            c.fChildren[i++] = n;
+        }
+        c.fChildrenEnd = i;
+        fNodeListCache = c;
+    } // fillChildArray(int)
+
+    /**
+     * Returns the slot of the given child in the child array of the given
+     * cache, or -1 if the child's slot is out of date.
+     */
+    private static int childSlot(NodeListCache c, ChildNode child) {
+        int slot = child.fChildSlot;
+        return slot >= c.fChildrenStart && slot < c.fChildrenEnd && c.fChildren[slot] == child ? slot : -1;
+    } // childSlot(NodeListCache,ChildNode):int
+
+    /**
+     * Adds a child that was just linked in to the child array of the given
+     * cache. A child added at either end takes the next free slot there. A
+     * child added in the middle takes the slot just before its next sibling
+     * if a removed child left it free; otherwise the children between that
+     * slot and the nearer end are shifted by one.
+     */
+    private void childArrayInserted(NodeListCache c, ChildNode child) {
+        int slot;
+        if (child.nextSibling == null) {
+            if (c.fChildrenEnd == c.fChildren.length) {
+                growChildArray(c);
+            }
+            slot = c.fChildrenEnd++;
+        } else if (child == firstChild) {
+            if (c.fChildrenStart == 0) {
+                growChildArray(c);
+            }
+            slot = --c.fChildrenStart;
+        } else {
+            slot = childSlot(c, child.nextSibling) - 1;
+            if (slot < 0) {
+                dropChildArray(c, c.fLength + 1);
+                return;
+            }
+            if (c.fChildren[slot] != null) {
+                slot = openChildSlot(c, child.nextSibling);
+            }
+        }
+        c.fChildren[slot] = child;
+        child.fChildSlot = slot;
+        c.fLength++;
+    } // childArrayInserted(NodeListCache,ChildNode)
+
+    /**
+     * Frees the slot of a child about to be removed in the child array of
+     * the given cache. Free slots in the middle are only packed when an
+     * item is next requested by index.
+     */
+    private static void childArrayRemoving(NodeListCache c, ChildNode child) {
+        int slot = childSlot(c, child);
+        if (slot < 0) {
+            dropChildArray(c, c.fLength - 1);
+            return;
+        }
+        ChildNode[] children = c.fChildren;
+        children[slot] = null;
+        c.fLength--;
+        while (c.fChildrenStart < c.fChildrenEnd && children[c.fChildrenStart] == null) {
+            c.fChildrenStart++;
+        }
+        while (c.fChildrenEnd > c.fChildrenStart && children[c.fChildrenEnd - 1] == null) {
+            c.fChildrenEnd--;
+        }
+    } // childArrayRemoving(NodeListCache,ChildNode)
+
+    /**
+     * Frees the slot just before the given child in the child array of the
+     * given cache, and returns it. The children on the side of the nearer
+     * end of the array are shifted by one, up to the first free slot; the
+     * array is grown if neither end has room.
+     */
+    private static int openChildSlot(NodeListCache c, ChildNode next) {
+        int nextSlot = childSlot(c, next);
+        ChildNode[] children = c.fChildren;
+        boolean front = nextSlot - c.fChildrenStart <= c.fChildrenEnd - nextSlot;
+        if (front ? c.fChildrenStart == 0 : c.fChildrenEnd == children.length) {
+            front = !front;
+            if (front ? c.fChildrenStart == 0 : c.fChildrenEnd == children.length) {
+                growChildArray(c);
+                return openChildSlot(c, next);
+            }
+        }
+        if (front) {
+            int free = nextSlot - 1;
+            while (free >= c.fChildrenStart && children[free] != null) {
+                free--;
+            }
+            if (free < c.fChildrenStart) {
+                c.fChildrenStart = free;
+            }
+            for (; free < nextSlot - 1; free++) {
+                children[free] = children[free + 1];
+                children[free].fChildSlot = free;
+            }
+            return nextSlot - 1;
+        }
+        int free = nextSlot;
+        while (free < c.fChildrenEnd && children[free] != null) {
+            free++;
+        }
+        if (free == c.fChildrenEnd) {
+            c.fChildrenEnd++;
+        }
+        for (; free > nextSlot; free--) {
+            children[free] = children[free - 1];
+            children[free].fChildSlot = free;
+        }
+        return nextSlot;
+    } // openChildSlot(NodeListCache,ChildNode):int
+
+    /**
+     * Moves the children of the given cache to a larger array, with room
+     * at both ends.
+     */
+    private static void growChildArray(NodeListCache c) {
+        ChildNode[] children = c.fChildren;
+        int length = c.fLength;
+        ChildNode[] grown = new ChildNode[length + (length >> 1) + 16];
+        int slot = (grown.length - length) >> 1;
+        for (int i = c.fChildrenStart; i < c.fChildrenEnd; i++) {
+            ChildNode child = children[i];
+            if (child != null) {
+                child.fChildSlot = slot;
+                grown[slot++] = child;
+            }
+        }
+        c.fChildren = grown;
+        c.fChildrenStart = slot - length;
+        c.fChildrenEnd = slot;
+    } // growChildArray(NodeListCache)
+
+    /**
+     * Closes the free slots left by removed children in the child array
+     * of the given cache, so that children can be looked up by index.
+     */
+    private static void packChildArray(NodeListCache c) {
+        ChildNode[] children = c.fChildren;
+        int slot = c.fChildrenStart;
+        for (int i = c.fChildrenStart; i < c.fChildrenEnd; i++) {
+            ChildNode child = children[i];
+            if (child != null) {
+                children[i] = null;
+                child.fChildSlot = slot;
+                children[slot++] = child;
+            }
+        }
+        c.fChildrenEnd = slot;
+    } // packChildArray(NodeListCache)
+
+    /**
+     * Turns the given cache back into a plain list cache for the given
+     * number of children.
+     */
+    private static void dropChildArray(NodeListCache c, int length) {
+        c.fChildren = null;
+        c.fLength = length;
+        c.fChildIndex = -1;
+        c.fChild = null;
+    } // dropChildArray(NodeListCache,int)
+
+
+    /**
+     * Compares the positions of two children of this node, using the child
+     * array. The array is only built if this node has at least as many
+     * children as the document's child array threshold. Returns a negative
+     * number if the first child comes first, a positive number if it comes
+     * last, and 0 if the positions are not known, in which case the caller
+     * walks the siblings.
+     */
+    final int compareChildren(ChildNode a, ChildNode b) {
+        NodeListCache c = fNodeListCache;
+        if (ownerDocument.fFrozen) {
+            // read only
+            if (c == null || c.fChildren == null || c.fChildrenEnd - c.fChildrenStart != c.fLength) {
+                return 0;
+            }
+        } else if (c == null || c.fChildren == null || childSlot(c, a) < 0 || childSlot(c, b) < 0) {
+            if (ownerDocument.childArrayThreshold <= 0) {
+                return 0;
+            }
+            buildChildArray(ownerDocument.childArrayThreshold);
+            c = fNodeListCache;
+            if (c == null || c.fChildren == null) {
+                return 0;
+            }
+        }
+        int slotA = childSlot(c, a);
+        int slotB = childSlot(c, b);
+        return slotA < 0 || slotB < 0 ? 0 : slotA - slotB;
+    } // compareChildren(ChildNode,ChildNode):int
+
     /**
      * Create a NodeList to access children that is use by subclass elements
      * that have methods named getLength() or item(int).  ChildAndParentNode
@@ -848,6 +848,38 @@ public class RangeImpl implements Range {
         }
     }
 
+    /**
+     * This function is called from DOM at the end of a batch of changes,
+     * which the range was not notified of.
+     * Fix-up the offsets past the end of their container, and collapse the
+     * range at the start of the document if its boundaries are no longer
+     * in the same legal tree or no longer in order.
+     */
+    void receiveBatchEnd() {
+        fStartOffset = Math.min(fStartOffset, getLength(fStartContainer));
+        fEndOffset = Math.min(fEndOffset, getLength(fEndContainer));
+        if (!hasLegalRootContainer(fStartContainer) || getRootContainer(fStartContainer) != getRootContainer(fEndContainer)
+                || compareBoundaryPoints(END_TO_START, this) > 0) {
+            fStartContainer = fDocument;
+            fEndContainer = fDocument;
+            fStartOffset = 0;
+            fEndOffset = 0;
+        }
+    }
+
+    /**
+     * Returns the number of offsets in the given container: characters
+     * for text, children otherwise.
+     */
+    private int getLength(Node node) {
+        int type = node.getNodeType();
+        if (type == Node.TEXT_NODE || type == Node.CDATA_SECTION_NODE || type == Node.COMMENT_NODE
+                || type == Node.PROCESSING_INSTRUCTION_NODE) {
+            return node.getNodeValue().length();
+        }
+        return node.getChildNodes().getLength();
+    }
+
     /**
      * This function is called from the DOM.
      * This node has already been inserted into the DOM.
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.dom.compact;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+
+/**
+ * Character storage shared by all the text, comments, processing
+ * instruction data and attribute values of a compact document. The
+ * characters are kept outside the Java heap, in fixed size direct buffers,
+ * and addressed with a long offset so that a document may hold more than
+ * 2^31 characters.
+ *
+ * @author CodeLibs Project
+ */
+final class CharArena {
+
+    //
+    // Constants
+    //
+
+    /** Chunk shift. */
+    private static final int CHUNK_SHIFT = 20;
+
+    /** Chunk size. */
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+    /** Chunk mask. */
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    //
+    // Data
+    //
+
+    /** Chunks. */
+    private CharBuffer[] fChunks = new CharBuffer[4];
+
+    /** Number of characters. */
+    private long fSize;
+
+    /** Buffer used to copy strings. */
+    private char[] fScratch = new char[64];
+
+    //
+    // Methods
+    //
+
+    /** Appends characters and returns the offset of the first one. */
+    long append(char[] ch, int offset, int length) {
+        long start = fSize;
+        while (length > 0) {
+            int chunk = (int) (fSize >>> CHUNK_SHIFT);
+            if (chunk == fChunks.length) {
+                CharBuffer[] newChunks = new CharBuffer[chunk * 2];
+                System.arraycopy(fChunks, 0, newChunks, 0, chunk);
+                fChunks = newChunks;
+            }
+            if (fChunks[chunk] == null) {
+                fChunks[chunk] = ByteBuffer.allocateDirect(CHUNK_SIZE * 2).order(ByteOrder.nativeOrder()).asCharBuffer();
+            }
+            int index = (int) (fSize & CHUNK_MASK);
+            int count = Math.min(length, CHUNK_SIZE - index);
+            fChunks[chunk].put(index, ch, offset, count);
+            offset += count;
+            length -= count;
+            fSize += count;
+        }
+        return start;
+    } // append(char[],int,int):long
+
+    /** Appends a string and returns the offset of its first character. */
+    long append(String s) {
+        int length = s.length();
+        if (length > fScratch.length) {
+            fScratch = new char[Math.max(length, fScratch.length * 2)];
+        }
+        s.getChars(0, length, fScratch, 0);
+        return append(fScratch, 0, length);
+    } // append(String):long
+
+    /** Returns the number of characters. */
+    long size() {
+        return fSize;
+    }
+
+    /** Copies characters into the given array. */
+    void getChars(long offset, int length, char[] dst, int dstOffset) {
+        while (length > 0) {
+            CharBuffer chunk = fChunks[(int) (offset >>> CHUNK_SHIFT)];
+            int index = (int) (offset & CHUNK_MASK);
+            int count = Math.min(length, CHUNK_SIZE - index);
+            chunk.get(index, dst, dstOffset, count);
+            offset += count;
+            dstOffset += count;
+            length -= count;
+        }
+    } // getChars(long,int,char[],int)
+
+    /** Returns the characters as a string. */
+    String getString(long offset, int length) {
+        if (length == 0) {
+            return "";
+        }
+        char[] chars = new char[length];
+        getChars(offset, length, chars, 0);
+        return new String(chars);
+    } // getString(long,int):String
+
+    /** Appends characters to the given buffer. */
+    void appendTo(long offset, int length, StringBuilder buffer) {
+        while (length > 0) {
+            CharBuffer chunk = fChunks[(int) (offset >>> CHUNK_SHIFT)];
+            int index = (int) (offset & CHUNK_MASK);
+            int count = Math.min(length, CHUNK_SIZE - index);
+            buffer.append(chunk, index, index + count);
+            offset += count;
+            length -= count;
+        }
+    } // appendTo(long,int,StringBuilder)
+
+    /** Returns the number of bytes allocated outside the heap. */
+    long getAllocatedSize() {
+        long size = 0;
+        for (int i = 0; i < fChunks.length && fChunks[i] != null; i++) {
+            size += CHUNK_SIZE * 2L;
+        }
+        return size;
+    }
+
+} // class CharArena
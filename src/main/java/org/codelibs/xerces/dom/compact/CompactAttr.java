@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.dom.compact;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.w3c.dom.TypeInfo;
+
+/**
+ * An attribute of a {@link CompactDocument}. The index of an attribute
+ * refers to the attribute table of the document. The value of an attribute
+ * is not represented by child nodes.
+ *
+ * @author CodeLibs Project
+ */
+public class CompactAttr extends CompactNode implements Attr {
+
+    //
+    // Constructors
+    //
+
+    CompactAttr(CompactDocument document, int index) {
+        super(document, index);
+    }
+
+    //
+    // Node methods
+    //
+
+    public short getNodeType() {
+        return ATTRIBUTE_NODE;
+    }
+
+    public String getNodeName() {
+        return fDocument.symbolName(fDocument.attributeName(fIndex));
+    }
+
+    public String getNodeValue() throws DOMException {
+        return getValue();
+    }
+
+    public void setNodeValue(String nodeValue) throws DOMException {
+        throw readOnly();
+    }
+
+    public Node getParentNode() {
+        return null;
+    }
+
+    public NodeList getChildNodes() {
+        return new IndexList(fDocument, null, 0);
+    }
+
+    public Node getFirstChild() {
+        return null;
+    }
+
+    public Node getLastChild() {
+        return null;
+    }
+
+    public Node getPreviousSibling() {
+        return null;
+    }
+
+    public Node getNextSibling() {
+        return null;
+    }
+
+    public boolean hasChildNodes() {
+        return false;
+    }
+
+    public String getNamespaceURI() {
+        return fDocument.symbolURI(fDocument.attributeName(fIndex));
+    }
+
+    public String getPrefix() {
+        return fDocument.symbolPrefix(fDocument.attributeName(fIndex));
+    }
+
+    public void setPrefix(String prefix) throws DOMException {
+        throw readOnly();
+    }
+
+    public String getLocalName() {
+        return fDocument.symbolLocalName(fDocument.attributeName(fIndex));
+    }
+
+    public String getTextContent() throws DOMException {
+        return getValue();
+    }
+
+    //
+    // Attr methods
+    //
+
+    public String getName() {
+        return getNodeName();
+    }
+
+    public boolean getSpecified() {
+        return (fDocument.attributeFlags(fIndex) & CompactDocument.SPECIFIED) != 0;
+    }
+
+    public String getValue() {
+        return fDocument.attributeValue(fIndex);
+    }
+
+    public void setValue(String value) throws DOMException {
+        throw readOnly();
+    }
+
+    public Element getOwnerElement() {
+        return (Element) fDocument.node(fDocument.attributeOwner(fIndex));
+    }
+
+    public TypeInfo getSchemaTypeInfo() {
+        return EMPTY_TYPE_INFO;
+    }
+
+    public boolean isId() {
+        return (fDocument.attributeFlags(fIndex) & CompactDocument.ID) != 0;
+    }
+
+    //
+    // Package methods
+    //
+
+    int treeIndex() {
+        return fDocument.attributeOwner(fIndex);
+    }
+
+    long userDataKey() {
+        // attributes have their own table
+        return -1L - fIndex;
+    }
+
+    int namespaceElement() {
+        return fDocument.attributeOwner(fIndex);
+    }
+
+} // class CompactAttr
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.dom.compact;
+
+import org.w3c.dom.DOMException;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * The attributes of an element of a {@link CompactDocument}.
+ *
+ * @author CodeLibs Project
+ */
+final class CompactAttributeMap implements NamedNodeMap {
+
+    //
+    // Data
+    //
+
+    /** The document. */
+    private final CompactDocument fDocument;
+
+    /** The element. */
+    private final int fElement;
+
+    //
+    // Constructors
+    //
+
+    CompactAttributeMap(CompactDocument document, int element) {
+        fDocument = document;
+        fElement = element;
+    }
+
+    //
+    // NamedNodeMap methods
+    //
+
+    public Node getNamedItem(String name) {
+        return new CompactElement(fDocument, fElement).getAttributeNode(name);
+    }
+
+    public Node setNamedItem(Node arg) throws DOMException {
+        throw CompactNode.readOnly();
+    }
+
+    public Node removeNamedItem(String name) throws DOMException {
+        throw CompactNode.readOnly();
+    }
+
+    public Node item(int index) {
+        if (index < 0 || index >= getLength()) {
+            return null;
+        }
+        return new CompactAttr(fDocument, fDocument.firstAttribute(fElement) + index);
+    }
+
+    public int getLength() {
+        return fDocument.attributeCount(fElement);
+    }
+
+    public Node getNamedItemNS(String namespaceURI, String localName) throws DOMException {
+        return new CompactElement(fDocument, fElement).getAttributeNodeNS(namespaceURI, localName);
+    }
+
+    public Node setNamedItemNS(Node arg) throws DOMException {
+        throw CompactNode.readOnly();
+    }
+
+    public Node removeNamedItemNS(String namespaceURI, String localName) throws DOMException {
+        throw CompactNode.readOnly();
+    }
+
+} // class CompactAttributeMap
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.dom.compact;
+
+import org.codelibs.xerces.dom.DOMMessageFormatter;
+import org.w3c.dom.CharacterData;
+import org.w3c.dom.DOMException;
+
+/**
+ * Base class of the text and comment nodes of a {@link CompactDocument}.
+ *
+ * @author CodeLibs Project
+ */
+public abstract class CompactCharacterData extends CompactNode implements CharacterData {
+
+    //
+    // Constructors
+    //
+
+    CompactCharacterData(CompactDocument document, int index) {
+        super(document, index);
+    }
+
+    //
+    // Node methods
+    //
+
+    public String getNodeValue() throws DOMException {
+        return getData();
+    }
+
+    public void setNodeValue(String nodeValue) throws DOMException {
+        throw readOnly();
+    }
+
+    public String getTextContent() throws DOMException {
+        return getData();
+    }
+
+    //
+    // CharacterData methods
+    //
+
+    public String getData() throws DOMException {
+        return fDocument.value(fIndex);
+    }
+
+    public void setData(String data) throws DOMException {
+        throw readOnly();
+    }
+
+    public int getLength() {
+        return fDocument.valueLength(fIndex);
+    }
+
+    public String substringData(int offset, int count) throws DOMException {
+        int length = getLength();
+        if (count < 0 || offset < 0 || offset > length) {
+            String msg = DOMMessageFormatter.formatMessage(DOMMessageFormatter.DOM_DOMAIN, "INDEX_SIZE_ERR", null);
+            throw new DOMException(DOMException.INDEX_SIZE_ERR, msg);
+        }
+        count = Math.min(count, length - offset);
+        return fDocument.fChars.getString(fDocument.valueOffset(fIndex) + offset, count);
+    } // substringData(int,int):String
+
+    public void appendData(String arg) throws DOMException {
+        throw readOnly();
+    }
+
+    public void insertData(int offset, String arg) throws DOMException {
+        throw readOnly();
+    }
+
+    public void deleteData(int offset, int count) throws DOMException {
+        throw readOnly();
+    }
+
+    public void replaceData(int offset, int count, String arg) throws DOMException {
+        throw readOnly();
+    }
+
+} // class CompactCharacterData
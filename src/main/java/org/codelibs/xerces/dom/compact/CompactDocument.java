@@ -0,0 +1,705 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.dom.compact;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.codelibs.xerces.dom.CoreDOMImplementationImpl;
+import org.w3c.dom.Attr;
+import org.w3c.dom.CDATASection;
+import org.w3c.dom.Comment;
+import org.w3c.dom.DOMConfiguration;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.DOMImplementation;
+import org.w3c.dom.Document;
+import org.w3c.dom.DocumentFragment;
+import org.w3c.dom.DocumentType;
+import org.w3c.dom.Element;
+import org.w3c.dom.EntityReference;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.w3c.dom.ProcessingInstruction;
+import org.w3c.dom.Text;
+
+/**
+ * A read-only document that keeps its tree in a compact form outside the
+ * Java heap, for documents too large to be held as regular DOM nodes.
+ * <p>
+ * The nodes are stored in document order in a set of int columns (type,
+ * name, parent, siblings, last child and value); attributes are stored in
+ * a second set of columns. Element and attribute names are indexes into a
+ * table of the distinct names of the document, and all the character data
+ * is stored in a single character arena. The columns and the arena are
+ * made of direct buffers, so that only the name table and the nodes the
+ * application is currently holding live on the heap. DOM nodes are light
+ * handles created on demand; see {@link CompactNode}.
+ * <p>
+ * Direct buffers count against the JVM's direct memory limit
+ * (<code>-XX:MaxDirectMemorySize</code>, by default about the maximum
+ * heap size), not against the heap. Parsing a document larger than the
+ * remaining direct memory fails with an <code>OutOfMemoryError</code>
+ * even if the heap has room. The buffers are freed only when the
+ * document has been garbage collected.
+ * <p>
+ * Compact documents are built by the
+ * {@link org.codelibs.xerces.parsers.CompactDOMParser}. Once built, a
+ * document never changes and can be read by several threads at the same
+ * time. Entity references are expanded and the document type declaration
+ * is not kept.
+ *
+ * @author CodeLibs Project
+ */
+public class CompactDocument extends CompactNode implements Document {
+
+    //
+    // Constants
+    //
+
+    /** Attribute flag: the attribute was specified. */
+    static final int SPECIFIED = 0x01;
+
+    /** Attribute flag: the attribute is of type ID. */
+    static final int ID = 0x02;
+
+    //
+    // Data
+    //
+
+    // node table
+
+    /** Node types. */
+    private final IntColumn fType = new IntColumn();
+
+    /** Node names, as symbols. */
+    private final IntColumn fName = new IntColumn();
+
+    /** Node parents. */
+    private final IntColumn fParent = new IntColumn();
+
+    /** Node previous siblings. */
+    private final IntColumn fPreviousSibling = new IntColumn();
+
+    /** Node next siblings. */
+    private final IntColumn fNextSibling = new IntColumn();
+
+    /** Node last children. */
+    private final IntColumn fLastChild = new IntColumn();
+
+    /** Value offsets in the arena, high half; first attribute of elements. */
+    private final IntColumn fValueHigh = new IntColumn();
+
+    /** Value offsets in the arena, low half. */
+    private final IntColumn fValueLow = new IntColumn();
+
+    /** Value lengths; attribute counts of elements. */
+    private final IntColumn fValueLength = new IntColumn();
+
+    // attribute table
+
+    /** Attribute names, as symbols. */
+    private final IntColumn fAttrName = new IntColumn();
+
+    /** Attribute owner elements. */
+    private final IntColumn fAttrOwner = new IntColumn();
+
+    /** Attribute value offsets in the arena, high half. */
+    private final IntColumn fAttrValueHigh = new IntColumn();
+
+    /** Attribute value offsets in the arena, low half. */
+    private final IntColumn fAttrValueLow = new IntColumn();
+
+    /** Attribute value lengths. */
+    private final IntColumn fAttrValueLength = new IntColumn();
+
+    /** Attribute flags. */
+    private final IntColumn fAttrFlags = new IntColumn();
+
+    // character data
+
+    /** Character arena. */
+    final CharArena fChars = new CharArena();
+
+    // names
+
+    /** Symbol qualified names. */
+    private String[] fSymbolName = new String[64];
+
+    /** Symbol local names. */
+    private String[] fSymbolLocalName = new String[64];
+
+    /** Symbol prefixes. */
+    private String[] fSymbolPrefix = new String[64];
+
+    /** Symbol namespace URIs. */
+    private String[] fSymbolURI = new String[64];
+
+    /** Next symbol with the same qualified name, or -1. */
+    private int[] fSymbolNext = new int[64];
+
+    /** Number of symbols. */
+    private int fSymbolCount;
+
+    /** First symbol of each qualified name. */
+    private final HashMap fSymbolIndex = new HashMap();
+
+    // other information
+
+    /** Elements by identifier. */
+    private final HashMap fIdentifiers = new HashMap();
+
+    /** User data, by node. */
+    private final Map fUserData = new HashMap();
+
+    /** Document URI. */
+    String fDocumentURI;
+
+    /** Input encoding. */
+    String fInputEncoding;
+
+    /** Encoding of the XML declaration. */
+    String fXmlEncoding;
+
+    /** Version of the XML declaration. */
+    String fXmlVersion;
+
+    /** Standalone value of the XML declaration. */
+    boolean fXmlStandalone;
+
+    //
+    // Constructors
+    //
+
+    /** Constructs an empty document, holding only the document node. */
+    CompactDocument() {
+        super(null, 0);
+        fDocument = this;
+        addNode(DOCUMENT_NODE, -1, -1);
+    }
+
+    //
+    // Public methods
+    //
+
+    /**
+     * Returns the number of nodes of the document, not counting
+     * attributes.
+     *
+     * @return the number of nodes
+     */
+    public int getNodeCount() {
+        return fType.size();
+    }
+
+    /**
+     * Returns the number of attributes of the document.
+     *
+     * @return the number of attributes
+     */
+    public int getAttributeCount() {
+        return fAttrName.size();
+    }
+
+    /**
+     * Returns the number of bytes allocated outside the heap to hold the
+     * document.
+     *
+     * @return the size in bytes
+     */
+    public long getAllocatedSize() {
+        IntColumn[] columns = { fType, fName, fParent, fPreviousSibling, fNextSibling, fLastChild, fValueHigh, fValueLow, fValueLength,
+                fAttrName, fAttrOwner, fAttrValueHigh, fAttrValueLow, fAttrValueLength, fAttrFlags };
+        long size = fChars.getAllocatedSize();
+        for (int i = 0; i < columns.length; i++) {
+            size += columns[i].getAllocatedSize();
+        }
+        return size;
+    } // getAllocatedSize():long
+
+    //
+    // Node methods
+    //
+
+    public short getNodeType() {
+        return DOCUMENT_NODE;
+    }
+
+    public String getNodeName() {
+        return "#document";
+    }
+
+    public Document getOwnerDocument() {
+        return null;
+    }
+
+    public String getTextContent() throws DOMException {
+        return null;
+    }
+
+    public void setTextContent(String textContent) throws DOMException {
+        // no effect on documents
+    }
+
+    public String getBaseURI() {
+        return fDocumentURI;
+    }
+
+    public String lookupNamespaceURI(String prefix) {
+        Element element = getDocumentElement();
+        return element != null ? element.lookupNamespaceURI(prefix) : null;
+    }
+
+    public String lookupPrefix(String namespaceURI) {
+        Element element = getDocumentElement();
+        return element != null ? element.lookupPrefix(namespaceURI) : null;
+    }
+
+    //
+    // Document methods
+    //
+
+    /** The document type declaration is not kept. */
+    public DocumentType getDoctype() {
+        return null;
+    }
+
+    public DOMImplementation getImplementation() {
+        return CoreDOMImplementationImpl.getDOMImplementation();
+    }
+
+    public Element getDocumentElement() {
+        if (fLastChild.get(0) == -1) {
+            return null;
+        }
+        for (int child = 1; child != -1; child = fNextSibling.get(child)) {
+            if (fType.get(child) == ELEMENT_NODE) {
+                return (Element) node(child);
+            }
+        }
+        return null;
+    } // getDocumentElement():Element
+
+    public Element createElement(String tagName) throws DOMException {
+        throw readOnly();
+    }
+
+    public DocumentFragment createDocumentFragment() {
+        throw readOnly();
+    }
+
+    public Text createTextNode(String data) {
+        throw readOnly();
+    }
+
+    public Comment createComment(String data) {
+        throw readOnly();
+    }
+
+    public CDATASection createCDATASection(String data) throws DOMException {
+        throw readOnly();
+    }
+
+    public ProcessingInstruction createProcessingInstruction(String target, String data) throws DOMException {
+        throw readOnly();
+    }
+
+    public Attr createAttribute(String name) throws DOMException {
+        throw readOnly();
+    }
+
+    public EntityReference createEntityReference(String name) throws DOMException {
+        throw readOnly();
+    }
+
+    public NodeList getElementsByTagName(String tagname) {
+        return getElementsByTagName(0, tagname);
+    }
+
+    public Node importNode(Node importedNode, boolean deep) throws DOMException {
+        throw readOnly();
+    }
+
+    public Element createElementNS(String namespaceURI, String qualifiedName) throws DOMException {
+        throw readOnly();
+    }
+
+    public Attr createAttributeNS(String namespaceURI, String qualifiedName) throws DOMException {
+        throw readOnly();
+    }
+
+    public NodeList getElementsByTagNameNS(String namespaceURI, String localName) {
+        return getElementsByTagNameNS(0, namespaceURI, localName);
+    }
+
+    public Element getElementById(String elementId) {
+        Integer element = (Integer) fIdentifiers.get(elementId);
+        return element != null ? (Element) node(element.intValue()) : null;
+    }
+
+    public String getInputEncoding() {
+        return fInputEncoding;
+    }
+
+    public String getXmlEncoding() {
+        return fXmlEncoding;
+    }
+
+    public boolean getXmlStandalone() {
+        return fXmlStandalone;
+    }
+
+    public void setXmlStandalone(boolean xmlStandalone) throws DOMException {
+        throw readOnly();
+    }
+
+    public String getXmlVersion() {
+        return fXmlVersion != null ? fXmlVersion : "1.0";
+    }
+
+    public void setXmlVersion(String xmlVersion) throws DOMException {
+        throw readOnly();
+    }
+
+    public boolean getStrictErrorChecking() {
+        return true;
+    }
+
+    public void setStrictErrorChecking(boolean strictErrorChecking) {
+        // always checked
+    }
+
+    public String getDocumentURI() {
+        return fDocumentURI;
+    }
+
+    public void setDocumentURI(String documentURI) {
+        throw readOnly();
+    }
+
+    public Node adoptNode(Node source) throws DOMException {
+        throw readOnly();
+    }
+
+    /** Not supported: the document cannot be normalized. */
+    public DOMConfiguration getDomConfig() {
+        return null;
+    }
+
+    public void normalizeDocument() {
+        // never needed
+    }
+
+    public Node renameNode(Node n, String namespaceURI, String qualifiedName) throws DOMException {
+        throw readOnly();
+    }
+
+    //
+    // Package methods: reading
+    //
+
+    /** Returns a handle on the given node, or null if the index is -1. */
+    CompactNode node(int index) {
+        if (index <= 0) {
+            return index == 0 ? this : null;
+        }
+        switch (fType.get(index)) {
+        case ELEMENT_NODE:
+            return new CompactElement(this, index);
+        case COMMENT_NODE:
+            return new CompactComment(this, index);
+        case PROCESSING_INSTRUCTION_NODE:
+            return new CompactProcessingInstruction(this, index);
+        default:
+            return new CompactText(this, index);
+        }
+    } // node(int):CompactNode
+
+    int type(int node) {
+        return fType.get(node);
+    }
+
+    int name(int node) {
+        return fName.get(node);
+    }
+
+    int parent(int node) {
+        return fParent.get(node);
+    }
+
+    int previousSibling(int node) {
+        return fPreviousSibling.get(node);
+    }
+
+    int nextSibling(int node) {
+        return fNextSibling.get(node);
+    }
+
+    int lastChild(int node) {
+        return fLastChild.get(node);
+    }
+
+    long valueOffset(int node) {
+        return ((long) fValueHigh.get(node) << 32) | (fValueLow.get(node) & 0xFFFFFFFFL);
+    }
+
+    int valueLength(int node) {
+        return fValueLength.get(node);
+    }
+
+    /** Returns the character data of a text, comment or PI node. */
+    String value(int node) {
+        return fChars.getString(valueOffset(node), fValueLength.get(node));
+    }
+
+    int firstAttribute(int element) {
+        return fValueLow.get(element);
+    }
+
+    int attributeCount(int element) {
+        return fValueLength.get(element);
+    }
+
+    int attributeName(int attr) {
+        return fAttrName.get(attr);
+    }
+
+    int attributeOwner(int attr) {
+        return fAttrOwner.get(attr);
+    }
+
+    int attributeFlags(int attr) {
+        return fAttrFlags.get(attr);
+    }
+
+    String attributeValue(int attr) {
+        long offset = ((long) fAttrValueHigh.get(attr) << 32) | (fAttrValueLow.get(attr) & 0xFFFFFFFFL);
+        return fChars.getString(offset, fAttrValueLength.get(attr));
+    }
+
+    String symbolName(int symbol) {
+        return fSymbolName[symbol];
+    }
+
+    String symbolLocalName(int symbol) {
+        return fSymbolLocalName[symbol];
+    }
+
+    String symbolPrefix(int symbol) {
+        return fSymbolPrefix[symbol];
+    }
+
+    String symbolURI(int symbol) {
+        return fSymbolURI[symbol];
+    }
+
+    /** Returns the closest ancestor element of the given node, or -1. */
+    int parentElement(int node) {
+        int parent = fParent.get(node);
+        return parent > 0 ? parent : -1;
+    }
+
+    /**
+     * Returns the index of the first node following the subtree of the
+     * given node in document order.
+     */
+    int subtreeEnd(int node) {
+        for (int n = node; n != -1; n = fParent.get(n)) {
+            int next = fNextSibling.get(n);
+            if (next != -1) {
+                return next;
+            }
+        }
+        return fType.size();
+    } // subtreeEnd(int):int
+
+    /** Appends the text of the given subtree to the buffer. */
+    void appendText(int node, StringBuilder buffer) {
+        int end = subtreeEnd(node);
+        for (int n = node + 1; n < end; n++) {
+            int type = fType.get(n);
+            if (type == TEXT_NODE || type == CDATA_SECTION_NODE) {
+                fChars.appendTo(valueOffset(n), fValueLength.get(n), buffer);
+            }
+        }
+    } // appendText(int,StringBuilder)
+
+    /** Returns the elements of a subtree with the given name. */
+    NodeList getElementsByTagName(int root, String tagname) {
+        boolean all = "*".equals(tagname);
+        boolean[] matches = new boolean[fSymbolCount];
+        for (int i = 0; i < fSymbolCount; i++) {
+            matches[i] = all || fSymbolName[i].equals(tagname);
+        }
+        return getElements(root, matches);
+    } // getElementsByTagName(int,String):NodeList
+
+    /** Returns the elements of a subtree with the given namespace and local name. */
+    NodeList getElementsByTagNameNS(int root, String namespaceURI, String localName) {
+        boolean anyURI = "*".equals(namespaceURI);
+        boolean anyName = "*".equals(localName);
+        if (namespaceURI != null && namespaceURI.length() == 0) {
+            namespaceURI = null;
+        }
+        boolean[] matches = new boolean[fSymbolCount];
+        for (int i = 0; i < fSymbolCount; i++) {
+            matches[i] = (anyURI || equal(namespaceURI, fSymbolURI[i])) && (anyName || fSymbolLocalName[i].equals(localName));
+        }
+        return getElements(root, matches);
+    } // getElementsByTagNameNS(int,String,String):NodeList
+
+    Object setUserData(long node, String key, Object data) {
+        synchronized (fUserData) {
+            Long nodeKey = Long.valueOf(node);
+            HashMap table = (HashMap) fUserData.get(nodeKey);
+            if (data == null) {
+                return table != null ? table.remove(key) : null;
+            }
+            if (table == null) {
+                table = new HashMap();
+                fUserData.put(nodeKey, table);
+            }
+            return table.put(key, data);
+        }
+    } // setUserData(long,String,Object):Object
+
+    Object getUserData(long node, String key) {
+        synchronized (fUserData) {
+            HashMap table = (HashMap) fUserData.get(Long.valueOf(node));
+            return table != null ? table.get(key) : null;
+        }
+    } // getUserData(long,String):Object
+
+    //
+    // Package methods: building
+    //
+
+    /** Appends a node as the last child of the given parent. */
+    int addNode(int type, int name, int parent) {
+        int node = fType.add(type);
+        fName.add(name);
+        fParent.add(parent);
+        int previous = parent != -1 ? fLastChild.get(parent) : -1;
+        fPreviousSibling.add(previous);
+        fNextSibling.add(-1);
+        fLastChild.add(-1);
+        fValueHigh.add(0);
+        fValueLow.add(0);
+        fValueLength.add(0);
+        if (previous != -1) {
+            fNextSibling.set(previous, node);
+        }
+        if (parent != -1) {
+            fLastChild.set(parent, node);
+        }
+        return node;
+    } // addNode(int,int,int):int
+
+    /** Sets the value of a node to the given characters of the arena. */
+    void setValue(int node, long offset, int length) {
+        fValueHigh.set(node, (int) (offset >>> 32));
+        fValueLow.set(node, (int) offset);
+        fValueLength.set(node, length);
+    }
+
+    /** Appends an attribute; the attributes of an element are contiguous. */
+    int addAttribute(int element, int name, String value, int flags) {
+        long offset = fChars.append(value);
+        int attr = fAttrName.add(name);
+        fAttrOwner.add(element);
+        fAttrValueHigh.add((int) (offset >>> 32));
+        fAttrValueLow.add((int) offset);
+        fAttrValueLength.add(value.length());
+        fAttrFlags.add(flags);
+        if (fValueLength.get(element) == 0) {
+            fValueLow.set(element, attr);
+        }
+        fValueLength.set(element, fValueLength.get(element) + 1);
+        if ((flags & ID) != 0 && !fIdentifiers.containsKey(value)) {
+            fIdentifiers.put(value, Integer.valueOf(element));
+        }
+        return attr;
+    } // addAttribute(int,int,String,int):int
+
+    /** Returns the symbol of the given name, adding it if needed. */
+    int symbol(String uri, String name, String prefix, String localName) {
+        if (uri != null && uri.length() == 0) {
+            uri = null;
+        }
+        Integer first = (Integer) fSymbolIndex.get(name);
+        int last = -1;
+        if (first != null) {
+            for (int s = first.intValue(); s != -1; s = fSymbolNext[s]) {
+                if (equal(uri, fSymbolURI[s])) {
+                    return s;
+                }
+                last = s;
+            }
+        }
+        if (fSymbolCount == fSymbolName.length) {
+            int size = fSymbolCount * 2;
+            fSymbolName = resize(fSymbolName, size);
+            fSymbolLocalName = resize(fSymbolLocalName, size);
+            fSymbolPrefix = resize(fSymbolPrefix, size);
+            fSymbolURI = resize(fSymbolURI, size);
+            int[] next = new int[size];
+            System.arraycopy(fSymbolNext, 0, next, 0, fSymbolCount);
+            fSymbolNext = next;
+        }
+        int symbol = fSymbolCount++;
+        fSymbolName[symbol] = name;
+        fSymbolLocalName[symbol] = localName != null ? localName : name;
+        fSymbolPrefix[symbol] = prefix != null && prefix.length() > 0 ? prefix : null;
+        fSymbolURI[symbol] = uri;
+        fSymbolNext[symbol] = -1;
+        if (last != -1) {
+            fSymbolNext[last] = symbol;
+        } else {
+            fSymbolIndex.put(name, Integer.valueOf(symbol));
+        }
+        return symbol;
+    } // symbol(String,String,String,String):int
+
+    //
+    // Private methods
+    //
+
+    /** Returns the elements of a subtree whose name is one of the given symbols. */
+    private NodeList getElements(int root, boolean[] matches) {
+        int[] nodes = new int[16];
+        int length = 0;
+        int end = subtreeEnd(root);
+        for (int n = root + 1; n < end; n++) {
+            if (fType.get(n) == ELEMENT_NODE && matches[fName.get(n)]) {
+                if (length == nodes.length) {
+                    int[] newNodes = new int[length * 2];
+                    System.arraycopy(nodes, 0, newNodes, 0, length);
+                    nodes = newNodes;
+                }
+                nodes[length++] = n;
+            }
+        }
+        return new IndexList(this, nodes, length);
+    } // getElements(int,boolean[]):NodeList
+
+    private static String[] resize(String[] array, int size) {
+        String[] newArray = new String[size];
+        System.arraycopy(array, 0, newArray, 0, array.length);
+        return newArray;
+    }
+
+} // class CompactDocument
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.dom.compact;
+
+import org.codelibs.xerces.xni.QName;
+import org.codelibs.xerces.xni.XMLAttributes;
+import org.codelibs.xerces.xni.XMLString;
+import org.w3c.dom.Node;
+
+/**
+ * Builds a {@link CompactDocument} from document events. Adjacent
+ * character data is merged into a single text node; the document type is
+ * not kept.
+ *
+ * @author CodeLibs Project
+ */
+public class CompactDocumentBuilder {
+
+    //
+    // Data
+    //
+
+    /** The document being built. */
+    private CompactDocument fDocument;
+
+    /** The current parent node. */
+    private int fCurrentNode;
+
+    /** Whether character data belongs to a CDATA section. */
+    private boolean fInCDATA;
+
+    //
+    // Public methods
+    //
+
+    /**
+     * Starts a new document.
+     *
+     * @param documentURI the document URI, may be null
+     * @param encoding    the input encoding, may be null
+     */
+    public void startDocument(String documentURI, String encoding) {
+        fDocument = new CompactDocument();
+        fDocument.fDocumentURI = documentURI;
+        fDocument.fInputEncoding = encoding;
+        fCurrentNode = 0;
+        fInCDATA = false;
+    } // startDocument(String,String)
+
+    /** Records the XML declaration. */
+    public void xmlDecl(String version, String encoding, String standalone) {
+        fDocument.fXmlVersion = version;
+        fDocument.fXmlEncoding = encoding;
+        fDocument.fXmlStandalone = "yes".equals(standalone);
+    } // xmlDecl(String,String,String)
+
+    /** Starts an element, which becomes the current parent. */
+    public void startElement(QName element, XMLAttributes attributes) {
+        int name = fDocument.symbol(element.uri, element.rawname, element.prefix, element.localpart);
+        int node = fDocument.addNode(Node.ELEMENT_NODE, name, fCurrentNode);
+        int length = attributes != null ? attributes.getLength() : 0;
+        for (int i = 0; i < length; i++) {
+            int attrName = fDocument.symbol(attributes.getURI(i), attributes.getQName(i), attributes.getPrefix(i), attributes.getLocalName(i));
+            int flags = 0;
+            if (attributes.isSpecified(i)) {
+                flags |= CompactDocument.SPECIFIED;
+            }
+            if ("ID".equals(attributes.getType(i))) {
+                flags |= CompactDocument.ID;
+            }
+            fDocument.addAttribute(node, attrName, attributes.getValue(i), flags);
+        }
+        fCurrentNode = node;
+    } // startElement(QName,XMLAttributes)
+
+    /** Ends the current element. */
+    public void endElement() {
+        fCurrentNode = fDocument.parent(fCurrentNode);
+    } // endElement()
+
+    /** Appends character data to the current parent. */
+    public void characters(XMLString text) {
+        if (text.length == 0) {
+            return;
+        }
+        int type = fInCDATA ? Node.CDATA_SECTION_NODE : Node.TEXT_NODE;
+        int last = fDocument.lastChild(fCurrentNode);
+        long end = fDocument.fChars.size();
+        long offset = fDocument.fChars.append(text.ch, text.offset, text.length);
+        if (last != -1 && fDocument.type(last) == type && fDocument.valueOffset(last) + fDocument.valueLength(last) == end
+                && (long) fDocument.valueLength(last) + text.length <= Integer.MAX_VALUE) {
+            // the characters follow those of the previous text node
+            fDocument.setValue(last, fDocument.valueOffset(last), fDocument.valueLength(last) + text.length);
+        } else {
+            int node = fDocument.addNode(type, -1, fCurrentNode);
+            fDocument.setValue(node, offset, text.length);
+        }
+    } // characters(XMLString)
+
+    /** Starts a CDATA section. */
+    public void startCDATA() {
+        fInCDATA = true;
+        // a new section does not continue the previous one
+        int node = fDocument.addNode(Node.CDATA_SECTION_NODE, -1, fCurrentNode);
+        fDocument.setValue(node, fDocument.fChars.size(), 0);
+    } // startCDATA()
+
+    /** Ends a CDATA section. */
+    public void endCDATA() {
+        fInCDATA = false;
+    } // endCDATA()
+
+    /** Appends a comment to the current parent. */
+    public void comment(XMLString text) {
+        long offset = fDocument.fChars.append(text.ch, text.offset, text.length);
+        int node = fDocument.addNode(Node.COMMENT_NODE, -1, fCurrentNode);
+        fDocument.setValue(node, offset, text.length);
+    } // comment(XMLString)
+
+    /** Appends a processing instruction to the current parent. */
+    public void processingInstruction(String target, XMLString data) {
+        long offset = fDocument.fChars.append(data.ch, data.offset, data.length);
+        int node = fDocument.addNode(Node.PROCESSING_INSTRUCTION_NODE, fDocument.symbol(null, target, null, null), fCurrentNode);
+        fDocument.setValue(node, offset, data.length);
+    } // processingInstruction(String,XMLString)
+
+    /**
+     * Returns the document built so far.
+     *
+     * @return the document, or null if no document was started
+     */
+    public CompactDocument getDocument() {
+        return fDocument;
+    } // getDocument():CompactDocument
+
+} // class CompactDocumentBuilder
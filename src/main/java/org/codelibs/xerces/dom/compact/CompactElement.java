@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.dom.compact;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.NodeList;
+import org.w3c.dom.TypeInfo;
+
+/**
+ * An element of a {@link CompactDocument}.
+ *
+ * @author CodeLibs Project
+ */
+public class CompactElement extends CompactNode implements Element {
+
+    //
+    // Constructors
+    //
+
+    CompactElement(CompactDocument document, int index) {
+        super(document, index);
+    }
+
+    //
+    // Node methods
+    //
+
+    public short getNodeType() {
+        return ELEMENT_NODE;
+    }
+
+    public String getNodeName() {
+        return fDocument.symbolName(fDocument.name(fIndex));
+    }
+
+    public NamedNodeMap getAttributes() {
+        return new CompactAttributeMap(fDocument, fIndex);
+    }
+
+    public boolean hasAttributes() {
+        return fDocument.attributeCount(fIndex) > 0;
+    }
+
+    public String getNamespaceURI() {
+        return fDocument.symbolURI(fDocument.name(fIndex));
+    }
+
+    public String getPrefix() {
+        return fDocument.symbolPrefix(fDocument.name(fIndex));
+    }
+
+    public void setPrefix(String prefix) throws DOMException {
+        throw readOnly();
+    }
+
+    public String getLocalName() {
+        return fDocument.symbolLocalName(fDocument.name(fIndex));
+    }
+
+    //
+    // Element methods
+    //
+
+    public String getTagName() {
+        return getNodeName();
+    }
+
+    public String getAttribute(String name) {
+        int attr = findAttribute(name);
+        return attr != -1 ? fDocument.attributeValue(attr) : "";
+    }
+
+    public void setAttribute(String name, String value) throws DOMException {
+        throw readOnly();
+    }
+
+    public void removeAttribute(String name) throws DOMException {
+        throw readOnly();
+    }
+
+    public Attr getAttributeNode(String name) {
+        int attr = findAttribute(name);
+        return attr != -1 ? new CompactAttr(fDocument, attr) : null;
+    }
+
+    public Attr setAttributeNode(Attr newAttr) throws DOMException {
+        throw readOnly();
+    }
+
+    public Attr removeAttributeNode(Attr oldAttr) throws DOMException {
+        throw readOnly();
+    }
+
+    public NodeList getElementsByTagName(String name) {
+        return fDocument.getElementsByTagName(fIndex, name);
+    }
+
+    public String getAttributeNS(String namespaceURI, String localName) throws DOMException {
+        int attr = findAttribute(namespaceURI, localName);
+        return attr != -1 ? fDocument.attributeValue(attr) : "";
+    }
+
+    public void setAttributeNS(String namespaceURI, String qualifiedName, String value) throws DOMException {
+        throw readOnly();
+    }
+
+    public void removeAttributeNS(String namespaceURI, String localName) throws DOMException {
+        throw readOnly();
+    }
+
+    public Attr getAttributeNodeNS(String namespaceURI, String localName) throws DOMException {
+        int attr = findAttribute(namespaceURI, localName);
+        return attr != -1 ? new CompactAttr(fDocument, attr) : null;
+    }
+
+    public Attr setAttributeNodeNS(Attr newAttr) throws DOMException {
+        throw readOnly();
+    }
+
+    public NodeList getElementsByTagNameNS(String namespaceURI, String localName) throws DOMException {
+        return fDocument.getElementsByTagNameNS(fIndex, namespaceURI, localName);
+    }
+
+    public boolean hasAttribute(String name) {
+        return findAttribute(name) != -1;
+    }
+
+    public boolean hasAttributeNS(String namespaceURI, String localName) throws DOMException {
+        return findAttribute(namespaceURI, localName) != -1;
+    }
+
+    public TypeInfo getSchemaTypeInfo() {
+        return EMPTY_TYPE_INFO;
+    }
+
+    public void setIdAttribute(String name, boolean isId) throws DOMException {
+        throw readOnly();
+    }
+
+    public void setIdAttributeNS(String namespaceURI, String localName, boolean isId) throws DOMException {
+        throw readOnly();
+    }
+
+    public void setIdAttributeNode(Attr idAttr, boolean isId) throws DOMException {
+        throw readOnly();
+    }
+
+    //
+    // Package methods
+    //
+
+    /** Returns the attribute with the given name, or -1. */
+    int findAttribute(String name) {
+        int first = fDocument.firstAttribute(fIndex);
+        int end = first + fDocument.attributeCount(fIndex);
+        for (int attr = first; attr < end; attr++) {
+            if (fDocument.symbolName(fDocument.attributeName(attr)).equals(name)) {
+                return attr;
+            }
+        }
+        return -1;
+    } // findAttribute(String):int
+
+    /** Returns the attribute with the given namespace and local name, or -1. */
+    int findAttribute(String namespaceURI, String localName) {
+        if (namespaceURI != null && namespaceURI.length() == 0) {
+            namespaceURI = null;
+        }
+        int first = fDocument.firstAttribute(fIndex);
+        int end = first + fDocument.attributeCount(fIndex);
+        for (int attr = first; attr < end; attr++) {
+            int symbol = fDocument.attributeName(attr);
+            if (equal(namespaceURI, fDocument.symbolURI(symbol)) && fDocument.symbolLocalName(symbol).equals(localName)) {
+                return attr;
+            }
+        }
+        return -1;
+    } // findAttribute(String,String):int
+
+} // class CompactElement
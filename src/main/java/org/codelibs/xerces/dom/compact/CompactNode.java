@@ -0,0 +1,500 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.dom.compact;
+
+import org.codelibs.xerces.dom.DOMMessageFormatter;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Document;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.w3c.dom.TypeInfo;
+import org.w3c.dom.UserDataHandler;
+
+/**
+ * Base class of the nodes of a {@link CompactDocument}. A node is only a
+ * light handle made of the document and the index of the node in the
+ * document tables; it is created when the application reaches the node and
+ * can be dropped at any time. Two handles on the same node are therefore
+ * equal but not necessarily identical, and should be compared with
+ * <code>isSameNode</code> or <code>equals</code>.
+ * <p>
+ * The tree is read-only: all the methods modifying it raise a
+ * <code>DOMException</code> with code
+ * <code>NO_MODIFICATION_ALLOWED_ERR</code>.
+ *
+ * @author CodeLibs Project
+ */
+public abstract class CompactNode implements Node {
+
+    //
+    // Constants
+    //
+
+    /** Type information of nodes, which is never known. */
+    static final TypeInfo EMPTY_TYPE_INFO = new TypeInfo() {
+        public String getTypeName() {
+            return null;
+        }
+
+        public String getTypeNamespace() {
+            return null;
+        }
+
+        public boolean isDerivedFrom(String typeNamespaceArg, String typeNameArg, int derivationMethod) {
+            return false;
+        }
+    };
+
+    /** The XML Namespace namespace. */
+    static final String XMLNS_URI = "http://www.w3.org/2000/xmlns/";
+
+    //
+    // Data
+    //
+
+    /** The owner document. */
+    CompactDocument fDocument;
+
+    /** The index of the node in the document tables. */
+    final int fIndex;
+
+    //
+    // Constructors
+    //
+
+    /** Constructs a handle on the given node. */
+    CompactNode(CompactDocument document, int index) {
+        fDocument = document;
+        fIndex = index;
+    }
+
+    //
+    // Node methods
+    //
+
+    public String getNodeValue() throws DOMException {
+        return null;
+    }
+
+    public void setNodeValue(String nodeValue) throws DOMException {
+        // no effect on nodes whose value is defined to be null
+    }
+
+    public Node getParentNode() {
+        return fDocument.node(fDocument.parent(fIndex));
+    }
+
+    public NodeList getChildNodes() {
+        return new ChildList(fDocument, fIndex);
+    }
+
+    public Node getFirstChild() {
+        // children follow their parent in document order
+        return fDocument.lastChild(fIndex) != -1 ? fDocument.node(fIndex + 1) : null;
+    }
+
+    public Node getLastChild() {
+        return fDocument.node(fDocument.lastChild(fIndex));
+    }
+
+    public Node getPreviousSibling() {
+        return fDocument.node(fDocument.previousSibling(fIndex));
+    }
+
+    public Node getNextSibling() {
+        return fDocument.node(fDocument.nextSibling(fIndex));
+    }
+
+    public NamedNodeMap getAttributes() {
+        return null;
+    }
+
+    public Document getOwnerDocument() {
+        return fDocument;
+    }
+
+    public Node insertBefore(Node newChild, Node refChild) throws DOMException {
+        throw readOnly();
+    }
+
+    public Node replaceChild(Node newChild, Node oldChild) throws DOMException {
+        throw readOnly();
+    }
+
+    public Node removeChild(Node oldChild) throws DOMException {
+        throw readOnly();
+    }
+
+    public Node appendChild(Node newChild) throws DOMException {
+        throw readOnly();
+    }
+
+    public boolean hasChildNodes() {
+        return fDocument.lastChild(fIndex) != -1;
+    }
+
+    /**
+     * Not supported: a compact document cannot hold nodes that are not part
+     * of its tree. Nodes can be copied to another document with
+     * <code>Document.importNode</code>.
+     */
+    public Node cloneNode(boolean deep) {
+        String msg = DOMMessageFormatter.formatMessage(DOMMessageFormatter.DOM_DOMAIN, "NOT_SUPPORTED_ERR", null);
+        throw new DOMException(DOMException.NOT_SUPPORTED_ERR, msg);
+    }
+
+    public void normalize() {
+        // text nodes are never adjacent nor empty
+    }
+
+    public boolean isSupported(String feature, String version) {
+        return fDocument.getImplementation().hasFeature(feature, version);
+    }
+
+    public String getNamespaceURI() {
+        return null;
+    }
+
+    public String getPrefix() {
+        return null;
+    }
+
+    public void setPrefix(String prefix) throws DOMException {
+        // no effect on nodes whose prefix is defined to be null
+    }
+
+    public String getLocalName() {
+        return null;
+    }
+
+    public boolean hasAttributes() {
+        return false;
+    }
+
+    public String getBaseURI() {
+        return fDocument.getDocumentURI();
+    }
+
+    public short compareDocumentPosition(Node other) throws DOMException {
+        if (isSameNode(other)) {
+            return 0;
+        }
+        if (!(other instanceof CompactNode) || ((CompactNode) other).fDocument != fDocument) {
+            // order nodes of different documents consistently
+            int thisHash = System.identityHashCode(fDocument);
+            int otherHash = other == null ? 0 : System.identityHashCode(other.getOwnerDocument());
+            return (short) (DOCUMENT_POSITION_DISCONNECTED | DOCUMENT_POSITION_IMPLEMENTATION_SPECIFIC
+                    | (thisHash < otherHash ? DOCUMENT_POSITION_FOLLOWING : DOCUMENT_POSITION_PRECEDING));
+        }
+        CompactNode node = (CompactNode) other;
+        int thisIndex = treeIndex();
+        int otherIndex = node.treeIndex();
+        if (thisIndex == otherIndex) {
+            // attributes of the same element, or an element and one of its
+            // attributes
+            if (!(this instanceof CompactAttr)) {
+                return DOCUMENT_POSITION_CONTAINED_BY | DOCUMENT_POSITION_FOLLOWING;
+            }
+            if (!(node instanceof CompactAttr)) {
+                return DOCUMENT_POSITION_CONTAINS | DOCUMENT_POSITION_PRECEDING;
+            }
+            return (short) (DOCUMENT_POSITION_IMPLEMENTATION_SPECIFIC
+                    | (fIndex < node.fIndex ? DOCUMENT_POSITION_FOLLOWING : DOCUMENT_POSITION_PRECEDING));
+        }
+        if (thisIndex < otherIndex) {
+            boolean contains = !(this instanceof CompactAttr) && otherIndex < fDocument.subtreeEnd(thisIndex);
+            return contains ? DOCUMENT_POSITION_CONTAINED_BY | DOCUMENT_POSITION_FOLLOWING : DOCUMENT_POSITION_FOLLOWING;
+        }
+        boolean contained = !(node instanceof CompactAttr) && thisIndex < fDocument.subtreeEnd(otherIndex);
+        return contained ? DOCUMENT_POSITION_CONTAINS | DOCUMENT_POSITION_PRECEDING : DOCUMENT_POSITION_PRECEDING;
+    } // compareDocumentPosition(Node):short
+
+    public String getTextContent() throws DOMException {
+        StringBuilder buffer = new StringBuilder();
+        fDocument.appendText(fIndex, buffer);
+        return buffer.toString();
+    }
+
+    public void setTextContent(String textContent) throws DOMException {
+        throw readOnly();
+    }
+
+    public boolean isSameNode(Node other) {
+        return equals(other);
+    }
+
+    public String lookupPrefix(String namespaceURI) {
+        if (namespaceURI == null) {
+            return null;
+        }
+        for (int element = namespaceElement(); element != -1; element = fDocument.parentElement(element)) {
+            int first = fDocument.firstAttribute(element);
+            int end = first + fDocument.attributeCount(element);
+            for (int a = first; a < end; a++) {
+                int symbol = fDocument.attributeName(a);
+                String prefix = fDocument.symbolPrefix(symbol);
+                if (XMLNS_URI.equals(fDocument.symbolURI(symbol)) && "xmlns".equals(prefix)
+                        && namespaceURI.equals(fDocument.attributeValue(a))) {
+                    String candidate = fDocument.symbolLocalName(symbol);
+                    // the prefix must not be redeclared on the way down
+                    if (namespaceURI.equals(lookupNamespaceURI(candidate))) {
+                        return candidate;
+                    }
+                }
+            }
+        }
+        return null;
+    } // lookupPrefix(String):String
+
+    public boolean isDefaultNamespace(String namespaceURI) {
+        String defaultNamespace = lookupNamespaceURI(null);
+        return defaultNamespace == null ? namespaceURI == null : defaultNamespace.equals(namespaceURI);
+    }
+
+    public String lookupNamespaceURI(String prefix) {
+        if ("xml".equals(prefix)) {
+            return "http://www.w3.org/XML/1998/namespace";
+        }
+        if ("xmlns".equals(prefix)) {
+            return XMLNS_URI;
+        }
+        for (int element = namespaceElement(); element != -1; element = fDocument.parentElement(element)) {
+            int first = fDocument.firstAttribute(element);
+            int end = first + fDocument.attributeCount(element);
+            for (int a = first; a < end; a++) {
+                int symbol = fDocument.attributeName(a);
+                if (!XMLNS_URI.equals(fDocument.symbolURI(symbol))) {
+                    continue;
+                }
+                String declared = fDocument.symbolPrefix(symbol) == null ? null : fDocument.symbolLocalName(symbol);
+                if (prefix == null ? declared == null : prefix.equals(declared)) {
+                    String uri = fDocument.attributeValue(a);
+                    return uri.length() > 0 ? uri : null;
+                }
+            }
+        }
+        return null;
+    } // lookupNamespaceURI(String):String
+
+    public boolean isEqualNode(Node arg) {
+        if (arg == null || getNodeType() != arg.getNodeType() || !equal(getNodeName(), arg.getNodeName())
+                || !equal(getLocalName(), arg.getLocalName()) || !equal(getNamespaceURI(), arg.getNamespaceURI())
+                || !equal(getPrefix(), arg.getPrefix()) || !equal(getNodeValue(), arg.getNodeValue())) {
+            return false;
+        }
+        NamedNodeMap attributes = getAttributes();
+        NamedNodeMap argAttributes = arg.getAttributes();
+        if (attributes != null) {
+            if (argAttributes == null || attributes.getLength() != argAttributes.getLength()) {
+                return false;
+            }
+            for (int i = 0; i < attributes.getLength(); i++) {
+                Node attr = attributes.item(i);
+                Node argAttr = attr.getLocalName() == null ? argAttributes.getNamedItem(attr.getNodeName())
+                        : argAttributes.getNamedItemNS(attr.getNamespaceURI(), attr.getLocalName());
+                if (!attr.isEqualNode(argAttr)) {
+                    return false;
+                }
+            }
+        }
+        Node child = getFirstChild();
+        Node argChild = arg.getFirstChild();
+        while (child != null && argChild != null) {
+            if (!child.isEqualNode(argChild)) {
+                return false;
+            }
+            child = child.getNextSibling();
+            argChild = argChild.getNextSibling();
+        }
+        return child == argChild;
+    } // isEqualNode(Node):boolean
+
+    public Object getFeature(String feature, String version) {
+        return isSupported(feature, version) ? this : null;
+    }
+
+    /**
+     * Associates an object to a key on this node. User data handlers are
+     * never called, since the nodes of a compact document are never cloned,
+     * imported, renamed or adopted.
+     */
+    public Object setUserData(String key, Object data, UserDataHandler handler) {
+        return fDocument.setUserData(userDataKey(), key, data);
+    }
+
+    public Object getUserData(String key) {
+        return fDocument.getUserData(userDataKey(), key);
+    }
+
+    //
+    // Object methods
+    //
+
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj == null || obj.getClass() != getClass()) {
+            return false;
+        }
+        CompactNode node = (CompactNode) obj;
+        return node.fDocument == fDocument && node.fIndex == fIndex;
+    }
+
+    public int hashCode() {
+        return fIndex * 31 + getNodeType();
+    }
+
+    public String toString() {
+        return "[" + getNodeName() + ": " + getNodeValue() + "]";
+    }
+
+    //
+    // Package methods
+    //
+
+    /**
+     * Returns the index, in the node table, of this node or, for
+     * attributes, of their owner element.
+     */
+    int treeIndex() {
+        return fIndex;
+    }
+
+    /** Returns the key of this node in the user data table. */
+    long userDataKey() {
+        return fIndex;
+    }
+
+    /** Returns the element whose namespace declarations apply to this node. */
+    int namespaceElement() {
+        return fDocument.type(fIndex) == ELEMENT_NODE ? fIndex : fDocument.parentElement(fIndex);
+    }
+
+    /** Returns the exception raised by modifications. */
+    static DOMException readOnly() {
+        String msg = DOMMessageFormatter.formatMessage(DOMMessageFormatter.DOM_DOMAIN, "NO_MODIFICATION_ALLOWED_ERR", null);
+        return new DOMException(DOMException.NO_MODIFICATION_ALLOWED_ERR, msg);
+    }
+
+    /** Compares two possibly null strings. */
+    static boolean equal(String s1, String s2) {
+        return s1 == null ? s2 == null : s1.equals(s2);
+    }
+
+    //
+    // Classes
+    //
+
+    /**
+     * The children of a node. The position of the last child returned is
+     * remembered so that iterating over the list is linear.
+     */
+    static final class ChildList implements NodeList {
+
+        /** The document. */
+        private final CompactDocument fDocument;
+
+        /** The parent node. */
+        private final int fParent;
+
+        /** The number of children, or -1 if not computed yet. */
+        private volatile int fLength = -1;
+
+        /**
+         * Position of the last child returned, in the high half, and its
+         * index, in the low half; kept in a single field so that a list
+         * shared by several threads is never seen half updated.
+         */
+        private volatile long fCache = -1;
+
+        ChildList(CompactDocument document, int parent) {
+            fDocument = document;
+            fParent = parent;
+        }
+
+        public Node item(int index) {
+            if (index < 0 || fDocument.lastChild(fParent) == -1) {
+                return null;
+            }
+            long cache = fCache;
+            int position = (int) (cache >> 32);
+            int child;
+            if (cache != -1 && position <= index) {
+                child = (int) cache;
+            } else {
+                position = 0;
+                child = fParent + 1;
+            }
+            while (position < index && child != -1) {
+                child = fDocument.nextSibling(child);
+                position++;
+            }
+            if (child == -1) {
+                return null;
+            }
+            fCache = ((long) position << 32) | (child & 0xFFFFFFFFL);
+            return fDocument.node(child);
+        } // item(int):Node
+
+        public int getLength() {
+            int length = fLength;
+            if (length == -1) {
+                length = 0;
+                if (fDocument.lastChild(fParent) != -1) {
+                    for (int child = fParent + 1; child != -1; child = fDocument.nextSibling(child)) {
+                        length++;
+                    }
+                }
+                fLength = length;
+            }
+            return length;
+        } // getLength():int
+
+    } // class ChildList
+
+    /** A list of nodes of the node table, in document order. */
+    static final class IndexList implements NodeList {
+
+        /** The document. */
+        private final CompactDocument fDocument;
+
+        /** The node indexes. */
+        private final int[] fNodes;
+
+        /** The number of nodes. */
+        private final int fLength;
+
+        IndexList(CompactDocument document, int[] nodes, int length) {
+            fDocument = document;
+            fNodes = nodes;
+            fLength = length;
+        }
+
+        public Node item(int index) {
+            return index >= 0 && index < fLength ? fDocument.node(fNodes[index]) : null;
+        }
+
+        public int getLength() {
+            return fLength;
+        }
+
+    } // class IndexList
+
+} // class CompactNode
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.dom.compact;
+
+import org.w3c.dom.DOMException;
+import org.w3c.dom.ProcessingInstruction;
+
+/**
+ * A processing instruction of a {@link CompactDocument}.
+ *
+ * @author CodeLibs Project
+ */
+public class CompactProcessingInstruction extends CompactNode implements ProcessingInstruction {
+
+    //
+    // Constructors
+    //
+
+    CompactProcessingInstruction(CompactDocument document, int index) {
+        super(document, index);
+    }
+
+    //
+    // Node methods
+    //
+
+    public short getNodeType() {
+        return PROCESSING_INSTRUCTION_NODE;
+    }
+
+    public String getNodeName() {
+        return getTarget();
+    }
+
+    public String getNodeValue() throws DOMException {
+        return getData();
+    }
+
+    public void setNodeValue(String nodeValue) throws DOMException {
+        throw readOnly();
+    }
+
+    public String getTextContent() throws DOMException {
+        return getData();
+    }
+
+    //
+    // ProcessingInstruction methods
+    //
+
+    public String getTarget() {
+        return fDocument.symbolName(fDocument.name(fIndex));
+    }
+
+    public String getData() {
+        return fDocument.value(fIndex);
+    }
+
+    public void setData(String data) throws DOMException {
+        throw readOnly();
+    }
+
+} // class CompactProcessingInstruction
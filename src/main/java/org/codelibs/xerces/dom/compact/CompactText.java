@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.dom.compact;
+
+import org.w3c.dom.CDATASection;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Text;
+
+/**
+ * A text node or CDATA section of a {@link CompactDocument}.
+ *
+ * @author CodeLibs Project
+ */
+public class CompactText extends CompactCharacterData implements CDATASection {
+
+    //
+    // Constructors
+    //
+
+    CompactText(CompactDocument document, int index) {
+        super(document, index);
+    }
+
+    //
+    // Node methods
+    //
+
+    public short getNodeType() {
+        return (short) fDocument.type(fIndex);
+    }
+
+    public String getNodeName() {
+        return getNodeType() == CDATA_SECTION_NODE ? "#cdata-section" : "#text";
+    }
+
+    //
+    // Text methods
+    //
+
+    public Text splitText(int offset) throws DOMException {
+        throw readOnly();
+    }
+
+    /** Whitespace in element content is not recorded. */
+    public boolean isElementContentWhitespace() {
+        return false;
+    }
+
+    public String getWholeText() {
+        int first = fIndex;
+        for (int n = fDocument.previousSibling(first); n != -1 && isText(n); n = fDocument.previousSibling(n)) {
+            first = n;
+        }
+        StringBuilder buffer = new StringBuilder();
+        for (int n = first; n != -1 && isText(n); n = fDocument.nextSibling(n)) {
+            fDocument.fChars.appendTo(fDocument.valueOffset(n), fDocument.valueLength(n), buffer);
+        }
+        return buffer.toString();
+    } // getWholeText():String
+
+    public Text replaceWholeText(String content) throws DOMException {
+        throw readOnly();
+    }
+
+    //
+    // Private methods
+    //
+
+    private boolean isText(int node) {
+        int type = fDocument.type(node);
+        return type == TEXT_NODE || type == CDATA_SECTION_NODE;
+    }
+
+} // class CompactText
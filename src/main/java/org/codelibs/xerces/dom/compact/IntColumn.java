@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.dom.compact;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * A growable column of ints kept outside the Java heap, in fixed size
+ * direct buffers.
+ *
+ * @author CodeLibs Project
+ */
+final class IntColumn {
+
+    //
+    // Constants
+    //
+
+    /** Chunk shift. */
+    private static final int CHUNK_SHIFT = 16;
+
+    /** Chunk size. */
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+    /** Chunk mask. */
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    //
+    // Data
+    //
+
+    /** Chunks. */
+    private IntBuffer[] fChunks = new IntBuffer[16];
+
+    /** Number of values. */
+    private int fSize;
+
+    //
+    // Methods
+    //
+
+    /** Appends a value and returns its index. */
+    int add(int value) {
+        int index = fSize;
+        int chunk = index >>> CHUNK_SHIFT;
+        if (chunk == fChunks.length) {
+            IntBuffer[] newChunks = new IntBuffer[chunk * 2];
+            System.arraycopy(fChunks, 0, newChunks, 0, chunk);
+            fChunks = newChunks;
+        }
+        if (fChunks[chunk] == null) {
+            fChunks[chunk] = ByteBuffer.allocateDirect(CHUNK_SIZE * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+        fChunks[chunk].put(index & CHUNK_MASK, value);
+        fSize++;
+        return index;
+    } // add(int):int
+
+    /** Returns the value at the given index. */
+    int get(int index) {
+        return fChunks[index >>> CHUNK_SHIFT].get(index & CHUNK_MASK);
+    }
+
+    /** Replaces the value at the given index. */
+    void set(int index, int value) {
+        fChunks[index >>> CHUNK_SHIFT].put(index & CHUNK_MASK, value);
+    }
+
+    /** Returns the number of values. */
+    int size() {
+        return fSize;
+    }
+
+    /** Returns the number of bytes allocated outside the heap. */
+    long getAllocatedSize() {
+        long size = 0;
+        for (int i = 0; i < fChunks.length && fChunks[i] != null; i++) {
+            size += CHUNK_SIZE * 4L;
+        }
+        return size;
+    }
+
+} // class IntColumn
@@ -233,6 +233,9 @@ public final class Constants {
     /** Schema full constraint checking ("validation/schema-full-checking"). */
     public static final String SCHEMA_FULL_CHECKING = "validation/schema-full-checking";
 
+    /** Lazy content models feature ("validation/schema/lazy-content-models"). */
+    public static final String LAZY_CONTENT_MODELS_FEATURE = "validation/schema/lazy-content-models";
+
     /** Augment Post-Schema-Validation-Infoset */
     public static final String SCHEMA_AUGMENT_PSVI = "validation/schema/augment-psvi";
 
@@ -399,6 +402,9 @@ public final class Constants {
     /** Input buffer size property ("input-buffer-size"). */
     public static final String BUFFER_SIZE_PROPERTY = "input-buffer-size";
 
+    /** Input buffer size limit property ("input-buffer-size-limit"). */
+    public static final String BUFFER_SIZE_LIMIT_PROPERTY = "input-buffer-size-limit";
+
     /** Security manager property ("security-manager"). */
     public static final String SECURITY_MANAGER_PROPERTY = "security-manager";
 
@@ -456,6 +462,15 @@ public final class Constants {
     /** Schema element declaration for the root element in a document ("internal/validation/schema/dv-factory"). */
     public static final String SCHEMA_DV_FACTORY_PROPERTY = "internal/validation/schema/dv-factory";
 
+    /** Schema document parsing threads property ("validation/schema/parsing-threads"). */
+    public static final String SCHEMA_PARSING_THREADS_PROPERTY = "validation/schema/parsing-threads";
+
+    /** Document normalization threads property ("dom/normalization-threads"). */
+    public static final String DOM_NORMALIZATION_THREADS_PROPERTY = "dom/normalization-threads";
+
+    /** Large text threshold property ("dom/large-text-threshold"). */
+    public static final String DOM_LARGE_TEXT_THRESHOLD_PROPERTY = "dom/large-text-threshold";
+
     // general constants
 
     /** Element PSVI is stored in augmentations using string "ELEMENT_PSVI" */
@@ -526,14 +541,16 @@ public final class Constants {
             GENERATE_SYNTHETIC_ANNOTATIONS_FEATURE, VALIDATE_ANNOTATIONS_FEATURE, HONOUR_ALL_SCHEMALOCATIONS_FEATURE, XINCLUDE_FEATURE,
             XINCLUDE_FIXUP_BASE_URIS_FEATURE, XINCLUDE_FIXUP_LANGUAGE_FEATURE, IGNORE_XSI_TYPE_FEATURE, ID_IDREF_CHECKING_FEATURE,
             IDC_CHECKING_FEATURE, UNPARSED_ENTITY_CHECKING_FEATURE, NAMESPACE_GROWTH_FEATURE, TOLERATE_DUPLICATES_FEATURE,
-            STRINGS_INTERNED_FEATURE, };
+            STRINGS_INTERNED_FEATURE, LAZY_CONTENT_MODELS_FEATURE, };
 
     /** Xerces properties. */
     private static final String[] fgXercesProperties = { CURRENT_ELEMENT_NODE_PROPERTY, DOCUMENT_CLASS_NAME_PROPERTY, SYMBOL_TABLE_PROPERTY,
             ERROR_HANDLER_PROPERTY, ERROR_REPORTER_PROPERTY, ENTITY_MANAGER_PROPERTY, ENTITY_RESOLVER_PROPERTY, XMLGRAMMAR_POOL_PROPERTY,
             DATATYPE_VALIDATOR_FACTORY_PROPERTY, DOCUMENT_SCANNER_PROPERTY, DTD_SCANNER_PROPERTY, VALIDATOR_PROPERTY, SCHEMA_LOCATION,
-            SCHEMA_NONS_LOCATION, VALIDATION_MANAGER_PROPERTY, BUFFER_SIZE_PROPERTY, SECURITY_MANAGER_PROPERTY, LOCALE_PROPERTY,
-            ROOT_TYPE_DEFINITION_PROPERTY, ROOT_ELEMENT_DECLARATION_PROPERTY, SCHEMA_DV_FACTORY_PROPERTY, };
+            SCHEMA_NONS_LOCATION, VALIDATION_MANAGER_PROPERTY, BUFFER_SIZE_PROPERTY, BUFFER_SIZE_LIMIT_PROPERTY, SECURITY_MANAGER_PROPERTY,
+            LOCALE_PROPERTY,
+            ROOT_TYPE_DEFINITION_PROPERTY, ROOT_ELEMENT_DECLARATION_PROPERTY, SCHEMA_DV_FACTORY_PROPERTY, SCHEMA_PARSING_THREADS_PROPERTY,
+            DOM_NORMALIZATION_THREADS_PROPERTY, DOM_LARGE_TEXT_THRESHOLD_PROPERTY, };
 
     /** Empty enumeration. */
     private static final Enumeration fgEmptyEnumeration = new ArrayEnumeration(new Object[] {});
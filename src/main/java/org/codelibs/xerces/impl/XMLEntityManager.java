@@ -39,6 +39,7 @@ import java.util.StringTokenizer;
 
 import org.codelibs.xerces.impl.io.ASCIIReader;
 import org.codelibs.xerces.impl.io.Latin1Reader;
+import org.codelibs.xerces.impl.io.MappedFileInputStream;
 import org.codelibs.xerces.impl.io.UCSReader;
 import org.codelibs.xerces.impl.io.UTF16Reader;
 import org.codelibs.xerces.impl.io.UTF8Reader;
@@ -47,6 +48,7 @@ import org.codelibs.xerces.impl.validation.ValidationManager;
 import org.codelibs.xerces.util.AugmentationsImpl;
 import org.codelibs.xerces.util.EncodingMap;
 import org.codelibs.xerces.util.HTTPInputSource;
+import org.codelibs.xerces.util.MappedFileInputSource;
 import org.codelibs.xerces.util.SecurityManager;
 import org.codelibs.xerces.util.SymbolTable;
 import org.codelibs.xerces.util.URI;
@@ -144,6 +146,9 @@ public class XMLEntityManager implements XMLComponent, XMLEntityResolver {
     /** property identifier: buffer size. */
     protected static final String BUFFER_SIZE = Constants.XERCES_PROPERTY_PREFIX + Constants.BUFFER_SIZE_PROPERTY;
 
+    /** property identifier: buffer size limit. */
+    protected static final String BUFFER_SIZE_LIMIT = Constants.XERCES_PROPERTY_PREFIX + Constants.BUFFER_SIZE_LIMIT_PROPERTY;
+
     /** property identifier: security manager. */
     protected static final String SECURITY_MANAGER = Constants.XERCES_PROPERTY_PREFIX + Constants.SECURITY_MANAGER_PROPERTY;
 
@@ -158,10 +163,10 @@ public class XMLEntityManager implements XMLComponent, XMLEntityResolver {
 
     /** Recognized properties. */
     private static final String[] RECOGNIZED_PROPERTIES =
-            { SYMBOL_TABLE, ERROR_REPORTER, ENTITY_RESOLVER, VALIDATION_MANAGER, BUFFER_SIZE, SECURITY_MANAGER, };
+            { SYMBOL_TABLE, ERROR_REPORTER, ENTITY_RESOLVER, VALIDATION_MANAGER, BUFFER_SIZE, BUFFER_SIZE_LIMIT, SECURITY_MANAGER, };
 
     /** Property defaults. */
-    private static final Object[] PROPERTY_DEFAULTS = { null, null, null, null, new Integer(DEFAULT_BUFFER_SIZE), null, };
+    private static final Object[] PROPERTY_DEFAULTS = { null, null, null, null, new Integer(DEFAULT_BUFFER_SIZE), null, null, };
 
     private static final String XMLEntity = "[xml]".intern();
     private static final String DTDEntity = "[dtd]".intern();
@@ -260,6 +265,15 @@ public class XMLEntityManager implements XMLComponent, XMLEntityResolver {
      */
     protected int fBufferSize = DEFAULT_BUFFER_SIZE;
 
+    /**
+     * Buffer size limit. If greater than the buffer size, the buffer
+     * of an entity which keeps filling it is grown up to this size,
+     * so that long text and long entities are read in fewer, larger
+     * loads. Grown buffers are not pooled; the next entity starts
+     * again at the buffer size.
+     */
+    protected int fBufferSizeLimit = 0;
+
     // stores defaults for entity expansion limit if it has
     // been set on the configuration.
     /** Security manager for preventing entity expansion attacks. */
@@ -964,6 +978,11 @@ public class XMLEntityManager implements XMLComponent, XMLEntityResolver {
         }
         if (reader == null) {
             stream = xmlInputSource.getByteStream();
+            // map local files if requested
+            if (stream == null && xmlInputSource instanceof MappedFileInputSource) {
+                final MappedFileInputSource mappedInputSource = (MappedFileInputSource) xmlInputSource;
+                stream = new MappedFileInputStream(mappedInputSource.getFile(), mappedInputSource.getWindowSize());
+            }
             if (stream == null) {
                 URL location = new URL(expandedSystemId);
                 URLConnection connect = location.openConnection();
@@ -1483,6 +1502,10 @@ public class XMLEntityManager implements XMLComponent, XMLEntityResolver {
                     fCharacterBufferPool.setExternalBufferSize(fBufferSize);
                 }
             }
+            if (suffixLength == Constants.BUFFER_SIZE_LIMIT_PROPERTY.length() && propertyId.endsWith(Constants.BUFFER_SIZE_LIMIT_PROPERTY)) {
+                Integer bufferSizeLimit = (Integer) value;
+                fBufferSizeLimit = (bufferSizeLimit != null) ? bufferSizeLimit.intValue() : 0;
+            }
             if (suffixLength == Constants.SECURITY_MANAGER_PROPERTY.length() && propertyId.endsWith(Constants.SECURITY_MANAGER_PROPERTY)) {
                 fSecurityManager = (SecurityManager) value;
                 fEntityExpansionLimit = (fSecurityManager != null) ? fSecurityManager.getEntityExpansionLimit() : 0;
@@ -2678,6 +2701,9 @@ public class XMLEntityManager implements XMLComponent, XMLEntityResolver {
         /** Whether this scanner may read data in chunks. */
         public boolean mayReadChunks;
 
+        /** Number of chunked loads since the buffer was last grown. */
+        int loadCount;
+
         /** Character buffer container. */
         private CharacterBuffer fCharacterBuffer;
 
@@ -43,6 +43,9 @@ public class XMLEntityScanner implements XMLLocator {
     private static final boolean DEBUG_ENCODINGS = false;
     private static final boolean DEBUG_BUFFER = false;
 
+    /** Number of chunked loads of an entity after which its buffer is grown in adaptive mode. */
+    private static final int ADAPTIVE_LOAD_THRESHOLD = 4;
+
     /**
      * To signal the end of the document entity, this exception will be thrown.
      */
@@ -1709,6 +1712,12 @@ public class XMLEntityScanner implements XMLLocator {
         }
 
         fCurrentEntity.baseCharOffset += (fCurrentEntity.position - fCurrentEntity.startPosition);
+        // grow the buffer of an entity which keeps filling it
+        final int bufferSizeLimit = fEntityManager.fBufferSizeLimit;
+        final boolean adaptive = bufferSizeLimit > 0 && fCurrentEntity.mayReadChunks;
+        if (adaptive && fCurrentEntity.ch.length < bufferSizeLimit && ++fCurrentEntity.loadCount >= ADAPTIVE_LOAD_THRESHOLD) {
+            growBuffer(offset, bufferSizeLimit);
+        }
         // read characters
         int length = fCurrentEntity.ch.length - offset;
         if (!fCurrentEntity.mayReadChunks && length > XMLEntityManager.DEFAULT_XMLDECL_BUFFER_SIZE) {
@@ -1717,6 +1726,17 @@ public class XMLEntityScanner implements XMLLocator {
         if (DEBUG_BUFFER)
             System.out.println("  length to try to read: " + length);
         int count = fCurrentEntity.reader.read(fCurrentEntity.ch, offset, length);
+        // the reader returns at most one byte buffer of characters; fill
+        // the rest of a grown buffer with whatever can be read without blocking
+        if (adaptive && fCurrentEntity.stream != null) {
+            while (count > 0 && count < length && fCurrentEntity.stream.available() > 0) {
+                int more = fCurrentEntity.reader.read(fCurrentEntity.ch, offset + count, length - count);
+                if (more <= 0) {
+                    break;
+                }
+                count += more;
+            }
+        }
         if (DEBUG_BUFFER)
             System.out.println("  length actually read:  " + count);
 
@@ -1768,4 +1788,16 @@ public class XMLEntityScanner implements XMLLocator {
         fCurrentEntity.ch = tmp;
     } // resizeBuffer(int, int)
 
+    /**
+     * This method is invoked in adaptive mode to double the size of the
+     * current entity's buffer, up to the given limit, before a load.
+     * The first <code>offset</code> characters are preserved.
+     */
+    private void growBuffer(int offset, int limit) {
+        char[] tmp = new char[Math.min(fCurrentEntity.ch.length << 1, limit)];
+        System.arraycopy(fCurrentEntity.ch, 0, tmp, 0, offset);
+        fCurrentEntity.ch = tmp;
+        fCurrentEntity.loadCount = 0;
+    } // growBuffer(int, int)
+
 } // class XMLEntityScanner
@@ -35,6 +35,9 @@ import org.codelibs.xerces.xni.parser.XMLInputSource;
  */
 public class XMLDTDDescription extends XMLResourceIdentifierImpl implements org.codelibs.xerces.xni.grammars.XMLDTDDescription {
 
+    /** Serialization version. */
+    private static final long serialVersionUID = 900454814860545984L;
+
     // Data
 
     // pieces of information needed to make this usable as a Grammar key
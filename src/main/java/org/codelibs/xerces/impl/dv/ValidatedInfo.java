@@ -17,6 +17,8 @@
 
 package org.codelibs.xerces.impl.dv;
 
+import java.io.Serializable;
+
 import org.codelibs.xerces.impl.xs.util.ShortListImpl;
 import org.codelibs.xerces.impl.xs.util.XSObjectListImpl;
 import org.codelibs.xerces.xs.ShortList;
@@ -36,7 +38,10 @@ import org.codelibs.xerces.xs.XSValue;
  *
  * @version $Id: ValidatedInfo.java 1026362 2010-10-22 15:15:18Z sandygao $
  */
-public class ValidatedInfo implements XSValue {
+public class ValidatedInfo implements XSValue, Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 4252054143568319042L;
 
     /**
      * Default constructor.
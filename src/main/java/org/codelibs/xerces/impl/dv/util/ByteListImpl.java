@@ -17,6 +17,7 @@
 
 package org.codelibs.xerces.impl.dv.util;
 
+import java.io.Serializable;
 import java.util.AbstractList;
 
 import org.codelibs.xerces.xs.XSException;
@@ -31,7 +32,10 @@ import org.codelibs.xerces.xs.datatypes.ByteList;
  *
  * @version $Id: ByteListImpl.java 1024038 2010-10-18 22:06:35Z sandygao $
  */
-public class ByteListImpl extends AbstractList implements ByteList {
+public class ByteListImpl extends AbstractList implements ByteList, Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = -836759152579624954L;
 
     /**
      * The actual data stored in a byte array.
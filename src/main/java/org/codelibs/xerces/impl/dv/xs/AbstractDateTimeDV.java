@@ -17,6 +17,7 @@
 
 package org.codelibs.xerces.impl.dv.xs;
 
+import java.io.Serializable;
 import java.math.BigDecimal;
 
 import javax.xml.datatype.DatatypeFactory;
@@ -46,7 +47,10 @@ import org.codelibs.xerces.xs.datatypes.XSDateTime;
  *
  * @version $Id: AbstractDateTimeDV.java 965250 2010-07-18 16:04:58Z mrglavas $
  */
-public abstract class AbstractDateTimeDV extends TypeValidator {
+public abstract class AbstractDateTimeDV extends TypeValidator implements Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = -5998536075279817763L;
 
     /**
      * Default constructor for abstract date/time datatype validator.
@@ -1004,7 +1008,11 @@ public abstract class AbstractDateTimeDV extends TypeValidator {
     /**
      * Represents date time data
      */
-    static final class DateTimeData implements XSDateTime {
+    static final class DateTimeData implements XSDateTime, Serializable {
+
+        /** Serialization version. */
+        private static final long serialVersionUID = 1471157760037435860L;
+
         int year, month, day, hour, minute, utc;
         double second;
         int timezoneHr, timezoneMin;
@@ -1051,6 +1059,19 @@ public abstract class AbstractDateTimeDV extends TypeValidator {
             return type.compareDates(this, (DateTimeData) obj, true) == 0;
         }
 
+        public int hashCode() {
+            // durations with different fields can be equal
+            if (type instanceof DurationDV)
+                return 0;
+            // the fields compared by compareOrder
+            int hash = position < 1 ? year : 0;
+            if (position < 2)
+                hash = hash * 31 + month;
+            hash = ((hash * 31 + day) * 31 + hour) * 31 + minute;
+            long bits = Double.doubleToLongBits(second);
+            return (hash * 31 + (int) (bits ^ (bits >>> 32))) * 31 + utc;
+        }
+
         public synchronized String toString() {
             if (canonical == null) {
                 canonical = type.dateToString(this);
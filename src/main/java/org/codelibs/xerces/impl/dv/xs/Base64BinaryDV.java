@@ -63,6 +63,9 @@ public class Base64BinaryDV extends TypeValidator {
      */
     private static final class XBase64 extends ByteListImpl {
 
+        /** Serialization version. */
+        private static final long serialVersionUID = -6917750749318022243L;
+
         public XBase64(byte[] data) {
             super(data);
         }
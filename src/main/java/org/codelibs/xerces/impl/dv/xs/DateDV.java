@@ -33,6 +33,9 @@ import org.codelibs.xerces.impl.dv.ValidationContext;
  */
 public class DateDV extends DateTimeDV {
 
+    /** Serialization version. */
+    private static final long serialVersionUID = 6667752360679091909L;
+
     /**
      * Default constructor for DateDV.
      */
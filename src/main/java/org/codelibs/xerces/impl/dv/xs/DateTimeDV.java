@@ -37,6 +37,9 @@ import org.codelibs.xerces.impl.dv.ValidationContext;
  */
 public class DateTimeDV extends AbstractDateTimeDV {
 
+    /** Serialization version. */
+    private static final long serialVersionUID = 8258678069751315589L;
+
     /**
      * Default constructor for DateTimeDV.
      */
@@ -34,6 +34,9 @@ import org.codelibs.xerces.impl.dv.ValidationContext;
  */
 public class DayDV extends AbstractDateTimeDV {
 
+    /** Serialization version. */
+    private static final long serialVersionUID = -6893339064300954623L;
+
     /**
      * Default constructor for DayDV.
      */
@@ -36,6 +36,9 @@ import org.codelibs.xerces.impl.dv.ValidationContext;
  */
 class DayTimeDurationDV extends DurationDV {
 
+    /** Serialization version. */
+    private static final long serialVersionUID = 9194995494979462252L;
+
     public Object getActualValue(String content, ValidationContext context) throws InvalidDatatypeValueException {
         try {
             return parse(content, DurationDV.DAYTIMEDURATION_TYPE);
@@ -17,6 +17,7 @@
 
 package org.codelibs.xerces.impl.dv.xs;
 
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 
@@ -69,7 +70,11 @@ public class DecimalDV extends TypeValidator {
     }
 
     // Avoid using the heavy-weight java.math.BigDecimal
-    static class XDecimal implements XSDecimal {
+    static class XDecimal implements XSDecimal, Serializable {
+
+        /** Serialization version. */
+        private static final long serialVersionUID = -7691867839405842725L;
+
         // sign: 0 for vlaue 0; 1 for positive values; -1 for negative values
         int sign = 1;
         // total digits. >= 1
@@ -235,6 +240,12 @@ public class DecimalDV extends TypeValidator {
             return intDigits == oval.intDigits && fracDigits == oval.fracDigits && ivalue.equals(oval.ivalue) && fvalue.equals(oval.fvalue);
         }
 
+        public int hashCode() {
+            if (sign == 0)
+                return 0;
+            return sign * (ivalue.hashCode() * 31 + fvalue.hashCode());
+        }
+
         public int compareTo(XDecimal val) {
             if (sign != val.sign)
                 return sign > val.sign ? 1 : -1;
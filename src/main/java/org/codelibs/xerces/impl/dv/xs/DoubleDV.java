@@ -17,6 +17,8 @@
 
 package org.codelibs.xerces.impl.dv.xs;
 
+import java.io.Serializable;
+
 import org.codelibs.xerces.impl.dv.InvalidDatatypeValueException;
 import org.codelibs.xerces.impl.dv.ValidationContext;
 import org.codelibs.xerces.xs.datatypes.XSDouble;
@@ -84,7 +86,11 @@ public class DoubleDV extends TypeValidator {
         return true;
     }
 
-    private static final class XDouble implements XSDouble {
+    private static final class XDouble implements XSDouble, Serializable {
+
+        /** Serialization version. */
+        private static final long serialVersionUID = 2600572579984754775L;
+
         private final double value;
 
         public XDouble(String s) throws NumberFormatException {
@@ -38,6 +38,9 @@ import org.codelibs.xerces.impl.dv.ValidationContext;
  */
 public class DurationDV extends AbstractDateTimeDV {
 
+    /** Serialization version. */
+    private static final long serialVersionUID = -675484913012387246L;
+
     /**
      * Default constructor for internal instantiation within the datatype validation framework.
      */
@@ -17,6 +17,8 @@
 
 package org.codelibs.xerces.impl.dv.xs;
 
+import java.io.Serializable;
+
 import org.codelibs.xerces.impl.dv.InvalidDatatypeValueException;
 import org.codelibs.xerces.impl.dv.ValidationContext;
 import org.codelibs.xerces.xs.datatypes.XSFloat;
@@ -66,7 +68,10 @@ public class FloatDV extends TypeValidator {
         return false;
     }//isIdentical()
 
-    private static final class XFloat implements XSFloat {
+    private static final class XFloat implements XSFloat, Serializable {
+
+        /** Serialization version. */
+        private static final long serialVersionUID = -5667459846575729774L;
 
         private final float value;
 
@@ -58,6 +58,9 @@ public class HexBinaryDV extends TypeValidator {
 
     private static final class XHex extends ByteListImpl {
 
+        /** Serialization version. */
+        private static final long serialVersionUID = -786344740332595119L;
+
         public XHex(byte[] data) {
             super(data);
         }
@@ -17,6 +17,7 @@
 
 package org.codelibs.xerces.impl.dv.xs;
 
+import java.io.Serializable;
 import java.util.AbstractList;
 
 import org.codelibs.xerces.impl.dv.InvalidDatatypeValueException;
@@ -55,7 +56,11 @@ public class ListDV extends TypeValidator {
         return ((ListData) value).getLength();
     }
 
-    final static class ListData extends AbstractList implements ObjectList {
+    final static class ListData extends AbstractList implements ObjectList, Serializable {
+
+        /** Serialization version. */
+        private static final long serialVersionUID = 3227119885010781113L;
+
         final Object[] data;
         private String canonical;
 
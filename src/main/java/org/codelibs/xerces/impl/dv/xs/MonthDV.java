@@ -36,6 +36,9 @@ import org.codelibs.xerces.impl.dv.ValidationContext;
 
 public class MonthDV extends AbstractDateTimeDV {
 
+    /** Serialization version. */
+    private static final long serialVersionUID = 3789984028052854084L;
+
     /**
      * Constructs a MonthDV validator for gMonth datatype.
      */
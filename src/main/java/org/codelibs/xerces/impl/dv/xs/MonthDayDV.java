@@ -36,6 +36,9 @@ import org.codelibs.xerces.impl.dv.ValidationContext;
 
 public class MonthDayDV extends AbstractDateTimeDV {
 
+    /** Serialization version. */
+    private static final long serialVersionUID = -6705768339270712743L;
+
     /**
      * Constructs a MonthDayDV validator for gMonthDay datatype.
      */
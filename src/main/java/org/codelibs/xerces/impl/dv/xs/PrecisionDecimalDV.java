@@ -17,6 +17,8 @@
 
 package org.codelibs.xerces.impl.dv.xs;
 
+import java.io.Serializable;
+
 import org.codelibs.xerces.impl.dv.InvalidDatatypeValueException;
 import org.codelibs.xerces.impl.dv.ValidationContext;
 
@@ -31,7 +33,10 @@ import org.codelibs.xerces.impl.dv.ValidationContext;
  */
 class PrecisionDecimalDV extends TypeValidator {
 
-    static class XPrecisionDecimal {
+    static class XPrecisionDecimal implements Serializable {
+
+        /** Serialization version. */
+        private static final long serialVersionUID = 6660976366262141835L;
 
         // sign: 0 for absent; 1 for positive values; -1 for negative values (except in case of INF, -INF)
         int sign = 1;
@@ -37,6 +37,9 @@ import org.codelibs.xerces.impl.dv.ValidationContext;
  */
 public class TimeDV extends AbstractDateTimeDV {
 
+    /** Serialization version. */
+    private static final long serialVersionUID = 7557586482995422518L;
+
     /**
      * Default constructor.
      */
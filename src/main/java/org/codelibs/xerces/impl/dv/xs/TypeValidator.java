@@ -46,7 +46,7 @@ public abstract class TypeValidator {
     public TypeValidator() {
     }
 
-    private static final boolean USE_CODE_POINT_COUNT_FOR_STRING_LENGTH = AccessController.doPrivileged(new PrivilegedAction() {
+    static final boolean USE_CODE_POINT_COUNT_FOR_STRING_LENGTH = AccessController.doPrivileged(new PrivilegedAction() {
         public Object run() {
             try {
                 return Boolean.getBoolean("org.codelibs.xerces.impl.dv.xs.useCodePointCountForStringLength") ? Boolean.TRUE : Boolean.FALSE;
@@ -17,9 +17,15 @@
 
 package org.codelibs.xerces.impl.dv.xs;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
 import java.math.BigInteger;
 import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.StringTokenizer;
 import java.util.Vector;
 
@@ -31,6 +37,8 @@ import org.codelibs.xerces.impl.dv.ValidatedInfo;
 import org.codelibs.xerces.impl.dv.ValidationContext;
 import org.codelibs.xerces.impl.dv.XSFacets;
 import org.codelibs.xerces.impl.dv.XSSimpleType;
+import org.codelibs.xerces.impl.dv.util.ByteListImpl;
+import org.codelibs.xerces.impl.xpath.regex.REUtil;
 import org.codelibs.xerces.impl.xpath.regex.RegularExpression;
 import org.codelibs.xerces.impl.xs.SchemaSymbols;
 import org.codelibs.xerces.impl.xs.util.ObjectListImpl;
@@ -39,6 +47,7 @@ import org.codelibs.xerces.impl.xs.util.StringListImpl;
 import org.codelibs.xerces.impl.xs.util.XSObjectListImpl;
 import org.codelibs.xerces.util.XMLChar;
 import org.codelibs.xerces.xni.NamespaceContext;
+import org.codelibs.xerces.xni.QName;
 import org.codelibs.xerces.xs.ShortList;
 import org.codelibs.xerces.xs.StringList;
 import org.codelibs.xerces.xs.XSAnnotation;
@@ -51,6 +60,8 @@ import org.codelibs.xerces.xs.XSObjectList;
 import org.codelibs.xerces.xs.XSSimpleTypeDefinition;
 import org.codelibs.xerces.xs.XSTypeDefinition;
 import org.codelibs.xerces.xs.datatypes.ObjectList;
+import org.codelibs.xerces.xs.datatypes.XSDouble;
+import org.codelibs.xerces.xs.datatypes.XSFloat;
 import org.w3c.dom.TypeInfo;
 
 /**
@@ -62,7 +73,10 @@ import org.w3c.dom.TypeInfo;
  *
  * @version $Id: XSSimpleTypeDecl.java 1026362 2010-10-22 15:15:18Z sandygao $
  */
-public class XSSimpleTypeDecl implements XSSimpleType, TypeInfo {
+public class XSSimpleTypeDecl implements XSSimpleType, TypeInfo, Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = -7080064679186479735L;
 
     /** Data validator constant for string primitive type. */
     protected static final short DV_STRING = PRIMITIVE_STRING;
@@ -183,6 +197,9 @@ public class XSSimpleTypeDecl implements XSSimpleType, TypeInfo {
     static final String URI_SCHEMAFORSCHEMA = "http://www.w3.org/2001/XMLSchema";
     static final String ANY_TYPE = "anyType";
 
+    // the number of enumeration values from which they are looked up in a hash table
+    static final int ENUMERATION_INDEX_THRESHOLD = 8;
+
     // XML Schema 1.1 type constants
     /** Built-in kind constant for yearMonthDuration type (XML Schema 1.1). */
     public static final short YEARMONTHDURATION_DT = 46;
@@ -257,7 +274,7 @@ public class XSSimpleTypeDecl implements XSSimpleType, TypeInfo {
         return (TypeValidator[]) gDVs.clone();
     }
 
-    private TypeValidator[] fDVs = gDVs;
+    private transient TypeValidator[] fDVs = gDVs;
 
     /**
      * Sets the datatype validators array for this simple type.
@@ -299,11 +316,13 @@ public class XSSimpleTypeDecl implements XSSimpleType, TypeInfo {
     private Vector fPatternStr;
     private ValidatedInfo[] fEnumeration;
     private int fEnumerationSize;
+    // indexes of fEnumeration by actual value, or null
+    private transient Map fEnumerationIndex;
     private ShortList fEnumerationTypeList;
-    private ObjectList fEnumerationItemTypeList;
+    private transient ObjectList fEnumerationItemTypeList;
     private StringList fLexicalPattern;
     private StringList fLexicalEnumeration;
-    private ObjectList fActualEnumeration;
+    private transient ObjectList fActualEnumeration;
     private Object fMaxInclusive;
     private Object fMaxExclusive;
     private Object fMinExclusive;
@@ -356,6 +375,10 @@ public class XSSimpleTypeDecl implements XSSimpleType, TypeInfo {
     // of the simple type definition, if it is globally declared; or null otherwise.
     private XSNamespaceItem fNamespaceItem = null;
 
+    // facet checks compiled for quickValidate, if fLexicalCheckerCompiled
+    private transient LexicalChecker fLexicalChecker;
+    private transient boolean fLexicalCheckerCompiled;
+
     /**
      * Default constructor for XSSimpleTypeDecl.
      */
@@ -459,6 +482,7 @@ public class XSSimpleTypeDecl implements XSSimpleType, TypeInfo {
         fPatternStr = fBase.fPatternStr;
         fEnumeration = fBase.fEnumeration;
         fEnumerationSize = fBase.fEnumerationSize;
+        fEnumerationIndex = fBase.fEnumerationIndex;
         fWhiteSpace = fBase.fWhiteSpace;
         fMaxExclusive = fBase.fMaxExclusive;
         fMaxInclusive = fBase.fMaxInclusive;
@@ -582,6 +606,7 @@ public class XSSimpleTypeDecl implements XSSimpleType, TypeInfo {
         fTargetNamespace = uri;
         fFinalSet = finalSet;
         fAnnotations = annotations;
+        clearLexicalChecker();
 
         fVariety = fBase.fVariety;
         fValidationDV = fBase.fValidationDV;
@@ -605,6 +630,7 @@ public class XSSimpleTypeDecl implements XSSimpleType, TypeInfo {
         fPatternStr = fBase.fPatternStr;
         fEnumeration = fBase.fEnumeration;
         fEnumerationSize = fBase.fEnumerationSize;
+        fEnumerationIndex = fBase.fEnumerationIndex;
         fWhiteSpace = fBase.fWhiteSpace;
         fMaxExclusive = fBase.fMaxExclusive;
         fMaxInclusive = fBase.fMaxInclusive;
@@ -645,6 +671,7 @@ public class XSSimpleTypeDecl implements XSSimpleType, TypeInfo {
         fTargetNamespace = uri;
         fFinalSet = finalSet;
         fAnnotations = annotations;
+        clearLexicalChecker();
 
         fVariety = VARIETY_LIST;
         fItemType = (XSSimpleTypeDecl) itemType;
@@ -683,6 +710,7 @@ public class XSSimpleTypeDecl implements XSSimpleType, TypeInfo {
         fTargetNamespace = uri;
         fFinalSet = finalSet;
         fAnnotations = annotations;
+        clearLexicalChecker();
 
         fVariety = VARIETY_UNION;
         fMemberTypes = memberTypes;
@@ -887,6 +915,7 @@ public class XSSimpleTypeDecl implements XSSimpleType, TypeInfo {
         // if the object is immutable, should not apply facets...
         if (fIsImmutable)
             return;
+        clearLexicalChecker();
         ValidatedInfo tempInfo = new ValidatedInfo();
 
         // clear facets. because we always inherit facets in the constructor
@@ -948,7 +977,7 @@ public class XSSimpleTypeDecl implements XSSimpleType, TypeInfo {
                 patternAnnotations = facets.patternAnnotations;
                 RegularExpression regex = null;
                 try {
-                    regex = new RegularExpression(facets.pattern, "X", context.getLocale());
+                    regex = REUtil.createSchemaRegex(facets.pattern, context.getLocale());
                 } catch (Exception e) {
                     reportError("InvalidRegex", new Object[] { facets.pattern, e.getLocalizedMessage() });
                 }
@@ -999,6 +1028,7 @@ public class XSSimpleTypeDecl implements XSSimpleType, TypeInfo {
                         reportError("enumeration-valid-restriction", new Object[] { enumVals.elementAt(i), this.getBaseType().getName() });
                     }
                 }
+                indexEnumeration();
                 fFacetsDefined |= FACET_ENUMERATION;
                 if ((fixedFacet & FACET_ENUMERATION) != 0)
                     fFixedFacet |= FACET_ENUMERATION;
@@ -1592,6 +1622,7 @@ public class XSSimpleTypeDecl implements XSSimpleType, TypeInfo {
             fFacetsDefined |= FACET_ENUMERATION;
             fEnumeration = fBase.fEnumeration;
             fEnumerationSize = fBase.fEnumerationSize;
+            fEnumerationIndex = fBase.fEnumerationIndex;
             enumerationAnnotations = fBase.enumerationAnnotations;
         }
         // inherit maxExclusive
@@ -1736,6 +1767,45 @@ public class XSSimpleTypeDecl implements XSSimpleType, TypeInfo {
 
     }
 
+    /**
+     * Checks a value against this type without creating its normalized value
+     * or its actual value, for callers that only need to know whether the
+     * value is valid. Only atomic string, boolean and integer types without
+     * pattern facets are checked this way, with their facets compiled on
+     * first use. For other types, and for values not found valid, false is
+     * returned and the value must be validated by one of the validate
+     * methods, which also report why the value is invalid.
+     *
+     * @param content           the lexical representation to check
+     * @param context           the validation context
+     * @param requireNormalized whether values changed by whitespace
+     *                          normalization must also be left to the
+     *                          validate methods
+     * @return true if the value is valid
+     */
+    public boolean quickValidate(CharSequence content, ValidationContext context, boolean requireNormalized) {
+
+        if (context == null)
+            context = fEmptyContext;
+
+        LexicalChecker checker = fLexicalChecker;
+        if (checker == null) {
+            if (fLexicalCheckerCompiled)
+                return false;
+            checker = LexicalChecker.compile(this);
+            fLexicalChecker = checker;
+            fLexicalCheckerCompiled = true;
+            if (checker == null)
+                return false;
+        }
+        return checker.check(content, context.needToNormalize(), context.needFacetChecking(), requireNormalized);
+    }
+
+    private void clearLexicalChecker() {
+        fLexicalChecker = null;
+        fLexicalCheckerCompiled = false;
+    }
+
     /**
      * validate an actual value against this DV
      *
@@ -1798,40 +1868,16 @@ public class XSSimpleTypeDecl implements XSSimpleType, TypeInfo {
         //enumeration
         if (((fFacetsDefined & FACET_ENUMERATION) != 0)) {
             boolean present = false;
-            final int enumSize = fEnumerationSize;
             final short primitiveType1 = convertToPrimitiveKind(type);
-            for (int i = 0; i < enumSize; i++) {
-                final short primitiveType2 = convertToPrimitiveKind(fEnumeration[i].actualValueType);
-                if ((primitiveType1 == primitiveType2
-                        || primitiveType1 == XSConstants.ANYSIMPLETYPE_DT && primitiveType2 == XSConstants.STRING_DT
-                        || primitiveType1 == XSConstants.STRING_DT && primitiveType2 == XSConstants.ANYSIMPLETYPE_DT)
-                        && fEnumeration[i].actualValue.equals(ob)) {
-                    if (primitiveType1 == XSConstants.LIST_DT || primitiveType1 == XSConstants.LISTOFUNION_DT) {
-                        ShortList enumItemType = fEnumeration[i].itemValueTypes;
-                        final int typeList1Length = itemType != null ? itemType.getLength() : 0;
-                        final int typeList2Length = enumItemType != null ? enumItemType.getLength() : 0;
-                        if (typeList1Length == typeList2Length) {
-                            int j;
-                            for (j = 0; j < typeList1Length; ++j) {
-                                final short primitiveItem1 = convertToPrimitiveKind(itemType.item(j));
-                                final short primitiveItem2 = convertToPrimitiveKind(enumItemType.item(j));
-                                if (primitiveItem1 != primitiveItem2) {
-                                    if (primitiveItem1 == XSConstants.ANYSIMPLETYPE_DT && primitiveItem2 == XSConstants.STRING_DT
-                                            || primitiveItem1 == XSConstants.STRING_DT && primitiveItem2 == XSConstants.ANYSIMPLETYPE_DT) {
-                                        continue;
-                                    }
-                                    break;
-                                }
-                            }
-                            if (j == typeList1Length) {
-                                present = true;
-                                break;
-                            }
-                        }
-                    } else {
-                        present = true;
-                        break;
-                    }
+            if (fEnumerationIndex != null && isHashable(ob)) {
+                int[] indexes = (int[]) fEnumerationIndex.get(ob);
+                for (int i = 0; indexes != null && i < indexes.length && !present; i++) {
+                    present = isEnumerationValue(indexes[i], ob, primitiveType1, itemType);
+                }
+            } else {
+                final int enumSize = fEnumerationSize;
+                for (int i = 0; i < enumSize && !present; i++) {
+                    present = isEnumerationValue(i, ob, primitiveType1, itemType);
                 }
             }
             if (!present) {
@@ -1895,6 +1941,90 @@ public class XSSimpleTypeDecl implements XSSimpleType, TypeInfo {
 
     }
 
+    /**
+     * Returns whether the given actual value, of the given primitive kind and
+     * list item types, is the enumeration value at the given index.
+     */
+    private boolean isEnumerationValue(int index, Object ob, short primitiveType1, ShortList itemType) {
+        final short primitiveType2 = convertToPrimitiveKind(fEnumeration[index].actualValueType);
+        if ((primitiveType1 == primitiveType2 || primitiveType1 == XSConstants.ANYSIMPLETYPE_DT && primitiveType2 == XSConstants.STRING_DT
+                || primitiveType1 == XSConstants.STRING_DT && primitiveType2 == XSConstants.ANYSIMPLETYPE_DT)
+                && fEnumeration[index].actualValue.equals(ob)) {
+            if (primitiveType1 == XSConstants.LIST_DT || primitiveType1 == XSConstants.LISTOFUNION_DT) {
+                ShortList enumItemType = fEnumeration[index].itemValueTypes;
+                final int typeList1Length = itemType != null ? itemType.getLength() : 0;
+                final int typeList2Length = enumItemType != null ? enumItemType.getLength() : 0;
+                if (typeList1Length != typeList2Length) {
+                    return false;
+                }
+                for (int j = 0; j < typeList1Length; ++j) {
+                    final short primitiveItem1 = convertToPrimitiveKind(itemType.item(j));
+                    final short primitiveItem2 = convertToPrimitiveKind(enumItemType.item(j));
+                    if (primitiveItem1 != primitiveItem2) {
+                        if (primitiveItem1 == XSConstants.ANYSIMPLETYPE_DT && primitiveItem2 == XSConstants.STRING_DT
+                                || primitiveItem1 == XSConstants.STRING_DT && primitiveItem2 == XSConstants.ANYSIMPLETYPE_DT) {
+                            continue;
+                        }
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Builds the hash table of the enumeration values, if there are enough of
+     * them and all their actual values have a hash code consistent with
+     * their equality. Values that are equal but of different primitive kinds
+     * share an entry.
+     */
+    private void indexEnumeration() {
+        fEnumerationIndex = null;
+        if (fEnumeration == null || fEnumerationSize < ENUMERATION_INDEX_THRESHOLD) {
+            return;
+        }
+        Map index = new HashMap(fEnumerationSize * 2);
+        for (int i = 0; i < fEnumerationSize; i++) {
+            Object value = fEnumeration[i].actualValue;
+            if (!isHashable(value)) {
+                return;
+            }
+            int[] indexes = (int[]) index.get(value);
+            if (indexes == null) {
+                indexes = new int[] { i };
+            } else {
+                indexes = Arrays.copyOf(indexes, indexes.length + 1);
+                indexes[indexes.length - 1] = i;
+            }
+            index.put(value, indexes);
+        }
+        fEnumerationIndex = index;
+    }
+
+    /**
+     * Returns whether equal actual values are known to have the same hash
+     * code. Durations and precision decimals compare equal with different
+     * fields, and are not hashed.
+     */
+    private static boolean isHashable(Object value) {
+        if (value instanceof ListDV.ListData) {
+            ListDV.ListData list = (ListDV.ListData) value;
+            for (int i = list.getLength() - 1; i >= 0; i--) {
+                if (!isHashable(list.item(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (value instanceof AbstractDateTimeDV.DateTimeData) {
+            return !(((AbstractDateTimeDV.DateTimeData) value).type instanceof DurationDV);
+        }
+        return value instanceof String || value instanceof Boolean || value instanceof DecimalDV.XDecimal || value instanceof XSFloat
+                || value instanceof XSDouble || value instanceof ByteListImpl || value instanceof QName;
+    }
+
     private void checkExtraRules(ValidationContext context, ValidatedInfo validatedInfo) throws InvalidDatatypeValueException {
 
         Object ob = validatedInfo.actualValue;
@@ -2994,6 +3124,15 @@ public class XSSimpleTypeDecl implements XSSimpleType, TypeInfo {
 
     private boolean fAnonymous = false;
 
+    /**
+     * Restores the datatype validators, which are shared and not serialized.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        fDVs = gDVs;
+        indexEnumeration();
+    } // readObject(ObjectInputStream)
+
     /**
      * A wrapper of ValidationContext, to provide a way of switching to a
      * different Namespace declaration context.
@@ -3075,6 +3214,7 @@ public class XSSimpleTypeDecl implements XSSimpleType, TypeInfo {
         // if it's immutable, can't be reset:
         if (fIsImmutable)
             return;
+        clearLexicalChecker();
         fItemType = null;
         fMemberTypes = null;
 
@@ -3098,6 +3238,7 @@ public class XSSimpleTypeDecl implements XSSimpleType, TypeInfo {
         fPattern = null;
         fPatternStr = null;
         fEnumeration = null;
+        fEnumerationIndex = null;
         fLexicalPattern = null;
         fLexicalEnumeration = null;
         fActualEnumeration = null;
@@ -3309,7 +3450,11 @@ public class XSSimpleTypeDecl implements XSSimpleType, TypeInfo {
         fAnonymous = anon;
     }
 
-    private static final class XSFacetImpl implements XSFacet {
+    private static final class XSFacetImpl implements XSFacet, Serializable {
+
+        /** Serialization version. */
+        private static final long serialVersionUID = 4510888163273015551L;
+
         final short kind;
         final String svalue;
         final int ivalue;
@@ -3424,7 +3569,11 @@ public class XSSimpleTypeDecl implements XSSimpleType, TypeInfo {
 
     }
 
-    private static final class XSMVFacetImpl implements XSMultiValueFacet {
+    private static final class XSMVFacetImpl implements XSMultiValueFacet, Serializable {
+
+        /** Serialization version. */
+        private static final long serialVersionUID = -8304950673421997825L;
+
         final short kind;
         final XSObjectList annotations;
         final StringList svalues;
@@ -3540,4 +3689,385 @@ public class XSSimpleTypeDecl implements XSSimpleType, TypeInfo {
         }
         sb.append(']');
     }
+
+    /**
+     * The facets of an atomic string, boolean or integer type, compiled into
+     * checks that work directly on the characters of a value: integers are
+     * parsed into a long, string lengths and enumerations are computed on
+     * the normalized characters as they are read.
+     */
+    static final class LexicalChecker {
+
+        /** Whitespace handling of types that are only trimmed. */
+        private static final short WS_TRIM = 3;
+
+        /** The largest number of digits parsed into a long. */
+        private static final int MAX_LONG_DIGITS = 18;
+
+        /** The validation DV: string, boolean or integer. */
+        private final short fKind;
+
+        /** The whiteSpace facet value, or WS_TRIM. */
+        private final short fWhiteSpace;
+
+        /** Whether facets other than whiteSpace are defined. */
+        private final boolean fCheckFacets;
+
+        /** The special pattern of a string type. */
+        private final short fPatternType;
+
+        /** Length facets of a string type. */
+        private final int fMinLength;
+        private final int fMaxLength;
+
+        /** The enumeration of a string type, as a hash table. */
+        private final String[] fStringEnumeration;
+
+        /** Facets of an integer type; bounds are inclusive. */
+        private final int fTotalDigits;
+        private final long fMinValue;
+        private final long fMaxValue;
+
+        /** The enumeration of an integer type, sorted. */
+        private final long[] fLongEnumeration;
+
+        private LexicalChecker(short kind, short whiteSpace, boolean checkFacets, short patternType, int minLength, int maxLength,
+                String[] stringEnumeration, int totalDigits, long minValue, long maxValue, long[] longEnumeration) {
+            fKind = kind;
+            fWhiteSpace = whiteSpace;
+            fCheckFacets = checkFacets;
+            fPatternType = patternType;
+            fMinLength = minLength;
+            fMaxLength = maxLength;
+            fStringEnumeration = stringEnumeration;
+            fTotalDigits = totalDigits;
+            fMinValue = minValue;
+            fMaxValue = maxValue;
+            fLongEnumeration = longEnumeration;
+        }
+
+        /**
+         * Compiles the facets of the given type, or returns null if values of
+         * the type cannot be checked on their characters.
+         */
+        static LexicalChecker compile(XSSimpleTypeDecl type) {
+            if (type.fVariety != VARIETY_ATOMIC || type.fDVs != gDVs || (type.fFacetsDefined & FACET_PATTERN) != 0) {
+                return null;
+            }
+            final short facets = type.fFacetsDefined;
+            final boolean checkFacets = facets != 0 && facets != FACET_WHITESPACE;
+            final boolean enumeration = (facets & FACET_ENUMERATION) != 0;
+            switch (type.fValidationDV) {
+            case DV_STRING: {
+                if ((facets & ~(FACET_WHITESPACE | FACET_LENGTH | FACET_MINLENGTH | FACET_MAXLENGTH | FACET_ENUMERATION)) != 0) {
+                    return null;
+                }
+                int minLength = 0;
+                int maxLength = Integer.MAX_VALUE;
+                if ((facets & FACET_LENGTH) != 0) {
+                    minLength = maxLength = type.fLength;
+                }
+                if ((facets & FACET_MINLENGTH) != 0) {
+                    minLength = Math.max(minLength, type.fMinLength);
+                }
+                if ((facets & FACET_MAXLENGTH) != 0) {
+                    maxLength = Math.min(maxLength, type.fMaxLength);
+                }
+                String[] table = null;
+                if (enumeration) {
+                    table = new String[tableSize(type.fEnumerationSize)];
+                    for (int i = 0; i < type.fEnumerationSize; i++) {
+                        ValidatedInfo info = type.fEnumeration[i];
+                        short kind = type.convertToPrimitiveKind(info.actualValueType);
+                        if (!(info.actualValue instanceof String) || kind != XSConstants.STRING_DT && kind != XSConstants.ANYSIMPLETYPE_DT) {
+                            return null;
+                        }
+                        String value = (String) info.actualValue;
+                        int slot = value.hashCode() & (table.length - 1);
+                        while (table[slot] != null && !table[slot].equals(value)) {
+                            slot = (slot + 1) & (table.length - 1);
+                        }
+                        table[slot] = value;
+                    }
+                }
+                return new LexicalChecker(DV_STRING, type.fWhiteSpace, checkFacets, type.fPatternType, minLength, maxLength, table,
+                        Integer.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE, null);
+            }
+            case DV_BOOLEAN: {
+                if ((facets & ~FACET_WHITESPACE) != 0) {
+                    return null;
+                }
+                return new LexicalChecker(DV_BOOLEAN, WS_TRIM, false, SPECIAL_PATTERN_NONE, 0, Integer.MAX_VALUE, null, Integer.MAX_VALUE,
+                        Long.MIN_VALUE, Long.MAX_VALUE, null);
+            }
+            case DV_INTEGER: {
+                if ((facets & (FACET_LENGTH | FACET_MINLENGTH | FACET_MAXLENGTH)) != 0) {
+                    return null;
+                }
+                long minValue = Long.MIN_VALUE;
+                long maxValue = Long.MAX_VALUE;
+                if ((facets & FACET_MININCLUSIVE) != 0) {
+                    if (!isInteger(type.fMinInclusive)) {
+                        return null;
+                    }
+                    minValue = Math.max(minValue, toLong(type.fMinInclusive));
+                }
+                if ((facets & FACET_MINEXCLUSIVE) != 0) {
+                    if (!isInteger(type.fMinExclusive)) {
+                        return null;
+                    }
+                    long bound = toLong(type.fMinExclusive);
+                    minValue = Math.max(minValue, bound == Long.MAX_VALUE ? bound : bound + 1);
+                }
+                if ((facets & FACET_MAXINCLUSIVE) != 0) {
+                    if (!isInteger(type.fMaxInclusive)) {
+                        return null;
+                    }
+                    maxValue = Math.min(maxValue, toLong(type.fMaxInclusive));
+                }
+                if ((facets & FACET_MAXEXCLUSIVE) != 0) {
+                    if (!isInteger(type.fMaxExclusive)) {
+                        return null;
+                    }
+                    long bound = toLong(type.fMaxExclusive);
+                    maxValue = Math.min(maxValue, bound == Long.MIN_VALUE ? bound : bound - 1);
+                }
+                long[] values = null;
+                if (enumeration) {
+                    values = new long[type.fEnumerationSize];
+                    int count = 0;
+                    for (int i = 0; i < type.fEnumerationSize; i++) {
+                        ValidatedInfo info = type.fEnumeration[i];
+                        if (type.convertToPrimitiveKind(info.actualValueType) != XSConstants.DECIMAL_DT) {
+                            return null;
+                        }
+                        // values that are not parsed into a long are left
+                        // to validate
+                        if (isInteger(info.actualValue) && ((DecimalDV.XDecimal) info.actualValue).intDigits <= MAX_LONG_DIGITS) {
+                            values[count++] = toLong(info.actualValue);
+                        }
+                    }
+                    values = Arrays.copyOf(values, count);
+                    Arrays.sort(values);
+                }
+                int totalDigits = (facets & FACET_TOTALDIGITS) != 0 ? type.fTotalDigits : Integer.MAX_VALUE;
+                return new LexicalChecker(DV_INTEGER, WS_TRIM, checkFacets, SPECIAL_PATTERN_NONE, 0, Integer.MAX_VALUE, null, totalDigits,
+                        minValue, maxValue, values);
+            }
+            default:
+                return null;
+            }
+        } // compile(XSSimpleTypeDecl):LexicalChecker
+
+        /**
+         * Checks a value, returning true if it is valid.
+         *
+         * @param content           the characters of the value
+         * @param normalize         whether whitespace is to be normalized
+         * @param checkFacets       whether facets are to be checked
+         * @param requireNormalized whether values changed by normalization
+         *                          are not to be accepted
+         */
+        boolean check(CharSequence content, boolean normalize, boolean checkFacets, boolean requireNormalized) {
+            final short ws = normalize ? fWhiteSpace : WS_PRESERVE;
+            int start = 0;
+            int end = content.length();
+            if (ws == WS_TRIM || ws == WS_COLLAPSE) {
+                while (start < end && XMLChar.isSpace(content.charAt(start))) {
+                    start++;
+                }
+                while (end > start && XMLChar.isSpace(content.charAt(end - 1))) {
+                    end--;
+                }
+                if (requireNormalized && (start > 0 || end < content.length())) {
+                    return false;
+                }
+            }
+            checkFacets = checkFacets && fCheckFacets;
+            switch (fKind) {
+            case DV_INTEGER:
+                return checkInteger(content, start, end, checkFacets);
+            case DV_BOOLEAN:
+                return matches(content, start, end, "true") || matches(content, start, end, "false") || matches(content, start, end, "1")
+                        || matches(content, start, end, "0");
+            default:
+                return checkString(content, start, end, ws, checkFacets, requireNormalized);
+            }
+        } // check(CharSequence,boolean,boolean,boolean):boolean
+
+        private boolean checkInteger(CharSequence content, int start, int end, boolean checkFacets) {
+            int i = start;
+            if (i < end && (content.charAt(i) == '+' || content.charAt(i) == '-')) {
+                i++;
+            }
+            if (i == end) {
+                return false;
+            }
+            final boolean negative = content.charAt(start) == '-';
+            // skip leading zeroes, which are not counted as digits
+            while (i < end && content.charAt(i) == '0') {
+                i++;
+            }
+            final int digits = end - i;
+            if (digits > MAX_LONG_DIGITS) {
+                return false;
+            }
+            long value = 0;
+            for (; i < end; i++) {
+                char ch = content.charAt(i);
+                if (!TypeValidator.isDigit(ch)) {
+                    return false;
+                }
+                value = value * 10 + (ch - '0');
+            }
+            if (negative) {
+                value = -value;
+            }
+            if (checkFacets) {
+                if (digits > fTotalDigits || value < fMinValue || value > fMaxValue) {
+                    return false;
+                }
+                if (fLongEnumeration != null && Arrays.binarySearch(fLongEnumeration, value) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        } // checkInteger(CharSequence,int,int,boolean):boolean
+
+        private boolean checkString(CharSequence content, int start, int end, short ws, boolean checkFacets, boolean requireNormalized) {
+            int length = 0;
+            int surrogatePairs = 0;
+            int hash = 0;
+            boolean space = false;
+            boolean highSurrogate = false;
+            for (int i = start; i < end; i++) {
+                char ch = content.charAt(i);
+                if (ws != WS_PRESERVE && (ch == 0x9 || ch == 0xa || ch == 0xd || ch == 0x20)) {
+                    if (requireNormalized && (ch != 0x20 || ws == WS_COLLAPSE && space)) {
+                        return false;
+                    }
+                    if (ws == WS_COLLAPSE && space) {
+                        continue;
+                    }
+                    ch = 0x20;
+                    space = true;
+                } else {
+                    space = false;
+                }
+                switch (fPatternType) {
+                case SPECIAL_PATTERN_NMTOKEN:
+                    if (!XMLChar.isName(ch)) {
+                        return false;
+                    }
+                    break;
+                case SPECIAL_PATTERN_NAME:
+                    if (length == 0 ? !XMLChar.isNameStart(ch) : !XMLChar.isName(ch)) {
+                        return false;
+                    }
+                    break;
+                case SPECIAL_PATTERN_NCNAME:
+                    if (length == 0 ? !XMLChar.isNCNameStart(ch) : !XMLChar.isNCName(ch)) {
+                        return false;
+                    }
+                    break;
+                }
+                if (highSurrogate && XMLChar.isLowSurrogate(ch)) {
+                    surrogatePairs++;
+                    highSurrogate = false;
+                } else {
+                    highSurrogate = XMLChar.isHighSurrogate(ch);
+                }
+                hash = 31 * hash + ch;
+                length++;
+            }
+            if (length == 0 && fPatternType != SPECIAL_PATTERN_NONE) {
+                return false;
+            }
+            if (checkFacets) {
+                int dataLength = TypeValidator.USE_CODE_POINT_COUNT_FOR_STRING_LENGTH ? length - surrogatePairs : length;
+                if (dataLength < fMinLength || dataLength > fMaxLength) {
+                    return false;
+                }
+                if (fStringEnumeration != null) {
+                    final int mask = fStringEnumeration.length - 1;
+                    for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+                        String value = fStringEnumeration[slot];
+                        if (value == null) {
+                            return false;
+                        }
+                        if (value.hashCode() == hash && value.length() == length && equalsNormalized(content, start, end, ws, value)) {
+                            break;
+                        }
+                    }
+                }
+            }
+            return true;
+        } // checkString(CharSequence,int,int,short,boolean,boolean):boolean
+
+        /** Compares the normalized characters of a value with a string. */
+        private static boolean equalsNormalized(CharSequence content, int start, int end, short ws, String value) {
+            int j = 0;
+            boolean space = false;
+            for (int i = start; i < end; i++) {
+                char ch = content.charAt(i);
+                if (ws != WS_PRESERVE && (ch == 0x9 || ch == 0xa || ch == 0xd || ch == 0x20)) {
+                    if (ws == WS_COLLAPSE && space) {
+                        continue;
+                    }
+                    ch = 0x20;
+                    space = true;
+                } else {
+                    space = false;
+                }
+                if (value.charAt(j++) != ch) {
+                    return false;
+                }
+            }
+            return true;
+        } // equalsNormalized(CharSequence,int,int,short,String):boolean
+
+        private static boolean matches(CharSequence content, int start, int end, String value) {
+            if (end - start != value.length()) {
+                return false;
+            }
+            for (int i = start; i < end; i++) {
+                if (content.charAt(i) != value.charAt(i - start)) {
+                    return false;
+                }
+            }
+            return true;
+        } // matches(CharSequence,int,int,String):boolean
+
+        /** Whether an actual value is a decimal without fraction digits. */
+        private static boolean isInteger(Object value) {
+            return value instanceof DecimalDV.XDecimal && ((DecimalDV.XDecimal) value).fracDigits == 0;
+        }
+
+        /**
+         * Converts an integer actual value to a long, bringing values with
+         * too many digits to the largest or smallest long, which compare to
+         * the parsed values like the actual values do.
+         */
+        private static long toLong(Object value) {
+            DecimalDV.XDecimal decimal = (DecimalDV.XDecimal) value;
+            if (decimal.sign == 0) {
+                return 0;
+            }
+            if (decimal.intDigits > MAX_LONG_DIGITS) {
+                return decimal.sign > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+            }
+            return decimal.sign * Long.parseLong(decimal.ivalue);
+        }
+
+        /** Returns a power of two large enough to hash the given number of values. */
+        private static int tableSize(int count) {
+            int size = 8;
+            while (size < count * 2) {
+                size <<= 1;
+            }
+            return size;
+        }
+
+    } // class LexicalChecker
+
 } // class XSSimpleTypeDecl
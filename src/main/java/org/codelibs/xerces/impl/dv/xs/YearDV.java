@@ -35,6 +35,9 @@ import org.codelibs.xerces.impl.dv.ValidationContext;
  */
 public class YearDV extends AbstractDateTimeDV {
 
+    /** Serialization version. */
+    private static final long serialVersionUID = 6479177790853078178L;
+
     /**
      * Default constructor. Creates a new YearDV validator instance.
      */
@@ -35,6 +35,9 @@ import org.codelibs.xerces.impl.dv.ValidationContext;
  */
 public class YearMonthDV extends AbstractDateTimeDV {
 
+    /** Serialization version. */
+    private static final long serialVersionUID = -3479749146675916887L;
+
     /**
      * Default constructor. Creates a new YearMonthDV validator instance.
      */
@@ -36,6 +36,9 @@ import org.codelibs.xerces.impl.dv.ValidationContext;
  */
 class YearMonthDurationDV extends DurationDV {
 
+    /** Serialization version. */
+    private static final long serialVersionUID = -7590229819180441223L;
+
     public Object getActualValue(String content, ValidationContext context) throws InvalidDatatypeValueException {
         try {
             return parse(content, DurationDV.YEARMONTHDURATION_TYPE);
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.impl.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * <p>An input stream over a local file which is memory mapped in
+ * windows of a fixed size, so that reading does not perform a system
+ * call and kernel to user copy for every buffer load. Files of any
+ * length are supported; the next window is mapped when the current
+ * one is exhausted.</p>
+ *
+ * <p>This is memory mapped I/O, not zero-copy parsing: the bytes are
+ * still copied out of the mapping into the buffers of the entity
+ * scanner and its reader, as with any other input stream.</p>
+ *
+ * <p>Mapped windows are released by the garbage collector once they
+ * are no longer referenced.</p>
+ *
+ * @author CodeLibs Project
+ */
+public final class MappedFileInputStream extends InputStream {
+
+    //
+    // Constants
+    //
+
+    /** Default window size (64 MB). */
+    public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    /** Minimum window size (4 KB). */
+    public static final int MIN_WINDOW_SIZE = 4096;
+
+    //
+    // Data
+    //
+
+    /** File channel. */
+    private FileChannel fChannel;
+
+    /** File length. */
+    private final long fLength;
+
+    /** Window size. */
+    private final int fWindowSize;
+
+    /** Currently mapped window. */
+    private MappedByteBuffer fWindow;
+
+    /** File offset of the current window. */
+    private long fWindowStart;
+
+    /** Marked file offset. */
+    private long fMark;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Constructs a mapped input stream using the default window size.
+     *
+     * @param file The file to read.
+     *
+     * @exception IOException If the file cannot be opened.
+     */
+    public MappedFileInputStream(File file) throws IOException {
+        this(file, DEFAULT_WINDOW_SIZE);
+    } // <init>(File)
+
+    /**
+     * Constructs a mapped input stream.
+     *
+     * @param file       The file to read.
+     * @param windowSize The number of bytes mapped at a time. Sizes
+     *                   below {@link #MIN_WINDOW_SIZE} are rounded up.
+     *
+     * @exception IOException If the file cannot be opened.
+     */
+    public MappedFileInputStream(File file, int windowSize) throws IOException {
+        final FileChannel channel = new RandomAccessFile(file, "r").getChannel();
+        try {
+            fLength = channel.size();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        fChannel = channel;
+        fWindowSize = Math.max(windowSize, MIN_WINDOW_SIZE);
+    } // <init>(File,int)
+
+    //
+    // InputStream methods
+    //
+
+    public int read() throws IOException {
+        if (!ensureWindow()) {
+            return -1;
+        }
+        return fWindow.get() & 0xFF;
+    } // read():int
+
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureWindow()) {
+            return -1;
+        }
+        if (len > fWindow.remaining()) {
+            len = fWindow.remaining();
+        }
+        fWindow.get(b, off, len);
+        return len;
+    } // read(byte[],int,int):int
+
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        long position = position();
+        long skipped = Math.min(n, fLength - position);
+        seek(position + skipped);
+        return skipped;
+    } // skip(long):long
+
+    public int available() throws IOException {
+        return (int) Math.min(Integer.MAX_VALUE, fLength - position());
+    } // available():int
+
+    public boolean markSupported() {
+        return true;
+    } // markSupported():boolean
+
+    public void mark(int readAheadLimit) {
+        fMark = position();
+    } // mark(int)
+
+    public void reset() throws IOException {
+        seek(fMark);
+    } // reset()
+
+    public void close() throws IOException {
+        fWindow = null;
+        if (fChannel != null) {
+            fChannel.close();
+            fChannel = null;
+        }
+    } // close()
+
+    //
+    // Private methods
+    //
+
+    /** Returns the current file offset. */
+    private long position() {
+        return fWindow != null ? fWindowStart + fWindow.position() : fWindowStart;
+    } // position():long
+
+    /** Moves to the given file offset. */
+    private void seek(long position) {
+        if (fWindow != null && position >= fWindowStart && position <= fWindowStart + fWindow.limit()) {
+            fWindow.position((int) (position - fWindowStart));
+        } else {
+            fWindow = null;
+            fWindowStart = position;
+        }
+    } // seek(long)
+
+    /**
+     * Maps the next window if the current one is exhausted.
+     *
+     * @return False if the end of the file has been reached.
+     */
+    private boolean ensureWindow() throws IOException {
+        if (fWindow != null && fWindow.hasRemaining()) {
+            return true;
+        }
+        if (fChannel == null) {
+            throw new IOException("Stream closed");
+        }
+        long position = position();
+        if (position >= fLength) {
+            return false;
+        }
+        fWindow = fChannel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(fWindowSize, fLength - position));
+        fWindowStart = position;
+        return true;
+    } // ensureWindow():boolean
+
+} // class MappedFileInputStream
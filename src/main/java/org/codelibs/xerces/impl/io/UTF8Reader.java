@@ -20,6 +20,9 @@ package org.codelibs.xerces.impl.io;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
 import java.util.Locale;
 
 import org.codelibs.xerces.impl.msg.XMLMessageFormatter;
@@ -47,6 +50,12 @@ public final class UTF8Reader extends Reader {
     /** Debug read. */
     private static final boolean DEBUG_READ = false;
 
+    /** View of the byte buffer as little-endian longs; used to test eight bytes at a time. */
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /** Mask of the high bit of every byte in a long. */
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
     //
     // Data
     //
@@ -281,13 +290,12 @@ public final class UTF8Reader extends Reader {
             if (fSurrogate != -1) {
                 ch[out++] = (char) fSurrogate;
                 fSurrogate = -1;
-                length--;
             }
 
             // perform read operation
-            count = fInputStream.read(fBuffer, 0, length);
+            count = fInputStream.read(fBuffer, 0, length - (out - offset));
             if (count == -1) {
-                return -1;
+                return out > offset ? out - offset : -1;
             }
             count += out - offset;
         }
@@ -304,26 +312,22 @@ public final class UTF8Reader extends Reader {
             fOffset = 0;
         }
 
-        // convert bytes to characters
-        final int total = count;
-        int in;
+        // convert bytes to characters; a pending surrogate has already
+        // been stored and is counted in count but not in the byte buffer
+        final int total = count - (out - offset);
+        int in = decodeASCII(ch, out, 0, total);
+        out += in;
         byte byte1;
         final byte byte0 = 0;
-        for (in = 0; in < total; in++) {
-            byte1 = fBuffer[in];
-            if (byte1 >= byte0) {
-                ch[out++] = (char) byte1;
-            } else {
-                break;
-            }
-        }
         for (; in < total; in++) {
             byte1 = fBuffer[in];
 
             // UTF-8:   [0xxx xxxx]
             // Unicode: [0000 0000] [0xxx xxxx]
             if (byte1 >= byte0) {
-                ch[out++] = (char) byte1;
+                int end = decodeASCII(ch, out, in, total);
+                out += end - in;
+                in = end - 1;
                 continue;
             }
 
@@ -645,6 +649,39 @@ public final class UTF8Reader extends Reader {
     // Private methods
     //
 
+    /**
+     * Copies the run of ASCII bytes starting at <code>in</code> from the
+     * byte buffer into the character array. Eight bytes are tested at a
+     * time for the high bit, so that the common pure ASCII case does not
+     * branch on every byte.
+     *
+     * @param ch  The destination buffer.
+     * @param out The offset at which to start storing characters.
+     * @param in  The offset of the first byte to decode.
+     * @param end The offset past the last valid byte.
+     *
+     * @return The offset of the first non-ASCII byte, or <code>end</code>.
+     */
+    private int decodeASCII(char[] ch, int out, int in, int end) {
+        final byte[] buffer = fBuffer;
+
+        // find the end of the run, eight bytes at a time
+        int run = in;
+        final int limit = end - 8;
+        while (run <= limit && ((long) LONG_VIEW.get(buffer, run) & HIGH_BITS) == 0) {
+            run += 8;
+        }
+        while (run < end && buffer[run] >= 0) {
+            run++;
+        }
+
+        // widen the run; a counted loop without exits
+        for (int i = in; i < run; i++) {
+            ch[out++] = (char) buffer[i];
+        }
+        return run;
+    } // decodeASCII(char[],int,int,int):int
+
     /** Throws an exception for expected byte. */
     private void expectedByte(int position, int count) throws MalformedByteSequenceException {
 
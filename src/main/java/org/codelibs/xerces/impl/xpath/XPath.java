@@ -17,6 +17,7 @@
 
 package org.codelibs.xerces.impl.xpath;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Vector;
 
@@ -33,7 +34,10 @@ import org.codelibs.xerces.xni.QName;
  * @author Andy Clark, IBM
  * @version $Id: XPath.java 965250 2010-07-18 16:04:58Z mrglavas $
  */
-public class XPath {
+public class XPath implements Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 6537235053023367307L;
 
     //
     // Constants
@@ -53,7 +57,7 @@ public class XPath {
     protected final String fExpression;
 
     /** Symbol table. */
-    protected final SymbolTable fSymbolTable;
+    protected final transient SymbolTable fSymbolTable;
 
     /** Location paths. */
     protected final LocationPath[] fLocationPaths;
@@ -354,7 +358,10 @@ public class XPath {
          *
      * @author Andy Clark, IBM
      */
-    public static class LocationPath implements Cloneable {
+    public static class LocationPath implements Cloneable, Serializable {
+
+        /** Serialization version. */
+        private static final long serialVersionUID = -6607643297049073729L;
 
         //
         // Data
@@ -426,7 +433,10 @@ public class XPath {
          *
      * @author Andy Clark, IBM
      */
-    public static class Step implements Cloneable {
+    public static class Step implements Cloneable, Serializable {
+
+        /** Serialization version. */
+        private static final long serialVersionUID = -8123036942113948739L;
 
         //
         // Data
@@ -497,7 +507,10 @@ public class XPath {
          *
      * @author Andy Clark, IBM
      */
-    public static class Axis implements Cloneable {
+    public static class Axis implements Cloneable, Serializable {
+
+        /** Serialization version. */
+        private static final long serialVersionUID = -5383902528780724932L;
 
         //
         // Constants
@@ -575,7 +588,10 @@ public class XPath {
          *
      * @author Andy Clark, IBM
      */
-    public static class NodeTest implements Cloneable {
+    public static class NodeTest implements Cloneable, Serializable {
+
+        /** Serialization version. */
+        private static final long serialVersionUID = 4356805141788225808L;
 
         //
         // Constants
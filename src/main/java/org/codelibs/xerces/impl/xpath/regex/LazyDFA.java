@@ -0,0 +1,505 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.impl.xpath.regex;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A deterministic automaton for XML Schema regular expressions, whose
+ * states are built on demand from a Thompson NFA while matching.
+ * <p>
+ * Matching takes time linear in the length of the text and does not lock
+ * once the states it needs exist: transitions are read without
+ * synchronization and only missing transitions are computed under the
+ * automaton's lock. The states are kept within a fixed memory budget;
+ * once it is spent, text which needs a state the automaton does not have
+ * yet is left to the backtracking matcher.
+ * <p>
+ * Only expressions made of characters, strings, character classes,
+ * concatenation, alternation and closures are compiled, which covers the
+ * XML Schema syntax. Text containing unpaired surrogates is left to the
+ * backtracking matcher, so that both matchers agree on every input.
+ *
+ * @author CodeLibs Project
+ */
+final class LazyDFA {
+
+    //
+    // Constants
+    //
+
+    /** NFA state consuming a character of its leaf. */
+    private static final int LEAF = 0;
+
+    /** NFA state with two epsilon transitions. */
+    private static final int SPLIT = 1;
+
+    /** Accepting NFA state. */
+    private static final int MATCH = 2;
+
+    /** Maximum number of NFA states; larger expressions are not compiled. */
+    private static final int MAX_NFA_STATES = 10000;
+
+    /**
+     * Maximum total size of the DFA states, counted as the entries of
+     * their NFA state sets and of their transition tables.
+     */
+    private static final int MAX_STATE_SIZE = 1 << 16;
+
+    /** Characters excluded by '.', see RegularExpression#isEOLChar. */
+    private static final int[] EOL_RANGES = { 0x0A, 0x0A, 0x0D, 0x0D, 0x2028, 0x2029 };
+
+    //
+    // Data
+    //
+
+    // NFA
+    private int[] fKind = new int[64];
+    private int[] fOut = new int[64];
+    private int[] fOut2 = new int[64];
+    private int fCount;
+
+    // leaves, as inclusive ranges and whether they are negated
+    private int[][] fLeafRanges = new int[8][];
+    private boolean[] fLeafNegated = new boolean[8];
+    private int fLeafCount;
+    private final Map fCharLeaves = new HashMap();
+    private final Map fTokenLeaves = new IdentityHashMap();
+
+    // alphabet: characters from fBounds[i] up to fBounds[i + 1] form class i
+    private int[] fBounds;
+    private final int[] fAsciiClass = new int[128];
+    private boolean[][] fLeafClasses;
+
+    // DFA
+    private final HashMap fStates = new HashMap();
+    private int fStateSize;
+    private State fStart;
+    private State fDead;
+
+    // scratch space for computing state sets
+    private int[] fMarks;
+    private int fStamp;
+    private int[] fStack;
+
+    //
+    // Constructors
+    //
+
+    private LazyDFA() {
+    } // <init>()
+
+    /**
+     * Returns an automaton for the given expression, or null if it uses
+     * constructs or options the automaton does not support.
+     *
+     * @param tree    the parsed expression
+     * @param options the options of the expression
+     * @return an automaton, or null
+     */
+    static LazyDFA compile(Token tree, int options) {
+        if (options != RegularExpression.XMLSCHEMA_MODE || tree == null) {
+            return null;
+        }
+        LazyDFA dfa = new LazyDFA();
+        int match = dfa.newState(MATCH);
+        int start = dfa.build(tree, match);
+        if (start < 0) {
+            return null;
+        }
+        return dfa.prepare(start) ? dfa : null;
+    } // compile(Token,int):LazyDFA
+
+    //
+    // Methods
+    //
+
+    /**
+     * Checks whether the whole range of the text matches the expression.
+     *
+     * @param text  the text
+     * @param start the start of the range
+     * @param end   the end of the range
+     * @return 1 if it matches, 0 if it does not, -1 if the text contains
+     *         unpaired surrogates or needs more states than the budget
+     *         allows, and the automaton cannot tell
+     */
+    int matches(CharSequence text, int start, int end) {
+        State state = fStart;
+        for (int i = start; i < end; i++) {
+            int ch = text.charAt(i);
+            int c;
+            if (ch < 128) {
+                c = fAsciiClass[ch];
+            } else {
+                if (ch >= 0xD800 && ch <= 0xDFFF) {
+                    if (!REUtil.isHighSurrogate(ch) || i + 1 >= end || !REUtil.isLowSurrogate(text.charAt(i + 1))) {
+                        return -1;
+                    }
+                    ch = REUtil.composeFromSurrogates(ch, text.charAt(++i));
+                }
+                c = classOf(ch);
+            }
+            State target = state.fNext[c];
+            if (target == null) {
+                target = step(state, c);
+                if (target == null) {
+                    return -1;
+                }
+            }
+            if (target == fDead) {
+                return 0;
+            }
+            state = target;
+        }
+        return state.fAccepting ? 1 : 0;
+    } // matches(CharSequence,int,int):int
+
+    //
+    // Private methods
+    //
+
+    /** Builds the NFA for the token, continuing with the given state. */
+    private int build(Token tok, int next) {
+        switch (tok.type) {
+        case Token.CHAR: {
+            int ch = tok.getChar();
+            return ch > 0xFFFF || (ch >= 0xD800 && ch <= 0xDFFF) ? -1 : newLeaf(charLeaf(ch), next);
+        }
+
+        case Token.STRING: {
+            String string = tok.getString();
+            for (int i = string.length(); i > 0 && next >= 0;) {
+                int ch = string.codePointBefore(i);
+                if (ch >= 0xD800 && ch <= 0xDFFF) {
+                    return -1;
+                }
+                i -= Character.charCount(ch);
+                next = newLeaf(charLeaf(ch), next);
+            }
+            return next;
+        }
+
+        case Token.DOT:
+        case Token.RANGE:
+        case Token.NRANGE: {
+            Integer leaf = (Integer) fTokenLeaves.get(tok);
+            if (leaf == null) {
+                if (tok.type == Token.DOT) {
+                    leaf = Integer.valueOf(addLeaf(EOL_RANGES, true));
+                } else {
+                    int[] ranges = ((RangeToken) tok).ranges;
+                    leaf = Integer.valueOf(addLeaf(ranges != null ? ranges.clone() : new int[0], tok.type == Token.NRANGE));
+                }
+                fTokenLeaves.put(tok, leaf);
+            }
+            return newLeaf(leaf.intValue(), next);
+        }
+
+        case Token.CONCAT:
+            for (int i = tok.size() - 1; i >= 0 && next >= 0; i--) {
+                next = build(tok.getChild(i), next);
+            }
+            return next;
+
+        case Token.UNION: {
+            int size = tok.size();
+            if (size == 0) {
+                return -1;
+            }
+            int ret = build(tok.getChild(size - 1), next);
+            for (int i = size - 2; i >= 0 && ret >= 0; i--) {
+                ret = newSplit(build(tok.getChild(i), next), ret);
+            }
+            return ret;
+        }
+
+        case Token.CLOSURE:
+        case Token.NONGREEDYCLOSURE: {
+            // same expansion as RegularExpression#compile
+            Token child = tok.getChild(0);
+            int min = tok.getMin();
+            int max = tok.getMax();
+            int ret = next;
+            if (min >= 0 && min == max) {
+                for (int i = 0; i < min && ret >= 0; i++) {
+                    ret = build(child, ret);
+                }
+                return ret;
+            }
+            if (min > 0 && max > 0) {
+                max -= min;
+            }
+            if (max > 0) {
+                for (int i = 0; i < max && ret >= 0; i++) {
+                    ret = newSplit(build(child, ret), next);
+                }
+            } else {
+                ret = newState(SPLIT);
+                if (ret >= 0) {
+                    fOut2[ret] = next;
+                    int body = build(child, ret);
+                    if (body < 0) {
+                        return -1;
+                    }
+                    fOut[ret] = body;
+                }
+            }
+            for (int i = 0; i < min && ret >= 0; i++) {
+                ret = build(child, ret);
+            }
+            return ret;
+        }
+
+        case Token.EMPTY:
+            return next;
+
+        case Token.PAREN:
+            return build(tok.getChild(0), next);
+
+        default:
+            return -1;
+        }
+    } // build(Token,int):int
+
+    /** Adds an NFA state, or returns -1 if there are too many. */
+    private int newState(int kind) {
+        if (fCount == MAX_NFA_STATES) {
+            return -1;
+        }
+        if (fCount == fKind.length) {
+            int length = fCount * 2;
+            fKind = Arrays.copyOf(fKind, length);
+            fOut = Arrays.copyOf(fOut, length);
+            fOut2 = Arrays.copyOf(fOut2, length);
+        }
+        fKind[fCount] = kind;
+        return fCount++;
+    } // newState(int):int
+
+    private int newLeaf(int leaf, int next) {
+        int state = next >= 0 ? newState(LEAF) : -1;
+        if (state >= 0) {
+            fOut[state] = next;
+            fOut2[state] = leaf;
+        }
+        return state;
+    } // newLeaf(int,int):int
+
+    private int newSplit(int first, int second) {
+        int state = first >= 0 && second >= 0 ? newState(SPLIT) : -1;
+        if (state >= 0) {
+            fOut[state] = first;
+            fOut2[state] = second;
+        }
+        return state;
+    } // newSplit(int,int):int
+
+    private int charLeaf(int ch) {
+        Integer key = Integer.valueOf(ch);
+        Integer leaf = (Integer) fCharLeaves.get(key);
+        if (leaf == null) {
+            leaf = Integer.valueOf(addLeaf(new int[] { ch, ch }, false));
+            fCharLeaves.put(key, leaf);
+        }
+        return leaf.intValue();
+    } // charLeaf(int):int
+
+    private int addLeaf(int[] ranges, boolean negated) {
+        if (fLeafCount == fLeafRanges.length) {
+            fLeafRanges = Arrays.copyOf(fLeafRanges, fLeafCount * 2);
+            fLeafNegated = Arrays.copyOf(fLeafNegated, fLeafCount * 2);
+        }
+        fLeafRanges[fLeafCount] = ranges;
+        fLeafNegated[fLeafCount] = negated;
+        return fLeafCount++;
+    } // addLeaf(int[],boolean):int
+
+    /**
+     * Splits the characters into the classes no leaf distinguishes and
+     * creates the start state. Returns false if the start state does not
+     * fit in the budget.
+     */
+    private boolean prepare(int start) {
+        int[] bounds = new int[1];
+        int count = 1;
+        for (int leaf = 0; leaf < fLeafCount; leaf++) {
+            int[] ranges = fLeafRanges[leaf];
+            if (count + ranges.length > bounds.length) {
+                bounds = Arrays.copyOf(bounds, (count + ranges.length) * 2);
+            }
+            for (int i = 0; i + 1 < ranges.length; i += 2) {
+                bounds[count++] = ranges[i];
+                bounds[count++] = ranges[i + 1] + 1;
+            }
+        }
+        Arrays.sort(bounds, 0, count);
+        int classes = 0;
+        for (int i = 0; i < count; i++) {
+            if (bounds[i] <= Token.UTF16_MAX && (classes == 0 || bounds[i] != bounds[classes - 1])) {
+                bounds[classes++] = bounds[i];
+            }
+        }
+        fBounds = Arrays.copyOf(bounds, classes);
+        for (int ch = 0; ch < fAsciiClass.length; ch++) {
+            fAsciiClass[ch] = classOf(ch);
+        }
+        fLeafClasses = new boolean[fLeafCount][classes];
+        for (int leaf = 0; leaf < fLeafCount; leaf++) {
+            int[] ranges = fLeafRanges[leaf];
+            for (int c = 0; c < classes; c++) {
+                boolean in = false;
+                for (int i = 0; i + 1 < ranges.length && !in; i += 2) {
+                    in = ranges[i] <= fBounds[c] && fBounds[c] <= ranges[i + 1];
+                }
+                fLeafClasses[leaf][c] = in != fLeafNegated[leaf];
+            }
+        }
+        fLeafRanges = null;
+
+        fMarks = new int[fCount];
+        fStack = new int[2 * fCount + 1];
+        fDead = intern(new int[0], 0);
+        int[] set = new int[fCount];
+        fStamp++;
+        fStart = intern(set, closure(start, set, 0));
+        return fDead != null && fStart != null;
+    } // prepare(int):boolean
+
+    private int classOf(int ch) {
+        int index = Arrays.binarySearch(fBounds, ch);
+        return index >= 0 ? index : -index - 2;
+    } // classOf(int):int
+
+    /**
+     * Computes the transition of the state on the character class, or
+     * returns null if it leads to a new state and the budget is spent.
+     */
+    private synchronized State step(State state, int c) {
+        State[] next = state.fNext;
+        if (next[c] != null) {
+            return next[c];
+        }
+        int[] set = new int[fCount];
+        int size = 0;
+        fStamp++;
+        for (int i = 0; i < state.fSet.length; i++) {
+            int s = state.fSet[i];
+            if (fKind[s] == LEAF && fLeafClasses[fOut2[s]][c]) {
+                size = closure(fOut[s], set, size);
+            }
+        }
+        State target = intern(set, size);
+        if (target != null) {
+            next[c] = target;
+        }
+        return target;
+    } // step(State,int):State
+
+    /**
+     * Adds the leaf and match states reachable from the given state without
+     * consuming a character to the set, skipping states marked with the
+     * current stamp.
+     */
+    private int closure(int state, int[] set, int size) {
+        int top = 0;
+        fStack[top++] = state;
+        while (top > 0) {
+            int s = fStack[--top];
+            if (fMarks[s] == fStamp) {
+                continue;
+            }
+            fMarks[s] = fStamp;
+            if (fKind[s] == SPLIT) {
+                fStack[top++] = fOut2[s];
+                fStack[top++] = fOut[s];
+            } else {
+                set[size++] = s;
+            }
+        }
+        return size;
+    } // closure(int,int[],int):int
+
+    /**
+     * Returns the state for the first entries of the set, or null if it
+     * is a new state and does not fit in the budget.
+     */
+    private State intern(int[] set, int size) {
+        int[] key = Arrays.copyOf(set, size);
+        Arrays.sort(key);
+        State state = new State(key, false, null);
+        State existing = (State) fStates.get(state);
+        if (existing != null) {
+            return existing;
+        }
+        int stateSize = key.length + fBounds.length;
+        if (fStateSize + stateSize > MAX_STATE_SIZE) {
+            return null;
+        }
+        fStateSize += stateSize;
+        boolean accepting = false;
+        for (int i = 0; i < key.length && !accepting; i++) {
+            accepting = fKind[key[i]] == MATCH;
+        }
+        state = new State(key, accepting, new State[fBounds.length]);
+        fStates.put(state, state);
+        return state;
+    } // intern(int[],int):State
+
+    //
+    // Classes
+    //
+
+    /**
+     * A DFA state: a set of NFA states. States are immutable apart from
+     * the transition table, whose entries are only ever set once.
+     */
+    private static final class State {
+
+        /** The sorted NFA states. */
+        final int[] fSet;
+
+        /** Whether the set contains the match state. */
+        final boolean fAccepting;
+
+        /** The transitions by character class, null until computed; null for lookup keys. */
+        final State[] fNext;
+
+        private final int fHash;
+
+        State(int[] set, boolean accepting, State[] next) {
+            fSet = set;
+            fAccepting = accepting;
+            fNext = next;
+            fHash = Arrays.hashCode(set);
+        }
+
+        public int hashCode() {
+            return fHash;
+        }
+
+        public boolean equals(Object o) {
+            return o instanceof State && Arrays.equals(fSet, ((State) o).fSet);
+        }
+
+    } // class State
+
+} // class LazyDFA
@@ -18,6 +18,9 @@
 package org.codelibs.xerces.impl.xpath.regex;
 
 import java.text.CharacterIterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * Regular expression utility methods.
@@ -277,6 +280,46 @@ public final class REUtil {
     static final int CACHESIZE = 20;
     static final RegularExpression[] regexCache = new RegularExpression[CACHESIZE];
 
+    static final int SCHEMA_CACHESIZE = 512;
+
+    /** XML Schema expressions by pattern, least recently used first. */
+    static final Map schemaRegexCache = new LinkedHashMap(64, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        protected boolean removeEldestEntry(Map.Entry eldest) {
+            return size() > SCHEMA_CACHESIZE;
+        }
+    };
+
+    /**
+     * Returns a RegularExpression instance for an XML Schema pattern, as
+     * created with the "X" option. Instances are shared by all callers, in
+     * all threads, through a bounded cache; they must not be modified.
+     *
+     * @param pattern the regular expression pattern
+     * @param locale the locale for the messages of parse errors
+     * @return a RegularExpression instance
+     * @throws ParseException if the pattern is not valid
+     */
+    public static RegularExpression createSchemaRegex(String pattern, Locale locale) throws ParseException {
+        RegularExpression re;
+        synchronized (REUtil.schemaRegexCache) {
+            re = (RegularExpression) REUtil.schemaRegexCache.get(pattern);
+        }
+        if (re == null) {
+            // parsed outside of the lock; the first instance cached wins
+            RegularExpression created = new RegularExpression(pattern, "X", locale);
+            synchronized (REUtil.schemaRegexCache) {
+                re = (RegularExpression) REUtil.schemaRegexCache.get(pattern);
+                if (re == null) {
+                    re = created;
+                    REUtil.schemaRegexCache.put(pattern, re);
+                }
+            }
+        }
+        return re;
+    }
+
     /**
      * Creates a RegularExpression instance.
      * This method caches created instances.
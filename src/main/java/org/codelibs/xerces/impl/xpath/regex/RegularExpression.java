@@ -17,6 +17,7 @@
 
 package org.codelibs.xerces.impl.xpath.regex;
 
+import java.nio.CharBuffer;
 import java.text.CharacterIterator;
 import java.util.Locale;
 import java.util.Stack;
@@ -703,6 +704,15 @@ public class RegularExpression implements java.io.Serializable {
      */
     public boolean matches(char[] target, int start, int end, Match match) {
 
+        if (match == null && isSet(this.options, XMLSCHEMA_MODE)) {
+            LazyDFA dfa = this.getDFA();
+            if (dfa != null) {
+                int result = dfa.matches(CharBuffer.wrap(target), start, end);
+                if (result >= 0)
+                    return result == 1;
+            }
+        }
+
         synchronized (this) {
             if (this.operations == null)
                 this.prepare();
@@ -889,6 +899,15 @@ public class RegularExpression implements java.io.Serializable {
      */
     public boolean matches(String target, int start, int end, Match match) {
 
+        if (match == null && isSet(this.options, XMLSCHEMA_MODE)) {
+            LazyDFA dfa = this.getDFA();
+            if (dfa != null) {
+                int result = dfa.matches(target, start, end);
+                if (result >= 0)
+                    return result == 1;
+            }
+        }
+
         synchronized (this) {
             if (this.operations == null)
                 this.prepare();
@@ -1707,6 +1726,9 @@ public class RegularExpression implements java.io.Serializable {
     transient BMPattern fixedStringTable = null;
     transient boolean fixedStringOnly = false;
 
+    transient volatile LazyDFA dfa = null;
+    transient volatile boolean dfaPrepared = false;
+
     static abstract class ExpressionTarget {
         abstract char charAt(int index);
 
@@ -2037,6 +2059,23 @@ public class RegularExpression implements java.io.Serializable {
         }
     }
 
+    /**
+     * Returns the automaton matching this XML Schema expression without
+     * backtracking, or null if the expression is only matched by
+     * backtracking.
+     */
+    private LazyDFA getDFA() {
+        if (!this.dfaPrepared) {
+            synchronized (this) {
+                if (!this.dfaPrepared) {
+                    this.dfa = LazyDFA.compile(this.tokentree, this.options);
+                    this.dfaPrepared = true;
+                }
+            }
+        }
+        return this.dfa;
+    }
+
     /**
      * Prepares for matching.  This method is called just before starting matching.
      */
@@ -2252,6 +2291,8 @@ public class RegularExpression implements java.io.Serializable {
 
         this.operations = null;
         this.context = null;
+        this.dfaPrepared = false;
+        this.dfa = null;
     }
 
     /**
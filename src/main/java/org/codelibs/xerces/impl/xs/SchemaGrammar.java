@@ -17,6 +17,7 @@
 
 package org.codelibs.xerces.impl.xs;
 
+import java.io.Serializable;
 import java.lang.ref.SoftReference;
 import java.util.Vector;
 
@@ -75,7 +76,10 @@ import org.xml.sax.SAXException;
  * @version $Id: SchemaGrammar.java 1082533 2011-03-17 15:22:26Z knoaman $
  */
 
-public class SchemaGrammar implements XSGrammar, XSNamespaceItem {
+public class SchemaGrammar implements XSGrammar, XSNamespaceItem, Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 1522995478977354473L;
 
     // the target namespace of grammar
     String fTargetNamespace;
@@ -114,10 +118,10 @@ public class SchemaGrammar implements XSGrammar, XSNamespaceItem {
     int fNumAnnotations;
 
     // symbol table for constructing parsers (annotation support)
-    private SymbolTable fSymbolTable = null;
+    private transient SymbolTable fSymbolTable = null;
     // parsers for annotation support
-    private SoftReference fSAXParser = null;
-    private SoftReference fDOMParser = null;
+    private transient SoftReference fSAXParser = null;
+    private transient SoftReference fDOMParser = null;
 
     // is this grammar immutable?  (fully constructed and not changeable)
     private boolean fIsImmutable = false;
@@ -272,6 +276,9 @@ public class SchemaGrammar implements XSGrammar, XSNamespaceItem {
      */
     public static class BuiltinSchemaGrammar extends SchemaGrammar {
 
+        /** Serialization version. */
+        private static final long serialVersionUID = -6639060237135355593L;
+
         private static final String EXTENDED_SCHEMA_FACTORY_CLASS = "org.codelibs.xerces.impl.dv.xs.ExtendedSchemaDVFactoryImpl";
 
         /**
@@ -511,6 +518,9 @@ public class SchemaGrammar implements XSGrammar, XSNamespaceItem {
      */
     public static final class Schema4Annotations extends SchemaGrammar {
 
+        /** Serialization version. */
+        private static final long serialVersionUID = 5637421253093142680L;
+
         /**
          * Singleton instance.
          */
@@ -1367,6 +1377,10 @@ public class SchemaGrammar implements XSGrammar, XSNamespaceItem {
     public final static XSComplexTypeDecl fAnyType = new XSAnyType();
 
     private static class XSAnyType extends XSComplexTypeDecl {
+
+        /** Serialization version. */
+        private static final long serialVersionUID = -60455820252056966L;
+
         public XSAnyType() {
             fName = SchemaSymbols.ATTVAL_ANYTYPE;
             super.fTargetNamespace = SchemaSymbols.URI_SCHEMAFORSCHEMA;
@@ -1448,6 +1462,10 @@ public class SchemaGrammar implements XSGrammar, XSNamespaceItem {
     }
 
     private static class BuiltinAttrDecl extends XSAttributeDecl {
+
+        /** Serialization version. */
+        private static final long serialVersionUID = 849269984602402546L;
+
         public BuiltinAttrDecl(String name, String tns, XSSimpleType type, short scope) {
             fName = name;
             super.fTargetNamespace = tns;
@@ -1555,8 +1573,8 @@ public class SchemaGrammar implements XSGrammar, XSNamespaceItem {
     };
 
     // store a certain kind of components from all namespaces
-    private XSNamedMap[] fComponents = null;
-    private ObjectList[] fComponentsExt = null;
+    private transient XSNamedMap[] fComponents = null;
+    private transient ObjectList[] fComponentsExt = null;
 
     // store the documents and their locations contributing to this namespace
     // REVISIT: use StringList and XSObjectList for there fields.
@@ -0,0 +1,489 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.impl.xs;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.Vector;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.codelibs.xerces.impl.Constants;
+import org.codelibs.xerces.impl.Version;
+import org.codelibs.xerces.impl.xs.models.CMBuilder;
+import org.codelibs.xerces.impl.xs.models.CMNodeFactory;
+import org.codelibs.xerces.xni.grammars.Grammar;
+import org.codelibs.xerces.xni.grammars.XMLGrammarDescription;
+import org.codelibs.xerces.xni.grammars.XMLGrammarPool;
+import org.codelibs.xerces.xs.StringList;
+import org.codelibs.xerces.xs.XSConstants;
+import org.codelibs.xerces.xs.XSNamedMap;
+import org.codelibs.xerces.xs.XSObject;
+
+/**
+ * Writes fully built schema grammars to a compact binary file and reads
+ * them back, so that an application can fill a grammar pool at startup
+ * without parsing and traversing the schema documents again.
+ * <p>
+ * A file holds a set of grammars that may refer to each other, together
+ * with the content models of their complex types, which are built as
+ * the types are written. The file header records the format version, the parser
+ * version and the locations of the schema documents that contributed to
+ * the grammars, with a SHA-256 digest of those that are local files. When
+ * a file is read, it is rejected if it was written by another parser
+ * version or if one of the local schema documents has changed since; the
+ * application is then expected to load the schemas as usual and write a
+ * new file. Documents at other locations, such as http URLs, are neither
+ * fetched when the file is written nor when it is read.
+ * <p>
+ * References to the built-in components of the schema for schemas and
+ * of the XML Schema instance namespace are written by name, so the
+ * grammars read back share these components with the running parser.
+ * All strings are interned when read, as schema components compare
+ * names by reference.
+ *
+ * @author CodeLibs Project
+ */
+public final class SchemaGrammarStore {
+
+    //
+    // Constants
+    //
+
+    /** File signature. */
+    private static final int MAGIC = 0x58534752; // "XSGR"
+
+    /** Version of the file format. */
+    public static final int FORMAT_VERSION = 1;
+
+    /** Digest algorithm for the schema documents. */
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    /** Component kinds of the built-in grammars that are written by name. */
+    private static final short[] BUILTIN_KINDS = { XSConstants.ATTRIBUTE_DECLARATION, XSConstants.ELEMENT_DECLARATION,
+            XSConstants.TYPE_DEFINITION, XSConstants.ATTRIBUTE_GROUP, XSConstants.MODEL_GROUP_DEFINITION, XSConstants.NOTATION_DECLARATION };
+
+    /** Packages of the parser whose classes may be read back. */
+    private static final String[] ALLOWED_PACKAGES = { "org.codelibs.xerces.impl.dv.", "org.codelibs.xerces.impl.xpath.",
+            "org.codelibs.xerces.impl.xs.", "org.codelibs.xerces.util.", "org.codelibs.xerces.xni.", "org.codelibs.xerces.xs." };
+
+    /** Other classes that may be read back, as fields and actual values hold them. */
+    private static final Set ALLOWED_CLASSES = new HashSet(Arrays.asList(new Class[] { String.class, Boolean.class, Number.class,
+            Byte.class, Short.class, Integer.class, Long.class, Vector.class, ArrayList.class }));
+
+    /** Maximum nesting depth of the objects read back. */
+    private static final long MAX_DEPTH = 2000;
+
+    /** Maximum number of objects read back. */
+    private static final long MAX_REFERENCES = 1 << 24;
+
+    /** Maximum length of an array read back. */
+    private static final long MAX_ARRAY_LENGTH = 1 << 24;
+
+    //
+    // Constructors
+    //
+
+    private SchemaGrammarStore() {
+    }
+
+    //
+    // Public static methods
+    //
+
+    /**
+     * Writes the given grammars to the output stream. The stream is not
+     * closed.
+     *
+     * @param grammars the grammars
+     * @param out      the output stream
+     * @throws IOException if an I/O error occurs
+     */
+    public static void write(SchemaGrammar[] grammars, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(FORMAT_VERSION);
+        data.writeUTF(Version.getVersion());
+        Map sources = new LinkedHashMap();
+        for (int i = 0; i < grammars.length; i++) {
+            StringList locations = grammars[i].getDocumentLocations();
+            for (int j = 0; j < locations.getLength(); j++) {
+                String location = locations.item(j);
+                if (location != null && !sources.containsKey(location)) {
+                    sources.put(location, isFile(location) ? digest(location) : null);
+                }
+            }
+        }
+        data.writeInt(sources.size());
+        for (Object o : sources.entrySet()) {
+            Map.Entry source = (Map.Entry) o;
+            byte[] digest = (byte[]) source.getValue();
+            data.writeUTF((String) source.getKey());
+            data.writeShort(digest != null ? digest.length : -1);
+            if (digest != null) {
+                data.write(digest);
+            }
+        }
+        data.flush();
+
+        DeflaterOutputStream deflater = new DeflaterOutputStream(new NonClosingOutputStream(out));
+        ObjectOutputStream objects = new GrammarOutputStream(deflater);
+        objects.writeObject(grammars);
+        objects.close();
+    } // write(SchemaGrammar[],OutputStream)
+
+    /**
+     * Reads grammars from the input stream, checking that the local schema
+     * documents they were built from have not changed.
+     *
+     * @param in the input stream
+     * @return the grammars, or null if the file was written by another
+     *         version of the parser, one of the schema documents has
+     *         changed or can no longer be read, or the file holds objects
+     *         a grammar file cannot contain
+     * @throws IOException if an I/O error occurs or the stream does not
+     *                     hold precompiled grammars
+     */
+    public static SchemaGrammar[] read(InputStream in) throws IOException {
+        return read(in, true);
+    } // read(InputStream):SchemaGrammar[]
+
+    /**
+     * Reads grammars from the input stream.
+     *
+     * @param in            the input stream
+     * @param verifySources whether to check that the local schema
+     *                      documents the grammars were built from have
+     *                      not changed
+     * @return the grammars, or null if the file was written by another
+     *         version of the parser, the file holds objects a grammar
+     *         file cannot contain or, when verifying, one of the schema
+     *         documents has changed or can no longer be read
+     * @throws IOException if an I/O error occurs or the stream does not
+     *                     hold precompiled grammars
+     */
+    public static SchemaGrammar[] read(InputStream in, boolean verifySources) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new StreamCorruptedException("Not a precompiled grammar file");
+        }
+        final int formatVersion = data.readInt();
+        if (formatVersion != FORMAT_VERSION) {
+            return null;
+        }
+        if (!Version.getVersion().equals(data.readUTF())) {
+            return null;
+        }
+        final int sourceCount = data.readInt();
+        boolean upToDate = true;
+        for (int i = 0; i < sourceCount; i++) {
+            String location = data.readUTF();
+            int length = data.readShort();
+            byte[] digest = null;
+            if (length >= 0) {
+                digest = new byte[length];
+                data.readFully(digest);
+            }
+            if (verifySources && upToDate && digest != null && isFile(location)) {
+                upToDate = Arrays.equals(digest, digest(location));
+            }
+        }
+        if (!upToDate) {
+            return null;
+        }
+
+        ObjectInputStream objects = new GrammarInputStream(new InflaterInputStream(in));
+        try {
+            return (SchemaGrammar[]) objects.readObject();
+        } catch (InvalidClassException e) {
+            // rejected by the filter, or written by incompatible classes
+            return null;
+        } catch (ClassNotFoundException e) {
+            InvalidObjectException ioe = new InvalidObjectException(e.getMessage());
+            ioe.initCause(e);
+            throw ioe;
+        }
+    } // read(InputStream,boolean):SchemaGrammar[]
+
+    /**
+     * Reads grammars from the input stream and caches them in the given
+     * grammar pool.
+     *
+     * @param in   the input stream
+     * @param pool the grammar pool
+     * @return true if the grammars were cached, false if the file is out
+     *         of date (see {@link #read(InputStream)})
+     * @throws IOException if an I/O error occurs or the stream does not
+     *                     hold precompiled grammars
+     */
+    public static boolean load(InputStream in, XMLGrammarPool pool) throws IOException {
+        SchemaGrammar[] grammars = read(in);
+        if (grammars == null) {
+            return false;
+        }
+        pool.cacheGrammars(XMLGrammarDescription.XML_SCHEMA, grammars);
+        return true;
+    } // load(InputStream,XMLGrammarPool):boolean
+
+    /**
+     * Returns the schema grammars cached in the given pool.
+     *
+     * @param pool the grammar pool
+     * @return the schema grammars
+     */
+    public static SchemaGrammar[] getGrammars(XMLGrammarPool pool) {
+        Grammar[] grammars = pool.retrieveInitialGrammarSet(XMLGrammarDescription.XML_SCHEMA);
+        SchemaGrammar[] result = new SchemaGrammar[grammars.length];
+        System.arraycopy(grammars, 0, result, 0, grammars.length);
+        return result;
+    } // getGrammars(XMLGrammarPool):SchemaGrammar[]
+
+    //
+    // Private static methods
+    //
+
+    /** Whether the given location is a file, whose digest is checked. */
+    private static boolean isFile(String location) {
+        return location.regionMatches(true, 0, "file:", 0, 5);
+    } // isFile(String):boolean
+
+    /** Returns the digest of the document at the given location, or null if it cannot be read. */
+    private static byte[] digest(String location) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+            try (InputStream stream = new URI(location).toURL().openStream()) {
+                byte[] buffer = new byte[8192];
+                int count;
+                while ((count = stream.read(buffer)) != -1) {
+                    digest.update(buffer, 0, count);
+                }
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (Exception e) {
+            // not a readable URI, e.g. a schema loaded from a string
+            return null;
+        }
+    } // digest(String):byte[]
+
+    //
+    // Classes
+    //
+
+    /**
+     * Index of the components of the built-in grammars.
+     */
+    private static final class Builtins {
+
+        /** Built-in grammars, in a fixed order. */
+        private static final SchemaGrammar[] GRAMMARS = { SchemaGrammar.SG_SchemaNS,
+                SchemaGrammar.getS4SGrammar(Constants.SCHEMA_VERSION_1_0_EXTENDED), SchemaGrammar.SG_XSI,
+                SchemaGrammar.Schema4Annotations.INSTANCE };
+
+        /** Keys of built-in objects. */
+        static final Map KEYS = new IdentityHashMap();
+
+        /** Built-in objects by key. */
+        static final Map OBJECTS = new HashMap();
+
+        static {
+            for (int g = 0; g < GRAMMARS.length; g++) {
+                register(GRAMMARS[g], g + ":");
+                for (int k = 0; k < BUILTIN_KINDS.length; k++) {
+                    XSNamedMap components = GRAMMARS[g].getComponents(BUILTIN_KINDS[k]);
+                    for (int i = 0; i < components.getLength(); i++) {
+                        XSObject component = components.item(i);
+                        register(component, g + ":" + BUILTIN_KINDS[k] + ":" + component.getName());
+                    }
+                }
+            }
+            register(SchemaGrammar.fAnyType, "anyType");
+            register(SchemaGrammar.fAnySimpleType, "anySimpleType");
+        }
+
+        private static void register(Object object, String key) {
+            if (!KEYS.containsKey(object)) {
+                KEYS.put(object, key);
+                OBJECTS.put(key, object);
+            }
+        }
+
+    } // class Builtins
+
+    /**
+     * Reference to a built-in object, written in its place.
+     */
+    private static final class BuiltinRef implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        final String key;
+
+        BuiltinRef(String key) {
+            this.key = key;
+        }
+
+    } // class BuiltinRef
+
+    /**
+     * Object stream which writes built-in objects by name and builds the
+     * content model of each complex type before the type is written.
+     */
+    private static final class GrammarOutputStream extends ObjectOutputStream {
+
+        private final CMBuilder fCMBuilder = new CMBuilder(new CMNodeFactory());
+
+        GrammarOutputStream(OutputStream out) throws IOException {
+            super(out);
+            enableReplaceObject(true);
+        }
+
+        protected Object replaceObject(Object obj) {
+            String key = (String) Builtins.KEYS.get(obj);
+            if (key != null) {
+                return new BuiltinRef(key);
+            }
+            if (obj instanceof XSComplexTypeDecl) {
+                ((XSComplexTypeDecl) obj).getContentModel(fCMBuilder);
+            }
+            return obj;
+        }
+
+    } // class GrammarOutputStream
+
+    /**
+     * Object stream which resolves built-in objects and interns strings.
+     * Only the classes grammars are made of are accepted, within limits on
+     * the size of the object graph, so that a file that was tampered with
+     * cannot create arbitrary objects.
+     */
+    private static final class GrammarInputStream extends ObjectInputStream {
+
+        GrammarInputStream(InputStream in) throws IOException {
+            super(in);
+            enableResolveObject(true);
+            setObjectInputFilter(GrammarInputStream::checkInput);
+        }
+
+        private static ObjectInputFilter.Status checkInput(ObjectInputFilter.FilterInfo info) {
+            if (info.depth() > MAX_DEPTH || info.references() > MAX_REFERENCES || info.arrayLength() > MAX_ARRAY_LENGTH) {
+                return ObjectInputFilter.Status.REJECTED;
+            }
+            Class type = info.serialClass();
+            if (type == null) {
+                return ObjectInputFilter.Status.UNDECIDED;
+            }
+            boolean array = type.isArray();
+            while (type.isArray()) {
+                type = type.getComponentType();
+            }
+            return type.isPrimitive() || (array && type == Object.class) || isAllowed(type) ? ObjectInputFilter.Status.ALLOWED
+                    : ObjectInputFilter.Status.REJECTED;
+        }
+
+        private static boolean isAllowed(Class type) {
+            if (ALLOWED_CLASSES.contains(type)) {
+                return true;
+            }
+            String name = type.getName();
+            for (int i = 0; i < ALLOWED_PACKAGES.length; i++) {
+                if (name.startsWith(ALLOWED_PACKAGES[i])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        protected Class resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            // resolve with the parser's class loader, not the caller's
+            try {
+                return Class.forName(desc.getName(), false, SchemaGrammarStore.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                return super.resolveClass(desc);
+            }
+        }
+
+        protected Object resolveObject(Object obj) throws IOException {
+            if (obj instanceof String) {
+                return ((String) obj).intern();
+            }
+            if (obj instanceof BuiltinRef) {
+                Object builtin = Builtins.OBJECTS.get(((BuiltinRef) obj).key);
+                if (builtin == null) {
+                    throw new InvalidObjectException("Unknown built-in schema component: " + ((BuiltinRef) obj).key);
+                }
+                return builtin;
+            }
+            return obj;
+        }
+
+    } // class GrammarInputStream
+
+    /**
+     * Output stream which leaves the underlying stream open on close.
+     */
+    private static final class NonClosingOutputStream extends OutputStream {
+
+        private final OutputStream fOut;
+
+        NonClosingOutputStream(OutputStream out) {
+            fOut = out;
+        }
+
+        public void write(int b) throws IOException {
+            fOut.write(b);
+        }
+
+        public void write(byte[] b, int off, int len) throws IOException {
+            fOut.write(b, off, len);
+        }
+
+        public void flush() throws IOException {
+            fOut.flush();
+        }
+
+        public void close() throws IOException {
+            fOut.flush();
+        }
+
+    } // class NonClosingOutputStream
+
+} // class SchemaGrammarStore
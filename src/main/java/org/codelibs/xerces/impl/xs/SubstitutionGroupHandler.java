@@ -87,6 +87,17 @@ public class SubstitutionGroupHandler {
         return null;
     }
 
+    /**
+     * Returns the global element declaration for an element with the given
+     * QName, whose substitution group affiliations are the only element
+     * declarations it can substitute.
+     * @param element the element QName
+     * @return the global element declaration, or null if there is none
+     */
+    public XSElementDecl getGlobalElementDecl(QName element) {
+        return fXSElementDeclHelper.getGlobalElementDecl(element);
+    }
+
     /**
      * Check whether element can substitute exemplar.
      * Implementation of 3.3.6 Substitution Group OK (Transitive).
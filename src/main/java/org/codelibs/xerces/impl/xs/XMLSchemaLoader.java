@@ -140,13 +140,16 @@ public class XMLSchemaLoader implements XMLGrammarLoader, XMLComponent, XSElemen
     /** Feature identifier: tolerate duplicates */
     protected static final String TOLERATE_DUPLICATES = Constants.XERCES_FEATURE_PREFIX + Constants.TOLERATE_DUPLICATES_FEATURE;
 
+    /** Feature identifier: lazy content models */
+    protected static final String LAZY_CONTENT_MODELS = Constants.XERCES_FEATURE_PREFIX + Constants.LAZY_CONTENT_MODELS_FEATURE;
+
     /** Property identifier: Schema DV Factory */
     protected static final String SCHEMA_DV_FACTORY = Constants.XERCES_PROPERTY_PREFIX + Constants.SCHEMA_DV_FACTORY_PROPERTY;
 
     // recognized features:
     private static final String[] RECOGNIZED_FEATURES = { SCHEMA_FULL_CHECKING, AUGMENT_PSVI, CONTINUE_AFTER_FATAL_ERROR,
             ALLOW_JAVA_ENCODINGS, STANDARD_URI_CONFORMANT_FEATURE, DISALLOW_DOCTYPE, GENERATE_SYNTHETIC_ANNOTATIONS, VALIDATE_ANNOTATIONS,
-            HONOUR_ALL_SCHEMALOCATIONS, NAMESPACE_GROWTH, TOLERATE_DUPLICATES };
+            HONOUR_ALL_SCHEMALOCATIONS, NAMESPACE_GROWTH, TOLERATE_DUPLICATES, LAZY_CONTENT_MODELS };
 
     // property identifiers
 
@@ -183,9 +186,13 @@ public class XMLSchemaLoader implements XMLGrammarLoader, XMLComponent, XSElemen
     /** Property identifier: entity manager */
     protected static final String ENTITY_MANAGER = Constants.XERCES_PROPERTY_PREFIX + Constants.ENTITY_MANAGER_PROPERTY;
 
+    /** Property identifier: schema document parsing threads */
+    protected static final String SCHEMA_PARSING_THREADS = Constants.XERCES_PROPERTY_PREFIX + Constants.SCHEMA_PARSING_THREADS_PROPERTY;
+
     // recognized properties
     private static final String[] RECOGNIZED_PROPERTIES = { ENTITY_MANAGER, SYMBOL_TABLE, ERROR_REPORTER, ERROR_HANDLER, ENTITY_RESOLVER,
-            XMLGRAMMAR_POOL, SCHEMA_LOCATION, SCHEMA_NONS_LOCATION, JAXP_SCHEMA_SOURCE, SECURITY_MANAGER, LOCALE, SCHEMA_DV_FACTORY };
+            XMLGRAMMAR_POOL, SCHEMA_LOCATION, SCHEMA_NONS_LOCATION, JAXP_SCHEMA_SOURCE, SECURITY_MANAGER, LOCALE, SCHEMA_DV_FACTORY,
+            SCHEMA_PARSING_THREADS };
 
     // Data
 
@@ -989,6 +996,12 @@ public class XMLSchemaLoader implements XMLGrammarLoader, XMLComponent, XSElemen
         } catch (XMLConfigurationException e) {
             fIsCheckedFully = false;
         }
+        // get lazy-content-models feature
+        try {
+            fCMBuilder.setLazyContentModels(componentManager.getFeature(LAZY_CONTENT_MODELS));
+        } catch (XMLConfigurationException e) {
+            fCMBuilder.setLazyContentModels(false);
+        }
         // get generate-synthetic-annotations feature
         try {
             fSchemaHandler.setGenerateSyntheticAnnotations(componentManager.getFeature(GENERATE_SYNTHETIC_ANNOTATIONS));
@@ -2903,6 +2903,13 @@ public class XMLSchemaValidator implements XMLComponent, XMLDocumentFilter, Fiel
         // get simple type
         XSSimpleType attDV = currDecl.fType;
 
+        // the actual value is only needed for fixed values, the PSVI and
+        // identity constraints
+        if (currDecl.getConstraintType() != XSConstants.VC_FIXED && (currUse == null || currUse.fConstraintType != XSConstants.VC_FIXED)
+                && quickValidate(attDV, attrValue, fNormalizeData)) {
+            return;
+        }
+
         Object actualValue = null;
         try {
             actualValue = attDV.validate(attrValue, fValidationState, fValidatedInfo);
@@ -3160,6 +3167,22 @@ public class XMLSchemaValidator implements XMLComponent, XMLDocumentFilter, Fiel
         }
     } // processElementContent
 
+    /**
+     * Checks a value without computing its actual value if neither the PSVI
+     * nor identity constraints need the actual value, returning true if the
+     * value was found valid. When false is returned the value must be
+     * validated as usual.
+     */
+    private boolean quickValidate(XSSimpleType dv, CharSequence content, boolean requireNormalized) {
+        return !fAugPSVI && !fIdConstraint && fMatcherStack.getMatcherCount() == 0 && dv instanceof XSSimpleTypeDecl
+                && ((XSSimpleTypeDecl) dv).quickValidate(content, fValidationState, requireNormalized);
+    }
+
+    /** Whether the current element declaration has a fixed value. */
+    private boolean isFixed() {
+        return fCurrentElemDecl != null && fCurrentElemDecl.getConstraintType() == XSConstants.VC_FIXED;
+    }
+
     Object elementLocallyValidType(QName element, Object textContent) {
         if (fCurrentType == null)
             return null;
@@ -3179,7 +3202,9 @@ public class XMLSchemaValidator implements XMLComponent, XMLDocumentFilter, Fiel
                     if (!fNormalizeData || fUnionType) {
                         fValidationState.setNormalizationRequired(true);
                     }
-                    retValue = dv.validate(textContent, fValidationState, fValidatedInfo);
+                    if (isFixed() || !(textContent instanceof CharSequence) || !quickValidate(dv, (CharSequence) textContent, false)) {
+                        retValue = dv.validate(textContent, fValidationState, fValidatedInfo);
+                    }
                 } catch (InvalidDatatypeValueException e) {
                     reportSchemaError(e.getKey(), e.getArgs());
                     reportSchemaError("cvc-type.3.1.3", new Object[] { element.rawname, textContent });
@@ -3215,7 +3240,9 @@ public class XMLSchemaValidator implements XMLComponent, XMLDocumentFilter, Fiel
                     if (!fNormalizeData || fUnionType) {
                         fValidationState.setNormalizationRequired(true);
                     }
-                    actualValue = dv.validate(textContent, fValidationState, fValidatedInfo);
+                    if (isFixed() || !(textContent instanceof CharSequence) || !quickValidate(dv, (CharSequence) textContent, false)) {
+                        actualValue = dv.validate(textContent, fValidationState, fValidatedInfo);
+                    }
                 } catch (InvalidDatatypeValueException e) {
                     reportSchemaError(e.getKey(), e.getArgs());
                     reportSchemaError("cvc-complex-type.2.2", new Object[] { element.rawname });
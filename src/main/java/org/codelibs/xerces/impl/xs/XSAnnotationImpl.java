@@ -17,6 +17,7 @@
 package org.codelibs.xerces.impl.xs;
 
 import java.io.IOException;
+import java.io.Serializable;
 import java.io.StringReader;
 
 import org.codelibs.xerces.dom.CoreDocumentImpl;
@@ -39,7 +40,10 @@ import org.xml.sax.SAXException;
  *
  * @version $Id: XSAnnotationImpl.java 699892 2008-09-28 21:08:27Z mrglavas $
  */
-public class XSAnnotationImpl implements XSAnnotation {
+public class XSAnnotationImpl implements XSAnnotation, Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = -3124480678873230155L;
 
     // Data
 
@@ -17,6 +17,8 @@
 
 package org.codelibs.xerces.impl.xs;
 
+import java.io.Serializable;
+
 import org.codelibs.xerces.impl.dv.ValidatedInfo;
 import org.codelibs.xerces.impl.dv.XSSimpleType;
 import org.codelibs.xerces.impl.xs.util.XSObjectListImpl;
@@ -44,7 +46,10 @@ import org.codelibs.xerces.xs.XSValue;
  * @author Sandy Gao, IBM
  * @version $Id: XSAttributeDecl.java 1024038 2010-10-18 22:06:35Z sandygao $
  */
-public class XSAttributeDecl implements XSAttributeDeclaration {
+public class XSAttributeDecl implements XSAttributeDeclaration, Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = -6727808106392457437L;
 
     /** Scope constant for absent scope */
     public final static short SCOPE_ABSENT = 0;
@@ -17,6 +17,8 @@
 
 package org.codelibs.xerces.impl.xs;
 
+import java.io.Serializable;
+
 import org.codelibs.xerces.impl.dv.ValidatedInfo;
 import org.codelibs.xerces.impl.xs.util.XSObjectListImpl;
 import org.codelibs.xerces.xs.XSAnnotation;
@@ -41,7 +43,10 @@ import org.codelibs.xerces.xs.XSWildcard;
  *
  * @version $Id: XSAttributeGroupDecl.java 1051303 2010-12-20 22:14:58Z mrglavas $
  */
-public class XSAttributeGroupDecl implements XSAttributeGroupDefinition {
+public class XSAttributeGroupDecl implements XSAttributeGroupDefinition, Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 8381560944234300787L;
 
     /** Name of the attribute group */
     public String fName = null;
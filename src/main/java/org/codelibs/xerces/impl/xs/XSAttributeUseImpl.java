@@ -17,6 +17,8 @@
 
 package org.codelibs.xerces.impl.xs;
 
+import java.io.Serializable;
+
 import org.codelibs.xerces.impl.dv.ValidatedInfo;
 import org.codelibs.xerces.impl.xs.util.XSObjectListImpl;
 import org.codelibs.xerces.xs.ShortList;
@@ -38,7 +40,10 @@ import org.codelibs.xerces.xs.XSValue;
  * @author Sandy Gao, IBM
  * @version $Id: XSAttributeUseImpl.java 1024038 2010-10-18 22:06:35Z sandygao $
  */
-public class XSAttributeUseImpl implements XSAttributeUse {
+public class XSAttributeUseImpl implements XSAttributeUse, Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = -2868319059438271586L;
 
     /** The referred attribute declaration */
     public XSAttributeDecl fAttrDecl = null;
@@ -17,6 +17,8 @@
 
 package org.codelibs.xerces.impl.xs;
 
+import java.io.Serializable;
+
 import org.codelibs.xerces.impl.dv.XSSimpleType;
 import org.codelibs.xerces.impl.dv.xs.XSSimpleTypeDecl;
 import org.codelibs.xerces.impl.xs.models.CMBuilder;
@@ -41,7 +43,10 @@ import org.w3c.dom.TypeInfo;
  * @author Sandy Gao, IBM
  * @version $Id: XSComplexTypeDecl.java 1151128 2011-07-26 12:31:06Z knoaman $
  */
-public class XSComplexTypeDecl implements XSComplexTypeDefinition, TypeInfo {
+public class XSComplexTypeDecl implements XSComplexTypeDefinition, TypeInfo, Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = -3582975512745374346L;
 
     /** Name of the complex type */
     public String fName = null;
@@ -203,21 +208,35 @@ public class XSComplexTypeDecl implements XSComplexTypeDefinition, TypeInfo {
      * @param forUPA whether this is for UPA checking
      * @return the content model validator
      */
-    public synchronized XSCMValidator getContentModel(CMBuilder cmBuilder, boolean forUPA) {
-        if (fCMValidator == null) {
-            if (forUPA) {
-                if (fUPACMValidator == null) {
-                    fUPACMValidator = cmBuilder.getContentModel(this, true);
-                    if (fUPACMValidator != null && !fUPACMValidator.isCompactedForUPA()) {
-                        fCMValidator = fUPACMValidator;
+    public XSCMValidator getContentModel(CMBuilder cmBuilder, boolean forUPA) {
+        // once built, the validator never changes, so it is read without
+        // locking; this is the path taken for every element validated
+        XSCMValidator cmValidator = fCMValidator;
+        if (cmValidator != null) {
+            return cmValidator;
+        }
+        if (forUPA && cmBuilder.getLazyContentModels()) {
+            // build the model for the check only, and leave it to the
+            // garbage collector afterwards
+            XSCMValidator upaValidator = fUPACMValidator;
+            return upaValidator != null ? upaValidator : cmBuilder.getContentModel(this, true);
+        }
+        synchronized (this) {
+            if (fCMValidator == null) {
+                if (forUPA) {
+                    if (fUPACMValidator == null) {
+                        fUPACMValidator = cmBuilder.getContentModel(this, true);
+                        if (fUPACMValidator != null && !fUPACMValidator.isCompactedForUPA()) {
+                            fCMValidator = fUPACMValidator;
+                        }
                     }
+                    return fUPACMValidator;
+                } else {
+                    fCMValidator = cmBuilder.getContentModel(this, false);
                 }
-                return fUPACMValidator;
-            } else {
-                fCMValidator = cmBuilder.getContentModel(this, false);
             }
+            return fCMValidator;
         }
-        return fCMValidator;
     }
 
     /**
@@ -36,6 +36,10 @@ import org.codelibs.xerces.xni.grammars.XMLSchemaDescription;
  * @version $Id: XSDDescription.java 446734 2006-09-15 20:51:23Z mrglavas $
  */
 public class XSDDescription extends XMLResourceIdentifierImpl implements XMLSchemaDescription {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = -7822721684165859787L;
+
     // used to indicate what triggered the call
     /**
      * Indicate that this description was just initialized.
@@ -101,7 +105,7 @@ public class XSDDescription extends XMLResourceIdentifierImpl implements XMLSche
     /** The element name that encloses the triggering component */
     protected QName fEnclosedElementName;
     /** The attributes associated with this schema description */
-    protected XMLAttributes fAttributes;
+    protected transient XMLAttributes fAttributes;
 
     /**
      * Constructs a new XSDDescription instance.
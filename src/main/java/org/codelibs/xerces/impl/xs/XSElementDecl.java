@@ -17,6 +17,8 @@
 
 package org.codelibs.xerces.impl.xs;
 
+import java.io.Serializable;
+
 import org.codelibs.xerces.impl.dv.ValidatedInfo;
 import org.codelibs.xerces.impl.xs.identity.IdentityConstraint;
 import org.codelibs.xerces.impl.xs.util.XSNamedMapImpl;
@@ -46,7 +48,10 @@ import org.codelibs.xerces.xs.XSValue;
  * @author Sandy Gao, IBM
  * @version $Id: XSElementDecl.java 1024038 2010-10-18 22:06:35Z sandygao $
  */
-public class XSElementDecl implements XSElementDeclaration {
+public class XSElementDecl implements XSElementDeclaration, Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 4026420331793031768L;
 
     /**
      * Constant indicating that the element has no scope (absent scope).
@@ -17,6 +17,8 @@
 
 package org.codelibs.xerces.impl.xs;
 
+import java.io.Serializable;
+
 import org.codelibs.xerces.impl.xs.util.XSObjectListImpl;
 import org.codelibs.xerces.xs.XSAnnotation;
 import org.codelibs.xerces.xs.XSConstants;
@@ -34,7 +36,10 @@ import org.codelibs.xerces.xs.XSObjectList;
  * @author Sandy Gao, IBM
  * @version $Id: XSGroupDecl.java 699892 2008-09-28 21:08:27Z mrglavas $
  */
-public class XSGroupDecl implements XSModelGroupDefinition {
+public class XSGroupDecl implements XSModelGroupDefinition, Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = -5045913169437798102L;
 
     /**
      * Default constructor for XSGroupDecl.
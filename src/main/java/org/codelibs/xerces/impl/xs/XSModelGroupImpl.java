@@ -17,6 +17,8 @@
 
 package org.codelibs.xerces.impl.xs;
 
+import java.io.Serializable;
+
 import org.codelibs.xerces.impl.xs.util.XSObjectListImpl;
 import org.codelibs.xerces.xs.XSAnnotation;
 import org.codelibs.xerces.xs.XSConstants;
@@ -33,7 +35,10 @@ import org.codelibs.xerces.xs.XSObjectList;
  *
  * @version $Id: XSModelGroupImpl.java 699892 2008-09-28 21:08:27Z mrglavas $
  */
-public class XSModelGroupImpl implements XSModelGroup {
+public class XSModelGroupImpl implements XSModelGroup, Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = -2349354648372675429L;
 
     /**
      * Default constructor for XSModelGroupImpl.
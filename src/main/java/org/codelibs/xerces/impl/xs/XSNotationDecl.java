@@ -17,6 +17,8 @@
 
 package org.codelibs.xerces.impl.xs;
 
+import java.io.Serializable;
+
 import org.codelibs.xerces.impl.xs.util.XSObjectListImpl;
 import org.codelibs.xerces.xs.XSAnnotation;
 import org.codelibs.xerces.xs.XSConstants;
@@ -33,7 +35,10 @@ import org.codelibs.xerces.xs.XSObjectList;
  * @author Rahul Srivastava, Sun Microsystems Inc.
  * @version $Id: XSNotationDecl.java 658446 2008-05-20 21:37:22Z mrglavas $
  */
-public class XSNotationDecl implements XSNotationDeclaration {
+public class XSNotationDecl implements XSNotationDeclaration, Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 1659144453459751231L;
 
     /**
      * Default constructor for XSNotationDecl.
@@ -17,6 +17,8 @@
 
 package org.codelibs.xerces.impl.xs;
 
+import java.io.Serializable;
+
 import org.codelibs.xerces.impl.xs.util.XSObjectListImpl;
 import org.codelibs.xerces.xs.XSConstants;
 import org.codelibs.xerces.xs.XSNamespaceItem;
@@ -33,7 +35,10 @@ import org.codelibs.xerces.xs.XSTerm;
  *
  * @version $Id: XSParticleDecl.java 965250 2010-07-18 16:04:58Z mrglavas $
  */
-public class XSParticleDecl implements XSParticle {
+public class XSParticleDecl implements XSParticle, Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 8917444946925177317L;
 
     /**
      * Default constructor for XSParticleDecl.
@@ -17,6 +17,8 @@
 
 package org.codelibs.xerces.impl.xs;
 
+import java.io.Serializable;
+
 import org.codelibs.xerces.impl.xs.util.StringListImpl;
 import org.codelibs.xerces.impl.xs.util.XSObjectListImpl;
 import org.codelibs.xerces.xs.StringList;
@@ -38,7 +40,10 @@ import org.codelibs.xerces.xs.XSWildcard;
  *
  * @version $Id: XSWildcardDecl.java 965250 2010-07-18 16:04:58Z mrglavas $
  */
-public class XSWildcardDecl implements XSWildcard {
+public class XSWildcardDecl implements XSWildcard, Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = -1510279680858243791L;
 
     /**
      * Default constructor. Creates a new wildcard declaration with default settings.
@@ -17,6 +17,8 @@
 
 package org.codelibs.xerces.impl.xs.identity;
 
+import java.io.Serializable;
+
 import org.codelibs.xerces.impl.xpath.XPathException;
 import org.codelibs.xerces.impl.xs.util.ShortListImpl;
 import org.codelibs.xerces.util.SymbolTable;
@@ -35,7 +37,10 @@ import org.codelibs.xerces.xs.XSTypeDefinition;
  * @author Andy Clark, IBM
  * @version $Id: Field.java 572110 2007-09-02 19:04:44Z mrglavas $
  */
-public class Field {
+public class Field implements Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = -8534382406505255474L;
 
     //
     // Data
@@ -116,6 +121,9 @@ public class Field {
      */
     public static class XPath extends org.codelibs.xerces.impl.xpath.XPath {
 
+        /** Serialization version. */
+        private static final long serialVersionUID = -542201596794306436L;
+
         //
         // Constructors
         //
@@ -17,6 +17,8 @@
 
 package org.codelibs.xerces.impl.xs.identity;
 
+import java.io.Serializable;
+
 import org.codelibs.xerces.impl.xs.XSAnnotationImpl;
 import org.codelibs.xerces.impl.xs.util.StringListImpl;
 import org.codelibs.xerces.impl.xs.util.XSObjectListImpl;
@@ -34,7 +36,10 @@ import org.codelibs.xerces.xs.XSObjectList;
  * @author Andy Clark, IBM
  * @version $Id: IdentityConstraint.java 699892 2008-09-28 21:08:27Z mrglavas $
  */
-public abstract class IdentityConstraint implements XSIDCDefinition {
+public abstract class IdentityConstraint implements XSIDCDefinition, Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 6293929092854103247L;
 
     //
     // Data
@@ -29,6 +29,9 @@ import org.codelibs.xerces.xs.XSIDCDefinition;
  */
 public class KeyRef extends IdentityConstraint {
 
+    /** Serialization version. */
+    private static final long serialVersionUID = -7631267731104689753L;
+
     //
     // Data
     //
@@ -17,6 +17,8 @@
 
 package org.codelibs.xerces.impl.xs.identity;
 
+import java.io.Serializable;
+
 import org.codelibs.xerces.impl.xpath.XPathException;
 import org.codelibs.xerces.util.SymbolTable;
 import org.codelibs.xerces.util.XMLChar;
@@ -34,7 +36,10 @@ import org.codelibs.xerces.xs.XSTypeDefinition;
  * @author Andy Clark, IBM
  * @version $Id: Selector.java 572110 2007-09-02 19:04:44Z mrglavas $
  */
-public class Selector {
+public class Selector implements Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 586147355214009889L;
 
     //
     // Data
@@ -121,6 +126,9 @@ public class Selector {
      */
     public static class XPath extends org.codelibs.xerces.impl.xpath.XPath {
 
+        /** Serialization version. */
+        private static final long serialVersionUID = -4088317014603169309L;
+
         //
         // Constructors
         //
@@ -30,6 +30,9 @@ package org.codelibs.xerces.impl.xs.identity;
  */
 public class UniqueOrKey extends IdentityConstraint {
 
+    /** Serialization version. */
+    private static final long serialVersionUID = -8379930278062542691L;
+
     //
     // Constructors
     //
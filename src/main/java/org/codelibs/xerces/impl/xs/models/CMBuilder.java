@@ -43,12 +43,18 @@ public class CMBuilder {
     // It never changes, so a static member is good enough
     private static final XSEmptyCM fEmptyCM = new XSEmptyCM();
 
+    // number of leaves of the expanded syntax tree above which a counting
+    // content model is tried instead of the DFA
+    private static final int COUNTING_THRESHOLD = 256;
+
     // needed for DFA construction
     private int fLeafCount;
     // needed for UPA
     private int fParticleCount;
     //Factory to create Bin, Uni, Leaf nodes
     private final CMNodeFactory fNodeFactory;
+    // whether content models built for UPA checking are dropped afterwards
+    private boolean fLazyContentModels = false;
 
     /**
      * Constructs a content model builder with the specified node factory.
@@ -69,6 +75,27 @@ public class CMBuilder {
         fDeclPool = declPool;
     }
 
+    /**
+     * Sets whether content models are built lazily. When set, the content
+     * models built to check Unique Particle Attribution are not kept by the
+     * complex types; the model used for validation is then built the first
+     * time a document reaches the type.
+     *
+     * @param lazy true to build content models lazily
+     */
+    public void setLazyContentModels(boolean lazy) {
+        fLazyContentModels = lazy;
+    }
+
+    /**
+     * Returns whether content models are built lazily.
+     *
+     * @return true if content models are built lazily
+     */
+    public boolean getLazyContentModels() {
+        return fLazyContentModels;
+    }
+
     /**
      * Get content model for the a given type
      *
@@ -133,6 +160,14 @@ public class CMBuilder {
     XSCMValidator createDFACM(XSParticleDecl particle, boolean forUPA) {
         fLeafCount = 0;
         fParticleCount = 0;
+        // large occurrence ranges are counted rather than expanded, unless
+        // the counts could not be told apart while validating
+        if (!forUPA && !useRepeatingLeafNodes(particle) && expandedLeafCount(particle) > COUNTING_THRESHOLD) {
+            XSCMValidator cmValidator = XSCountingCM.create(particle);
+            if (cmValidator != null) {
+                return cmValidator;
+            }
+        }
         // convert particle tree to CM tree
         CMNode node = useRepeatingLeafNodes(particle) ? buildCompactSyntaxTree(particle) : buildSyntaxTree(particle, forUPA);
         if (node == null)
@@ -141,6 +176,21 @@ public class CMBuilder {
         return new XSDFACM(node, fLeafCount);
     }
 
+    // returns the number of leaves buildSyntaxTree() would create for the
+    // given particle, or Integer.MAX_VALUE if there would be more
+    private static long expandedLeafCount(XSParticleDecl particle) {
+        long count = 1;
+        if (particle.fType == XSParticleDecl.PARTICLE_MODELGROUP) {
+            XSModelGroupImpl group = (XSModelGroupImpl) particle.fValue;
+            count = 0;
+            for (int i = 0; i < group.fParticleCount; i++) {
+                count = Math.min(count + expandedLeafCount(group.fParticles[i]), Integer.MAX_VALUE);
+            }
+        }
+        int occurs = particle.getMaxOccursUnbounded() ? Math.max(particle.fMinOccurs, 1) : particle.fMaxOccurs;
+        return Math.min(count * occurs, Integer.MAX_VALUE);
+    }
+
     // 1. convert particle tree to CM tree:
     // 2. expand all occurrence values: a{n, unbounded} -> a, a, ..., a+
     //                                  a{n, m} -> a, a, ..., a?, a?, ...
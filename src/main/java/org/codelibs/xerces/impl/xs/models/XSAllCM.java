@@ -17,6 +17,7 @@
 
 package org.codelibs.xerces.impl.xs.models;
 
+import java.io.Serializable;
 import java.util.Vector;
 
 import org.codelibs.xerces.impl.xs.SubstitutionGroupHandler;
@@ -33,7 +34,10 @@ import org.codelibs.xerces.xni.QName;
  * @author Pavani Mukthipudi, Sun Microsystems Inc.
  * @version $Id: XSAllCM.java 806363 2009-08-20 21:18:48Z mrglavas $
  */
-public class XSAllCM implements XSCMValidator {
+public class XSAllCM implements XSCMValidator, Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = -3860791659331925980L;
 
     //
     // Constants
@@ -0,0 +1,705 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.impl.xs.models;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Vector;
+
+import org.codelibs.xerces.impl.xs.SchemaSymbols;
+import org.codelibs.xerces.impl.xs.SubstitutionGroupHandler;
+import org.codelibs.xerces.impl.xs.XMLSchemaException;
+import org.codelibs.xerces.impl.xs.XSElementDecl;
+import org.codelibs.xerces.impl.xs.XSModelGroupImpl;
+import org.codelibs.xerces.impl.xs.XSParticleDecl;
+import org.codelibs.xerces.impl.xs.XSWildcardDecl;
+import org.codelibs.xerces.xni.QName;
+
+/**
+ * A content model for particles with large occurrence ranges, which
+ * validates in space independent of minOccurs and maxOccurs.
+ * <p>
+ * Instead of unrolling a repeated particle into as many copies as its
+ * occurrence range requires, each element and wildcard particle becomes a
+ * single position of a Glushkov automaton, whose states are the last
+ * position matched. Every repeated particle whose range is not one of
+ * <code>?</code>, <code>*</code> or <code>+</code> gets a counter, which the
+ * transitions update: a transition entering the particle resets its
+ * counter, one starting its next repetition checks maxOccurs and
+ * increments the counter, and one leaving it checks minOccurs.
+ * <p>
+ * Such a model is only created if each transition is determined by the
+ * element name alone and updates the counters in one way only; for any
+ * other content model {@link #create(XSParticleDecl)} returns null and the
+ * DFA is used.
+ *
+ * @author CodeLibs Project
+ */
+public class XSCountingCM implements XSCMValidator, Serializable {
+
+    //
+    // Constants
+    //
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 3850195283165394171L;
+
+    /** Operation: leave a counted particle, checking minOccurs. */
+    private static final int OP_EXIT = 0;
+
+    /** Operation: start the next repetition, checking maxOccurs. */
+    private static final int OP_RESTART = 1;
+
+    /** Operation: enter a counted particle. */
+    private static final int OP_ENTER = 2;
+
+    /** Number of bits used for the operation in an encoded operation. */
+    private static final int OP_SHIFT = 2;
+
+    /** Mask for the operation in an encoded operation. */
+    private static final int OP_MASK = 3;
+
+    /** Operations of a transition not updating any counter. */
+    private static final int[] NO_OPS = new int[0];
+
+    /** Minimum number of positions for which an index by name is built. */
+    private static final int INDEX_THRESHOLD = 8;
+
+    //
+    // Data
+    //
+
+    /** Element and wildcard declarations of the positions. */
+    private final Object[] fPositions;
+
+    /** Particle types of the positions. */
+    private final int[] fPositionTypes;
+
+    /** minOccurs of each counted particle. */
+    private final int[] fMinOccurs;
+
+    /** maxOccurs of each counted particle. */
+    private final int[] fMaxOccurs;
+
+    /**
+     * Positions reachable from each state, in ascending order. State 0 is
+     * the start state, state i + 1 the state after matching position i.
+     */
+    private final int[][] fTargets;
+
+    /** Encoded counter operations of each transition. */
+    private final int[][][] fOps;
+
+    /** Counter operations for ending in each state, or null if the state is not final. */
+    private final int[][] fFinalOps;
+
+    /** Index of the positions by name, or null if there are few positions. */
+    private final XSDFACM.ElemMapIndex fIndex;
+
+    //
+    // Constructors
+    //
+
+    private XSCountingCM(Builder builder) {
+        int positionCount = builder.fLeaves.size();
+        fPositions = new Object[positionCount];
+        fPositionTypes = new int[positionCount];
+        for (int i = 0; i < positionCount; i++) {
+            Node leaf = (Node) builder.fLeaves.get(i);
+            fPositions[i] = leaf.fDecl;
+            fPositionTypes[i] = leaf.fType;
+        }
+        int counterCount = builder.fCounters.size();
+        fMinOccurs = new int[counterCount];
+        fMaxOccurs = new int[counterCount];
+        for (int i = 0; i < counterCount; i++) {
+            Node node = (Node) builder.fCounters.get(i);
+            fMinOccurs[i] = node.fMinOccurs;
+            fMaxOccurs[i] = node.fMaxOccurs;
+        }
+        fTargets = new int[positionCount + 1][];
+        fOps = new int[positionCount + 1][][];
+        for (int state = 0; state <= positionCount; state++) {
+            Map edges = builder.fEdges[state];
+            int[] targets = new int[edges.size()];
+            int i = 0;
+            for (Iterator it = edges.keySet().iterator(); it.hasNext();) {
+                targets[i++] = ((Integer) it.next()).intValue();
+            }
+            Arrays.sort(targets);
+            int[][] ops = new int[targets.length][];
+            for (i = 0; i < targets.length; i++) {
+                ops[i] = (int[]) edges.get(Integer.valueOf(targets[i]));
+            }
+            fTargets[state] = targets;
+            fOps[state] = ops;
+        }
+        fFinalOps = builder.fFinalOps;
+        fIndex = positionCount >= INDEX_THRESHOLD ? new XSDFACM.ElemMapIndex(fPositions, fPositionTypes, positionCount) : null;
+    } // <init>(Builder)
+
+    /**
+     * Creates a counting content model for the given particle.
+     *
+     * @param particle the particle
+     * @return the content model, or null if the particle is empty or its
+     *         transitions are not determined by the element names
+     */
+    public static XSCountingCM create(XSParticleDecl particle) {
+        Builder builder = new Builder();
+        Node root = builder.build(particle);
+        if (root == null || !builder.computeTransitions(root)) {
+            return null;
+        }
+        return new XSCountingCM(builder);
+    } // create(XSParticleDecl):XSCountingCM
+
+    //
+    // XSCMValidator methods
+    //
+
+    /**
+     * Returns the start state: [0] the current state, [1] the last valid
+     * state once [0] is an error state, followed by the counters.
+     */
+    public int[] startContentModel() {
+        return new int[2 + fMinOccurs.length];
+    }
+
+    public Object oneTransition(QName curElem, int[] state, SubstitutionGroupHandler subGroupHandler) {
+        int curState = state[0];
+
+        if (curState == XSCMValidator.FIRST_ERROR || curState == XSCMValidator.SUBSEQUENT_ERROR) {
+            if (curState == XSCMValidator.FIRST_ERROR) {
+                state[0] = XSCMValidator.SUBSEQUENT_ERROR;
+            }
+            return findMatchingDecl(curElem, subGroupHandler);
+        }
+
+        int edge = findEdge(curElem, state, subGroupHandler);
+        if (edge == -1) {
+            state[1] = curState;
+            state[0] = XSCMValidator.FIRST_ERROR;
+            return findMatchingDecl(curElem, subGroupHandler);
+        }
+
+        int position = fTargets[curState][edge];
+        int[] ops = fOps[curState][edge];
+        for (int i = 0; i < ops.length; i++) {
+            int counter = ops[i] >> OP_SHIFT;
+            switch (ops[i] & OP_MASK) {
+            case OP_RESTART:
+                // an unbounded counter only needs to reach minOccurs
+                state[2 + counter] = fMaxOccurs[counter] == SchemaSymbols.OCCURRENCE_UNBOUNDED
+                        ? Math.min(state[2 + counter] + 1, fMinOccurs[counter])
+                        : state[2 + counter] + 1;
+                break;
+            case OP_ENTER:
+                state[2 + counter] = 1;
+                break;
+            default:
+            }
+        }
+        state[0] = position + 1;
+        return getMatchingDecl(curElem, position, subGroupHandler);
+    } // oneTransition(QName,int[],SubstitutionGroupHandler):Object
+
+    public boolean endContentModel(int[] state) {
+        int[] ops = fFinalOps[state[0]];
+        return ops != null && allowed(ops, state);
+    }
+
+    /**
+     * UPA is checked on the DFA built for that purpose, never on this model.
+     */
+    public boolean checkUniqueParticleAttribution(SubstitutionGroupHandler subGroupHandler) throws XMLSchemaException {
+        return false;
+    }
+
+    public Vector whatCanGoHere(int[] state) {
+        int curState = state[0];
+        if (curState < 0) {
+            curState = state[1];
+        }
+        Vector ret = new Vector();
+        int[] targets = fTargets[curState];
+        for (int i = 0; i < targets.length; i++) {
+            Object decl = fPositions[targets[i]];
+            if (allowed(fOps[curState][i], state) && !ret.contains(decl)) {
+                ret.addElement(decl);
+            }
+        }
+        return ret;
+    }
+
+    public int[] occurenceInfo(int[] state) {
+        return null;
+    }
+
+    public String getTermName(int termId) {
+        Object term = fPositions[termId];
+        return (term != null) ? term.toString() : null;
+    }
+
+    public boolean isCompactedForUPA() {
+        return false;
+    }
+
+    //
+    // Private methods
+    //
+
+    /**
+     * Returns the transition from the current state to the first position
+     * matching the element whose counter checks pass, or -1.
+     */
+    private int findEdge(QName curElem, int[] state, SubstitutionGroupHandler subGroupHandler) {
+        int curState = state[0];
+        int[] targets = fTargets[curState];
+        if (fIndex == null) {
+            for (int edge = 0; edge < targets.length; edge++) {
+                if (allowed(fOps[curState][edge], state) && getMatchingDecl(curElem, targets[edge], subGroupHandler) != null) {
+                    return edge;
+                }
+            }
+            return -1;
+        }
+
+        // only positions for the element itself, for the heads of its
+        // substitution group and for wildcards can match it
+        int edge = findEdge(curElem, fIndex.get(curElem.uri, curElem.localpart), state, targets.length, subGroupHandler);
+        if (fIndex.fSubstitutable) {
+            XSElementDecl decl = subGroupHandler.getGlobalElementDecl(curElem);
+            for (XSElementDecl head = decl != null ? decl.fSubGroup : null; head != null; head = head.fSubGroup) {
+                edge = findEdge(curElem, fIndex.get(head.fTargetNamespace, head.fName), state, edge, subGroupHandler);
+            }
+        }
+        edge = findEdge(curElem, fIndex.fWildcards, state, edge, subGroupHandler);
+        return edge < targets.length ? edge : -1;
+    } // findEdge(QName,int[],SubstitutionGroupHandler):int
+
+    /**
+     * Returns the first transition before the given one to one of the
+     * candidate positions that matches the element and whose counter
+     * checks pass, or the given transition if there is none.
+     */
+    private int findEdge(QName curElem, int[] candidates, int[] state, int to, SubstitutionGroupHandler subGroupHandler) {
+        if (candidates != null) {
+            int curState = state[0];
+            int[] targets = fTargets[curState];
+            for (int i = 0; i < candidates.length; i++) {
+                int edge = Arrays.binarySearch(targets, 0, to, candidates[i]);
+                if (edge >= 0 && allowed(fOps[curState][edge], state)
+                        && getMatchingDecl(curElem, candidates[i], subGroupHandler) != null) {
+                    return edge;
+                }
+            }
+        }
+        return to;
+    } // findEdge(QName,int[],int[],int,SubstitutionGroupHandler):int
+
+    /** Returns whether the counter checks of the given operations pass. */
+    private boolean allowed(int[] ops, int[] state) {
+        for (int i = 0; i < ops.length; i++) {
+            int counter = ops[i] >> OP_SHIFT;
+            switch (ops[i] & OP_MASK) {
+            case OP_EXIT:
+                if (state[2 + counter] < fMinOccurs[counter]) {
+                    return false;
+                }
+                break;
+            case OP_RESTART:
+                if (fMaxOccurs[counter] != SchemaSymbols.OCCURRENCE_UNBOUNDED && state[2 + counter] >= fMaxOccurs[counter]) {
+                    return false;
+                }
+                break;
+            default:
+            }
+        }
+        return true;
+    } // allowed(int[],int[]):boolean
+
+    /** Returns the first declaration matching the element, ignoring the state. */
+    private Object findMatchingDecl(QName curElem, SubstitutionGroupHandler subGroupHandler) {
+        for (int position = 0; position < fPositions.length; position++) {
+            Object matchingDecl = getMatchingDecl(curElem, position, subGroupHandler);
+            if (matchingDecl != null) {
+                return matchingDecl;
+            }
+        }
+        return null;
+    } // findMatchingDecl(QName,SubstitutionGroupHandler):Object
+
+    /**
+     * Returns the declaration matched by the given element at the given
+     * position, or null if the position does not match.
+     */
+    private Object getMatchingDecl(QName curElem, int position, SubstitutionGroupHandler subGroupHandler) {
+        if (fPositionTypes[position] == XSParticleDecl.PARTICLE_ELEMENT) {
+            return subGroupHandler.getMatchingElemDecl(curElem, (XSElementDecl) fPositions[position]);
+        }
+        if (((XSWildcardDecl) fPositions[position]).allowNamespace(curElem.uri)) {
+            return fPositions[position];
+        }
+        return null;
+    } // getMatchingDecl(QName,int,SubstitutionGroupHandler):Object
+
+    //
+    // Classes
+    //
+
+    /** A node of the syntax tree. */
+    private static final class Node {
+
+        /** Node kinds. */
+        static final int LEAF = 0, SEQUENCE = 1, CHOICE = 2, REPEAT = 3;
+
+        final int fKind;
+
+        Node fParent;
+
+        /** Children of sequences and choices; the only child of a repetition. */
+        Node[] fChildren;
+
+        /** Particle type and declaration of a leaf. */
+        int fType;
+
+        Object fDecl;
+
+        /** Position of a leaf. */
+        int fPosition = -1;
+
+        /** Occurrence range of a repetition. */
+        int fMinOccurs, fMaxOccurs;
+
+        /** Counter of a repetition, or -1 if it needs none. */
+        int fCounter = -1;
+
+        boolean fNullable;
+
+        int[] fFirst, fLast;
+
+        Node(int kind) {
+            fKind = kind;
+        }
+
+    } // class Node
+
+    /** Builds the syntax tree and the transitions. */
+    private static final class Builder {
+
+        /** Leaves, by position. */
+        final ArrayList fLeaves = new ArrayList();
+
+        /** Counted repetitions, by counter. */
+        final ArrayList fCounters = new ArrayList();
+
+        /** Transitions of each state: target position to operations. */
+        HashMap[] fEdges;
+
+        /** Operations for ending in each state, or null. */
+        int[][] fFinalOps;
+
+        /** Whether a transition was found with two different operations. */
+        boolean fAmbiguous;
+
+        /** Builds the syntax tree of a particle, or returns null if it is empty. */
+        Node build(XSParticleDecl particle) {
+            if (particle.fMaxOccurs == 0) {
+                return null;
+            }
+            Node node;
+            if (particle.fType == XSParticleDecl.PARTICLE_ELEMENT || particle.fType == XSParticleDecl.PARTICLE_WILDCARD) {
+                node = new Node(Node.LEAF);
+                node.fType = particle.fType;
+                node.fDecl = particle.fValue;
+                node.fPosition = fLeaves.size();
+                fLeaves.add(node);
+            } else {
+                XSModelGroupImpl group = (XSModelGroupImpl) particle.fValue;
+                ArrayList children = new ArrayList();
+                for (int i = 0; i < group.fParticleCount; i++) {
+                    Node child = build(group.fParticles[i]);
+                    if (child != null) {
+                        children.add(child);
+                    }
+                }
+                if (children.isEmpty()) {
+                    return null;
+                }
+                if (children.size() == 1) {
+                    node = (Node) children.get(0);
+                } else {
+                    node = new Node(group.fCompositor == XSModelGroupImpl.MODELGROUP_CHOICE ? Node.CHOICE : Node.SEQUENCE);
+                    node.fChildren = (Node[]) children.toArray(new Node[children.size()]);
+                    for (int i = 0; i < node.fChildren.length; i++) {
+                        node.fChildren[i].fParent = node;
+                    }
+                }
+                // a choice with empty children is optional
+                if (group.fCompositor == XSModelGroupImpl.MODELGROUP_CHOICE && children.size() < group.fParticleCount) {
+                    node = repeat(node, 0, 1);
+                }
+            }
+            return repeat(node, particle.fMinOccurs, particle.fMaxOccurs);
+        } // build(XSParticleDecl):Node
+
+        /** Wraps a node in a repetition, unless it occurs exactly once. */
+        private Node repeat(Node child, int minOccurs, int maxOccurs) {
+            if (minOccurs == 1 && maxOccurs == 1) {
+                return child;
+            }
+            Node node = new Node(Node.REPEAT);
+            node.fChildren = new Node[] { child };
+            node.fMinOccurs = minOccurs;
+            node.fMaxOccurs = maxOccurs;
+            child.fParent = node;
+            if (minOccurs > 1 || (maxOccurs > 1 && maxOccurs != SchemaSymbols.OCCURRENCE_UNBOUNDED)) {
+                node.fCounter = fCounters.size();
+                fCounters.add(node);
+            }
+            return node;
+        } // repeat(Node,int,int):Node
+
+        /**
+         * Computes the transitions, returning false if they are not
+         * determined by the element names and counters.
+         */
+        boolean computeTransitions(Node root) {
+            int positionCount = fLeaves.size();
+            fEdges = new HashMap[positionCount + 1];
+            for (int i = 0; i <= positionCount; i++) {
+                fEdges[i] = new HashMap();
+            }
+            fFinalOps = new int[positionCount + 1][];
+
+            computePositions(root);
+            computeFollow(root);
+            for (int i = 0; i < root.fFirst.length; i++) {
+                addEdge(0, root.fFirst[i], ops(-1, root.fFirst[i], null));
+            }
+            for (int i = 0; i < root.fLast.length; i++) {
+                fFinalOps[root.fLast[i] + 1] = ops(root.fLast[i], -1, null);
+            }
+            if (root.fNullable) {
+                fFinalOps[0] = NO_OPS;
+            }
+            if (fAmbiguous) {
+                return false;
+            }
+            for (int state = 0; state <= positionCount; state++) {
+                if (!distinctNames(fEdges[state])) {
+                    return false;
+                }
+            }
+            return true;
+        } // computeTransitions(Node):boolean
+
+        /** Computes nullable, first and last positions. */
+        private void computePositions(Node node) {
+            switch (node.fKind) {
+            case Node.LEAF:
+                node.fFirst = node.fLast = new int[] { node.fPosition };
+                return;
+            case Node.REPEAT: {
+                Node child = node.fChildren[0];
+                computePositions(child);
+                node.fNullable = node.fMinOccurs == 0 || child.fNullable;
+                node.fFirst = child.fFirst;
+                node.fLast = child.fLast;
+                return;
+            }
+            case Node.CHOICE: {
+                int[] first = NO_OPS;
+                int[] last = NO_OPS;
+                for (int i = 0; i < node.fChildren.length; i++) {
+                    Node child = node.fChildren[i];
+                    computePositions(child);
+                    node.fNullable |= child.fNullable;
+                    first = union(first, child.fFirst);
+                    last = union(last, child.fLast);
+                }
+                node.fFirst = first;
+                node.fLast = last;
+                return;
+            }
+            default: {
+                int[] first = NO_OPS;
+                int[] last = NO_OPS;
+                for (int i = 0; i < node.fChildren.length; i++) {
+                    computePositions(node.fChildren[i]);
+                }
+                node.fNullable = true;
+                for (int i = 0; i < node.fChildren.length && node.fNullable; i++) {
+                    first = union(first, node.fChildren[i].fFirst);
+                    node.fNullable = node.fChildren[i].fNullable;
+                }
+                boolean nullable = true;
+                for (int i = node.fChildren.length - 1; i >= 0 && nullable; i--) {
+                    last = union(last, node.fChildren[i].fLast);
+                    nullable = node.fChildren[i].fNullable;
+                }
+                node.fFirst = first;
+                node.fLast = last;
+            }
+            }
+        } // computePositions(Node)
+
+        /** Adds the transitions between the positions of a node. */
+        private void computeFollow(Node node) {
+            if (node.fKind == Node.LEAF) {
+                return;
+            }
+            for (int i = 0; i < node.fChildren.length; i++) {
+                computeFollow(node.fChildren[i]);
+            }
+            if (node.fKind == Node.SEQUENCE) {
+                for (int i = 0; i < node.fChildren.length - 1; i++) {
+                    int[] last = node.fChildren[i].fLast;
+                    for (int j = i + 1; j < node.fChildren.length; j++) {
+                        addEdges(last, node.fChildren[j].fFirst, node);
+                        if (!node.fChildren[j].fNullable) {
+                            break;
+                        }
+                    }
+                }
+            } else if (node.fKind == Node.REPEAT && node.fMaxOccurs != 1) {
+                addEdges(node.fChildren[0].fLast, node.fChildren[0].fFirst, node);
+            }
+        } // computeFollow(Node)
+
+        private void addEdges(int[] from, int[] to, Node scope) {
+            for (int i = 0; i < from.length; i++) {
+                for (int j = 0; j < to.length; j++) {
+                    addEdge(from[i] + 1, to[j], ops(from[i], to[j], scope));
+                }
+            }
+        } // addEdges(int[],int[],Node)
+
+        private void addEdge(int state, int position, int[] ops) {
+            Integer key = Integer.valueOf(position);
+            int[] existing = (int[]) fEdges[state].get(key);
+            if (existing == null) {
+                fEdges[state].put(key, ops);
+            } else if (!Arrays.equals(existing, ops)) {
+                fAmbiguous = true;
+            }
+        } // addEdge(int,int,int[])
+
+        /**
+         * Returns the counter operations of a transition from one position
+         * to another, added by the given node: the counted repetitions below
+         * the node are left on the way up from the source position and
+         * entered on the way down to the target position; if the node is a
+         * counted repetition itself, its next repetition starts.
+         *
+         * @param from  the source position, or -1 for the start state
+         * @param to    the target position, or -1 for the end
+         * @param scope the node adding the transition, or null for the root
+         */
+        private int[] ops(int from, int to, Node scope) {
+            ArrayList ops = new ArrayList();
+            if (from != -1) {
+                for (Node node = ((Node) fLeaves.get(from)).fParent; node != scope; node = node.fParent) {
+                    // minOccurs can always be reached with empty repetitions
+                    // of a nullable particle
+                    if (node.fCounter != -1 && node.fMinOccurs > 1 && !node.fChildren[0].fNullable) {
+                        ops.add(Integer.valueOf(node.fCounter << OP_SHIFT | OP_EXIT));
+                    }
+                }
+            }
+            if (scope != null && scope.fCounter != -1) {
+                ops.add(Integer.valueOf(scope.fCounter << OP_SHIFT | OP_RESTART));
+            }
+            if (to != -1) {
+                for (Node node = ((Node) fLeaves.get(to)).fParent; node != scope; node = node.fParent) {
+                    if (node.fCounter != -1) {
+                        ops.add(Integer.valueOf(node.fCounter << OP_SHIFT | OP_ENTER));
+                    }
+                }
+            }
+            if (ops.isEmpty()) {
+                return NO_OPS;
+            }
+            int[] result = new int[ops.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = ((Integer) ops.get(i)).intValue();
+            }
+            return result;
+        } // ops(int,int,Node):int[]
+
+        /**
+         * Returns whether no element can match two of the given target
+         * positions. Substitution groups are not known here and are not
+         * taken into account.
+         */
+        private boolean distinctNames(HashMap edges) {
+            HashSet names = new HashSet();
+            ArrayList wildcards = new ArrayList();
+            for (Iterator it = edges.keySet().iterator(); it.hasNext();) {
+                Node leaf = (Node) fLeaves.get(((Integer) it.next()).intValue());
+                if (leaf.fType == XSParticleDecl.PARTICLE_WILDCARD) {
+                    wildcards.add(leaf.fDecl);
+                } else {
+                    XSElementDecl decl = (XSElementDecl) leaf.fDecl;
+                    if (!names.add(decl.fTargetNamespace + "}" + decl.fName)) {
+                        return false;
+                    }
+                }
+            }
+            if (wildcards.size() > 1) {
+                return false;
+            }
+            if (wildcards.size() == 1) {
+                XSWildcardDecl wildcard = (XSWildcardDecl) wildcards.get(0);
+                for (Iterator it = edges.keySet().iterator(); it.hasNext();) {
+                    Node leaf = (Node) fLeaves.get(((Integer) it.next()).intValue());
+                    if (leaf.fType == XSParticleDecl.PARTICLE_ELEMENT
+                            && wildcard.allowNamespace(((XSElementDecl) leaf.fDecl).fTargetNamespace)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        } // distinctNames(HashMap):boolean
+
+        /** Returns the sorted union of two sorted arrays. */
+        private static int[] union(int[] a, int[] b) {
+            int[] result = new int[a.length + b.length];
+            int i = 0, j = 0, k = 0;
+            while (i < a.length || j < b.length) {
+                if (j == b.length || (i < a.length && a[i] < b[j])) {
+                    result[k++] = a[i++];
+                } else if (i == a.length || b[j] < a[i]) {
+                    result[k++] = b[j++];
+                } else {
+                    result[k++] = a[i++];
+                    j++;
+                }
+            }
+            return k == result.length ? result : Arrays.copyOf(result, k);
+        } // union(int[],int[]):int[]
+
+    } // class Builder
+
+} // class XSCountingCM
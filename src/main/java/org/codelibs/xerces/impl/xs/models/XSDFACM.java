@@ -17,6 +17,7 @@
 
 package org.codelibs.xerces.impl.xs.models;
 
+import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Vector;
 
@@ -31,6 +32,7 @@ import org.codelibs.xerces.impl.xs.XSModelGroupImpl;
 import org.codelibs.xerces.impl.xs.XSParticleDecl;
 import org.codelibs.xerces.impl.xs.XSWildcardDecl;
 import org.codelibs.xerces.xni.QName;
+import org.codelibs.xerces.xs.XSConstants;
 
 /**
  * DFAContentModel is the implementation of XSCMValidator that does
@@ -43,7 +45,10 @@ import org.codelibs.xerces.xni.QName;
  * @author Neil Graham, IBM
  * @version $Id: XSDFACM.java 806363 2009-08-20 21:18:48Z mrglavas $
  */
-public class XSDFACM implements XSCMValidator {
+public class XSDFACM implements XSCMValidator, Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 614528624660062095L;
 
     //
     // Constants
@@ -57,6 +62,12 @@ public class XSDFACM implements XSCMValidator {
     /** Set to true to debug content model validation. */
     private static final boolean DEBUG_VALIDATE_CONTENT = false;
 
+    /**
+     * Minimum number of entries in the element map for which transitions
+     * are looked up through an index by name.
+     */
+    private static final int ELEM_MAP_INDEX_THRESHOLD = 8;
+
     //
     // Data
     //
@@ -141,7 +152,11 @@ public class XSDFACM implements XSCMValidator {
      */
     private Occurence[] fCountingStates = null;
 
-    static final class Occurence {
+    static final class Occurence implements Serializable {
+
+        /** Serialization version. */
+        private static final long serialVersionUID = 4204675972656342569L;
+
         final int minOccurs;
         final int maxOccurs;
         final int elemIndex;
@@ -158,6 +173,86 @@ public class XSDFACM implements XSCMValidator {
         }
     }
 
+    /**
+     * Index of the element map entries by the name of their element
+     * declaration, keeping the entries for each name in element map order.
+     */
+    static final class ElemMapIndex implements Serializable {
+
+        /** Serialization version. */
+        private static final long serialVersionUID = -3620349185927546217L;
+
+        /** Namespaces of the names, in hash order. */
+        private final String[] fUris;
+
+        /** Local names, in hash order. */
+        private final String[] fNames;
+
+        /** Element map indexes for each name. */
+        private final int[][] fIndexes;
+
+        /** Element map indexes of the wildcards, or null if there are none. */
+        final int[] fWildcards;
+
+        /** Whether any element declaration can be substituted. */
+        final boolean fSubstitutable;
+
+        ElemMapIndex(Object[] elemMap, int[] elemMapType, int elemMapSize) {
+            int size = Integer.highestOneBit(elemMapSize) << 2;
+            fUris = new String[size];
+            fNames = new String[size];
+            fIndexes = new int[size][];
+            int[] wildcards = new int[elemMapSize];
+            int wildcardCount = 0;
+            boolean substitutable = false;
+            for (int elemIndex = 0; elemIndex < elemMapSize; elemIndex++) {
+                int type = elemMapType[elemIndex];
+                if (type == XSParticleDecl.PARTICLE_ELEMENT) {
+                    XSElementDecl decl = (XSElementDecl) elemMap[elemIndex];
+                    int slot = slot(decl.fTargetNamespace, decl.fName);
+                    int[] indexes = fIndexes[slot];
+                    if (indexes == null) {
+                        fUris[slot] = decl.fTargetNamespace;
+                        fNames[slot] = decl.fName;
+                        indexes = new int[1];
+                    } else {
+                        int[] newIndexes = new int[indexes.length + 1];
+                        System.arraycopy(indexes, 0, newIndexes, 0, indexes.length);
+                        indexes = newIndexes;
+                    }
+                    indexes[indexes.length - 1] = elemIndex;
+                    fIndexes[slot] = indexes;
+                    substitutable |= decl.fScope == XSConstants.SCOPE_GLOBAL && (decl.fBlock & XSConstants.DERIVATION_SUBSTITUTION) == 0;
+                } else if (type == XSParticleDecl.PARTICLE_WILDCARD) {
+                    wildcards[wildcardCount++] = elemIndex;
+                }
+            }
+            if (wildcardCount > 0) {
+                fWildcards = new int[wildcardCount];
+                System.arraycopy(wildcards, 0, fWildcards, 0, wildcardCount);
+            } else {
+                fWildcards = null;
+            }
+            fSubstitutable = substitutable;
+        }
+
+        /** Returns the element map indexes for the given name, or null. */
+        int[] get(String uri, String name) {
+            int slot = slot(uri, name);
+            return fIndexes[slot];
+        }
+
+        /** Returns the slot of the given name, or the free slot for it. */
+        private int slot(String uri, String name) {
+            int mask = fNames.length - 1;
+            int slot = (name.hashCode() * 31 + (uri != null ? uri.hashCode() : 0)) & mask;
+            while (fNames[slot] != null && (fNames[slot] != name || fUris[slot] != uri)) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+
     /**
      * The number of valid entries in the transition table, and in the other
      * related tables such as fFinalStateFlags.
@@ -166,6 +261,12 @@ public class XSDFACM implements XSCMValidator {
 
     private boolean fIsCompactedForUPA;
 
+    /**
+     * Index of the element map by element name, or null if the element
+     * map is small enough to be scanned.
+     */
+    private ElemMapIndex fElemMapIndex = null;
+
     // temp variables
 
     //
@@ -258,27 +359,7 @@ public class XSDFACM implements XSCMValidator {
             return findMatchingDecl(curElem, subGroupHandler);
         }
 
-        int nextState = 0;
-        int elemIndex = 0;
-        Object matchingDecl = null;
-
-        for (; elemIndex < fElemMapSize; elemIndex++) {
-            nextState = fTransTable[curState][elemIndex];
-            if (nextState == -1)
-                continue;
-            int type = fElemMapType[elemIndex];
-            if (type == XSParticleDecl.PARTICLE_ELEMENT) {
-                matchingDecl = subGroupHandler.getMatchingElemDecl(curElem, (XSElementDecl) fElemMap[elemIndex]);
-                if (matchingDecl != null) {
-                    break;
-                }
-            } else if (type == XSParticleDecl.PARTICLE_WILDCARD) {
-                if (((XSWildcardDecl) fElemMap[elemIndex]).allowNamespace(curElem.uri)) {
-                    matchingDecl = fElemMap[elemIndex];
-                    break;
-                }
-            }
-        }
+        int elemIndex = findElemIndex(curElem, curState, 0, subGroupHandler);
 
         // if we still can't find a match, set the state to first_error
         // and return null
@@ -288,6 +369,9 @@ public class XSDFACM implements XSCMValidator {
             return findMatchingDecl(curElem, subGroupHandler);
         }
 
+        int nextState = fTransTable[curState][elemIndex];
+        Object matchingDecl = getMatchingDecl(curElem, elemIndex, subGroupHandler);
+
         if (fCountingStates != null) {
             Occurence o = fCountingStates[curState];
             if (o != null) {
@@ -349,47 +433,14 @@ public class XSDFACM implements XSCMValidator {
     } // oneTransition(QName, int[], SubstitutionGroupHandler):  Object
 
     Object findMatchingDecl(QName curElem, SubstitutionGroupHandler subGroupHandler) {
-        Object matchingDecl = null;
-
-        for (int elemIndex = 0; elemIndex < fElemMapSize; elemIndex++) {
-            int type = fElemMapType[elemIndex];
-            if (type == XSParticleDecl.PARTICLE_ELEMENT) {
-                matchingDecl = subGroupHandler.getMatchingElemDecl(curElem, (XSElementDecl) fElemMap[elemIndex]);
-                if (matchingDecl != null) {
-                    return matchingDecl;
-                }
-            } else if (type == XSParticleDecl.PARTICLE_WILDCARD) {
-                if (((XSWildcardDecl) fElemMap[elemIndex]).allowNamespace(curElem.uri))
-                    return fElemMap[elemIndex];
-            }
-        }
-
-        return null;
+        int elemIndex = findElemIndex(curElem, -1, 0, subGroupHandler);
+        return elemIndex < fElemMapSize ? getMatchingDecl(curElem, elemIndex, subGroupHandler) : null;
     } // findMatchingDecl(QName, SubstitutionGroupHandler): Object
 
     Object findMatchingDecl(QName curElem, int[] state, SubstitutionGroupHandler subGroupHandler, int elemIndex) {
 
         int curState = state[0];
-        int nextState = 0;
-        Object matchingDecl = null;
-
-        while (++elemIndex < fElemMapSize) {
-            nextState = fTransTable[curState][elemIndex];
-            if (nextState == -1)
-                continue;
-            int type = fElemMapType[elemIndex];
-            if (type == XSParticleDecl.PARTICLE_ELEMENT) {
-                matchingDecl = subGroupHandler.getMatchingElemDecl(curElem, (XSElementDecl) fElemMap[elemIndex]);
-                if (matchingDecl != null) {
-                    break;
-                }
-            } else if (type == XSParticleDecl.PARTICLE_WILDCARD) {
-                if (((XSWildcardDecl) fElemMap[elemIndex]).allowNamespace(curElem.uri)) {
-                    matchingDecl = fElemMap[elemIndex];
-                    break;
-                }
-            }
-        }
+        elemIndex = findElemIndex(curElem, curState, elemIndex + 1, subGroupHandler);
 
         // if we still can't find a match, set the state to FIRST_ERROR and return null
         if (elemIndex == fElemMapSize) {
@@ -398,6 +449,9 @@ public class XSDFACM implements XSCMValidator {
             return findMatchingDecl(curElem, subGroupHandler);
         }
 
+        int nextState = fTransTable[curState][elemIndex];
+        Object matchingDecl = getMatchingDecl(curElem, elemIndex, subGroupHandler);
+
         // if we found a match, set the next state and reset the
         // counter if the next state is a counting state.
         state[0] = nextState;
@@ -408,6 +462,76 @@ public class XSDFACM implements XSCMValidator {
         return matchingDecl;
     } // findMatchingDecl(QName, int[], SubstitutionGroupHandler, int): Object
 
+    /**
+     * Returns the first index, starting at the given one, of an element map
+     * entry that matches the given element and has a transition from the
+     * given state, or the size of the element map if there is none.
+     *
+     * @param curElem         the element
+     * @param curState        the current state, or -1 to accept any entry
+     * @param from            the first index to consider
+     * @param subGroupHandler the substitution group handler
+     * @return the index of the entry
+     */
+    private int findElemIndex(QName curElem, int curState, int from, SubstitutionGroupHandler subGroupHandler) {
+        if (fElemMapIndex == null) {
+            for (int elemIndex = from; elemIndex < fElemMapSize; elemIndex++) {
+                if ((curState == -1 || fTransTable[curState][elemIndex] != -1)
+                        && getMatchingDecl(curElem, elemIndex, subGroupHandler) != null) {
+                    return elemIndex;
+                }
+            }
+            return fElemMapSize;
+        }
+
+        // only entries for the element itself, for the heads of its
+        // substitution group and for wildcards can match it
+        int elemIndex = findElemIndex(curElem, fElemMapIndex.get(curElem.uri, curElem.localpart), curState, from, fElemMapSize,
+                subGroupHandler);
+        if (fElemMapIndex.fSubstitutable) {
+            XSElementDecl decl = subGroupHandler.getGlobalElementDecl(curElem);
+            for (XSElementDecl head = decl != null ? decl.fSubGroup : null; head != null; head = head.fSubGroup) {
+                elemIndex = findElemIndex(curElem, fElemMapIndex.get(head.fTargetNamespace, head.fName), curState, from, elemIndex,
+                        subGroupHandler);
+            }
+        }
+        return findElemIndex(curElem, fElemMapIndex.fWildcards, curState, from, elemIndex, subGroupHandler);
+    } // findElemIndex(QName, int, int, SubstitutionGroupHandler): int
+
+    /**
+     * Returns the first of the given element map indexes in the range from
+     * from to to that matches the given element and has a transition from
+     * the given state, or to if there is none.
+     */
+    private int findElemIndex(QName curElem, int[] candidates, int curState, int from, int to, SubstitutionGroupHandler subGroupHandler) {
+        if (candidates != null) {
+            for (int i = 0; i < candidates.length && candidates[i] < to; i++) {
+                int elemIndex = candidates[i];
+                if (elemIndex >= from && (curState == -1 || fTransTable[curState][elemIndex] != -1)
+                        && getMatchingDecl(curElem, elemIndex, subGroupHandler) != null) {
+                    return elemIndex;
+                }
+            }
+        }
+        return to;
+    } // findElemIndex(QName, int[], int, int, int, SubstitutionGroupHandler): int
+
+    /**
+     * Returns the declaration matched by the given element through the
+     * given element map entry, or null if the entry does not match.
+     */
+    private Object getMatchingDecl(QName curElem, int elemIndex, SubstitutionGroupHandler subGroupHandler) {
+        int type = fElemMapType[elemIndex];
+        if (type == XSParticleDecl.PARTICLE_ELEMENT) {
+            return subGroupHandler.getMatchingElemDecl(curElem, (XSElementDecl) fElemMap[elemIndex]);
+        } else if (type == XSParticleDecl.PARTICLE_WILDCARD) {
+            if (((XSWildcardDecl) fElemMap[elemIndex]).allowNamespace(curElem.uri)) {
+                return fElemMap[elemIndex];
+            }
+        }
+        return null;
+    } // getMatchingDecl(QName, int, SubstitutionGroupHandler): Object
+
     // This method returns the start states of the content model.
     public int[] startContentModel() {
         // [0] : the current state
@@ -808,6 +932,10 @@ public class XSDFACM implements XSCMValidator {
         fFollowList = null;
         fLeafListType = null;
         fElemMapId = null;
+
+        if (fElemMapSize >= ELEM_MAP_INDEX_THRESHOLD) {
+            fElemMapIndex = new ElemMapIndex(fElemMap, fElemMapType, fElemMapSize);
+        }
     }
 
     /**
@@ -17,6 +17,7 @@
 
 package org.codelibs.xerces.impl.xs.models;
 
+import java.io.Serializable;
 import java.util.Vector;
 
 import org.codelibs.xerces.impl.xs.SubstitutionGroupHandler;
@@ -35,7 +36,10 @@ import org.codelibs.xerces.xni.QName;
  * @author Lisa Martin, IBM
  * @version $Id: XSEmptyCM.java 806363 2009-08-20 21:18:48Z mrglavas $
  */
-public class XSEmptyCM implements XSCMValidator {
+public class XSEmptyCM implements XSCMValidator, Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 6531585490526314456L;
 
     //
     // Constants
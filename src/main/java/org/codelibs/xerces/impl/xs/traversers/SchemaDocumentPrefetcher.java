@@ -0,0 +1,281 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.impl.xs.traversers;
+
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.Stack;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codelibs.xerces.impl.Constants;
+import org.codelibs.xerces.impl.xs.opti.SchemaDOMParser;
+import org.codelibs.xerces.impl.xs.opti.SchemaParsingConfig;
+import org.codelibs.xerces.xni.XMLResourceIdentifier;
+import org.codelibs.xerces.xni.XNIException;
+import org.codelibs.xerces.xni.parser.XMLConfigurationException;
+import org.codelibs.xerces.xni.parser.XMLEntityResolver;
+import org.codelibs.xerces.xni.parser.XMLErrorHandler;
+import org.codelibs.xerces.xni.parser.XMLInputSource;
+import org.codelibs.xerces.xni.parser.XMLParseException;
+import org.w3c.dom.Document;
+
+/**
+ * Parses schema documents on a small pool of threads ahead of the
+ * {@link XSDHandler}, which picks the documents up as it reaches the
+ * <code>import</code>, <code>include</code> and <code>redefine</code>
+ * elements referring to them.
+ * <p>
+ * Each thread uses its own <code>SchemaDOMParser</code>, configured like
+ * the handler's parser. Only documents that parse without any warning or
+ * error are handed over; for any other document the handler parses it
+ * again itself, so that problems are reported through the application's
+ * error handler, on the calling thread and in document order.
+ * <p>
+ * The application's entity resolver is never called from the threads.
+ * The handler resolves the schema documents themselves before they are
+ * submitted; if one of them refers to an entity while an entity resolver
+ * is set, it is left to the handler as well.
+ *
+ * @author CodeLibs Project
+ */
+final class SchemaDocumentPrefetcher {
+
+    //
+    // Constants
+    //
+
+    /** Parser features copied from the handler's parser. */
+    private static final String[] FEATURES = { XSDHandler.CONTINUE_AFTER_FATAL_ERROR, XSDHandler.ALLOW_JAVA_ENCODINGS,
+            XSDHandler.STANDARD_URI_CONFORMANT_FEATURE, XSDHandler.DISALLOW_DOCTYPE, XSDHandler.GENERATE_SYNTHETIC_ANNOTATIONS };
+
+    /** Parser properties copied from the handler's parser. */
+    private static final String[] PROPERTIES = { XSDHandler.SECURITY_MANAGER };
+
+    /** Property identifier: error handler. */
+    private static final String ERROR_HANDLER = Constants.XERCES_PROPERTY_PREFIX + Constants.ERROR_HANDLER_PROPERTY;
+
+    //
+    // Data
+    //
+
+    /** The handler's parser, whose settings are copied. */
+    private final SchemaDOMParser fTemplate;
+
+    /** Maximum number of documents parsed at the same time. */
+    private final int fThreads;
+
+    /** Pending documents, keyed by expanded system id. */
+    private final Hashtable fDocuments = new Hashtable();
+
+    /** System ids of all documents submitted so far. */
+    private final HashSet fSubmitted = new HashSet();
+
+    /** Idle parsers. */
+    private final Stack fParsers = new Stack();
+
+    /** Number of parsers created. */
+    private int fParserCount;
+
+    /** Executor, created on first use. */
+    private ExecutorService fExecutor;
+
+    /**
+     * Whether the worker parsers may resolve entities themselves, which
+     * is the case unless the application set an entity resolver.
+     */
+    private boolean fResolveEntities = true;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Constructs a prefetcher.
+     *
+     * @param template the parser whose settings the worker parsers copy
+     * @param threads  the number of threads
+     */
+    SchemaDocumentPrefetcher(SchemaDOMParser template, int threads) {
+        fTemplate = template;
+        fThreads = threads;
+    } // <init>(SchemaDOMParser,int)
+
+    //
+    // Methods
+    //
+
+    /**
+     * Starts parsing the given document unless it was submitted before.
+     *
+     * @param schemaId the expanded system id of the document
+     * @param source   the input source, which must only carry a system id
+     */
+    void prefetch(String schemaId, final XMLInputSource source) {
+        if (schemaId == null || !fSubmitted.add(schemaId)) {
+            return;
+        }
+        if (fExecutor == null) {
+            final AtomicInteger count = new AtomicInteger();
+            fExecutor = Executors.newFixedThreadPool(fThreads, runnable -> {
+                Thread thread = new Thread(runnable, "xerces-schema-parser-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        // parsers are configured here, on the handler's thread; there are
+        // never more tasks running than parsers created
+        if (fParserCount < fThreads) {
+            SchemaDOMParser parser = createParser();
+            fParsers.push(new Worker(parser, fResolveEntities));
+            fParserCount++;
+        }
+        fDocuments.put(schemaId, fExecutor.submit(() -> parse(source)));
+    } // prefetch(String,XMLInputSource)
+
+    /**
+     * Returns the document parsed for the given system id, waiting for the
+     * parse to finish, or null if the document was not submitted or could
+     * not be parsed cleanly. A document is only returned once.
+     *
+     * @param schemaId the expanded system id of the document
+     * @return the schema document, or null
+     */
+    Document take(String schemaId) {
+        Future future = (Future) fDocuments.remove(schemaId);
+        if (future == null) {
+            return null;
+        }
+        try {
+            return (Document) future.get();
+        } catch (ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    } // take(String):Document
+
+    /**
+     * Drops the documents that were not taken and stops the threads.
+     */
+    void shutdown() {
+        for (Enumeration e = fDocuments.elements(); e.hasMoreElements();) {
+            ((Future) e.nextElement()).cancel(false);
+        }
+        fDocuments.clear();
+        if (fExecutor != null) {
+            fExecutor.shutdown();
+            fExecutor = null;
+        }
+    } // shutdown()
+
+    //
+    // Private methods
+    //
+
+    /** Parses a document on a worker thread. */
+    private Document parse(XMLInputSource source) {
+        Worker worker = (Worker) fParsers.pop();
+        try {
+            worker.fReported = false;
+            worker.fParser.parse(source);
+            return worker.fReported ? null : worker.fParser.getDocument();
+        } catch (IOException e) {
+            return null;
+        } catch (XNIException e) {
+            return null;
+        } finally {
+            fParsers.push(worker);
+        }
+    } // parse(XMLInputSource):Document
+
+    /** Creates a parser with the settings of the handler's parser. */
+    private SchemaDOMParser createParser() {
+        SchemaDOMParser parser = new SchemaDOMParser(new SchemaParsingConfig());
+        for (int i = 0; i < FEATURES.length; i++) {
+            try {
+                parser.setFeature(FEATURES[i], fTemplate.getFeature(FEATURES[i]));
+            } catch (XMLConfigurationException e) {}
+        }
+        for (int i = 0; i < PROPERTIES.length; i++) {
+            try {
+                Object value = fTemplate.getProperty(PROPERTIES[i]);
+                if (value != null) {
+                    parser.setProperty(PROPERTIES[i], value);
+                }
+            } catch (XMLConfigurationException e) {}
+        }
+        try {
+            fResolveEntities = fTemplate.getProperty(XSDHandler.ENTITY_RESOLVER) == null;
+        } catch (XMLConfigurationException e) {}
+        return parser;
+    } // createParser():SchemaDOMParser
+
+    //
+    // Classes
+    //
+
+    /**
+     * A worker parser that records whether anything was reported while
+     * parsing. Unless the parser may resolve entities itself, it also
+     * gives up on any document that refers to an entity.
+     */
+    private static final class Worker implements XMLErrorHandler, XMLEntityResolver {
+
+        /** The parser. */
+        final SchemaDOMParser fParser;
+
+        /** Whether a warning or an error was reported by the last parse. */
+        boolean fReported;
+
+        Worker(SchemaDOMParser parser, boolean resolveEntities) {
+            fParser = parser;
+            parser.setProperty(ERROR_HANDLER, this);
+            if (!resolveEntities) {
+                parser.setProperty(XSDHandler.ENTITY_RESOLVER, this);
+            }
+        }
+
+        public void warning(String domain, String key, XMLParseException exception) throws XNIException {
+            fReported = true;
+        }
+
+        public void error(String domain, String key, XMLParseException exception) throws XNIException {
+            fReported = true;
+        }
+
+        public void fatalError(String domain, String key, XMLParseException exception) throws XNIException {
+            fReported = true;
+            throw exception;
+        }
+
+        public XMLInputSource resolveEntity(XMLResourceIdentifier resourceIdentifier) throws XNIException {
+            // left to the handler, which calls the application's resolver
+            fReported = true;
+            throw new XNIException("Entity resolution deferred to the schema handler.");
+        }
+
+    } // class Worker
+
+} // class SchemaDocumentPrefetcher
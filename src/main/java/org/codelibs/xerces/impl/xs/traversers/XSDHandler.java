@@ -100,6 +100,7 @@ import org.codelibs.xerces.xs.XSSimpleTypeDefinition;
 import org.codelibs.xerces.xs.XSTerm;
 import org.codelibs.xerces.xs.XSTypeDefinition;
 import org.codelibs.xerces.xs.datatypes.ObjectList;
+import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -195,6 +196,9 @@ public class XSDHandler {
     /** Property identifier: locale. */
     protected static final String LOCALE = Constants.XERCES_PROPERTY_PREFIX + Constants.LOCALE_PROPERTY;
 
+    /** Property identifier: schema document parsing threads. */
+    protected static final String SCHEMA_PARSING_THREADS = Constants.XERCES_PROPERTY_PREFIX + Constants.SCHEMA_PARSING_THREADS_PROPERTY;
+
     /** Debug flag for node pool operations */
     protected static final boolean DEBUG_NODE_POOL = false;
 
@@ -359,6 +363,18 @@ public class XSDHandler {
     // handle tolerate duplicates feature
     boolean fTolerateDuplicates = false;
 
+    // number of threads parsing schema documents ahead of constructTrees()
+    private int fParsingThreads = 0;
+
+    // parses referenced schema documents in the background; only set
+    // while a schema is being parsed with more than one thread
+    private SchemaDocumentPrefetcher fPrefetcher;
+
+    // input sources resolved while prefetching, keyed by the import,
+    // include or redefine element; each is used by constructTrees()
+    // instead of resolving the reference a second time
+    private Hashtable fResolvedSources = new Hashtable();
+
     // the XMLErrorReporter
     private XMLErrorReporter fErrorReporter;
     private XMLEntityResolver fEntityResolver;
@@ -474,6 +490,23 @@ public class XSDHandler {
      * @throws IOException if an I/O error occurs during parsing
      */
     public SchemaGrammar parseSchema(XMLInputSource is, XSDDescription desc, Hashtable locationPairs) throws IOException {
+        if (fParsingThreads <= 1) {
+            return parseSchema0(is, desc, locationPairs);
+        }
+        fPrefetcher = new SchemaDocumentPrefetcher(fSchemaParser, fParsingThreads);
+        try {
+            return parseSchema0(is, desc, locationPairs);
+        } finally {
+            fPrefetcher.shutdown();
+            fPrefetcher = null;
+            for (Enumeration e = fResolvedSources.elements(); e.hasMoreElements();) {
+                closeInputSource((XMLInputSource) e.nextElement());
+            }
+            fResolvedSources.clear();
+        }
+    } // parseSchema(XMLInputSource, XSDDescription, Hashtable): SchemaGrammar
+
+    private SchemaGrammar parseSchema0(XMLInputSource is, XSDDescription desc, Hashtable locationPairs) throws IOException {
         fLocationPairs = locationPairs;
         fSchemaParser.resetNodePool();
         SchemaGrammar grammar = null;
@@ -857,6 +890,10 @@ public class XSDHandler {
         Vector dependencies = new Vector();
         Element rootNode = schemaRoot;
 
+        if (fPrefetcher != null) {
+            prefetchSchemaDocuments(schemaRoot, callerTNS);
+        }
+
         Element newSchemaRoot = null;
         for (Element child = DOMUtil.getFirstChildElement(rootNode); child != null; child = DOMUtil.getNextSiblingElement(child)) {
             String schemaNamespace = null;
@@ -1082,10 +1119,118 @@ public class XSDHandler {
             }
         }
 
+        // close the sources resolved while prefetching that were not used
+        if (fPrefetcher != null) {
+            for (Element child = DOMUtil.getFirstChildElement(rootNode); child != null; child = DOMUtil.getNextSiblingElement(child)) {
+                closeInputSource((XMLInputSource) fResolvedSources.remove(child));
+            }
+        }
+
         fDependencyMap.put(currSchemaInfo, dependencies);
         return currSchemaInfo;
     } // end constructTrees
 
+    /**
+     * Resolves the import, include and redefine children of a schema
+     * document and hands the documents they refer to to the prefetcher.
+     * Only references that resolve to a plain system id are prefetched.
+     * The resolved input sources are kept for constructTrees(), which
+     * parses anything that was not prefetched.
+     */
+    private void prefetchSchemaDocuments(Element schemaRoot, String callerTNS) {
+        for (Element child = DOMUtil.getFirstChildElement(schemaRoot); child != null; child = DOMUtil.getNextSiblingElement(child)) {
+            String localName = DOMUtil.getLocalName(child);
+            short refType;
+            String namespace = callerTNS;
+            if (localName.equals(SchemaSymbols.ELT_ANNOTATION)) {
+                continue;
+            } else if (localName.equals(SchemaSymbols.ELT_IMPORT)) {
+                refType = XSDDescription.CONTEXT_IMPORT;
+                Attr attr = DOMUtil.getAttr(child, SchemaSymbols.ATT_NAMESPACE);
+                namespace = attr != null ? fSymbolTable.addSymbol(attr.getValue().trim()) : null;
+            } else if (localName.equals(SchemaSymbols.ELT_INCLUDE)) {
+                refType = XSDDescription.CONTEXT_INCLUDE;
+            } else if (localName.equals(SchemaSymbols.ELT_REDEFINE)) {
+                refType = XSDDescription.CONTEXT_REDEFINE;
+            } else {
+                break;
+            }
+            Attr location = DOMUtil.getAttr(child, SchemaSymbols.ATT_SCHEMALOCATION);
+            if (location == null) {
+                continue;
+            }
+            String schemaHint = location.getValue().trim();
+            XSDDescription desc = new XSDDescription();
+            desc.setContextType(refType);
+            desc.setBaseSystemId(doc2SystemId(schemaRoot));
+            if (refType == XSDDescription.CONTEXT_IMPORT) {
+                desc.setLiteralSystemId(schemaHint);
+            }
+            desc.setLocationHints(new String[] { schemaHint });
+            desc.setTargetNamespace(namespace);
+            // imported grammars that are already known are not parsed again
+            if (refType == XSDDescription.CONTEXT_IMPORT
+                    && (fGrammarBucket.getGrammar(namespace) != null || (fGrammarPool != null && fGrammarPool.retrieveGrammar(desc) != null))) {
+                continue;
+            }
+            try {
+                XMLInputSource schemaSource = XMLSchemaLoader.resolveDocument(desc, fLocationPairs, fEntityResolver);
+                if (schemaSource == null) {
+                    continue;
+                }
+                closeInputSource((XMLInputSource) fResolvedSources.put(child, schemaSource));
+                if (isPlainInputSource(schemaSource)) {
+                    fPrefetcher.prefetch(XMLEntityManager.expandSystemId(schemaSource.getSystemId(), schemaSource.getBaseSystemId(), false),
+                            new XMLInputSource(schemaSource.getPublicId(), schemaSource.getSystemId(), schemaSource.getBaseSystemId()));
+                }
+            } catch (IOException e) {
+                // reported when constructTrees() resolves the reference
+            }
+        }
+    } // prefetchSchemaDocuments(Element, String)
+
+    /**
+     * Whether an input source only carries a system id, so that it may be
+     * opened by another parser.
+     */
+    private static boolean isPlainInputSource(XMLInputSource schemaSource) {
+        return schemaSource != null && schemaSource.getSystemId() != null && schemaSource.getByteStream() == null
+                && schemaSource.getCharacterStream() == null && !(schemaSource instanceof DOMInputSource)
+                && !(schemaSource instanceof SAXInputSource) && !(schemaSource instanceof StAXInputSource)
+                && !(schemaSource instanceof XSInputSource);
+    } // isPlainInputSource(XMLInputSource): boolean
+
+    /**
+     * Returns the input source resolved for the given reference while
+     * prefetching, or null if there is none. Sources resolved with the
+     * location pairs are only returned to callers that use them too.
+     */
+    private XMLInputSource takeResolvedSource(Element referElement, boolean usePairs) {
+        if (fPrefetcher == null || !usePairs) {
+            return null;
+        }
+        return (XMLInputSource) fResolvedSources.remove(referElement);
+    } // takeResolvedSource(Element, boolean): XMLInputSource
+
+    /**
+     * Closes the streams of an input source that will not be parsed.
+     */
+    private static void closeInputSource(XMLInputSource schemaSource) {
+        if (schemaSource == null) {
+            return;
+        }
+        try {
+            if (schemaSource.getByteStream() != null) {
+                schemaSource.getByteStream().close();
+            }
+            if (schemaSource.getCharacterStream() != null) {
+                schemaSource.getCharacterStream().close();
+            }
+        } catch (IOException e) {
+            // the source is discarded anyway
+        }
+    } // closeInputSource(XMLInputSource): void
+
     private boolean isExistingGrammar(XSDDescription desc, boolean ignoreConflict) {
         SchemaGrammar sg = fGrammarBucket.getGrammar(desc.getTargetNamespace());
         if (sg == null) {
@@ -2009,10 +2154,12 @@ public class XSDHandler {
      * @return A schema Element or null.
      */
     private Element resolveSchema(XSDDescription desc, boolean mustResolve, Element referElement, boolean usePairs) {
-        XMLInputSource schemaSource = null;
+        XMLInputSource schemaSource = takeResolvedSource(referElement, usePairs);
         try {
-            Hashtable pairs = usePairs ? fLocationPairs : EMPTY_TABLE;
-            schemaSource = XMLSchemaLoader.resolveDocument(desc, pairs, fEntityResolver);
+            if (schemaSource == null) {
+                Hashtable pairs = usePairs ? fLocationPairs : EMPTY_TABLE;
+                schemaSource = XMLSchemaLoader.resolveDocument(desc, pairs, fEntityResolver);
+            }
         } catch (IOException ex) {
             if (mustResolve) {
                 reportSchemaError("schema_reference.4", new Object[] { desc.getLocationHints()[0] }, referElement);
@@ -2060,10 +2207,12 @@ public class XSDHandler {
 
     private XMLInputSource resolveSchemaSource(XSDDescription desc, boolean mustResolve, Element referElement, boolean usePairs) {
 
-        XMLInputSource schemaSource = null;
+        XMLInputSource schemaSource = takeResolvedSource(referElement, usePairs);
         try {
-            Hashtable pairs = usePairs ? fLocationPairs : EMPTY_TABLE;
-            schemaSource = XMLSchemaLoader.resolveDocument(desc, pairs, fEntityResolver);
+            if (schemaSource == null) {
+                Hashtable pairs = usePairs ? fLocationPairs : EMPTY_TABLE;
+                schemaSource = XMLSchemaLoader.resolveDocument(desc, pairs, fEntityResolver);
+            }
         } catch (IOException ex) {
             if (mustResolve) {
                 reportSchemaError("schema_reference.4", new Object[] { desc.getLocationHints()[0] }, referElement);
@@ -2116,8 +2265,14 @@ public class XSDHandler {
                     }
                 }
 
-                fSchemaParser.parse(schemaSource);
-                Document schemaDocument = fSchemaParser.getDocument();
+                Document schemaDocument = null;
+                if (fPrefetcher != null && schemaId != null && isPlainInputSource(schemaSource)) {
+                    schemaDocument = fPrefetcher.take(schemaId);
+                }
+                if (schemaDocument == null) {
+                    fSchemaParser.parse(schemaSource);
+                    schemaDocument = fSchemaParser.getDocument();
+                }
                 schemaElement = schemaDocument != null ? DOMUtil.getRoot(schemaDocument) : null;
                 return getSchemaDocument0(key, schemaId, schemaElement);
             } else {
@@ -3483,6 +3638,13 @@ public class XSDHandler {
             fTolerateDuplicates = false;
         }
 
+        try {
+            Integer threads = (Integer) componentManager.getProperty(SCHEMA_PARSING_THREADS);
+            fParsingThreads = (threads != null) ? threads.intValue() : 0;
+        } catch (XMLConfigurationException e) {
+            fParsingThreads = 0;
+        }
+
         try {
             fSchemaParser.setFeature(CONTINUE_AFTER_FATAL_ERROR, fErrorReporter.getFeature(CONTINUE_AFTER_FATAL_ERROR));
         } catch (XMLConfigurationException e) {}
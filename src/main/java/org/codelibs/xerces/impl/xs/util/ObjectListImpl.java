@@ -17,6 +17,7 @@
 
 package org.codelibs.xerces.impl.xs.util;
 
+import java.io.Serializable;
 import java.lang.reflect.Array;
 import java.util.AbstractList;
 
@@ -29,7 +30,10 @@ import org.codelibs.xerces.xs.datatypes.ObjectList;
  *
  * @version $Id: ObjectListImpl.java 789785 2009-06-30 15:10:26Z knoaman $
  */
-public final class ObjectListImpl extends AbstractList implements ObjectList {
+public final class ObjectListImpl extends AbstractList implements ObjectList, Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = -3171854440110241571L;
 
     /**
      * An immutable empty list.
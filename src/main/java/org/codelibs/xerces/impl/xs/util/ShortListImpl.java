@@ -17,6 +17,7 @@
 
 package org.codelibs.xerces.impl.xs.util;
 
+import java.io.Serializable;
 import java.util.AbstractList;
 
 import org.codelibs.xerces.xs.ShortList;
@@ -31,7 +32,10 @@ import org.codelibs.xerces.xs.XSException;
  *
  * @version $Id: ShortListImpl.java 725840 2008-12-11 22:19:06Z mrglavas $
  */
-public final class ShortListImpl extends AbstractList implements ShortList {
+public final class ShortListImpl extends AbstractList implements ShortList, Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = -2853847999237467457L;
 
     /**
      * An immutable empty list.
@@ -17,6 +17,8 @@
 
 package org.codelibs.xerces.impl.xs.util;
 
+import java.io.Serializable;
+
 import org.codelibs.xerces.xni.XMLLocator;
 
 /**
@@ -27,7 +29,10 @@ import org.codelibs.xerces.xni.XMLLocator;
  * @author Sandy Gao, IBM
  * @version $Id: SimpleLocator.java 660072 2008-05-26 02:05:15Z mrglavas $
  */
-public final class SimpleLocator implements XMLLocator {
+public final class SimpleLocator implements XMLLocator, Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = -3367098276844477929L;
 
     private String lsid;
     private String esid;
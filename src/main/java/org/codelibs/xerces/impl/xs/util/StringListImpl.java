@@ -17,6 +17,7 @@
 
 package org.codelibs.xerces.impl.xs.util;
 
+import java.io.Serializable;
 import java.lang.reflect.Array;
 import java.util.AbstractList;
 import java.util.Vector;
@@ -32,7 +33,10 @@ import org.codelibs.xerces.xs.StringList;
  *
  * @version $Id: StringListImpl.java 776326 2009-05-19 14:27:24Z mrglavas $
  */
-public final class StringListImpl extends AbstractList implements StringList {
+public final class StringListImpl extends AbstractList implements StringList, Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 5802432673429469535L;
 
     /**
      * An immutable empty list.
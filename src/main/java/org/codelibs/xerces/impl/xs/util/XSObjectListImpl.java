@@ -17,6 +17,7 @@
 
 package org.codelibs.xerces.impl.xs.util;
 
+import java.io.Serializable;
 import java.lang.reflect.Array;
 import java.util.AbstractList;
 import java.util.Iterator;
@@ -35,7 +36,10 @@ import org.codelibs.xerces.xs.XSObjectList;
  *
  * @version $Id: XSObjectListImpl.java 776079 2009-05-18 20:22:27Z mrglavas $
  */
-public class XSObjectListImpl extends AbstractList implements XSObjectList {
+public class XSObjectListImpl extends AbstractList implements XSObjectList, Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = -2396456707265755956L;
 
     /**
      * An immutable empty list.
@@ -33,6 +33,7 @@ import javax.xml.validation.SchemaFactory;
 
 import org.codelibs.xerces.impl.Constants;
 import org.codelibs.xerces.impl.xs.XMLSchemaLoader;
+import org.codelibs.xerces.util.ConcurrentXMLGrammarPool;
 import org.codelibs.xerces.util.DOMEntityResolverWrapper;
 import org.codelibs.xerces.util.DOMInputSource;
 import org.codelibs.xerces.util.ErrorHandlerWrapper;
@@ -40,7 +41,6 @@ import org.codelibs.xerces.util.SAXInputSource;
 import org.codelibs.xerces.util.SAXMessageFormatter;
 import org.codelibs.xerces.util.SecurityManager;
 import org.codelibs.xerces.util.StAXInputSource;
-import org.codelibs.xerces.util.XMLGrammarPoolImpl;
 import org.codelibs.xerces.xni.XNIException;
 import org.codelibs.xerces.xni.grammars.Grammar;
 import org.codelibs.xerces.xni.grammars.XMLGrammarDescription;
@@ -173,7 +173,9 @@ public final class XMLSchemaFactory extends SchemaFactory {
     public Schema newSchema(Source[] schemas) throws SAXException {
 
         // this will let the loader store parsed Grammars into the pool.
-        XMLGrammarPoolImplExtension pool = new XMLGrammarPoolImplExtension();
+        // The pool is read concurrently by every validator created from
+        // the schema, so lookups must not block.
+        ConcurrentXMLGrammarPool pool = new ConcurrentXMLGrammarPool();
         fXMLGrammarPoolWrapper.setGrammarPool(pool);
 
         XMLInputSource[] xmlInputSources = new XMLInputSource[schemas.length];
@@ -414,29 +416,6 @@ public final class XMLSchemaFactory extends SchemaFactory {
         }
     }
 
-    /**
-     * Extension of XMLGrammarPoolImpl which exposes the number of
-     * grammars stored in the grammar pool.
-     */
-    static class XMLGrammarPoolImplExtension extends XMLGrammarPoolImpl {
-
-        /** Constructs a grammar pool with a default number of buckets. */
-        public XMLGrammarPoolImplExtension() {
-            super();
-        }
-
-        /** Constructs a grammar pool with a specified number of buckets. */
-        public XMLGrammarPoolImplExtension(int initialCapacity) {
-            super(initialCapacity);
-        }
-
-        /** Returns the number of grammars contained in this pool. */
-        int getGrammarCount() {
-            return fGrammarCount;
-        }
-
-    } // XMLSchemaFactory.XMLGrammarPoolImplExtension
-
     /**
      * A grammar pool which wraps another.
      */
@@ -21,6 +21,7 @@ import java.util.Locale;
 import java.util.Stack;
 
 import org.codelibs.xerces.dom.AttrImpl;
+import org.codelibs.xerces.dom.ChunkedTextImpl;
 import org.codelibs.xerces.dom.CoreDocumentImpl;
 import org.codelibs.xerces.dom.DOMErrorImpl;
 import org.codelibs.xerces.dom.DOMMessageFormatter;
@@ -121,11 +122,14 @@ public class AbstractDOMParser extends AbstractXMLDocumentParser {
     /** Property id: current element node. */
     protected static final String CURRENT_ELEMENT_NODE = Constants.XERCES_PROPERTY_PREFIX + Constants.CURRENT_ELEMENT_NODE_PROPERTY;
 
+    /** Property id: large text threshold. */
+    protected static final String LARGE_TEXT_THRESHOLD = Constants.XERCES_PROPERTY_PREFIX + Constants.DOM_LARGE_TEXT_THRESHOLD_PROPERTY;
+
     // protected static final String GRAMMAR_POOL =
     // Constants.XERCES_PROPERTY_PREFIX + Constants.XMLGRAMMAR_POOL_PROPERTY;
 
     /** Recognized properties. */
-    private static final String[] RECOGNIZED_PROPERTIES = { DOCUMENT_CLASS_NAME, CURRENT_ELEMENT_NODE, };
+    private static final String[] RECOGNIZED_PROPERTIES = { DOCUMENT_CLASS_NAME, CURRENT_ELEMENT_NODE, LARGE_TEXT_THRESHOLD, };
 
     // other
 
@@ -214,6 +218,12 @@ public class AbstractDOMParser extends AbstractXMLDocumentParser {
     /** Character buffer */
     protected final StringBuffer fStringBuffer = new StringBuffer(50);
 
+    /**
+     * Length from which character data is kept in a chunked text node,
+     * or 0 if it never is.
+     */
+    protected int fLargeTextThreshold;
+
     // internal subset
 
     /** Internal subset buffer. */
@@ -424,6 +434,13 @@ public class AbstractDOMParser extends AbstractXMLDocumentParser {
         // get property
         setDocumentClassName((String) fConfiguration.getProperty(DOCUMENT_CLASS_NAME));
 
+        Integer threshold = (Integer) fConfiguration.getProperty(LARGE_TEXT_THRESHOLD);
+        fLargeTextThreshold = threshold != null ? Math.max(threshold.intValue(), 0) : 0;
+        // the deferred document keeps all character data in one buffer
+        if (fLargeTextThreshold > 0) {
+            fDeferNodeExpansion = false;
+        }
+
         // reset dom information
         fDocument = null;
         fDocumentImpl = null;
@@ -1116,7 +1133,10 @@ public class AbstractDOMParser extends AbstractXMLDocumentParser {
                 }
 
                 Node child = fCurrentNode.getLastChild();
-                if (child != null && child.getNodeType() == Node.TEXT_NODE) {
+                if (child instanceof ChunkedTextImpl) {
+                    // large text is appended to the node directly
+                    ((ChunkedTextImpl) child).appendChars(text.ch, text.offset, text.length);
+                } else if (child != null && child.getNodeType() == Node.TEXT_NODE) {
                     // collect all the data into the string buffer.
                     if (fFirstChunk) {
                         if (fDocumentImpl != null) {
@@ -1130,6 +1150,9 @@ public class AbstractDOMParser extends AbstractXMLDocumentParser {
                     if (text.length > 0) {
                         fStringBuffer.append(text.ch, text.offset, text.length);
                     }
+                    if (fLargeTextThreshold > 0 && fDocumentImpl != null && fStringBuffer.length() >= fLargeTextThreshold) {
+                        moveToChunkedText(child);
+                    }
                 } else {
                     fFirstChunk = true;
                     Text textNode = fDocument.createTextNode(text.toString());
@@ -1186,7 +1209,9 @@ public class AbstractDOMParser extends AbstractXMLDocumentParser {
         }
         if (!fDeferNodeExpansion) {
             Node child = fCurrentNode.getLastChild();
-            if (child != null && child.getNodeType() == Node.TEXT_NODE) {
+            if (child instanceof ChunkedTextImpl) {
+                ((ChunkedTextImpl) child).appendChars(text.ch, text.offset, text.length);
+            } else if (child != null && child.getNodeType() == Node.TEXT_NODE) {
                 Text textNode = (Text) child;
                 textNode.appendData(text.toString());
             } else {
@@ -2443,6 +2468,25 @@ public class AbstractDOMParser extends AbstractXMLDocumentParser {
         return attr;
     }
 
+    /**
+     * Replaces the given text node, whose content is in the character
+     * buffer, with a chunked text node holding the same content.
+     *
+     * @param child the text node
+     */
+    protected void moveToChunkedText(Node child) {
+        ChunkedTextImpl text = new ChunkedTextImpl(fDocumentImpl);
+        text.setIgnorableWhitespace(((TextImpl) child).isIgnorableWhitespace());
+        char[] chars = new char[Math.min(fStringBuffer.length(), 8192)];
+        for (int offset = 0; offset < fStringBuffer.length(); offset += chars.length) {
+            int end = Math.min(offset + chars.length, fStringBuffer.length());
+            fStringBuffer.getChars(offset, end, chars, 0);
+            text.appendChars(chars, 0, end - offset);
+        }
+        fStringBuffer.setLength(0);
+        fCurrentNode.replaceChild(text, child);
+    } // moveToChunkedText(Node)
+
     /**
      * Handles character data state changes.
      * When the first characters() call is received, the data is stored in
@@ -17,6 +17,8 @@
 
 package org.codelibs.xerces.parsers;
 
+import org.codelibs.xerces.util.ConcurrentSymbolTable;
+import org.codelibs.xerces.util.ConcurrentXMLGrammarPool;
 import org.codelibs.xerces.util.ShadowedSymbolTable;
 import org.codelibs.xerces.util.SymbolTable;
 import org.codelibs.xerces.util.SynchronizedSymbolTable;
@@ -75,14 +77,16 @@ public class CachingParserPool {
     /**
      * Symbol table. The symbol table that the caching parser pool is
      * constructed with is automatically wrapped in a synchronized
-     * version for thread-safety.
+     * version for thread-safety, unless it is a
+     * {@link ConcurrentSymbolTable}, which is used as is.
      */
     protected SymbolTable fSynchronizedSymbolTable;
 
     /**
      * Grammar pool. The grammar pool that the caching parser pool is
      * constructed with is automatically wrapped in a synchronized
-     * version for thread-safety.
+     * version for thread-safety, unless it is a
+     * {@link ConcurrentXMLGrammarPool}, which is used as is.
      */
     protected XMLGrammarPool fSynchronizedGrammarPool;
 
@@ -110,19 +114,23 @@ public class CachingParserPool {
 
     /** Default constructor. */
     public CachingParserPool() {
-        this(new SymbolTable(), new XMLGrammarPoolImpl());
+        this(new ConcurrentSymbolTable(), new ConcurrentXMLGrammarPool());
     } // <init>()
 
     /**
      * Constructs a caching parser pool with the specified symbol table
-     * and grammar pool.
+     * and grammar pool. A {@link ConcurrentSymbolTable} or
+     * {@link ConcurrentXMLGrammarPool} is shared by the parsers directly;
+     * any other symbol table or grammar pool is synchronized.
      *
      * @param symbolTable The symbol table.
      * @param grammarPool The grammar pool.
      */
     public CachingParserPool(SymbolTable symbolTable, XMLGrammarPool grammarPool) {
-        fSynchronizedSymbolTable = new SynchronizedSymbolTable(symbolTable);
-        fSynchronizedGrammarPool = new SynchronizedGrammarPool(grammarPool);
+        fSynchronizedSymbolTable =
+                symbolTable instanceof ConcurrentSymbolTable ? symbolTable : new SynchronizedSymbolTable(symbolTable);
+        fSynchronizedGrammarPool =
+                grammarPool instanceof ConcurrentXMLGrammarPool ? grammarPool : new SynchronizedGrammarPool(grammarPool);
     } // <init>(SymbolTable,XMLGrammarPool)
 
     //
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.parsers;
+
+import org.codelibs.xerces.dom.compact.CompactDocument;
+import org.codelibs.xerces.dom.compact.CompactDocumentBuilder;
+import org.codelibs.xerces.xni.Augmentations;
+import org.codelibs.xerces.xni.NamespaceContext;
+import org.codelibs.xerces.xni.QName;
+import org.codelibs.xerces.xni.XMLAttributes;
+import org.codelibs.xerces.xni.XMLLocator;
+import org.codelibs.xerces.xni.XMLString;
+import org.codelibs.xerces.xni.XNIException;
+import org.codelibs.xerces.xni.parser.XMLParserConfiguration;
+
+/**
+ * Parses documents into a read-only {@link CompactDocument}, which keeps
+ * the tree outside of the Java heap. This is meant for very large
+ * documents that are only read after parsing. Entity references are
+ * expanded and the document type is not kept.
+ *
+ * @author CodeLibs Project
+ */
+public class CompactDOMParser extends XMLDocumentParser {
+
+    //
+    // Data
+    //
+
+    /** The document builder. */
+    protected final CompactDocumentBuilder fBuilder = new CompactDocumentBuilder();
+
+    /** The last document parsed. */
+    protected CompactDocument fDocument;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Constructs a parser using the default parser configuration.
+     */
+    public CompactDOMParser() {
+        super();
+    } // <init>()
+
+    /**
+     * Constructs a parser using the specified parser configuration.
+     *
+     * @param config the parser configuration
+     */
+    public CompactDOMParser(XMLParserConfiguration config) {
+        super(config);
+    } // <init>(XMLParserConfiguration)
+
+    //
+    // Public methods
+    //
+
+    /**
+     * Returns the document of the last successful parse.
+     *
+     * @return the document, or null
+     */
+    public CompactDocument getDocument() {
+        return fDocument;
+    } // getDocument():CompactDocument
+
+    /**
+     * Drops the last document, so that its storage can be released.
+     */
+    public void dropDocumentReferences() {
+        fDocument = null;
+    } // dropDocumentReferences()
+
+    //
+    // XMLDocumentHandler methods
+    //
+
+    public void startDocument(XMLLocator locator, String encoding, NamespaceContext namespaceContext, Augmentations augs)
+            throws XNIException {
+        fBuilder.startDocument(locator != null ? locator.getExpandedSystemId() : null, encoding);
+    } // startDocument(XMLLocator,String,NamespaceContext,Augmentations)
+
+    public void xmlDecl(String version, String encoding, String standalone, Augmentations augs) throws XNIException {
+        fBuilder.xmlDecl(version, encoding, standalone);
+    } // xmlDecl(String,String,String,Augmentations)
+
+    public void startElement(QName element, XMLAttributes attributes, Augmentations augs) throws XNIException {
+        fBuilder.startElement(element, attributes);
+    } // startElement(QName,XMLAttributes,Augmentations)
+
+    public void endElement(QName element, Augmentations augs) throws XNIException {
+        fBuilder.endElement();
+    } // endElement(QName,Augmentations)
+
+    public void characters(XMLString text, Augmentations augs) throws XNIException {
+        fBuilder.characters(text);
+    } // characters(XMLString,Augmentations)
+
+    public void ignorableWhitespace(XMLString text, Augmentations augs) throws XNIException {
+        fBuilder.characters(text);
+    } // ignorableWhitespace(XMLString,Augmentations)
+
+    public void startCDATA(Augmentations augs) throws XNIException {
+        fBuilder.startCDATA();
+    } // startCDATA(Augmentations)
+
+    public void endCDATA(Augmentations augs) throws XNIException {
+        fBuilder.endCDATA();
+    } // endCDATA(Augmentations)
+
+    public void comment(XMLString text, Augmentations augs) throws XNIException {
+        if (!fInDTD) {
+            fBuilder.comment(text);
+        }
+    } // comment(XMLString,Augmentations)
+
+    public void processingInstruction(String target, XMLString data, Augmentations augs) throws XNIException {
+        if (!fInDTD) {
+            fBuilder.processingInstruction(target, data);
+        }
+    } // processingInstruction(String,XMLString,Augmentations)
+
+    public void endDocument(Augmentations augs) throws XNIException {
+        fDocument = fBuilder.getDocument();
+    } // endDocument(Augmentations)
+
+    //
+    // Protected methods
+    //
+
+    /** Resets the parser state. */
+    protected void reset() throws XNIException {
+        super.reset();
+        fDocument = null;
+    } // reset()
+
+} // class CompactDOMParser
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.parsers;
+
+import org.codelibs.xerces.xni.XNIException;
+import org.w3c.dom.Element;
+
+/**
+ * Receives the subtrees built by a {@link SubtreeDOMParser}.
+ *
+ * @author CodeLibs Project
+ */
+public interface DOMSubtreeHandler {
+
+    /**
+     * Called once the subtree of a matching element has been built. While
+     * this method runs, the element is the document element of its owner
+     * document; it is detached from the document when the method returns.
+     *
+     * @param element the root of the subtree
+     *
+     * @throws XNIException to stop the parse
+     */
+    void subtree(Element element) throws XNIException;
+
+} // interface DOMSubtreeHandler
@@ -0,0 +1,360 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.parsers;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+
+import org.codelibs.xerces.xni.Augmentations;
+import org.codelibs.xerces.xni.QName;
+import org.codelibs.xerces.xni.XMLAttributes;
+import org.codelibs.xerces.xni.XMLResourceIdentifier;
+import org.codelibs.xerces.xni.XMLString;
+import org.codelibs.xerces.xni.XNIException;
+import org.codelibs.xerces.xni.parser.XMLParserConfiguration;
+import org.w3c.dom.Element;
+
+/**
+ * A DOM parser that only builds the subtrees of the elements matching a
+ * set of paths, and hands each of them to a {@link DOMSubtreeHandler} as
+ * soon as it is complete. Nothing outside of these subtrees is built,
+ * except for the document type, and each subtree is detached from the
+ * document once the handler returns, so that the memory used is bounded
+ * by the largest subtree rather than by the document.
+ * <p>
+ * A path is a list of steps separated by <code>/</code>. A step is
+ * either a qualified name as it appears in the document, an expanded name
+ * written <code>{uri}local</code> (<code>{}local</code> for an element in
+ * no namespace), or <code>*</code> for any element. A path starting with
+ * <code>/</code> is matched from the document element; otherwise it
+ * matches elements at any depth whose innermost ancestors match the
+ * steps. Elements matching inside a subtree are part of that subtree.
+ * <p>
+ * Node expansion is never deferred by this parser.
+ *
+ * @author CodeLibs Project
+ */
+public class SubtreeDOMParser extends DOMParser {
+
+    //
+    // Data
+    //
+
+    /** The paths to match. */
+    protected final ArrayList fPaths = new ArrayList();
+
+    /** The subtree handler. */
+    protected DOMSubtreeHandler fSubtreeHandler;
+
+    /** Namespace names of the open elements outside of subtrees. */
+    private String[] fURIs = new String[16];
+
+    /** Local names of the open elements outside of subtrees. */
+    private String[] fLocalNames = new String[16];
+
+    /** Qualified names of the open elements outside of subtrees. */
+    private String[] fRawNames = new String[16];
+
+    /** Number of open elements outside of subtrees. */
+    private int fDepth;
+
+    /** Depth in the current subtree, or 0 outside of subtrees. */
+    private int fSubtreeDepth;
+
+    /** Root of the current subtree. */
+    private Element fSubtreeRoot;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Constructs a parser using the default parser configuration.
+     */
+    public SubtreeDOMParser() {
+        super();
+        fConfiguration.setFeature(DEFER_NODE_EXPANSION, false);
+    } // <init>()
+
+    /**
+     * Constructs a parser using the specified parser configuration.
+     *
+     * @param config the parser configuration
+     */
+    public SubtreeDOMParser(XMLParserConfiguration config) {
+        super(config);
+        fConfiguration.setFeature(DEFER_NODE_EXPANSION, false);
+    } // <init>(XMLParserConfiguration)
+
+    //
+    // Public methods
+    //
+
+    /**
+     * Adds a path whose matching elements are built.
+     *
+     * @param path the path
+     *
+     * @throws IllegalArgumentException if the path has an empty step
+     */
+    public void addSubtreePath(String path) {
+        fPaths.add(new Path(path));
+    } // addSubtreePath(String)
+
+    /**
+     * Removes all the paths.
+     */
+    public void clearSubtreePaths() {
+        fPaths.clear();
+    } // clearSubtreePaths()
+
+    /**
+     * Sets the handler receiving the subtrees.
+     *
+     * @param handler the handler, or null to drop the subtrees
+     */
+    public void setSubtreeHandler(DOMSubtreeHandler handler) {
+        fSubtreeHandler = handler;
+    } // setSubtreeHandler(DOMSubtreeHandler)
+
+    /**
+     * Returns the handler receiving the subtrees.
+     *
+     * @return the handler, or null
+     */
+    public DOMSubtreeHandler getSubtreeHandler() {
+        return fSubtreeHandler;
+    } // getSubtreeHandler():DOMSubtreeHandler
+
+    //
+    // XMLDocumentParser methods
+    //
+
+    public void reset() throws XNIException {
+        super.reset();
+        fDeferNodeExpansion = false;
+        fDepth = 0;
+        fSubtreeDepth = 0;
+        fSubtreeRoot = null;
+    } // reset()
+
+    //
+    // XMLDocumentHandler methods
+    //
+
+    public void startElement(QName element, XMLAttributes attributes, Augmentations augs) throws XNIException {
+        if (fSubtreeDepth > 0) {
+            fSubtreeDepth++;
+            super.startElement(element, attributes, augs);
+            return;
+        }
+        if (fDepth == fRawNames.length) {
+            fURIs = grow(fURIs);
+            fLocalNames = grow(fLocalNames);
+            fRawNames = grow(fRawNames);
+        }
+        fURIs[fDepth] = element.uri;
+        fLocalNames[fDepth] = element.localpart;
+        fRawNames[fDepth] = element.rawname;
+        fDepth++;
+        for (int i = 0; i < fPaths.size(); i++) {
+            if (((Path) fPaths.get(i)).matches(fURIs, fLocalNames, fRawNames, fDepth)) {
+                // the subtree root becomes the document element
+                fSubtreeDepth = 1;
+                super.startElement(element, attributes, augs);
+                fSubtreeRoot = (Element) fCurrentNode;
+                break;
+            }
+        }
+    } // startElement(QName,XMLAttributes,Augmentations)
+
+    public void endElement(QName element, Augmentations augs) throws XNIException {
+        if (fSubtreeDepth == 0) {
+            fDepth--;
+            return;
+        }
+        super.endElement(element, augs);
+        if (--fSubtreeDepth == 0) {
+            fDepth--;
+            Element root = fSubtreeRoot;
+            fSubtreeRoot = null;
+            try {
+                if (fSubtreeHandler != null) {
+                    if (fDocumentImpl != null) {
+                        fDocumentImpl.setStrictErrorChecking(true);
+                    }
+                    fSubtreeHandler.subtree(root);
+                }
+            } finally {
+                release(root);
+            }
+        }
+    } // endElement(QName,Augmentations)
+
+    public void characters(XMLString text, Augmentations augs) throws XNIException {
+        if (fSubtreeDepth > 0) {
+            super.characters(text, augs);
+        }
+    } // characters(XMLString,Augmentations)
+
+    public void ignorableWhitespace(XMLString text, Augmentations augs) throws XNIException {
+        if (fSubtreeDepth > 0) {
+            super.ignorableWhitespace(text, augs);
+        }
+    } // ignorableWhitespace(XMLString,Augmentations)
+
+    public void startCDATA(Augmentations augs) throws XNIException {
+        if (fSubtreeDepth > 0) {
+            super.startCDATA(augs);
+        }
+    } // startCDATA(Augmentations)
+
+    public void endCDATA(Augmentations augs) throws XNIException {
+        if (fSubtreeDepth > 0) {
+            super.endCDATA(augs);
+        }
+    } // endCDATA(Augmentations)
+
+    public void comment(XMLString text, Augmentations augs) throws XNIException {
+        // comments in the DTD go to the internal subset
+        if (fSubtreeDepth > 0 || fInDTD) {
+            super.comment(text, augs);
+        }
+    } // comment(XMLString,Augmentations)
+
+    public void processingInstruction(String target, XMLString data, Augmentations augs) throws XNIException {
+        if (fSubtreeDepth > 0 || fInDTD) {
+            super.processingInstruction(target, data, augs);
+        }
+    } // processingInstruction(String,XMLString,Augmentations)
+
+    public void startGeneralEntity(String name, XMLResourceIdentifier identifier, String encoding, Augmentations augs) throws XNIException {
+        if (fSubtreeDepth > 0) {
+            super.startGeneralEntity(name, identifier, encoding, augs);
+        }
+    } // startGeneralEntity(String,XMLResourceIdentifier,String,Augmentations)
+
+    public void textDecl(String version, String encoding, Augmentations augs) throws XNIException {
+        if (fSubtreeDepth > 0) {
+            super.textDecl(version, encoding, augs);
+        }
+    } // textDecl(String,String,Augmentations)
+
+    public void endGeneralEntity(String name, Augmentations augs) throws XNIException {
+        if (fSubtreeDepth > 0) {
+            super.endGeneralEntity(name, augs);
+        }
+    } // endGeneralEntity(String,Augmentations)
+
+    //
+    // Private methods
+    //
+
+    /** Detaches a subtree from the document and forgets its identifiers. */
+    private void release(Element root) {
+        if (fDocumentImpl != null) {
+            fDocumentImpl.setStrictErrorChecking(false);
+            ArrayList ids = new ArrayList();
+            for (Enumeration e = fDocumentImpl.getIdentifiers(); e.hasMoreElements();) {
+                ids.add(e.nextElement());
+            }
+            for (int i = 0; i < ids.size(); i++) {
+                fDocumentImpl.removeIdentifier((String) ids.get(i));
+            }
+        }
+        // the handler may have moved it
+        if (root.getParentNode() == fDocument) {
+            fDocument.removeChild(root);
+        }
+    } // release(Element)
+
+    private static String[] grow(String[] array) {
+        String[] grown = new String[array.length * 2];
+        System.arraycopy(array, 0, grown, 0, array.length);
+        return grown;
+    } // grow(String[]):String[]
+
+    //
+    // Classes
+    //
+
+    /** A parsed path. */
+    private static final class Path {
+
+        /** Whether the path is matched from the document element. */
+        final boolean fAbsolute;
+
+        /** Namespace names of the steps matching expanded names. */
+        final String[] fURIs;
+
+        /** Names of the steps, local names for expanded names; null for any element. */
+        final String[] fNames;
+
+        /** Whether the steps match expanded names. */
+        final boolean[] fExpanded;
+
+        Path(String path) {
+            fAbsolute = path.startsWith("/");
+            String[] steps = (fAbsolute ? path.substring(1) : path).split("/", -1);
+            fURIs = new String[steps.length];
+            fNames = new String[steps.length];
+            fExpanded = new boolean[steps.length];
+            for (int i = 0; i < steps.length; i++) {
+                String step = steps[i];
+                if (step.length() == 0) {
+                    throw new IllegalArgumentException(path);
+                }
+                if (step.charAt(0) == '{') {
+                    int end = step.indexOf('}');
+                    if (end == -1 || end == step.length() - 1) {
+                        throw new IllegalArgumentException(path);
+                    }
+                    fURIs[i] = end == 1 ? null : step.substring(1, end);
+                    fNames[i] = step.substring(end + 1);
+                    fExpanded[i] = true;
+                } else if (!step.equals("*")) {
+                    fNames[i] = step;
+                }
+            }
+        }
+
+        /** Returns true if the innermost of the given open elements matches. */
+        boolean matches(String[] uris, String[] localNames, String[] rawNames, int depth) {
+            int steps = fNames.length;
+            if (fAbsolute ? depth != steps : depth < steps) {
+                return false;
+            }
+            for (int i = steps - 1, d = depth - 1; i >= 0; i--, d--) {
+                if (fNames[i] == null) {
+                    continue;
+                }
+                if (fExpanded[i]) {
+                    String uri = uris[d];
+                    if (!fNames[i].equals(localNames[d]) || (fURIs[i] == null ? uri != null : !fURIs[i].equals(uri))) {
+                        return false;
+                    }
+                } else if (!fNames[i].equals(rawNames[d])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    } // class Path
+
+} // class SubtreeDOMParser
@@ -25,6 +25,8 @@ import org.codelibs.xerces.impl.dtd.XMLDTDLoader;
 import org.codelibs.xerces.impl.xs.SchemaGrammar;
 import org.codelibs.xerces.impl.xs.XMLSchemaLoader;
 import org.codelibs.xerces.impl.xs.XSMessageFormatter;
+import org.codelibs.xerces.util.ConcurrentSymbolTable;
+import org.codelibs.xerces.util.ConcurrentXMLGrammarPool;
 import org.codelibs.xerces.util.SymbolTable;
 import org.codelibs.xerces.util.SynchronizedSymbolTable;
 import org.codelibs.xerces.util.XMLGrammarPoolImpl;
@@ -74,11 +76,11 @@ public class XMLGrammarCachingConfiguration extends XIncludeAwareParserConfigura
 
     // the static symbol table to be shared amongst parsers
     /** Static symbol table shared among parsers. */
-    protected static final SynchronizedSymbolTable fStaticSymbolTable = new SynchronizedSymbolTable(BIG_PRIME);
+    protected static final SynchronizedSymbolTable fStaticSymbolTable = new ConcurrentSymbolTable(BIG_PRIME);
 
     // the Grammar Pool to be shared similarly
     /** Static grammar pool shared among parsers. */
-    protected static final XMLGrammarPoolImpl fStaticGrammarPool = new XMLGrammarPoolImpl();
+    protected static final XMLGrammarPoolImpl fStaticGrammarPool = new ConcurrentXMLGrammarPool();
 
     // schema full checking constant
     /** Feature identifier: schema full checking. */
@@ -0,0 +1,519 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.util;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import org.codelibs.xerces.xni.XNIException;
+import org.codelibs.xerces.xni.grammars.Grammar;
+import org.codelibs.xerces.xni.grammars.XMLGrammarDescription;
+import org.codelibs.xerces.xni.grammars.XMLGrammarLoader;
+import org.codelibs.xerces.xni.grammars.XMLGrammarPool;
+import org.codelibs.xerces.xni.parser.XMLInputSource;
+
+/**
+ * Grammar pool that holds a bounded number of grammars and evicts the
+ * least recently used ones.
+ * <p>
+ * The pool is bounded by a maximum number of entries and, optionally,
+ * by a maximum total weight as estimated by a {@link Weigher}, so that
+ * a pool serving many schemas stays within a fixed heap budget. Entries
+ * may also expire once they have not been used for a given time; expired
+ * entries are dropped before any live entry is evicted.
+ * Unlike a pool of soft references, eviction happens only when a grammar
+ * is added, never behind the application's back.
+ * <p>
+ * Like <code>SoftReferenceGrammarPool</code>, this pool returns no
+ * initial grammar set; validators request each grammar they need through
+ * <code>retrieveGrammar</code>, which keeps the recency order and the
+ * hit and miss counters accurate. Grammar descriptions are compared with
+ * <code>equals</code> and <code>hashCode</code>.
+ * <p>
+ * All operations on this pool are thread-safe.
+ *
+ * @author CodeLibs Project
+ */
+public class BoundedXMLGrammarPool implements XMLGrammarPool {
+
+    //
+    // Constants
+    //
+
+    /** Zero length grammar array. */
+    private static final Grammar[] ZERO_LENGTH_GRAMMAR_ARRAY = new Grammar[0];
+
+    /** Weigher which gives every grammar a weight of one. */
+    public static final Weigher UNIT_WEIGHER = grammar -> 1;
+
+    //
+    // Data
+    //
+
+    /**
+     * Entries, least recently used first. The map is kept in insertion
+     * order and an entry is moved to the end when it is used, so that
+     * plain reads such as <code>containsGrammar</code> do not count as uses.
+     * Since every use also refreshes the access time, the entries are
+     * ordered by access time and expired entries are found at the head.
+     */
+    private final LinkedHashMap<XMLGrammarDescription, Entry> fEntries = new LinkedHashMap<>();
+
+    /** Maximum number of entries. */
+    private final int fMaximumEntries;
+
+    /** Maximum total weight. */
+    private long fMaximumWeight = Long.MAX_VALUE;
+
+    /** Weigher for grammars. */
+    private Weigher fWeigher = UNIT_WEIGHER;
+
+    /** Time after the last access at which an entry expires, in nanoseconds; 0 if entries do not expire. */
+    private long fExpireAfterAccess = 0;
+
+    /** Total weight of the entries. */
+    private long fWeight;
+
+    /** Whether this pool is locked. */
+    private boolean fPoolIsLocked;
+
+    // statistics
+
+    private long fHitCount;
+
+    private long fMissCount;
+
+    private long fLoadCount;
+
+    private long fTotalLoadTime;
+
+    private long fEvictionCount;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Constructs a grammar pool holding at most the given number of grammars.
+     *
+     * @param maximumEntries the maximum number of grammars
+     */
+    public BoundedXMLGrammarPool(int maximumEntries) {
+        if (maximumEntries < 0) {
+            throw new IllegalArgumentException("Illegal maximum entries: " + maximumEntries);
+        }
+        fMaximumEntries = maximumEntries;
+    } // <init>(int)
+
+    //
+    // Public methods
+    //
+
+    /**
+     * Bounds the total weight of the grammars in the pool.
+     *
+     * @param maximumWeight the maximum total weight
+     * @param weigher       estimates the weight of a grammar
+     */
+    public synchronized void setMaximumWeight(long maximumWeight, Weigher weigher) {
+        if (maximumWeight < 0) {
+            throw new IllegalArgumentException("Illegal maximum weight: " + maximumWeight);
+        }
+        fMaximumWeight = maximumWeight;
+        fWeigher = weigher != null ? weigher : UNIT_WEIGHER;
+        fWeight = 0;
+        for (Entry entry : fEntries.values()) {
+            entry.weight = weigh(entry.grammar);
+            fWeight += entry.weight;
+        }
+        evict();
+    } // setMaximumWeight(long,Weigher)
+
+    /**
+     * Makes grammars expire once they have not been retrieved with
+     * <code>retrieveGrammar</code> or <code>getGrammar</code> for the
+     * given time.
+     *
+     * @param millis the time in milliseconds, or 0 if grammars should not expire
+     */
+    public synchronized void setExpireAfterAccess(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Illegal expiry: " + millis);
+        }
+        fExpireAfterAccess = millis * 1000000L;
+        evict();
+    } // setExpireAfterAccess(long)
+
+    /**
+     * Loads a grammar with the given loader and caches it, recording the
+     * time spent loading in the statistics.
+     *
+     * @param loader the grammar loader
+     * @param source the grammar source
+     * @return the loaded grammar, or null if the loader returned none
+     * @throws IOException  if an I/O error occurs while loading
+     * @throws XNIException if the grammar cannot be loaded
+     */
+    public Grammar loadGrammar(XMLGrammarLoader loader, XMLInputSource source) throws IOException, XNIException {
+        final long start = System.nanoTime();
+        final Grammar grammar = loader.loadGrammar(source);
+        final long time = System.nanoTime() - start;
+        synchronized (this) {
+            fTotalLoadTime += time;
+            if (grammar != null) {
+                put(grammar);
+            }
+        }
+        return grammar;
+    } // loadGrammar(XMLGrammarLoader,XMLInputSource):Grammar
+
+    /**
+     * Puts the specified grammar into the grammar pool unless the pool
+     * is locked, evicting the least recently used grammars if the pool
+     * grows beyond its bounds.
+     *
+     * @param grammar The grammar.
+     */
+    public synchronized void putGrammar(Grammar grammar) {
+        put(grammar);
+    } // putGrammar(Grammar)
+
+    /**
+     * Returns the grammar associated to the specified grammar description
+     * without counting a hit or a miss. The grammar becomes the most
+     * recently used one.
+     *
+     * @param desc The grammar description.
+     * @return The grammar, or null if not found
+     */
+    public synchronized Grammar getGrammar(XMLGrammarDescription desc) {
+        final Entry entry = lookup(desc, true);
+        return entry != null ? entry.grammar : null;
+    } // getGrammar(XMLGrammarDescription):Grammar
+
+    /**
+     * Removes the grammar associated to the specified grammar description
+     * from the grammar pool.
+     *
+     * @param desc The grammar description.
+     * @return The removed grammar, or null if not found
+     */
+    public synchronized Grammar removeGrammar(XMLGrammarDescription desc) {
+        final Entry entry = fEntries.remove(desc);
+        if (entry == null) {
+            return null;
+        }
+        fWeight -= entry.weight;
+        return entry.grammar;
+    } // removeGrammar(XMLGrammarDescription):Grammar
+
+    /**
+     * Returns true if the grammar pool contains a grammar associated
+     * to the specified grammar description. This does not change the
+     * recency of the grammar.
+     *
+     * @param desc The grammar description.
+     * @return true if the grammar pool contains the specified grammar, false otherwise
+     */
+    public synchronized boolean containsGrammar(XMLGrammarDescription desc) {
+        return lookup(desc, false) != null;
+    } // containsGrammar(XMLGrammarDescription):boolean
+
+    /**
+     * Returns the number of grammars in the pool.
+     *
+     * @return the number of grammars
+     */
+    public synchronized int getGrammarCount() {
+        return fEntries.size();
+    } // getGrammarCount():int
+
+    /**
+     * Returns the total weight of the grammars in the pool.
+     *
+     * @return the total weight
+     */
+    public synchronized long getWeight() {
+        return fWeight;
+    } // getWeight():long
+
+    /**
+     * Returns a snapshot of the statistics of this pool.
+     *
+     * @return the statistics
+     */
+    public synchronized Statistics getStatistics() {
+        return new Statistics(fHitCount, fMissCount, fLoadCount, fTotalLoadTime, fEvictionCount);
+    } // getStatistics():Statistics
+
+    /**
+     * Resets the statistics of this pool.
+     */
+    public synchronized void resetStatistics() {
+        fHitCount = 0;
+        fMissCount = 0;
+        fLoadCount = 0;
+        fTotalLoadTime = 0;
+        fEvictionCount = 0;
+    } // resetStatistics()
+
+    //
+    // XMLGrammarPool methods
+    //
+
+    /**
+     * Returns no grammars, so that every grammar is requested through
+     * <code>retrieveGrammar</code>.
+     *
+     * @param grammarType The type of the grammar.
+     * @return An empty array
+     */
+    public Grammar[] retrieveInitialGrammarSet(String grammarType) {
+        return ZERO_LENGTH_GRAMMAR_ARRAY;
+    } // retrieveInitialGrammarSet(String):Grammar[]
+
+    /**
+     * Caches the given grammars unless the pool is locked.
+     *
+     * @param grammarType The type of the grammars being returned.
+     * @param grammars    The grammars to cache.
+     */
+    public synchronized void cacheGrammars(String grammarType, Grammar[] grammars) {
+        for (int i = 0; i < grammars.length; i++) {
+            put(grammars[i]);
+        }
+    } // cacheGrammars(String,Grammar[])
+
+    /**
+     * Returns the grammar matching the given description, counting a
+     * hit or a miss.
+     *
+     * @param desc The description of the grammar being requested.
+     * @return The grammar corresponding to this description, or null.
+     */
+    public synchronized Grammar retrieveGrammar(XMLGrammarDescription desc) {
+        final Entry entry = lookup(desc, true);
+        if (entry == null) {
+            fMissCount++;
+            return null;
+        }
+        fHitCount++;
+        return entry.grammar;
+    } // retrieveGrammar(XMLGrammarDescription):Grammar
+
+    /** Sets this grammar pool to a "locked" state. */
+    public synchronized void lockPool() {
+        fPoolIsLocked = true;
+    } // lockPool()
+
+    /** Sets this grammar pool to an "unlocked" state. */
+    public synchronized void unlockPool() {
+        fPoolIsLocked = false;
+    } // unlockPool()
+
+    /** Removes all grammars from the pool. */
+    public synchronized void clear() {
+        fEntries.clear();
+        fWeight = 0;
+    } // clear()
+
+    //
+    // Private methods
+    //
+
+    /**
+     * Returns the live entry for a description, dropping it if it has
+     * expired. If <code>use</code> is true, the entry becomes the most
+     * recently used one and its access time is refreshed.
+     */
+    private Entry lookup(XMLGrammarDescription desc, boolean use) {
+        final long now = System.nanoTime();
+        final Entry entry = fEntries.get(desc);
+        if (entry == null) {
+            return null;
+        }
+        if (isExpired(entry, now)) {
+            fEntries.remove(desc);
+            fWeight -= entry.weight;
+            fEvictionCount++;
+            return null;
+        }
+        if (use) {
+            fEntries.remove(desc);
+            fEntries.put(desc, entry);
+            entry.accessTime = now;
+        }
+        return entry;
+    } // lookup(XMLGrammarDescription,boolean):Entry
+
+    private boolean isExpired(Entry entry, long now) {
+        return fExpireAfterAccess > 0 && now - entry.accessTime > fExpireAfterAccess;
+    } // isExpired(Entry,long):boolean
+
+    /** Caches a grammar; the caller holds the lock. */
+    private void put(Grammar grammar) {
+        if (fPoolIsLocked) {
+            return;
+        }
+        final Entry entry = new Entry(grammar, weigh(grammar));
+        final Entry previous = fEntries.remove(grammar.getGrammarDescription());
+        if (previous != null) {
+            fWeight -= previous.weight;
+        }
+        fEntries.put(grammar.getGrammarDescription(), entry);
+        fWeight += entry.weight;
+        fLoadCount++;
+        evict();
+    } // put(Grammar)
+
+    /**
+     * Drops expired entries, then evicts least recently used entries
+     * until the pool is within its bounds.
+     */
+    private void evict() {
+        final long now = System.nanoTime();
+        final Iterator<Entry> iterator = fEntries.values().iterator();
+        while (iterator.hasNext()) {
+            final Entry entry = iterator.next();
+            if (!isExpired(entry, now) && fEntries.size() <= fMaximumEntries && fWeight <= fMaximumWeight) {
+                break;
+            }
+            iterator.remove();
+            fWeight -= entry.weight;
+            fEvictionCount++;
+        }
+    } // evict()
+
+    private long weigh(Grammar grammar) {
+        final long weight = fWeigher.weigh(grammar);
+        if (weight < 0) {
+            throw new IllegalArgumentException("Illegal weight: " + weight);
+        }
+        return weight;
+    } // weigh(Grammar):long
+
+    //
+    // Interfaces
+    //
+
+    /**
+     * Estimates the memory weight of a grammar.
+     */
+    public interface Weigher {
+
+        /**
+         * Returns the weight of the grammar. The weight is in units of
+         * the caller's choosing and must not change while the grammar is
+         * in the pool.
+         *
+         * @param grammar the grammar
+         * @return a non-negative weight
+         */
+        long weigh(Grammar grammar);
+
+    } // interface Weigher
+
+    //
+    // Classes
+    //
+
+    /**
+     * Statistics of a grammar pool at a point in time.
+     */
+    public static final class Statistics {
+
+        private final long fHitCount;
+
+        private final long fMissCount;
+
+        private final long fLoadCount;
+
+        private final long fTotalLoadTime;
+
+        private final long fEvictionCount;
+
+        Statistics(long hitCount, long missCount, long loadCount, long totalLoadTime, long evictionCount) {
+            fHitCount = hitCount;
+            fMissCount = missCount;
+            fLoadCount = loadCount;
+            fTotalLoadTime = totalLoadTime;
+            fEvictionCount = evictionCount;
+        }
+
+        /** @return the number of retrievals which found a grammar */
+        public long getHitCount() {
+            return fHitCount;
+        }
+
+        /** @return the number of retrievals which found no grammar */
+        public long getMissCount() {
+            return fMissCount;
+        }
+
+        /** @return the ratio of hits to retrievals, or 1 if there were no retrievals */
+        public double getHitRate() {
+            final long requests = fHitCount + fMissCount;
+            return requests == 0 ? 1.0 : (double) fHitCount / requests;
+        }
+
+        /** @return the number of grammars added to the pool */
+        public long getLoadCount() {
+            return fLoadCount;
+        }
+
+        /** @return the time spent in {@link BoundedXMLGrammarPool#loadGrammar}, in nanoseconds */
+        public long getTotalLoadTime() {
+            return fTotalLoadTime;
+        }
+
+        /** @return the number of grammars evicted or expired */
+        public long getEvictionCount() {
+            return fEvictionCount;
+        }
+
+        public String toString() {
+            return "Statistics[hits=" + fHitCount + ", misses=" + fMissCount + ", loads=" + fLoadCount + ", loadTime=" + fTotalLoadTime
+                    + "ns, evictions=" + fEvictionCount + "]";
+        }
+
+    } // class Statistics
+
+    /**
+     * Grammar pool entry.
+     */
+    private static final class Entry {
+
+        /** Grammar object. */
+        final Grammar grammar;
+
+        /** Weight of the grammar. */
+        long weight;
+
+        /** Time at which the grammar was added or last used. */
+        long accessTime;
+
+        Entry(Grammar grammar, long weight) {
+            this.grammar = grammar;
+            this.weight = weight;
+            accessTime = System.nanoTime();
+        }
+
+    } // class Entry
+
+} // class BoundedXMLGrammarPool
@@ -0,0 +1,448 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Symbol table that may be shared by many parsers running concurrently
+ * without a lock on the lookup path.
+ * <p>
+ * Unlike {@link SynchronizedSymbolTable}, which takes a monitor on every
+ * call, lookups in this table only read volatile state, and a new symbol
+ * is published by a compare-and-set on the head of its bucket. Bucket
+ * chains are immutable, so a reader walking a chain is never disturbed
+ * by a concurrent insert. When the table grows, the buckets of the old
+ * table are closed one at a time with forwarding markers; only threads
+ * that reach a closed bucket wait on the resize lock, and then continue
+ * in the new table.
+ * <p>
+ * Like {@link SymbolTable}, the table protects itself against symbols
+ * chosen to collide: once a bucket holds too many symbols, the table is
+ * rebuilt with a hash function using randomly chosen multipliers. The
+ * multipliers belong to the table they were chosen for, so a thread
+ * always hashes with the function of the buckets it reads.
+ * <p>
+ * The interning contract is the same as for {@link SymbolTable}: the
+ * returned symbols are <code>String.intern()</code>ed, so all threads
+ * receive the same reference for equal symbols. The class extends
+ * <code>SynchronizedSymbolTable</code> so that it can be used wherever
+ * one is declared, but it does not wrap another table.
+ *
+ * @author CodeLibs Project
+ */
+public final class ConcurrentSymbolTable extends SynchronizedSymbolTable {
+
+    //
+    // Constants
+    //
+
+    /** Maximum table size. */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    //
+    // Data
+    //
+
+    /** Current table. */
+    private volatile Table fTable;
+
+    /** Number of symbols in the table. */
+    private final AtomicInteger fSize = new AtomicInteger();
+
+    /** Lock held while the table is being rebuilt. */
+    private final Object fResizeLock = new Object();
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Constructs a concurrent symbol table of default size.
+     */
+    public ConcurrentSymbolTable() {
+        this(TABLE_SIZE);
+    } // <init>()
+
+    /**
+     * Constructs a concurrent symbol table of the given size.
+     *
+     * @param size the initial size of the symbol table
+     */
+    public ConcurrentSymbolTable(int size) {
+        super((SymbolTable) null);
+        // every method is overridden; nothing is delegated
+        fSymbolTable = this;
+        if (size < 0) {
+            throw new IllegalArgumentException("Illegal Capacity: " + size);
+        }
+        int capacity = 1;
+        while (capacity < size && capacity < MAXIMUM_CAPACITY) {
+            capacity <<= 1;
+        }
+        fTable = new Table(capacity, null);
+    } // <init>(int)
+
+    //
+    // SymbolTable methods
+    //
+
+    /**
+     * Adds the specified symbol to the symbol table and returns a
+     * reference to the unique symbol. If the symbol already exists,
+     * the previous symbol reference is returned instead, in order
+     * guarantee that symbol references remain unique.
+     *
+     * @param symbol The new symbol.
+     */
+    public String addSymbol(String symbol) {
+        Table table = fTable;
+        boolean rebalanced = false;
+        while (true) {
+            final int hash = table.hash(symbol);
+            final int bucket = hash & (table.buckets.length() - 1);
+            final Node head = table.buckets.get(bucket);
+            if (head instanceof Forward) {
+                table = awaitResize();
+                continue;
+            }
+            final Node found = find(head, symbol);
+            if (found != null) {
+                return found.symbol;
+            }
+            if (!rebalanced && length(head) >= fCollisionThreshold) {
+                table = rebalance(table);
+                rebalanced = true;
+                continue;
+            }
+            final Node node = new Node(hash, symbol.intern(), head);
+            if (table.buckets.compareAndSet(bucket, head, node)) {
+                added(table);
+                return node.symbol;
+            }
+        }
+    } // addSymbol(String):String
+
+    /**
+     * Adds the specified symbol to the symbol table and returns a
+     * reference to the unique symbol. If the symbol already exists,
+     * the previous symbol reference is returned instead, in order
+     * guarantee that symbol references remain unique.
+     *
+     * @param buffer The buffer containing the new symbol.
+     * @param offset The offset into the buffer of the new symbol.
+     * @param length The length of the new symbol in the buffer.
+     */
+    public String addSymbol(char[] buffer, int offset, int length) {
+        Table table = fTable;
+        boolean rebalanced = false;
+        while (true) {
+            final int hash = table.hash(buffer, offset, length);
+            final int bucket = hash & (table.buckets.length() - 1);
+            final Node head = table.buckets.get(bucket);
+            if (head instanceof Forward) {
+                table = awaitResize();
+                continue;
+            }
+            final Node found = find(head, buffer, offset, length);
+            if (found != null) {
+                return found.symbol;
+            }
+            if (!rebalanced && length(head) >= fCollisionThreshold) {
+                table = rebalance(table);
+                rebalanced = true;
+                continue;
+            }
+            final Node node = new Node(hash, new String(buffer, offset, length).intern(), head);
+            if (table.buckets.compareAndSet(bucket, head, node)) {
+                added(table);
+                return node.symbol;
+            }
+        }
+    } // addSymbol(char[],int,int):String
+
+    /**
+     * Returns a hashcode value for the specified symbol, computed with
+     * the hash function of the current table.
+     *
+     * @param symbol The symbol to hash.
+     */
+    public int hash(String symbol) {
+        return fTable.hash(symbol);
+    } // hash(String):int
+
+    /**
+     * Returns a hashcode value for the specified symbol, computed with
+     * the hash function of the current table.
+     *
+     * @param buffer The character buffer containing the symbol.
+     * @param offset The offset into the character buffer of the start
+     *               of the symbol.
+     * @param length The length of the symbol.
+     */
+    public int hash(char[] buffer, int offset, int length) {
+        return fTable.hash(buffer, offset, length);
+    } // hash(char[],int,int):int
+
+    /**
+     * Returns true if the symbol table already contains the specified
+     * symbol.
+     *
+     * @param symbol The symbol to look for.
+     */
+    public boolean containsSymbol(String symbol) {
+        Table table = fTable;
+        while (true) {
+            final Node head = table.buckets.get(table.hash(symbol) & (table.buckets.length() - 1));
+            if (head instanceof Forward) {
+                table = awaitResize();
+                continue;
+            }
+            return find(head, symbol) != null;
+        }
+    } // containsSymbol(String):boolean
+
+    /**
+     * Returns true if the symbol table already contains the specified
+     * symbol.
+     *
+     * @param buffer The buffer containing the symbol to look for.
+     * @param offset The offset into the buffer.
+     * @param length The length of the symbol in the buffer.
+     */
+    public boolean containsSymbol(char[] buffer, int offset, int length) {
+        Table table = fTable;
+        while (true) {
+            final Node head = table.buckets.get(table.hash(buffer, offset, length) & (table.buckets.length() - 1));
+            if (head instanceof Forward) {
+                table = awaitResize();
+                continue;
+            }
+            return find(head, buffer, offset, length) != null;
+        }
+    } // containsSymbol(char[],int,int):boolean
+
+    //
+    // Private methods
+    //
+
+    /** Searches a bucket chain for the given symbol. */
+    private static Node find(Node node, String symbol) {
+        final int length = symbol.length();
+        OUTER: for (; node != null; node = node.next) {
+            final char[] characters = node.characters;
+            if (length == characters.length) {
+                for (int i = 0; i < length; i++) {
+                    if (symbol.charAt(i) != characters[i]) {
+                        continue OUTER;
+                    }
+                }
+                return node;
+            }
+        }
+        return null;
+    } // find(Node,String):Node
+
+    /** Searches a bucket chain for the given symbol characters. */
+    private static Node find(Node node, char[] buffer, int offset, int length) {
+        OUTER: for (; node != null; node = node.next) {
+            final char[] characters = node.characters;
+            if (length == characters.length) {
+                for (int i = 0; i < length; i++) {
+                    if (buffer[offset + i] != characters[i]) {
+                        continue OUTER;
+                    }
+                }
+                return node;
+            }
+        }
+        return null;
+    } // find(Node,char[],int,int):Node
+
+    /** Returns the number of symbols in a bucket chain. */
+    private static int length(Node node) {
+        int length = 0;
+        for (; node != null; node = node.next) {
+            length++;
+        }
+        return length;
+    } // length(Node):int
+
+    /**
+     * Counts a newly published symbol and grows the table once it is
+     * loaded beyond three quarters of its capacity.
+     */
+    private void added(Table table) {
+        final int size = fSize.incrementAndGet();
+        final int capacity = table.buckets.length();
+        if (size > capacity - (capacity >>> 2) && capacity < MAXIMUM_CAPACITY) {
+            synchronized (fResizeLock) {
+                // unless another thread has already replaced this table
+                if (fTable == table) {
+                    fTable = transfer(table, new Table(capacity << 1, table.multipliers));
+                }
+            }
+        }
+    } // added(Table)
+
+    /**
+     * Rebuilds the given table with a new, randomly chosen hash function
+     * after too many symbols collided in one bucket, and returns the
+     * current table.
+     */
+    private Table rebalance(Table table) {
+        synchronized (fResizeLock) {
+            if (fTable == table) {
+                final int[] multipliers = new int[MULTIPLIERS_SIZE];
+                PrimeNumberSequenceGenerator.generateSequence(multipliers);
+                fTable = transfer(table, new Table(table.buckets.length(), multipliers));
+            }
+            return fTable;
+        }
+    } // rebalance(Table):Table
+
+    /**
+     * Moves every bucket of the given table into the new table; the
+     * caller holds the resize lock. Each old bucket is closed with a
+     * forwarding marker, so an insert that loses the race against the
+     * marker retries in the new table and is never lost. The new table
+     * must only be published once it is complete.
+     */
+    private static Table transfer(Table table, Table next) {
+        final AtomicReferenceArray<Node> buckets = table.buckets;
+        final AtomicReferenceArray<Node> nextBuckets = next.buckets;
+        final Node forward = new Forward();
+        final int mask = nextBuckets.length() - 1;
+        for (int i = 0; i < buckets.length(); i++) {
+            Node head;
+            do {
+                head = buckets.get(i);
+            } while (!buckets.compareAndSet(i, head, forward));
+            // chains are immutable; copy the entries into the new table
+            for (Node node = head; node != null; node = node.next) {
+                final int hash = next.multipliers == table.multipliers ? node.hash : next.hash(node.symbol);
+                final int bucket = hash & mask;
+                nextBuckets.set(bucket, new Node(hash, node.symbol, node.characters, nextBuckets.get(bucket)));
+            }
+        }
+        return next;
+    } // transfer(Table,Table):Table
+
+    /**
+     * Waits for the rebuild that closed a bucket to complete and returns
+     * the new table.
+     */
+    private Table awaitResize() {
+        synchronized (fResizeLock) {
+            return fTable;
+        }
+    } // awaitResize():Table
+
+    //
+    // Classes
+    //
+
+    /**
+     * Buckets together with the hash function used to fill them.
+     */
+    private static final class Table {
+
+        /** The buckets. */
+        final AtomicReferenceArray<Node> buckets;
+
+        /** Hash multipliers, or null for the default hash function. */
+        final int[] multipliers;
+
+        Table(int capacity, int[] multipliers) {
+            this.buckets = new AtomicReferenceArray<>(capacity);
+            this.multipliers = multipliers;
+        }
+
+        /** Hashes a symbol like {@link SymbolTable#hash(String)}. */
+        int hash(String symbol) {
+            if (multipliers == null) {
+                return symbol.hashCode() & 0x7FFFFFFF;
+            }
+            int code = 0;
+            final int length = symbol.length();
+            for (int i = 0; i < length; ++i) {
+                code = code * multipliers[i & MULTIPLIERS_MASK] + symbol.charAt(i);
+            }
+            return code & 0x7FFFFFFF;
+        }
+
+        /** Hashes a symbol like {@link SymbolTable#hash(char[],int,int)}. */
+        int hash(char[] buffer, int offset, int length) {
+            int code = 0;
+            if (multipliers == null) {
+                for (int i = 0; i < length; ++i) {
+                    code = code * 31 + buffer[offset + i];
+                }
+            } else {
+                for (int i = 0; i < length; ++i) {
+                    code = code * multipliers[i & MULTIPLIERS_MASK] + buffer[offset + i];
+                }
+            }
+            return code & 0x7FFFFFFF;
+        }
+
+    } // class Table
+
+    /**
+     * Immutable bucket chain node.
+     */
+    private static class Node {
+
+        /** Hash code of the symbol. */
+        final int hash;
+
+        /** Interned symbol. */
+        final String symbol;
+
+        /** Symbol characters, duplicated here for comparison performance. */
+        final char[] characters;
+
+        /** The next node in the chain. */
+        final Node next;
+
+        Node(int hash, String symbol, Node next) {
+            this(hash, symbol, symbol.toCharArray(), next);
+        }
+
+        Node(int hash, String symbol, char[] characters, Node next) {
+            this.hash = hash;
+            this.symbol = symbol;
+            this.characters = characters;
+            this.next = next;
+        }
+
+    } // class Node
+
+    /**
+     * Marks a bucket that has been moved to a new table.
+     */
+    private static final class Forward extends Node {
+
+        Forward() {
+            super(0, null, new char[0], null);
+        }
+
+    } // class Forward
+
+} // class ConcurrentSymbolTable
@@ -0,0 +1,406 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.util;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.codelibs.xerces.xni.grammars.Grammar;
+import org.codelibs.xerces.xni.grammars.XMLGrammarDescription;
+
+/**
+ * Grammar pool that may be shared by many parsers and validators running
+ * concurrently, and that never blocks a lookup.
+ * <p>
+ * Grammars are keyed in the same way as in {@link XMLGrammarPoolImpl}.
+ * The pool state is an immutable snapshot held in a volatile field, so
+ * <code>retrieveGrammar</code> and <code>retrieveInitialGrammarSet</code>
+ * take no lock. Writers serialize on a lock and publish a new snapshot
+ * (copy-on-write), which suits pools that are loaded once and then read
+ * on every validation.
+ * <p>
+ * As with <code>XMLGrammarPoolImpl</code>, no new grammars are accepted
+ * while the pool is locked.
+ * <p>
+ * The class extends <code>XMLGrammarPoolImpl</code> so that it can be used
+ * wherever one is declared. Every public method is overridden; the
+ * inherited <code>fGrammars</code> table is left empty, and
+ * <code>fGrammarCount</code> is kept up to date by the writers.
+ *
+ * @author CodeLibs Project
+ */
+public class ConcurrentXMLGrammarPool extends XMLGrammarPoolImpl {
+
+    //
+    // Constants
+    //
+
+    /** Default size. */
+    protected static final int TABLE_SIZE = 16;
+
+    /** Empty grammar array. */
+    private static final Grammar[] NO_GRAMMARS = new Grammar[0];
+
+    //
+    // Data
+    //
+
+    /** Current snapshot of the pool. */
+    private volatile Snapshot fSnapshot;
+
+    /** Lock serializing writers and guarding the inherited lock flag. */
+    private final Object fWriteLock = new Object();
+
+    //
+    // Constructors
+    //
+
+    /** Constructs a grammar pool with a default number of buckets. */
+    public ConcurrentXMLGrammarPool() {
+        this(TABLE_SIZE);
+    } // <init>()
+
+    /**
+     * Constructs a grammar pool with a specified number of buckets.
+     *
+     * @param initialCapacity The initial capacity of the grammar pool
+     */
+    public ConcurrentXMLGrammarPool(int initialCapacity) {
+        super(1); // the inherited table is not used
+        fSnapshot = new Snapshot(new Entry[Math.max(initialCapacity, 1)], NO_GRAMMARS);
+    } // <init>(int)
+
+    //
+    // XMLGrammarPool methods
+    //
+
+    /**
+     * Retrieves the initial known set of grammars of the given type.
+     *
+     * @param grammarType The type of the grammar, from the
+     *                    <code>XMLGrammarDescription</code> interface.
+     * @return The set of grammars the validator may put in its "bucket"
+     */
+    public Grammar[] retrieveInitialGrammarSet(String grammarType) {
+        final Grammar[] grammars = fSnapshot.grammars;
+        Grammar[] tempGrammars = new Grammar[grammars.length];
+        int pos = 0;
+        for (int i = 0; i < grammars.length; i++) {
+            if (grammars[i].getGrammarDescription().getGrammarType().equals(grammarType)) {
+                tempGrammars[pos++] = grammars[i];
+            }
+        }
+        if (pos == tempGrammars.length) {
+            return tempGrammars;
+        }
+        Grammar[] toReturn = new Grammar[pos];
+        System.arraycopy(tempGrammars, 0, toReturn, 0, pos);
+        return toReturn;
+    } // retrieveInitialGrammarSet(String):Grammar[]
+
+    /**
+     * Caches the given grammars unless the pool is locked. A single
+     * snapshot containing all of them is published.
+     *
+     * @param grammarType The type of the grammars being returned.
+     * @param grammars    The grammars to cache.
+     */
+    public void cacheGrammars(String grammarType, Grammar[] grammars) {
+        synchronized (fWriteLock) {
+            if (!fPoolIsLocked) {
+                put(grammars);
+            }
+        }
+    } // cacheGrammars(String,Grammar[])
+
+    /**
+     * Returns the grammar matching the given description, or null if no
+     * such grammar is known.
+     *
+     * @param desc The description of the grammar being requested.
+     * @return The grammar corresponding to this description, or null.
+     */
+    public Grammar retrieveGrammar(XMLGrammarDescription desc) {
+        return getGrammar(desc);
+    } // retrieveGrammar(XMLGrammarDescription):Grammar
+
+    /** Sets this grammar pool to a "locked" state. */
+    public void lockPool() {
+        synchronized (fWriteLock) {
+            fPoolIsLocked = true;
+        }
+    } // lockPool()
+
+    /** Sets this grammar pool to an "unlocked" state. */
+    public void unlockPool() {
+        synchronized (fWriteLock) {
+            fPoolIsLocked = false;
+        }
+    } // unlockPool()
+
+    /** Removes all grammars from the pool. */
+    public void clear() {
+        synchronized (fWriteLock) {
+            fSnapshot = new Snapshot(new Entry[fSnapshot.buckets.length], NO_GRAMMARS);
+            fGrammarCount = 0;
+        }
+    } // clear()
+
+    //
+    // Public methods
+    //
+
+    /**
+     * Puts the specified grammar into the grammar pool unless the pool
+     * is locked. A grammar with an equal description is replaced.
+     *
+     * @param grammar The grammar.
+     */
+    public void putGrammar(Grammar grammar) {
+        synchronized (fWriteLock) {
+            if (!fPoolIsLocked) {
+                put(new Grammar[] { grammar });
+            }
+        }
+    } // putGrammar(Grammar)
+
+    /**
+     * Returns the grammar associated to the specified grammar description.
+     *
+     * @param desc The grammar description.
+     * @return The grammar associated with the given description, or null if not found
+     */
+    public Grammar getGrammar(XMLGrammarDescription desc) {
+        final Entry entry = find(fSnapshot.buckets, desc);
+        return entry != null ? entry.grammar : null;
+    } // getGrammar(XMLGrammarDescription):Grammar
+
+    /**
+     * Removes the grammar associated to the specified grammar description
+     * from the grammar pool.
+     *
+     * @param desc The grammar description.
+     * @return The removed grammar, or null if not found
+     */
+    public Grammar removeGrammar(XMLGrammarDescription desc) {
+        synchronized (fWriteLock) {
+            final Snapshot snapshot = fSnapshot;
+            final Entry entry = find(snapshot.buckets, desc);
+            if (entry == null) {
+                return null;
+            }
+            final Entry[] buckets = snapshot.buckets.clone();
+            final int index = (entry.hash & 0x7FFFFFFF) % buckets.length;
+            buckets[index] = without(buckets[index], entry);
+            final Grammar[] grammars = new Grammar[snapshot.grammars.length - 1];
+            for (int i = 0, pos = 0; i < snapshot.grammars.length; i++) {
+                if (snapshot.grammars[i] != entry.grammar) {
+                    grammars[pos++] = snapshot.grammars[i];
+                }
+            }
+            fSnapshot = new Snapshot(buckets, grammars);
+            fGrammarCount = grammars.length;
+            return entry.grammar;
+        }
+    } // removeGrammar(XMLGrammarDescription):Grammar
+
+    /**
+     * Returns true if the grammar pool contains a grammar associated
+     * to the specified grammar description.
+     *
+     * @param desc The grammar description.
+     * @return true if the grammar pool contains the specified grammar, false otherwise
+     */
+    public boolean containsGrammar(XMLGrammarDescription desc) {
+        return find(fSnapshot.buckets, desc) != null;
+    } // containsGrammar(XMLGrammarDescription):boolean
+
+    /**
+     * Returns the number of grammars in the pool.
+     *
+     * @return the number of grammars
+     */
+    public int getGrammarCount() {
+        return fSnapshot.grammars.length;
+    } // getGrammarCount():int
+
+    /**
+     * Checks whether two grammar descriptions identify the same grammar.
+     * The application can override this behaviour and add its own logic.
+     *
+     * @param desc1 The grammar description
+     * @param desc2 The grammar description of the grammar to be compared to
+     * @return True if the grammars are equal, otherwise false
+     */
+    public boolean equals(XMLGrammarDescription desc1, XMLGrammarDescription desc2) {
+        return desc1.equals(desc2);
+    }
+
+    /**
+     * Returns the hash code value for the given grammar description.
+     *
+     * @param desc The grammar description
+     * @return The hash code value
+     */
+    public int hashCode(XMLGrammarDescription desc) {
+        return desc.hashCode();
+    }
+
+    //
+    // Private methods
+    //
+
+    /** Looks up the entry for a description in the given buckets. */
+    private Entry find(Entry[] buckets, XMLGrammarDescription desc) {
+        final int hash = hashCode(desc);
+        for (Entry entry = buckets[(hash & 0x7FFFFFFF) % buckets.length]; entry != null; entry = entry.next) {
+            if (entry.hash == hash && equals(entry.desc, desc)) {
+                return entry;
+            }
+        }
+        return null;
+    } // find(Entry[],XMLGrammarDescription):Entry
+
+    /**
+     * Publishes one snapshot containing the given grammars, copying the
+     * current snapshot only once; the caller holds the write lock.
+     */
+    private void put(Grammar[] added) {
+        final Snapshot snapshot = fSnapshot;
+        Entry[] buckets = null;
+        Grammar[] grammars = snapshot.grammars;
+        int count = grammars.length;
+        // positions of the grammars, built on the first replacement
+        Map<Grammar, Integer> positions = null;
+        for (int i = 0; i < added.length; i++) {
+            final Grammar grammar = added[i];
+            final XMLGrammarDescription desc = grammar.getGrammarDescription();
+            final int hash = hashCode(desc);
+            final Entry existing = find(buckets != null ? buckets : snapshot.buckets, desc);
+            if (existing != null && existing.grammar == grammar) {
+                continue;
+            }
+            if (buckets == null) {
+                buckets = snapshot.buckets.clone();
+                grammars = new Grammar[count + added.length - i];
+                System.arraycopy(snapshot.grammars, 0, grammars, 0, count);
+            }
+            final int index = (hash & 0x7FFFFFFF) % buckets.length;
+            if (existing != null) {
+                buckets[index] = new Entry(hash, desc, grammar, without(buckets[index], existing));
+                if (positions == null) {
+                    positions = new IdentityHashMap<>();
+                    for (int j = 0; j < count; j++) {
+                        positions.put(grammars[j], Integer.valueOf(j));
+                    }
+                }
+                final Integer position = positions.remove(existing.grammar);
+                grammars[position.intValue()] = grammar;
+                positions.put(grammar, position);
+                continue;
+            }
+            buckets[index] = new Entry(hash, desc, grammar, buckets[index]);
+            if (positions != null) {
+                positions.put(grammar, Integer.valueOf(count));
+            }
+            grammars[count++] = grammar;
+            if (count > buckets.length - (buckets.length >> 2)) {
+                buckets = rehash(buckets);
+            }
+        }
+        if (buckets != null) {
+            if (count < grammars.length) {
+                final Grammar[] trimmed = new Grammar[count];
+                System.arraycopy(grammars, 0, trimmed, 0, count);
+                grammars = trimmed;
+            }
+            fSnapshot = new Snapshot(buckets, grammars);
+            fGrammarCount = count;
+        }
+    } // put(Grammar[])
+
+    /** Returns the entries in a table of twice the size. */
+    private static Entry[] rehash(Entry[] buckets) {
+        final Entry[] newBuckets = new Entry[buckets.length << 1];
+        for (int i = 0; i < buckets.length; i++) {
+            for (Entry entry = buckets[i]; entry != null; entry = entry.next) {
+                final int index = (entry.hash & 0x7FFFFFFF) % newBuckets.length;
+                newBuckets[index] = new Entry(entry.hash, entry.desc, entry.grammar, newBuckets[index]);
+            }
+        }
+        return newBuckets;
+    } // rehash(Entry[]):Entry[]
+
+    /** Returns a copy of the chain without the given entry. */
+    private static Entry without(Entry chain, Entry removed) {
+        if (chain == removed) {
+            return chain.next;
+        }
+        return new Entry(chain.hash, chain.desc, chain.grammar, without(chain.next, removed));
+    } // without(Entry,Entry):Entry
+
+    //
+    // Classes
+    //
+
+    /**
+     * Immutable state of the pool.
+     */
+    private static final class Snapshot {
+
+        /** Hash buckets. */
+        final Entry[] buckets;
+
+        /** All grammars, in the order they were added. */
+        final Grammar[] grammars;
+
+        Snapshot(Entry[] buckets, Grammar[] grammars) {
+            this.buckets = buckets;
+            this.grammars = grammars;
+        }
+
+    } // class Snapshot
+
+    /**
+     * Immutable grammar pool entry. Each entry acts as a node in a
+     * linked list.
+     */
+    private static final class Entry {
+
+        /** Hash code for this entry. */
+        final int hash;
+
+        /** Grammar description. */
+        final XMLGrammarDescription desc;
+
+        /** Grammar object. */
+        final Grammar grammar;
+
+        /** Next entry in the hash chain. */
+        final Entry next;
+
+        Entry(int hash, XMLGrammarDescription desc, Grammar grammar, Entry next) {
+            this.hash = hash;
+            this.desc = desc;
+            this.grammar = grammar;
+            this.next = next;
+        }
+
+    } // class Entry
+
+} // class ConcurrentXMLGrammarPool
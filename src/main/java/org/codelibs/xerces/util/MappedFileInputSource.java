@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codelibs.xerces.util;
+
+import java.io.File;
+
+import org.codelibs.xerces.impl.io.MappedFileInputStream;
+import org.codelibs.xerces.xni.parser.XMLInputSource;
+
+/**
+ * This class represents an input source for a local file which
+ * the entity manager reads through a memory mapping instead of a
+ * file input stream. This avoids a read system call for every
+ * buffer load and is intended for very large documents; the bytes
+ * are still copied into the scanner's buffers. If a byte
+ * or character stream is set on this input source it takes
+ * precedence and the file is not mapped.
+ *
+ * @author CodeLibs Project
+ */
+public final class MappedFileInputSource extends XMLInputSource {
+
+    //
+    // Data
+    //
+
+    /** The file to map. **/
+    private final File fFile;
+
+    /** The number of bytes mapped at a time. **/
+    private int fWindowSize = MappedFileInputStream.DEFAULT_WINDOW_SIZE;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Constructs an input source for a local file.
+     *
+     * @param publicId The public identifier, if known.
+     * @param file     The file. Its URI is used as the system identifier.
+     */
+    public MappedFileInputSource(String publicId, File file) {
+        this(publicId, file, null);
+    } // <init>(String,File)
+
+    /**
+     * Constructs an input source for a local file.
+     *
+     * @param publicId The public identifier, if known.
+     * @param file     The file. Its URI is used as the system identifier.
+     * @param encoding The encoding of the file, if known.
+     */
+    public MappedFileInputSource(String publicId, File file, String encoding) {
+        super(publicId, file.getAbsoluteFile().toURI().toString(), null);
+        fFile = file;
+        setEncoding(encoding);
+    } // <init>(String,File,String)
+
+    //
+    // Public methods
+    //
+
+    /**
+     * Returns the file to map.
+     *
+     * @return the file
+     */
+    public File getFile() {
+        return fFile;
+    } // getFile():File
+
+    /**
+     * Returns the number of bytes mapped at a time.
+     *
+     * @return the window size
+     */
+    public int getWindowSize() {
+        return fWindowSize;
+    } // getWindowSize():int
+
+    /**
+     * Sets the number of bytes mapped at a time. Larger windows
+     * reduce the number of mappings made for very large files.
+     * Sizes below 4 KB are rounded up.
+     *
+     * @param windowSize the window size
+     */
+    public void setWindowSize(int windowSize) {
+        fWindowSize = windowSize;
+    } // setWindowSize(int)
+
+} // class MappedFileInputSource
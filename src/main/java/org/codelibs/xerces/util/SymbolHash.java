@@ -17,6 +17,8 @@
 
 package org.codelibs.xerces.util;
 
+import java.io.Serializable;
+
 /**
  * This class is an unsynchronized hash table primarily used for String
  * to Object mapping.
@@ -26,7 +28,10 @@ package org.codelibs.xerces.util;
  * @author Elena Litani
  * @version $Id: SymbolHash.java 1867092 2019-09-18 03:54:53Z mukulg $
  */
-public class SymbolHash {
+public class SymbolHash implements Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 4281476226264091154L;
 
     //
     // Constants
@@ -303,7 +308,11 @@ public class SymbolHash {
      * This class is a key table entry. Each entry acts as a node
      * in a linked list.
      */
-    protected static final class Entry {
+    protected static final class Entry implements Serializable {
+
+        /** Serialization version. */
+        private static final long serialVersionUID = 3229333854863639806L;
+
         // key/value
         /** The key for this entry. */
         public Object key;
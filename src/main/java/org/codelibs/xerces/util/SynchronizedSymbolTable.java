@@ -22,12 +22,14 @@ package org.codelibs.xerces.util;
  *
  * This class moved into the util package since it's needed by multiple
  * other classes (CachingParserPool, XMLGrammarCachingConfiguration).
+ * {@link ConcurrentSymbolTable} extends it to stand in where a
+ * synchronized symbol table is declared.
  *
  * @author Andy Clark, IBM
  * @version $Id: SynchronizedSymbolTable.java 447241 2006-09-18 05:12:57Z mrglavas $
  */
 
-public final class SynchronizedSymbolTable extends SymbolTable {
+public class SynchronizedSymbolTable extends SymbolTable {
 
     //
     // Data
@@ -29,6 +29,9 @@ import org.codelibs.xerces.impl.XMLEntityDescription;
  */
 public class XMLEntityDescriptionImpl extends XMLResourceIdentifierImpl implements XMLEntityDescription {
 
+    /** Serialization version. */
+    private static final long serialVersionUID = -8183300221065388974L;
+
     //
     // Constructors
     //
@@ -17,6 +17,8 @@
 
 package org.codelibs.xerces.util;
 
+import java.io.Serializable;
+
 import org.codelibs.xerces.xni.XMLResourceIdentifier;
 
 /**
@@ -28,7 +30,10 @@ import org.codelibs.xerces.xni.XMLResourceIdentifier;
  *
  * @version $Id: XMLResourceIdentifierImpl.java 447241 2006-09-18 05:12:57Z mrglavas $
  */
-public class XMLResourceIdentifierImpl implements XMLResourceIdentifier {
+public class XMLResourceIdentifierImpl implements XMLResourceIdentifier, Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = -7969417998864628576L;
 
     //
     // Data
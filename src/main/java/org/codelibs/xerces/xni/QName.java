@@ -17,6 +17,8 @@
 
 package org.codelibs.xerces.xni;
 
+import java.io.Serializable;
+
 /**
  * A structure that holds the components of an XML Namespaces qualified
  * name.
@@ -29,7 +31,10 @@ package org.codelibs.xerces.xni;
  *
  * @version $Id: QName.java 447247 2006-09-18 05:23:52Z mrglavas $
  */
-public class QName implements Cloneable {
+public class QName implements Cloneable, Serializable {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = -7416455984266705325L;
 
     //
     // Data
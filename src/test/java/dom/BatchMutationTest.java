@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codelibs.xerces.dom.DocumentImpl;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Element;
+import org.w3c.dom.events.EventTarget;
+import org.w3c.dom.ranges.Range;
+import org.w3c.dom.traversal.NodeFilter;
+import org.w3c.dom.traversal.NodeIterator;
+
+/**
+ * Tests that batches of changes suppress the notifications to ranges,
+ * node iterators and mutation event listeners, and fix these up at the
+ * end.
+ */
+public class BatchMutationTest {
+
+    @Test
+    public void testMutationEvents() {
+        DocumentImpl doc = new DocumentImpl();
+        Element root = doc.createElement("root");
+        doc.appendChild(root);
+        final List<String> events = new ArrayList<>();
+        ((EventTarget) doc).addEventListener("DOMNodeInserted", evt -> events.add(evt.getType()), false);
+        ((EventTarget) doc).addEventListener("DOMSubtreeModified", evt -> events.add(evt.getType()), false);
+
+        doc.beginBatch();
+        doc.beginBatch();
+        for (int i = 0; i < 100; i++) {
+            root.appendChild(doc.createElement("item")).appendChild(doc.createTextNode("text"));
+        }
+        doc.endBatch();
+        assertTrue(doc.inBatch());
+        assertEquals(0, events.size());
+        doc.endBatch();
+        assertFalse(doc.inBatch());
+        assertEquals("[DOMSubtreeModified]", events.toString());
+        assertTrue(doc.getSuppressedNotificationCount() >= 200);
+
+        events.clear();
+        root.appendChild(doc.createElement("item"));
+        assertEquals("[DOMNodeInserted, DOMSubtreeModified]", events.toString());
+    }
+
+    @Test
+    public void testRanges() {
+        DocumentImpl doc = new DocumentImpl();
+        Element root = doc.createElement("root");
+        doc.appendChild(root);
+        Element a = (Element) root.appendChild(doc.createElement("a"));
+        for (int i = 0; i < 5; i++) {
+            root.appendChild(doc.createElement("b"));
+        }
+        Range inner = doc.createRange();
+        inner.selectNodeContents(a);
+        Range outer = doc.createRange();
+        outer.setStart(root, 1);
+        outer.setEnd(root, 6);
+
+        doc.beginBatch();
+        root.removeChild(a);
+        root.removeChild(root.getLastChild());
+        root.removeChild(root.getLastChild());
+        doc.endBatch();
+
+        // the container is no longer in the document
+        assertSame(doc, inner.getStartContainer());
+        assertTrue(inner.getCollapsed());
+        // past the end of the container
+        assertSame(root, outer.getStartContainer());
+        assertEquals(1, outer.getStartOffset());
+        assertEquals(3, outer.getEndOffset());
+        assertTrue(doc.getSuppressedNotificationCount() > 0);
+    }
+
+    @Test
+    public void testIterators() {
+        DocumentImpl doc = new DocumentImpl();
+        Element root = doc.createElement("root");
+        doc.appendChild(root);
+        Element a = (Element) root.appendChild(doc.createElement("a"));
+        Element b = (Element) root.appendChild(doc.createElement("b"));
+        NodeIterator kept = doc.createNodeIterator(root, NodeFilter.SHOW_ELEMENT, null, true);
+        NodeIterator reset = doc.createNodeIterator(root, NodeFilter.SHOW_ELEMENT, null, true);
+        kept.nextNode();
+        reset.nextNode();
+        reset.nextNode();
+
+        doc.beginBatch();
+        root.removeChild(a);
+        doc.endBatch();
+
+        assertSame(b, kept.nextNode());
+        assertSame(root, reset.nextNode());
+    }
+
+    @Test
+    public void testUnbalancedEnd() {
+        DocumentImpl doc = new DocumentImpl();
+        DOMException e = assertThrows(DOMException.class, () -> doc.endBatch());
+        assertEquals(DOMException.INVALID_STATE_ERR, e.code);
+    }
+
+} // class BatchMutationTest
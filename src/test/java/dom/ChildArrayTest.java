@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.codelibs.xerces.dom.CoreDocumentImpl;
+import org.codelibs.xerces.dom.DocumentImpl;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.DocumentFragment;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Tests that positional access to the children of a node gives the same
+ * results when the children are also held in an array.
+ */
+public class ChildArrayTest {
+
+    @Test
+    public void testRandomChanges() {
+        CoreDocumentImpl doc = new DocumentImpl();
+        doc.setChildArrayThreshold(8);
+        Element root = doc.createElement("root");
+        doc.appendChild(root);
+        NodeList children = root.getChildNodes();
+        Random random = new Random(42);
+        for (int step = 0; step < 5000; step++) {
+            int length = children.getLength();
+            int op = random.nextInt(10);
+            if (op < 3 || length == 0) {
+                root.appendChild(doc.createElement("e" + step));
+            } else if (op < 4) {
+                root.insertBefore(doc.createElement("e" + step), root.getFirstChild());
+            } else if (op < 6) {
+                root.insertBefore(doc.createTextNode("t" + step), children.item(random.nextInt(length)));
+            } else if (op < 8) {
+                root.removeChild(children.item(random.nextInt(length)));
+            } else if (op < 9) {
+                root.replaceChild(doc.createComment("c" + step), children.item(random.nextInt(length)));
+            } else {
+                DocumentFragment fragment = doc.createDocumentFragment();
+                fragment.appendChild(doc.createElement("f1"));
+                fragment.appendChild(doc.createElement("f2"));
+                root.insertBefore(fragment, random.nextBoolean() ? null : children.item(random.nextInt(length)));
+            }
+            if (step % 7 == 0) {
+                // moves a child within the same parent
+                root.insertBefore(root.getLastChild(), children.item(random.nextInt(children.getLength())));
+            }
+            assertSameChildren(root);
+        }
+    }
+
+    @Test
+    public void testChangesBetweenLookups() {
+        CoreDocumentImpl doc = new DocumentImpl();
+        doc.setChildArrayThreshold(8);
+        Element root = doc.createElement("root");
+        doc.appendChild(root);
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            nodes.add(root.appendChild(doc.createElement("e" + i)));
+        }
+        assertEquals(2000, root.getChildNodes().getLength());
+        Random random = new Random(7);
+        for (int round = 0; round < 5; round++) {
+            // removes in random order, with lookups only at the end
+            for (int i = 0; i < 300; i++) {
+                root.removeChild(nodes.remove(random.nextInt(nodes.size())));
+            }
+            assertEquals(nodes.size(), root.getChildNodes().getLength());
+            // reuses slots freed in the middle where possible
+            for (int i = 0; i < 100; i++) {
+                Node ref = nodes.get(random.nextInt(nodes.size()));
+                nodes.add(nodes.indexOf(ref), root.insertBefore(doc.createElement("n" + round + "-" + i), ref));
+            }
+            assertSameChildren(root);
+            for (int i = 0; i < nodes.size(); i++) {
+                assertSame(nodes.get(i), root.getChildNodes().item(i));
+            }
+        }
+    }
+
+    @Test
+    public void testMiddleInserts() {
+        CoreDocumentImpl doc = new DocumentImpl();
+        doc.setChildArrayThreshold(8);
+        Element root = doc.createElement("root");
+        doc.appendChild(root);
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            nodes.add(root.appendChild(doc.createElement("e" + i)));
+        }
+        Random random = new Random(11);
+        for (int i = 0; i < 3000; i++) {
+            // no removed child leaves room, so children are shifted
+            int index = 1 + random.nextInt(nodes.size() - 1);
+            nodes.add(index, root.insertBefore(doc.createElement("n" + i), nodes.get(index)));
+            if (i % 100 == 0) {
+                assertSame(nodes.get(index), root.getChildNodes().item(index));
+            }
+        }
+        assertSameChildren(root);
+        for (int i = 0; i < nodes.size(); i++) {
+            assertSame(nodes.get(i), root.getChildNodes().item(i));
+        }
+    }
+
+    @Test
+    public void testFrozenDocument() {
+        CoreDocumentImpl doc = new DocumentImpl();
+        doc.setChildArrayThreshold(4);
+        Element root = doc.createElement("root");
+        doc.appendChild(root);
+        for (int i = 0; i < 100; i++) {
+            Element child = doc.createElement("e" + i);
+            root.appendChild(child);
+            child.appendChild(doc.createTextNode("t" + i));
+        }
+        doc.freeze();
+        assertSameChildren(root);
+        assertEquals(100, root.getChildNodes().getLength());
+        assertEquals("e57", root.getChildNodes().item(57).getNodeName());
+        assertNull(root.getChildNodes().item(100));
+        assertNull(root.getChildNodes().item(-1));
+        assertEquals(1, root.getFirstChild().getChildNodes().getLength());
+    }
+
+    private static void assertSameChildren(Node parent) {
+        NodeList children = parent.getChildNodes();
+        int i = 0;
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            assertSame(child, children.item(i++));
+        }
+        assertEquals(i, children.getLength());
+        assertNull(children.item(i));
+        // backwards, as a different pattern
+        for (Node child = parent.getLastChild(); child != null; child = child.getPreviousSibling()) {
+            assertSame(child, children.item(--i));
+        }
+    }
+
+} // class ChildArrayTest
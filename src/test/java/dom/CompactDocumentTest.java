@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dom;
+
+import static dom.util.DocumentHelper.assertModificationRejected;
+import static dom.util.DocumentHelper.describe;
+import static dom.util.DocumentHelper.document;
+import static dom.util.DocumentHelper.parse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.codelibs.xerces.dom.compact.CompactDocument;
+import org.codelibs.xerces.parsers.CompactDOMParser;
+import org.codelibs.xerces.xni.parser.XMLInputSource;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.Text;
+
+/**
+ * Tests that a compact document exposes the same tree as a regular
+ * document.
+ */
+public class CompactDocumentTest {
+
+    @Test
+    public void testSameTree() throws Exception {
+        String document = document(200);
+        CompactDocument compact = parseCompact(document);
+        Document regular = parse(document, false);
+        assertEquals(describe(regular), describe(compact));
+
+        assertEquals(regular.getElementsByTagName("item").getLength(), compact.getElementsByTagName("item").getLength());
+        assertEquals(200, compact.getElementsByTagNameNS("urn:d", "item").getLength());
+        assertEquals(0, compact.getElementsByTagNameNS(null, "item").getLength());
+        assertEquals(regular.getElementsByTagName("*").getLength(), compact.getElementsByTagName("*").getLength());
+        Element item = compact.getElementById("i150");
+        assertEquals("i150", item.getAttribute("id"));
+        assertEquals("plain", item.getAttribute("kind"));
+        assertTrue(!item.getAttributeNode("kind").getSpecified());
+        assertTrue(item.getAttributeNode("id").isId());
+        assertEquals("urn:d", item.getNamespaceURI());
+        assertEquals("urn:r", item.lookupNamespaceURI("r"));
+        assertEquals(item, item.getAttributeNode("id").getOwnerElement());
+        assertTrue(item.isSameNode(compact.getElementsByTagName("item").item(150)));
+        assertEquals(Node.DOCUMENT_POSITION_FOLLOWING | Node.DOCUMENT_POSITION_CONTAINED_BY,
+                compact.getDocumentElement().compareDocumentPosition(item));
+        assertEquals(regular.getDocumentElement().getTextContent(), compact.getDocumentElement().getTextContent());
+        assertEquals("urn:r", compact.getDocumentElement().getNamespaceURI());
+        assertEquals("r", compact.getDocumentElement().getPrefix());
+        assertEquals("root", compact.getDocumentElement().getLocalName());
+        assertEquals("1.0", compact.getXmlVersion());
+        assertEquals("UTF-8", compact.getXmlEncoding());
+
+        assertTrue(compact.getNodeCount() > 500);
+        assertEquals(602, compact.getAttributeCount());
+        assertTrue(compact.getAllocatedSize() > 0);
+    }
+
+    @Test
+    public void testModificationsRejected() throws Exception {
+        final CompactDocument doc = parseCompact(document(3));
+        final Element item = doc.getElementById("i1");
+        final Attr id = item.getAttributeNode("id");
+        final Text text = (Text) item.getFirstChild();
+
+        assertModificationRejected(() -> doc.createElement("x"));
+        assertModificationRejected(() -> item.appendChild(text));
+        assertModificationRejected(() -> item.removeChild(text));
+        assertModificationRejected(() -> item.setAttribute("id", "x"));
+        assertModificationRejected(() -> id.setValue("x"));
+        assertModificationRejected(() -> text.setData("x"));
+        assertModificationRejected(() -> item.setTextContent("x"));
+
+        // the tree can be copied into a regular document, without the
+        // default attributes
+        Document copy = parse("<copy/>", false);
+        Element imported = (Element) copy.importNode(item, true);
+        copy.getDocumentElement().appendChild(imported);
+        assertEquals(2, imported.getAttributes().getLength());
+        assertEquals("1", imported.getAttributeNS("urn:r", "n"));
+        assertEquals(item.getTextContent(), imported.getTextContent());
+        // application data is not part of the tree
+        item.setUserData("key", "value", null);
+        assertEquals("value", doc.getElementById("i1").getUserData("key"));
+        assertNull(id.getUserData("key"));
+    }
+
+    @Test
+    public void testConcurrentReads() throws Exception {
+        final CompactDocument doc = parseCompact(document(1000));
+        final String expected = describe(doc);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(executor.submit(() -> describe(doc)));
+            }
+            for (Future<String> result : results) {
+                assertEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static CompactDocument parseCompact(String document) throws Exception {
+        CompactDOMParser parser = new CompactDOMParser();
+        XMLInputSource source = new XMLInputSource(null, "test.xml", null);
+        source.setCharacterStream(new StringReader(document));
+        parser.parse(source);
+        return parser.getDocument();
+    }
+
+} // class CompactDocumentTest
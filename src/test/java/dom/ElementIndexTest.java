@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.codelibs.xerces.dom.CoreDocumentImpl;
+import org.codelibs.xerces.parsers.DOMParser;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.DocumentFragment;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+/**
+ * Tests that the element index answers element lookups like a walk of the
+ * tree, while the tree is modified.
+ */
+public class ElementIndexTest {
+
+    private static final String[] NAMES = { "a", "b", "p:c", "q:c" };
+
+    private static final String[] URIS = { null, "urn:x", "urn:x", "urn:y" };
+
+    @Test
+    public void testParsedDocument() throws Exception {
+        DOMParser parser = new DOMParser();
+        parser.setFeature("http://apache.org/xml/features/dom/create-entity-ref-nodes", true);
+        parser.parse(new InputSource(new StringReader("<!DOCTYPE r [<!ENTITY e '<a><b/></a>'>]>"
+                + "<r xmlns:p='urn:x'><a/>&e;<p:c><b/><a/></p:c><b><a/></b></r>")));
+        CoreDocumentImpl doc = (CoreDocumentImpl) parser.getDocument();
+        doc.setElementIndexing(true);
+        assertLookups(doc);
+        assertEquals(4, doc.getElementsByTagName("a").getLength());
+        Element c = (Element) doc.getElementsByTagNameNS("urn:x", "c").item(0);
+        assertEquals(2, c.getElementsByTagName("*").getLength());
+        assertEquals(0, c.getElementsByTagName("p:c").getLength());
+    }
+
+    @Test
+    public void testMutations() throws Exception {
+        Random random = new Random(42);
+        CoreDocumentImpl doc = (CoreDocumentImpl) new DOMParser() {
+            {
+                parse(new InputSource(new StringReader("<r/>")));
+            }
+        }.getDocument();
+        doc.setElementIndexing(true);
+        List<Element> elements = new ArrayList<>();
+        elements.add(doc.getDocumentElement());
+        NodeList live = doc.getElementsByTagName("a");
+        assertEquals(0, live.getLength());
+
+        for (int i = 0; i < 400; i++) {
+            Element target = elements.get(random.nextInt(elements.size()));
+            switch (random.nextInt(6)) {
+            case 0:
+            case 1: {
+                Element child = create(doc, random);
+                Node before = target.getChildNodes().item(random.nextInt(target.getChildNodes().getLength() + 1));
+                target.insertBefore(child, before);
+                elements.add(child);
+                break;
+            }
+            case 2: {
+                DocumentFragment fragment = doc.createDocumentFragment();
+                Element first = create(doc, random);
+                first.appendChild(create(doc, random));
+                fragment.appendChild(first);
+                fragment.appendChild(create(doc, random));
+                target.appendChild(fragment);
+                elements.addAll(List.of(first, (Element) first.getFirstChild(), (Element) first.getNextSibling()));
+                break;
+            }
+            case 3:
+                if (target != doc.getDocumentElement()) {
+                    target.getParentNode().removeChild(target);
+                    if (random.nextBoolean()) {
+                        // reinsert the subtree elsewhere
+                        elements.get(0).insertBefore(target, elements.get(0).getFirstChild());
+                    } else {
+                        elements.removeIf(e -> !isInDocument(doc, e));
+                    }
+                }
+                break;
+            case 4:
+                if (target != doc.getDocumentElement()) {
+                    int n = random.nextInt(NAMES.length);
+                    Element renamed = (Element) doc.renameNode(target, URIS[n], NAMES[n]);
+                    elements.set(elements.indexOf(target), renamed);
+                }
+                break;
+            default:
+                if (target.getNamespaceURI() != null) {
+                    target.setPrefix(random.nextBoolean() ? "p" : "z");
+                }
+                break;
+            }
+            if (i % 20 == 0) {
+                assertLookups(doc);
+            }
+        }
+        assertLookups(doc);
+        assertEquals(walk(doc, "a", null, false).size(), live.getLength());
+        Element any = elements.get(elements.size() - 1);
+        assertLookups(any);
+
+        doc.freeze();
+        assertLookups(doc);
+    }
+
+    @Test
+    public void testWideParent() throws Exception {
+        checkWideParent(0);
+    }
+
+    @Test
+    public void testWideParentWithChildArray() throws Exception {
+        checkWideParent(64);
+    }
+
+    private static void checkWideParent(int childArrayThreshold) throws Exception {
+        Random random = new Random(3);
+        CoreDocumentImpl doc = (CoreDocumentImpl) new DOMParser() {
+            {
+                parse(new InputSource(new StringReader("<r/>")));
+            }
+        }.getDocument();
+        doc.setChildArrayThreshold(childArrayThreshold);
+        doc.setElementIndexing(true);
+        Element root = doc.getDocumentElement();
+        for (int i = 0; i < 3000; i++) {
+            root.appendChild(create(doc, random));
+        }
+        assertLookups(doc);
+        NodeList children = root.getChildNodes();
+        for (int i = 0; i < 1000; i++) {
+            if (random.nextBoolean()) {
+                root.insertBefore(create(doc, random), children.item(random.nextInt(children.getLength())));
+            } else {
+                root.removeChild(children.item(random.nextInt(children.getLength())));
+            }
+        }
+        assertLookups(doc);
+        doc.freeze();
+        assertLookups(doc);
+    }
+
+    private static boolean isInDocument(Document doc, Node node) {
+        while (node != null && node != doc) {
+            node = node.getParentNode();
+        }
+        return node == doc;
+    }
+
+    private static Element create(Document doc, Random random) {
+        int n = random.nextInt(NAMES.length);
+        return n == 0 ? doc.createElement(NAMES[n]) : doc.createElementNS(URIS[n], NAMES[n]);
+    }
+
+    private static void assertLookups(Node root) {
+        String[][] queries = { { null, "a" }, { null, "b" }, { null, "p:c" }, { null, "*" }, { "urn:x", "c" }, { "urn:y", "c" },
+                { "*", "c" }, { "urn:x", "*" }, { "*", "*" }, { "", "*" }, { "", "a" } };
+        for (int i = 0; i < queries.length; i++) {
+            boolean ns = i >= 4;
+            NodeList list;
+            if (root.getNodeType() == Node.DOCUMENT_NODE) {
+                list = ns ? ((Document) root).getElementsByTagNameNS(queries[i][0], queries[i][1])
+                        : ((Document) root).getElementsByTagName(queries[i][1]);
+            } else {
+                list = ns ? ((Element) root).getElementsByTagNameNS(queries[i][0], queries[i][1])
+                        : ((Element) root).getElementsByTagName(queries[i][1]);
+            }
+            List<Node> expected = walk(root, queries[i][1], queries[i][0], ns);
+            assertEquals(expected.size(), list.getLength(), queries[i][0] + " " + queries[i][1]);
+            for (int j = 0; j < expected.size(); j++) {
+                assertSame(expected.get(j), list.item(j));
+            }
+        }
+    }
+
+    /** Finds the matching descendants by walking the tree. */
+    private static List<Node> walk(Node root, String name, String uri, boolean ns) {
+        List<Node> result = new ArrayList<>();
+        if (uri != null && uri.length() == 0) {
+            uri = null;
+        }
+        walk(root, name, uri, ns, result);
+        return result;
+    }
+
+    private static void walk(Node node, String name, String uri, boolean ns, List<Node> result) {
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                boolean match;
+                if (!ns) {
+                    match = name.equals("*") || name.equals(child.getNodeName());
+                } else {
+                    match = (name.equals("*") || name.equals(child.getLocalName()))
+                            && ("*".equals(uri) || (uri == null ? child.getNamespaceURI() == null : uri.equals(child.getNamespaceURI())));
+                }
+                if (match) {
+                    result.add(child);
+                }
+            }
+            walk(child, name, uri, ns, result);
+        }
+    }
+
+} // class ElementIndexTest
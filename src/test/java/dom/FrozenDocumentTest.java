@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dom;
+
+import static dom.util.DocumentHelper.assertModificationRejected;
+import static dom.util.DocumentHelper.describe;
+import static dom.util.DocumentHelper.document;
+import static dom.util.DocumentHelper.parse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.codelibs.xerces.dom.CoreDocumentImpl;
+import org.codelibs.xerces.dom.DeferredDocumentImpl;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Text;
+
+/**
+ * Tests that a frozen document can be read by several threads and can no
+ * longer be modified.
+ */
+public class FrozenDocumentTest {
+
+    @Test
+    public void testConcurrentReads() throws Exception {
+        final CoreDocumentImpl doc = (CoreDocumentImpl) parse(document(2000), true);
+        assertTrue(doc instanceof DeferredDocumentImpl);
+        String expected = describe(parse(document(2000), true));
+        doc.freeze();
+        assertTrue(doc.isFrozen());
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                results.add(executor.submit(new Callable<String>() {
+                    public String call() {
+                        return describe(doc);
+                    }
+                }));
+            }
+            for (Future<String> result : results) {
+                assertEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertNotNull(doc.getElementById("i1999"));
+    }
+
+    @Test
+    public void testModificationsRejected() throws Exception {
+        final CoreDocumentImpl doc = (CoreDocumentImpl) parse(document(3), true);
+        doc.freeze();
+        // does not turn read only checks off
+        doc.setErrorChecking(false);
+        final Element root = doc.getDocumentElement();
+        final Element item = (Element) root.getFirstChild();
+        final Attr id = item.getAttributeNode("id");
+        final Text text = (Text) item.getFirstChild();
+
+        assertModificationRejected(() -> root.appendChild(doc.createElement("x")));
+        assertModificationRejected(() -> root.removeChild(item));
+        assertModificationRejected(() -> doc.appendChild(doc.createComment("x")));
+        assertModificationRejected(() -> item.setAttribute("id", "x"));
+        assertModificationRejected(() -> item.removeAttribute("id"));
+        assertModificationRejected(() -> id.setValue("x"));
+        assertModificationRejected(() -> text.setData("x"));
+        assertModificationRejected(() -> item.setTextContent("x"));
+        assertModificationRejected(() -> doc.renameNode(item, null, "x"));
+        assertModificationRejected(() -> doc.setXmlVersion("1.1"));
+
+        // copies are not frozen
+        Element copy = (Element) item.cloneNode(true);
+        copy.setAttribute("id", "x");
+        assertEquals("i0", item.getAttribute("id"));
+        Document clone = (Document) doc.cloneNode(true);
+        clone.getDocumentElement().appendChild(clone.createElement("x"));
+        assertEquals(3, root.getChildNodes().getLength());
+
+        // application data is not part of the tree
+        item.setUserData("key", "value", null);
+        assertEquals("value", item.getUserData("key"));
+    }
+
+    @Test
+    public void testFreezeTwice() throws Exception {
+        CoreDocumentImpl doc = (CoreDocumentImpl) parse(document(3), true);
+        assertFalse(doc.isFrozen());
+        doc.freeze();
+        doc.freeze();
+        assertEquals(3, doc.getDocumentElement().getChildNodes().getLength());
+    }
+
+} // class FrozenDocumentTest
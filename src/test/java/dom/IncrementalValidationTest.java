@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codelibs.xerces.dom.CoreDocumentImpl;
+import org.codelibs.xerces.parsers.DOMParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.w3c.dom.DOMConfiguration;
+import org.w3c.dom.DOMError;
+import org.w3c.dom.DOMErrorHandler;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+/**
+ * Tests that only the changed parts of a document are validated again
+ * when incremental validation is on.
+ */
+public class IncrementalValidationTest {
+
+    private static final String SCHEMA = "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema'>"
+            + "<xs:element name='root'><xs:complexType><xs:sequence>"
+            + "<xs:element name='group' maxOccurs='unbounded'><xs:complexType><xs:sequence>"
+            + "<xs:element name='item' maxOccurs='unbounded'><xs:complexType><xs:simpleContent><xs:extension base='xs:int'>"
+            + "<xs:attribute name='code' type='xs:string' use='required'/></xs:extension></xs:simpleContent></xs:complexType></xs:element>"
+            + "</xs:sequence></xs:complexType>"
+            + "<xs:unique name='codes'><xs:selector xpath='item'/><xs:field xpath='@code'/></xs:unique></xs:element>"
+            + "</xs:sequence></xs:complexType></xs:element></xs:schema>";
+
+    @TempDir
+    File fDir;
+
+    @Test
+    public void testChangedPartsOnly() throws Exception {
+        String schema = writeSchema();
+        CoreDocumentImpl doc = parse(10);
+        doc.setIncrementalValidation(true);
+        item(doc, 1, 0).setTextContent("one");
+        assertEquals("[cvc-datatype-valid.1.2.1@item, cvc-complex-type.2.2@item]", validate(doc, schema).toString());
+
+        // the error in the first group is not reported again
+        item(doc, 5, 1).setTextContent("five");
+        assertEquals("[cvc-datatype-valid.1.2.1@item, cvc-complex-type.2.2@item]", validate(doc, schema).toString());
+        assertEquals(0, validate(doc, schema).size());
+
+        // a full validation reports both
+        CoreDocumentImpl copy = (CoreDocumentImpl) doc.cloneNode(true);
+        assertEquals(4, validate(copy, schema).size());
+
+        item(doc, 1, 0).setTextContent("1");
+        item(doc, 5, 1).setTextContent("5");
+        assertEquals(0, validate(doc, schema).size());
+    }
+
+    @Test
+    public void testIdentityConstraints() throws Exception {
+        String schema = writeSchema();
+        CoreDocumentImpl doc = parse(10);
+        doc.setIncrementalValidation(true);
+        assertEquals(0, validate(doc, schema).size());
+
+        // the uniqueness of the codes is checked across the group
+        item(doc, 3, 2).setAttribute("code", "c3-0");
+        assertEquals("[cvc-identity-constraint.4.1@item]", validate(doc, schema).toString());
+
+        Element group = (Element) item(doc, 3, 0).getParentNode();
+        group.removeChild(item(doc, 3, 0));
+        assertEquals(0, validate(doc, schema).size());
+
+        // the content of the group is checked
+        while (group.getFirstChild() != null) {
+            group.removeChild(group.getFirstChild());
+        }
+        assertEquals("[cvc-complex-type.2.4.b@group]", validate(doc, schema).toString());
+    }
+
+    @Test
+    public void testSettingsChanged() throws Exception {
+        String schema = writeSchema();
+        CoreDocumentImpl doc = parse(3);
+        doc.setIncrementalValidation(true);
+        item(doc, 0, 0).setTextContent("zero");
+        assertEquals(2, validate(doc, schema).size());
+        doc.getDomConfig().setParameter("datatype-normalization", Boolean.TRUE);
+        assertEquals(2, validate(doc, schema).size());
+        // without incremental validation every validation is complete
+        doc.setIncrementalValidation(false);
+        assertEquals(2, validate(doc, schema).size());
+        assertEquals(2, validate(doc, schema).size());
+    }
+
+    private String writeSchema() throws Exception {
+        File file = new File(fDir, "groups.xsd");
+        Files.write(file.toPath(), SCHEMA.getBytes(StandardCharsets.UTF_8));
+        return file.toURI().toString();
+    }
+
+    private static CoreDocumentImpl parse(int groups) throws Exception {
+        StringBuilder buffer = new StringBuilder("<root>");
+        for (int i = 0; i < groups; i++) {
+            buffer.append("<group>");
+            for (int j = 0; j < 3; j++) {
+                buffer.append("<item code='c").append(i).append('-').append(j).append("'>").append(i).append("</item>");
+            }
+            buffer.append("</group>");
+        }
+        DOMParser parser = new DOMParser();
+        parser.setProperty("http://apache.org/xml/properties/dom/document-class-name", "org.codelibs.xerces.dom.PSVIDocumentImpl");
+        parser.parse(new InputSource(new StringReader(buffer.append("</root>").toString())));
+        return (CoreDocumentImpl) parser.getDocument();
+    }
+
+    private static Element item(Document doc, int group, int item) {
+        Node node = doc.getDocumentElement().getChildNodes().item(group).getChildNodes().item(item);
+        return (Element) node;
+    }
+
+    private static List<String> validate(Document doc, String schema) {
+        final List<String> errors = new ArrayList<>();
+        DOMConfiguration config = doc.getDomConfig();
+        config.setParameter("validate", Boolean.TRUE);
+        config.setParameter("schema-type", "http://www.w3.org/2001/XMLSchema");
+        config.setParameter("schema-location", schema);
+        config.setParameter("psvi", Boolean.TRUE);
+        config.setParameter("error-handler", new DOMErrorHandler() {
+            public boolean handleError(DOMError error) {
+                String message = error.getMessage();
+                errors.add(message.substring(0, message.indexOf(':')) + "@" + error.getLocation().getRelatedNode().getNodeName());
+                return true;
+            }
+        });
+        doc.normalizeDocument();
+        return errors;
+    }
+
+} // class IncrementalValidationTest
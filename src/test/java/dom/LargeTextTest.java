@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.io.StringReader;
+
+import org.codelibs.xerces.dom.ChunkedTextImpl;
+import org.codelibs.xerces.parsers.DOMParser;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.Text;
+import org.xml.sax.InputSource;
+
+/**
+ * Tests that long runs of character data are kept in chunked text nodes
+ * when the large text threshold is set.
+ */
+public class LargeTextTest {
+
+    private static final String LARGE_TEXT_THRESHOLD = "http://apache.org/xml/properties/dom/large-text-threshold";
+
+    @Test
+    public void testLargeText() throws Exception {
+        String text = text(100000);
+        Document doc = parse("<root><small>abc</small><large>" + text.replace("&", "&amp;").replace("<", "&lt;") + "</large></root>", 1000);
+        Element root = doc.getDocumentElement();
+        assertFalse(root.getFirstChild().getFirstChild() instanceof ChunkedTextImpl);
+
+        ChunkedTextImpl large = (ChunkedTextImpl) root.getLastChild().getFirstChild();
+        assertTrue(large.isChunked());
+        assertEquals(text.length(), large.getLength());
+        assertEquals(text.substring(8190, 8200), large.substringData(8190, 10));
+        assertEquals(text, read(large.getReader()));
+        assertTrue(large.isChunked());
+
+        Text copy = (Text) large.cloneNode(false);
+        assertEquals(text, large.getData());
+        assertFalse(large.isChunked());
+        assertEquals(text, copy.getNodeValue());
+        assertEquals(1, root.getLastChild().getChildNodes().getLength());
+    }
+
+    @Test
+    public void testModification() throws Exception {
+        String text = text(20000);
+        Document doc = parse("<root>" + text.replace("&", "&amp;").replace("<", "&lt;") + "<!--c--></root>", 100);
+        ChunkedTextImpl large = (ChunkedTextImpl) doc.getDocumentElement().getFirstChild();
+        large.appendData("end");
+        assertEquals(text + "end", large.getData());
+        large.deleteData(0, 10000);
+        assertEquals(text.substring(10000) + "end", read(large.getReader()));
+        assertEquals(text.substring(10000) + "end", doc.getDocumentElement().getTextContent());
+    }
+
+    @Test
+    public void testNoThreshold() throws Exception {
+        String text = text(20000);
+        Document doc = parse("<root>" + text.replace("&", "&amp;").replace("<", "&lt;") + "</root>", 0);
+        Node child = doc.getDocumentElement().getFirstChild();
+        assertFalse(child instanceof ChunkedTextImpl);
+        assertEquals(text, child.getNodeValue());
+    }
+
+    /** Returns text with characters outside Latin-1 in some chunks only. */
+    private static String text(int length) {
+        StringBuilder buffer = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            buffer.append(i > 30000 && i % 997 == 0 ? 'あ' : (char) ('a' + i % 26));
+            if (i % 1000 == 0) {
+                buffer.append("&<é");
+            }
+        }
+        return buffer.toString();
+    }
+
+    private static Document parse(String document, int threshold) throws Exception {
+        DOMParser parser = new DOMParser();
+        if (threshold > 0) {
+            parser.setProperty(LARGE_TEXT_THRESHOLD, Integer.valueOf(threshold));
+        }
+        parser.parse(new InputSource(new StringReader(document)));
+        return parser.getDocument();
+    }
+
+    private static String read(Reader reader) throws Exception {
+        StringBuilder buffer = new StringBuilder();
+        char[] chars = new char[1000];
+        int count;
+        while ((count = reader.read(chars, 0, chars.length)) != -1) {
+            buffer.append(chars, 0, count);
+        }
+        return buffer.toString();
+    }
+
+} // class LargeTextTest
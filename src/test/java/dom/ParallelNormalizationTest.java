@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dom;
+
+import static dom.util.DocumentHelper.describe;
+import static dom.util.DocumentHelper.parse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codelibs.xerces.dom.DocumentImpl;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.DOMConfiguration;
+import org.w3c.dom.DOMError;
+import org.w3c.dom.DOMErrorHandler;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Normalizes documents on one and on several threads and compares the
+ * resulting trees and the reported errors.
+ */
+public class ParallelNormalizationTest {
+
+    private static final String NORMALIZATION_THREADS = "http://apache.org/xml/properties/dom/normalization-threads";
+
+    @Test
+    public void testSameResult() throws Exception {
+        List<String> sequential = new ArrayList<>();
+        List<String> parallel = new ArrayList<>();
+        Document expected = normalize(build(200), 0, sequential, -1);
+        Document actual = normalize(build(200), 4, parallel, -1);
+        assertEquals(describe(expected), describe(actual));
+        assertEquals(40, sequential.size(), sequential.toString());
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    public void testDeferredDocument() throws Exception {
+        StringBuilder buffer = new StringBuilder("<root xmlns='urn:r'>");
+        for (int i = 0; i < 100; i++) {
+            buffer.append("<item n='").append(i).append("'><!--c").append(i).append("--><a>text</a><b:x xmlns:b='urn:b'/></item>");
+        }
+        String document = buffer.append("</root>").toString();
+        List<String> sequential = new ArrayList<>();
+        List<String> parallel = new ArrayList<>();
+        Document expected = normalize(parse(document, true), 0, sequential, -1);
+        Document actual = normalize(parse(document, true), 4, parallel, -1);
+        assertEquals(describe(expected), describe(actual));
+        assertEquals(0, parallel.size(), parallel.toString());
+    }
+
+    @Test
+    public void testStopOnError() throws Exception {
+        List<String> sequential = new ArrayList<>();
+        List<String> parallel = new ArrayList<>();
+        normalize(build(200), 0, sequential, 7);
+        normalize(build(200), 4, parallel, 7);
+        assertEquals(7, sequential.size(), sequential.toString());
+        assertEquals(sequential, parallel);
+    }
+
+    /**
+     * Builds a document whose elements need namespace declarations and
+     * some of whose texts contain characters that are not allowed.
+     */
+    private static Document build(int items) {
+        Document doc = new DocumentImpl();
+        Element root = doc.createElementNS("urn:r", "r:root");
+        doc.appendChild(root);
+        for (int i = 0; i < items; i++) {
+            Element item = doc.createElementNS(i % 2 == 0 ? "urn:a" : "urn:b", i % 3 == 0 ? "item" : "p:item");
+            item.setAttributeNS("urn:c", "c:n", String.valueOf(i));
+            item.appendChild(doc.createComment("comment " + i));
+            Element child = doc.createElementNS("urn:r", "child");
+            child.appendChild(doc.createTextNode(i % 5 == 0 ? "bad \u0001 text " + i : "text " + i));
+            item.appendChild(child);
+            item.appendChild(doc.createTextNode("tail"));
+            item.appendChild(doc.createTextNode(" " + i));
+            root.appendChild(item);
+        }
+        return doc;
+    }
+
+    /**
+     * Normalizes the given document, removing comments, and records the
+     * errors. The handler asks to stop at the given error, if positive.
+     */
+    private static Document normalize(Document doc, int threads, final List<String> errors, final int stopAt) {
+        DOMConfiguration config = doc.getDomConfig();
+        config.setParameter("comments", Boolean.FALSE);
+        config.setParameter("error-handler", new DOMErrorHandler() {
+            public boolean handleError(DOMError error) {
+                Node node = error.getLocation().getRelatedNode();
+                errors.add(error.getSeverity() + error.getType() + "@" + (node != null ? node.getNodeValue() : null));
+                return errors.size() != stopAt;
+            }
+        });
+        if (threads > 0) {
+            config.setParameter(NORMALIZATION_THREADS, Integer.valueOf(threads));
+        }
+        doc.normalizeDocument();
+        return doc;
+    }
+
+} // class ParallelNormalizationTest
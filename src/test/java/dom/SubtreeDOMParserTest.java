@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codelibs.xerces.parsers.SubtreeDOMParser;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+/**
+ * Tests that the subtree parser builds the matching subtrees only, and
+ * releases each of them after handing it over.
+ */
+public class SubtreeDOMParserTest {
+
+    private static final String FEED = "<!DOCTYPE feed [<!ATTLIST record id ID #IMPLIED><!ENTITY e '<b>entity</b>'>]>"
+            + "<!--prolog--><feed xmlns:x='urn:x'>head<record id='r1'>one &e;<![CDATA[<cdata>]]><!--c--></record>"
+            + "<group><record id='r2'><record id='nested'/></record><x:record>ns</x:record></group>"
+            + "<x:record xmlns:x='urn:x'>ns2</x:record><record id='r3'/>tail</feed>";
+
+    @Test
+    public void testRelativePath() throws Exception {
+        final List<String> records = new ArrayList<>();
+        final SubtreeDOMParser parser = new SubtreeDOMParser();
+        parser.addSubtreePath("record");
+        parser.setSubtreeHandler(element -> {
+            Document document = element.getOwnerDocument();
+            assertSame(element, document.getDocumentElement());
+            String id = element.getAttribute("id");
+            assertSame(element, document.getElementById(id));
+            records.add(id + ":" + element.getTextContent() + ":" + element.getChildNodes().getLength());
+        });
+        parser.parse(new InputSource(new StringReader(FEED)));
+        assertEquals("[r1:one entity<cdata>:4, r2::1, r3::0]", records.toString());
+
+        Document document = parser.getDocument();
+        assertNull(document.getDocumentElement());
+        assertEquals(1, document.getChildNodes().getLength());
+        assertEquals("feed", document.getDoctype().getName());
+        assertNull(document.getElementById("r1"));
+    }
+
+    @Test
+    public void testPaths() throws Exception {
+        assertEquals("[record:r2]", parse("/feed/group/record"));
+        assertEquals("[record:r1, record:r2, record:r3]", parse("/feed/record", "/feed/group/record"));
+        assertEquals("[x:record:]", parse("group/{urn:x}record"));
+        assertEquals("[x:record:, x:record:]", parse("{urn:x}record"));
+        assertEquals("[record:r1, record:r3]", parse("/*/{}record"));
+        assertEquals("[record:r1, group:, x:record:, record:r3]", parse("feed/*"));
+    }
+
+    @Test
+    public void testKeptSubtree() throws Exception {
+        final List<Element> records = new ArrayList<>();
+        SubtreeDOMParser parser = new SubtreeDOMParser();
+        parser.addSubtreePath("/feed/record");
+        parser.setSubtreeHandler(element -> records.add(element));
+        parser.parse(new InputSource(new StringReader(FEED)));
+        assertEquals(2, records.size());
+        assertNull(records.get(0).getParentNode());
+        assertEquals("r1", records.get(0).getAttribute("id"));
+        assertEquals("one entity<cdata>", records.get(0).getTextContent());
+    }
+
+    private static String parse(String... paths) throws Exception {
+        final List<String> records = new ArrayList<>();
+        SubtreeDOMParser parser = new SubtreeDOMParser();
+        parser.setFeature("http://xml.org/sax/features/namespaces", true);
+        for (String path : paths) {
+            parser.addSubtreePath(path);
+        }
+        parser.setSubtreeHandler(element -> records.add(element.getTagName() + ":" + element.getAttribute("id")));
+        parser.parse(new InputSource(new StringReader(FEED)));
+        return records.toString();
+    }
+
+} // class SubtreeDOMParserTest
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codelibs.xerces.dom.CoreDocumentImpl;
+import org.codelibs.xerces.dom.DocumentImpl;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.UserDataHandler;
+
+/**
+ * Tests user data and identifiers of the DOM implementation.
+ */
+public class UserDataTest {
+
+    @Test
+    public void testUserData() {
+        Document doc = new DocumentImpl();
+        Element root = doc.createElement("root");
+        doc.appendChild(root);
+        assertNull(root.getUserData("key"));
+        assertNull(root.setUserData("key", "a", null));
+        assertEquals("a", root.setUserData("key", "b", null));
+        assertEquals("b", root.getUserData("key"));
+        assertEquals("b", root.setUserData("key", null, null));
+        assertNull(root.getUserData("key"));
+
+        root.setUserData("key", "c", null);
+        Node clone = root.cloneNode(true);
+        assertNull(clone.getUserData("key"));
+        assertEquals("c", root.getUserData("key"));
+        doc.setUserData("key", "d", null);
+        assertEquals("d", doc.getUserData("key"));
+    }
+
+    @Test
+    public void testHandlers() {
+        List<String> calls = new ArrayList<>();
+        UserDataHandler handler = (operation, key, data, src, dst) -> calls.add(operation + key + data);
+        CoreDocumentImpl doc = new DocumentImpl();
+        Element root = doc.createElement("root");
+        doc.appendChild(root);
+        Element child = doc.createElement("child");
+        root.appendChild(child);
+        child.setUserData("k", "v", handler);
+
+        root.cloneNode(true);
+        new DocumentImpl().importNode(root, true);
+        Node renamed = doc.renameNode(child, null, "other");
+        assertEquals("v", renamed.getUserData("k"));
+        assertEquals(List.of(UserDataHandler.NODE_CLONED + "kv", UserDataHandler.NODE_IMPORTED + "kv", UserDataHandler.NODE_RENAMED + "kv"),
+                calls);
+
+        calls.clear();
+        doc.setUserDataHandlers(false);
+        root.cloneNode(true);
+        doc.cloneNode(true);
+        CoreDocumentImpl target = new DocumentImpl();
+        target.setUserDataHandlers(false);
+        target.importNode(root, true);
+        assertEquals(0, calls.size());
+        assertEquals("v", renamed.getUserData("k"));
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        CoreDocumentImpl doc = new DocumentImpl();
+        Element root = doc.createElement("root");
+        doc.appendChild(root);
+        Element child = doc.createElement("child");
+        root.appendChild(child);
+        child.setAttribute("id", "c1");
+        child.setIdAttribute("id", true);
+        child.setUserData("key", "value", null);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(doc);
+        }
+        Document copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (Document) in.readObject();
+        }
+        Element copyChild = copy.getElementById("c1");
+        assertSame(copy.getDocumentElement().getFirstChild(), copyChild);
+        assertEquals("value", copyChild.getUserData("key"));
+        // the original is unchanged
+        assertSame(child, doc.getElementById("c1"));
+        assertEquals("value", child.getUserData("key"));
+    }
+
+} // class UserDataTest
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dom.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.StringReader;
+import java.util.TreeSet;
+
+import org.codelibs.xerces.parsers.DOMParser;
+import org.w3c.dom.Attr;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Document;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+/**
+ * Builds, parses and describes the documents of the DOM tests that
+ * compare trees.
+ */
+public class DocumentHelper {
+
+    private static final String PROLOG = "<?xml version='1.0' encoding='UTF-8'?>\n"
+            + "<!DOCTYPE r:root [<!ATTLIST item id ID #IMPLIED kind CDATA 'plain'><!ENTITY e 'entity <b>text</b>'><!-- dtd -->]>\n"
+            + "<r:root xmlns:r='urn:r' xmlns='urn:d'>";
+
+    private DocumentHelper() {
+    }
+
+    /**
+     * Returns a document with the given number of items under the root
+     * element. Each item has an ID attribute, a defaulted attribute and a
+     * namespaced attribute; every tenth item also holds an entity
+     * reference, a comment, a CDATA section and a processing instruction.
+     */
+    public static String document(int items) {
+        StringBuilder buffer = new StringBuilder(PROLOG);
+        for (int i = 0; i < items; i++) {
+            buffer.append("<item id='i").append(i).append("' r:n='").append(i).append("'>text ").append(i);
+            if (i % 10 == 0) {
+                buffer.append("&e; &amp; more<!--c--><![CDATA[<cdata>]]><?pi data?>");
+            }
+            buffer.append("</item>");
+        }
+        return buffer.append("</r:root><!-- end -->").toString();
+    }
+
+    /**
+     * Parses a document with namespaces, optionally creating entity
+     * reference nodes.
+     */
+    public static Document parse(String document, boolean entityReferences) throws Exception {
+        DOMParser parser = new DOMParser();
+        parser.setFeature("http://xml.org/sax/features/namespaces", true);
+        parser.setFeature("http://apache.org/xml/features/dom/create-entity-ref-nodes", entityReferences);
+        parser.parse(new InputSource(new StringReader(document)));
+        return parser.getDocument();
+    }
+
+    /** Checks that the given modification is rejected as not allowed. */
+    public static void assertModificationRejected(final Runnable modification) {
+        DOMException e = assertThrows(DOMException.class, () -> modification.run());
+        assertEquals(DOMException.NO_MODIFICATION_ALLOWED_ERR, e.code);
+    }
+
+    /**
+     * Describes the tree, using positional access to the children. The
+     * order of attributes is not significant, and document type nodes are
+     * left out, as not all documents keep them.
+     */
+    public static String describe(Node node) {
+        StringBuilder buffer = new StringBuilder();
+        describe(node, buffer);
+        return buffer.toString();
+    }
+
+    private static void describe(Node node, StringBuilder buffer) {
+        if (node.getNodeType() == Node.DOCUMENT_TYPE_NODE) {
+            return;
+        }
+        buffer.append(node.getNodeType()).append(node.getNodeName()).append('{').append(node.getNamespaceURI()).append('}').append('=')
+                .append(node.getNodeValue());
+        NamedNodeMap attributes = node.getAttributes();
+        if (attributes != null) {
+            TreeSet<String> names = new TreeSet<>();
+            for (int i = 0; i < attributes.getLength(); i++) {
+                Attr attr = (Attr) attributes.item(i);
+                names.add(attr.getName() + '{' + attr.getNamespaceURI() + "}=" + attr.getValue());
+            }
+            for (String name : names) {
+                buffer.append(' ').append(name);
+            }
+        }
+        buffer.append('(');
+        NodeList children = node.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            describe(children.item(i), buffer);
+        }
+        buffer.append(')');
+    }
+
+} // class DocumentHelper
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.codelibs.xerces.parsers.SAXParser;
+import org.junit.jupiter.api.Test;
+import org.xml.sax.InputSource;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Checks that an adaptive input buffer grows for long text content,
+ * stays within its limit, and does not change the reported content.
+ */
+public class AdaptiveBufferTest {
+
+    private static final String BUFFER_SIZE_LIMIT = "http://apache.org/xml/properties/input-buffer-size-limit";
+
+    @Test
+    public void testLongTextNode() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 200000; i++) {
+            text.append((char) ('a' + i % 26));
+            if (i % 20000 == 19999) {
+                text.append("\r\nü&lt;");
+            }
+        }
+        String document = "<root><a>short</a><b>" + text + "</b><c>x</c></root>";
+        byte[] bytes = document.getBytes(StandardCharsets.UTF_8);
+        String expected = text.toString().replace("\r\n", "\n").replace("&lt;", "<");
+
+        ChunkHandler fixed = parse(bytes, null);
+        ChunkHandler adaptive = parse(bytes, Integer.valueOf(65536));
+
+        assertEquals("short" + expected + "x", fixed.fText.toString());
+        assertEquals(fixed.fText.toString(), adaptive.fText.toString());
+        assertTrue(fixed.fLargestChunk <= 2048, "largest fixed chunk " + fixed.fLargestChunk);
+        assertTrue(adaptive.fLargestChunk > 2048, "largest adaptive chunk " + adaptive.fLargestChunk);
+        assertTrue(adaptive.fLargestChunk <= 65536, "largest adaptive chunk " + adaptive.fLargestChunk);
+    }
+
+    private static ChunkHandler parse(byte[] bytes, Integer limit) throws Exception {
+        SAXParser parser = new SAXParser();
+        if (limit != null) {
+            parser.setProperty(BUFFER_SIZE_LIMIT, limit);
+        }
+        ChunkHandler handler = new ChunkHandler();
+        parser.setContentHandler(handler);
+        parser.parse(new InputSource(new ByteArrayInputStream(bytes)));
+        return handler;
+    }
+
+    /** Collects character data and the largest chunk reported. */
+    static final class ChunkHandler extends DefaultHandler {
+
+        final StringBuilder fText = new StringBuilder();
+
+        int fLargestChunk;
+
+        public void characters(char[] ch, int start, int length) {
+            fText.append(ch, start, length);
+            fLargestChunk = Math.max(fLargestChunk, length);
+        }
+
+    } // class ChunkHandler
+
+} // class AdaptiveBufferTest
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.codelibs.xerces.parsers.SAXParser;
+import org.codelibs.xerces.util.MappedFileInputSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Checks that documents read through a memory mapped input source
+ * produce the same events as the same documents read from a file
+ * input stream, including when mapping windows split multi-byte
+ * characters and when the encoding declaration switches readers.
+ */
+public class MappedFileInputSourceTest {
+
+    @TempDir
+    Path fTempDir;
+
+    @Test
+    public void testUTF8() throws Exception {
+        File file = write("utf8.xml", "UTF-8", StandardCharsets.UTF_8);
+        for (int windowSize : new int[] { 1, 4096, 4097, 4099, 8191, 1 << 20 }) {
+            assertEquals(parse(file), parseMapped(file, windowSize), "window size " + windowSize);
+        }
+    }
+
+    @Test
+    public void testDeclaredLatin1() throws Exception {
+        File file = write("latin1.xml", "ISO-8859-1", StandardCharsets.ISO_8859_1);
+        for (int windowSize : new int[] { 4096, 4097, 1 << 20 }) {
+            assertEquals(parse(file), parseMapped(file, windowSize), "window size " + windowSize);
+        }
+    }
+
+    @Test
+    public void testUTF16() throws Exception {
+        File file = write("utf16.xml", "UTF-16", StandardCharsets.UTF_16);
+        assertEquals(parse(file), parseMapped(file, 4097));
+    }
+
+    private File write(String name, String encodingName, Charset charset) throws IOException {
+        StringBuilder text = new StringBuilder();
+        text.append("<?xml version=\"1.0\" encoding=\"").append(encodingName).append("\"?>\n<root>\n");
+        for (int i = 0; i < 2000; i++) {
+            text.append(" <item n=\"").append(i).append("\">café naïve à la carte ").append(i).append("</item>\n");
+        }
+        text.append("</root>\n");
+        Path path = fTempDir.resolve(name);
+        Files.write(path, text.toString().getBytes(charset));
+        return path.toFile();
+    }
+
+    private static String parse(File file) throws Exception {
+        SAXParser parser = new SAXParser();
+        RecordingHandler handler = new RecordingHandler();
+        parser.setContentHandler(handler);
+        parser.parse(new InputSource(file.toURI().toString()));
+        return handler.fBuffer.toString();
+    }
+
+    private static String parseMapped(File file, int windowSize) throws Exception {
+        SAXParser parser = new SAXParser();
+        RecordingHandler handler = new RecordingHandler();
+        parser.setContentHandler(handler);
+        MappedFileInputSource source = new MappedFileInputSource(null, file);
+        source.setWindowSize(windowSize);
+        parser.parse(source);
+        return handler.fBuffer.toString();
+    }
+
+    /** Records element names, attributes and character data. */
+    static final class RecordingHandler extends DefaultHandler {
+
+        final StringBuilder fBuffer = new StringBuilder();
+
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            fBuffer.append('<').append(qName);
+            for (int i = 0; i < attributes.getLength(); i++) {
+                fBuffer.append(' ').append(attributes.getQName(i)).append('=').append(attributes.getValue(i));
+            }
+            fBuffer.append('>');
+        }
+
+        public void characters(char[] ch, int start, int length) {
+            fBuffer.append(ch, start, length);
+        }
+
+    } // class RecordingHandler
+
+} // class MappedFileInputSourceTest
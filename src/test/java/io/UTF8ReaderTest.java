@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.CharConversionException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.codelibs.xerces.impl.io.UTF8Reader;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares block reads of the UTF-8 reader with the Java decoder for
+ * inputs mixing ASCII runs of every length with multi-byte sequences.
+ */
+public class UTF8ReaderTest {
+
+    private static final String[] NON_ASCII = { "é", "ß", "日本", "Ж", "😀", "�" };
+
+    @Test
+    public void testAsciiRuns() throws IOException {
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder();
+        for (int run = 0; run < 2000; run++) {
+            int length = random.nextInt(40);
+            for (int i = 0; i < length; i++) {
+                text.append((char) (0x20 + random.nextInt(0x5F)));
+            }
+            text.append(NON_ASCII[random.nextInt(NON_ASCII.length)]);
+        }
+        String expected = text.toString();
+        byte[] bytes = expected.getBytes(StandardCharsets.UTF_8);
+        for (int blockSize : new int[] { 1, 2, 3, 7, 8, 9, 63, 64, 2048 }) {
+            assertEquals(expected, decode(new ByteArrayInputStream(bytes), blockSize), "block size " + blockSize);
+            assertEquals(expected, decode(new TricklingInputStream(bytes, 5), blockSize), "trickled, block size " + blockSize);
+        }
+    }
+
+    @Test
+    public void testPureAscii() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            text.append((char) (i % 0x80));
+        }
+        String expected = text.toString();
+        assertEquals(expected, decode(new ByteArrayInputStream(expected.getBytes(StandardCharsets.US_ASCII)), 2048));
+    }
+
+    @Test
+    public void testInvalidByteAfterAsciiRun() {
+        byte[] bytes = new byte[20];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = 'a';
+        }
+        bytes[17] = (byte) 0xFF;
+        assertThrows(CharConversionException.class, () -> decode(new ByteArrayInputStream(bytes), 2048));
+    }
+
+    private static String decode(InputStream stream, int blockSize) throws IOException {
+        UTF8Reader reader = new UTF8Reader(stream);
+        StringBuilder result = new StringBuilder();
+        char[] ch = new char[blockSize];
+        int count;
+        while ((count = reader.read(ch, 0, ch.length)) != -1) {
+            result.append(ch, 0, count);
+        }
+        return result.toString();
+    }
+
+    /** Returns at most a few bytes per read, splitting multi-byte sequences. */
+    static final class TricklingInputStream extends InputStream {
+
+        private final byte[] fBytes;
+
+        private final int fChunk;
+
+        private int fPos;
+
+        TricklingInputStream(byte[] bytes, int chunk) {
+            fBytes = bytes;
+            fChunk = chunk;
+        }
+
+        public int read() {
+            return fPos < fBytes.length ? fBytes[fPos++] & 0xFF : -1;
+        }
+
+        public int read(byte[] b, int off, int len) {
+            if (fPos == fBytes.length) {
+                return -1;
+            }
+            int count = Math.min(Math.min(len, fChunk), fBytes.length - fPos);
+            System.arraycopy(fBytes, fPos, b, off, count);
+            fPos += count;
+            return count;
+        }
+
+    } // class TricklingInputStream
+
+} // class UTF8ReaderTest
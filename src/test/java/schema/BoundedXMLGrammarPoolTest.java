@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package schema;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+
+import org.codelibs.xerces.impl.xs.XMLSchemaLoader;
+import org.codelibs.xerces.impl.xs.XSDDescription;
+import org.codelibs.xerces.util.BoundedXMLGrammarPool;
+import org.codelibs.xerces.xni.grammars.Grammar;
+import org.codelibs.xerces.xni.grammars.XMLGrammarDescription;
+import org.codelibs.xerces.xni.parser.XMLInputSource;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests eviction, expiry and statistics of the bounded grammar pool.
+ */
+public class BoundedXMLGrammarPoolTest {
+
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        BoundedXMLGrammarPool pool = new BoundedXMLGrammarPool(3);
+        Grammar a = grammar("urn:a");
+        pool.putGrammar(a);
+        pool.putGrammar(grammar("urn:b"));
+        pool.putGrammar(grammar("urn:c"));
+        // touch a so that b is the least recently used
+        assertSame(a, pool.retrieveGrammar(description("urn:a")));
+        pool.putGrammar(grammar("urn:d"));
+
+        assertEquals(3, pool.getGrammarCount());
+        assertFalse(pool.containsGrammar(description("urn:b")));
+        assertTrue(pool.containsGrammar(description("urn:a")));
+        assertNull(pool.retrieveGrammar(description("urn:b")));
+        assertEquals(0, pool.retrieveInitialGrammarSet(XMLGrammarDescription.XML_SCHEMA).length);
+
+        BoundedXMLGrammarPool.Statistics statistics = pool.getStatistics();
+        assertEquals(1, statistics.getHitCount());
+        assertEquals(1, statistics.getMissCount());
+        assertEquals(4, statistics.getLoadCount());
+        assertEquals(1, statistics.getEvictionCount());
+        assertEquals(0.5, statistics.getHitRate());
+    }
+
+    @Test
+    public void testContainsDoesNotTouch() {
+        BoundedXMLGrammarPool pool = new BoundedXMLGrammarPool(2);
+        pool.putGrammar(grammar("urn:a"));
+        pool.putGrammar(grammar("urn:b"));
+        assertTrue(pool.containsGrammar(description("urn:a")));
+        pool.putGrammar(grammar("urn:c"));
+        assertFalse(pool.containsGrammar(description("urn:a")));
+
+        // getGrammar counts as a use
+        assertNotNull(pool.getGrammar(description("urn:b")));
+        pool.putGrammar(grammar("urn:d"));
+        assertTrue(pool.containsGrammar(description("urn:b")));
+        assertFalse(pool.containsGrammar(description("urn:c")));
+    }
+
+    @Test
+    public void testWeightBound() {
+        BoundedXMLGrammarPool pool = new BoundedXMLGrammarPool(100);
+        pool.setMaximumWeight(10, grammar -> grammar.getGrammarDescription().getNamespace().length());
+        pool.putGrammar(grammar("urn:a")); // 5
+        pool.putGrammar(grammar("urn:bb")); // 6
+        assertEquals(6, pool.getWeight());
+        assertFalse(pool.containsGrammar(description("urn:a")));
+
+        // a grammar heavier than the budget is not kept
+        pool.putGrammar(grammar("urn:too-heavy"));
+        assertEquals(0, pool.getGrammarCount());
+        assertEquals(0, pool.getWeight());
+    }
+
+    @Test
+    public void testExpireAfterAccess() throws Exception {
+        BoundedXMLGrammarPool pool = new BoundedXMLGrammarPool(10);
+        pool.setExpireAfterAccess(20);
+        pool.putGrammar(grammar("urn:a"));
+        assertNotNull(pool.retrieveGrammar(description("urn:a")));
+        Thread.sleep(50);
+        assertNull(pool.retrieveGrammar(description("urn:a")));
+        assertEquals(0, pool.getGrammarCount());
+        assertEquals(1, pool.getStatistics().getEvictionCount());
+    }
+
+    @Test
+    public void testExpiredSweptOnPut() throws Exception {
+        BoundedXMLGrammarPool pool = new BoundedXMLGrammarPool(3);
+        pool.setExpireAfterAccess(20);
+        pool.putGrammar(grammar("urn:a"));
+        pool.putGrammar(grammar("urn:b"));
+        Thread.sleep(50);
+        pool.putGrammar(grammar("urn:c"));
+
+        // a and b expired, so they are dropped although the pool is not full
+        assertEquals(1, pool.getGrammarCount());
+        assertEquals(2, pool.getStatistics().getEvictionCount());
+        assertTrue(pool.containsGrammar(description("urn:c")));
+    }
+
+    @Test
+    public void testLockedPool() {
+        BoundedXMLGrammarPool pool = new BoundedXMLGrammarPool(10);
+        pool.lockPool();
+        pool.cacheGrammars(XMLGrammarDescription.XML_SCHEMA, new Grammar[] { grammar("urn:a") });
+        assertEquals(0, pool.getGrammarCount());
+        pool.unlockPool();
+        pool.cacheGrammars(XMLGrammarDescription.XML_SCHEMA, new Grammar[] { grammar("urn:a") });
+        assertEquals(1, pool.getGrammarCount());
+    }
+
+    @Test
+    public void testLoadGrammar() throws Exception {
+        BoundedXMLGrammarPool pool = new BoundedXMLGrammarPool(10);
+        String schema = "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' targetNamespace='urn:loaded'>"
+                + "<xs:element name='root' type='xs:string'/></xs:schema>";
+        XMLInputSource source = new XMLInputSource(null, "loaded.xsd", null);
+        source.setCharacterStream(new StringReader(schema));
+        Grammar grammar = pool.loadGrammar(new XMLSchemaLoader(), source);
+
+        assertSame(grammar, pool.retrieveGrammar(description("urn:loaded")));
+        assertEquals(1, pool.getStatistics().getLoadCount());
+        assertTrue(pool.getStatistics().getTotalLoadTime() > 0);
+        pool.resetStatistics();
+        assertEquals(0, pool.getStatistics().getHitCount());
+    }
+
+    private static XSDDescription description(String namespace) {
+        XSDDescription desc = new XSDDescription();
+        desc.setNamespace(namespace);
+        return desc;
+    }
+
+    private static Grammar grammar(String namespace) {
+        final XSDDescription desc = description(namespace);
+        return () -> desc;
+    }
+
+} // class BoundedXMLGrammarPoolTest
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package schema;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codelibs.xerces.parsers.SAXParser;
+import org.codelibs.xerces.util.SecurityManager;
+import org.junit.jupiter.api.Test;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXParseException;
+
+/**
+ * Validates documents against content models whose occurrence ranges are
+ * too large to be expanded into a DFA under the security manager's limit.
+ */
+public class CountingContentModelTest {
+
+    private static final String SCHEMA = "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema'>"
+            + "<xs:element name='root'><xs:complexType><xs:sequence>"
+            + "<xs:element name='header' type='xs:string' minOccurs='0'/>"
+            + "<xs:sequence minOccurs='2' maxOccurs='50000'>"
+            + "<xs:element name='start' type='xs:string'/>"
+            + "<xs:element name='value' type='xs:int' minOccurs='2' maxOccurs='4'/>"
+            + "<xs:element name='end' type='xs:string' minOccurs='0'/>"
+            + "</xs:sequence>"
+            + "<xs:element name='footer' type='xs:string'/>"
+            + "</xs:sequence></xs:complexType></xs:element>"
+            + "</xs:schema>";
+
+    @Test
+    public void testValid() throws Exception {
+        assertEquals(0, validate("<header/>" + groups(2, 2) + "<footer/>").size());
+        assertEquals(0, validate(groups(50000, 4) + "<footer/>").size());
+        assertEquals(0, validate("<start/><value>1</value><value>2</value><end/>" + groups(1, 3) + "<footer/>").size());
+    }
+
+    @Test
+    public void testOccurrences() throws Exception {
+        // too few and too many repetitions of the sequence
+        assertInvalid(validate(groups(1, 2) + "<footer/>"));
+        assertInvalid(validate(groups(50001, 2) + "<footer/>"));
+        // too few and too many values in a repetition
+        assertInvalid(validate(groups(2, 2) + "<start/><value>1</value><footer/>"));
+        assertInvalid(validate(groups(2, 5) + "<footer/>"));
+        // the end of a repetition is only allowed once
+        assertInvalid(validate(groups(2, 2) + "<end/><end/><footer/>"));
+        assertInvalid(validate(groups(2, 2)));
+    }
+
+    private static void assertInvalid(List<String> errors) {
+        assertEquals(1, errors.size(), errors.toString());
+        assertTrue(errors.get(0).startsWith("cvc-complex-type.2.4"), errors.get(0));
+    }
+
+    private static String groups(int count, int values) {
+        StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            buffer.append("<start/>");
+            for (int j = 0; j < values; j++) {
+                buffer.append("<value>").append(j).append("</value>");
+            }
+        }
+        return buffer.toString();
+    }
+
+    private static List<String> validate(String content) throws Exception {
+        SAXParser parser = new SAXParser();
+        parser.setFeature("http://xml.org/sax/features/namespaces", true);
+        parser.setFeature("http://xml.org/sax/features/validation", true);
+        parser.setFeature("http://apache.org/xml/features/validation/schema", true);
+        parser.setProperty("http://apache.org/xml/properties/security-manager", new SecurityManager());
+        parser.setEntityResolver((publicId, systemId) -> {
+            InputSource source = new InputSource(new StringReader(SCHEMA));
+            source.setSystemId(systemId);
+            return source;
+        });
+        final List<String> errors = new ArrayList<>();
+        parser.setErrorHandler(new ErrorHandler() {
+            public void warning(SAXParseException exception) {
+            }
+
+            public void error(SAXParseException exception) {
+                errors.add(exception.getMessage());
+            }
+
+            public void fatalError(SAXParseException exception) {
+                errors.add(exception.getMessage());
+            }
+        });
+        parser.parse(new InputSource(new StringReader("<root xmlns:xsi='http://www.w3.org/2001/XMLSchema-instance'"
+                + " xsi:noNamespaceSchemaLocation='root.xsd'>" + content + "</root>")));
+        return errors;
+    }
+
+} // class CountingContentModelTest
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package schema;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codelibs.xerces.impl.xs.XMLSchemaLoader;
+import org.codelibs.xerces.parsers.SAXParser;
+import org.codelibs.xerces.util.XMLGrammarPoolImpl;
+import org.codelibs.xerces.xni.grammars.Grammar;
+import org.codelibs.xerces.xni.grammars.XMLGrammarDescription;
+import org.codelibs.xerces.xni.parser.XMLInputSource;
+import org.junit.jupiter.api.Test;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXParseException;
+
+/**
+ * Tests that enumeration facets with many values, which are looked up in a
+ * hash table, still compare values in their value spaces.
+ */
+public class EnumerationIndexTest {
+
+    private static final String GRAMMAR_POOL = "http://apache.org/xml/properties/internal/grammar-pool";
+
+    @Test
+    public void testValueSpaceEquality() throws Exception {
+        StringBuilder schema = new StringBuilder("<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' xmlns:p='urn:p'>"
+                + "<xs:element name='root'><xs:complexType><xs:choice maxOccurs='unbounded'>");
+        String[] types = { "decimal", "dateTime", "QName", "ints", "duration", "float" };
+        for (int i = 0; i < types.length; i++) {
+            schema.append("<xs:element name='").append(types[i]).append("' type='").append(types[i]).append("-enum'/>");
+        }
+        schema.append("</xs:choice></xs:complexType></xs:element>");
+        schema.append("<xs:simpleType name='ints'><xs:list itemType='xs:int'/></xs:simpleType>");
+        for (int i = 0; i < types.length; i++) {
+            schema.append("<xs:simpleType name='").append(types[i]).append("-enum'><xs:restriction base='")
+                    .append(types[i].equals("ints") ? "ints" : "xs:" + types[i]).append("'>");
+            for (int j = 1; j <= 8; j++) {
+                schema.append("<xs:enumeration value='").append(enumerationValue(types[i], j)).append("'/>");
+            }
+            schema.append("</xs:restriction></xs:simpleType>");
+        }
+        schema.append("</xs:schema>");
+        Grammar grammar = load(schema.toString());
+
+        String[][] valid = { { "decimal", "1.50" }, { "decimal", "+2.0" }, { "decimal", "08" },
+                { "dateTime", "2020-01-01T01:00:00+01:00" }, { "dateTime", "2020-01-02T00:00:00.000Z" }, { "QName", "q:a" },
+                { "ints", " 01  2 " }, { "duration", "P12M" }, { "float", "NaN" }, { "float", "1.0E0" } };
+        String[][] invalid = { { "decimal", "1.05" }, { "decimal", "9" }, { "dateTime", "2020-01-01T00:00:00" }, { "QName", "a" },
+                { "QName", "q:z" }, { "ints", "2 1" }, { "duration", "P13M" }, { "float", "9" } };
+        assertEquals(0, validate(grammar, document(valid)).size());
+        List<String> errors = validate(grammar, document(invalid));
+        assertEquals(2 * invalid.length, errors.size(), errors.toString());
+    }
+
+    @Test
+    public void testLargeEnumeration() throws Exception {
+        StringBuilder schema = new StringBuilder("<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema'>"
+                + "<xs:element name='root'><xs:complexType><xs:sequence maxOccurs='unbounded'><xs:element name='code'>"
+                + "<xs:simpleType><xs:restriction base='xs:token'>");
+        for (int i = 0; i < 5000; i++) {
+            schema.append("<xs:enumeration value='C").append(i).append("'/>");
+        }
+        schema.append("</xs:restriction></xs:simpleType></xs:element></xs:sequence></xs:complexType></xs:element></xs:schema>");
+        Grammar grammar = load(schema.toString());
+
+        StringBuilder document = new StringBuilder("<root>");
+        for (int i = 0; i < 5000; i += 7) {
+            document.append("<code> C").append(i).append(" </code>");
+        }
+        document.append("<code>C5000</code><code>c1</code></root>");
+        assertEquals(4, validate(grammar, document.toString()).size());
+    }
+
+    private static String enumerationValue(String type, int j) {
+        switch (type) {
+        case "decimal":
+            return j == 1 ? "1.5" : Integer.toString(j);
+        case "dateTime":
+            return "2020-01-0" + j + "T00:00:00Z";
+        case "QName":
+            return "p:" + (char) ('a' + j - 1);
+        case "ints":
+            return (2 * j - 1) + " " + (2 * j);
+        case "duration":
+            return "P" + j + "Y";
+        default:
+            return j == 8 ? "NaN" : Integer.toString(j);
+        }
+    }
+
+    private static String document(String[][] values) {
+        StringBuilder document = new StringBuilder("<root xmlns:q='urn:p'>");
+        for (int i = 0; i < values.length; i++) {
+            document.append('<').append(values[i][0]).append('>').append(values[i][1]).append("</").append(values[i][0]).append('>');
+        }
+        return document.append("</root>").toString();
+    }
+
+    private static Grammar load(String schema) throws Exception {
+        XMLSchemaLoader loader = new XMLSchemaLoader();
+        XMLInputSource source = new XMLInputSource(null, "enumeration.xsd", null);
+        source.setCharacterStream(new StringReader(schema));
+        return loader.loadGrammar(source);
+    }
+
+    private static List<String> validate(Grammar grammar, String document) throws Exception {
+        XMLGrammarPoolImpl pool = new XMLGrammarPoolImpl();
+        pool.cacheGrammars(XMLGrammarDescription.XML_SCHEMA, new Grammar[] { grammar });
+        pool.lockPool();
+        SAXParser parser = new SAXParser();
+        parser.setFeature("http://xml.org/sax/features/namespaces", true);
+        parser.setFeature("http://xml.org/sax/features/validation", true);
+        parser.setFeature("http://apache.org/xml/features/validation/schema", true);
+        parser.setProperty(GRAMMAR_POOL, pool);
+        final List<String> errors = new ArrayList<>();
+        parser.setErrorHandler(new ErrorHandler() {
+            public void warning(SAXParseException exception) {
+            }
+
+            public void error(SAXParseException exception) {
+                errors.add(exception.getMessage());
+            }
+
+            public void fatalError(SAXParseException exception) {
+                errors.add(exception.getMessage());
+            }
+        });
+        parser.parse(new InputSource(new StringReader(document)));
+        return errors;
+    }
+
+} // class EnumerationIndexTest
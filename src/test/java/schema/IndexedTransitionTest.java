@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package schema;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codelibs.xerces.impl.xs.XMLSchemaLoader;
+import org.codelibs.xerces.parsers.SAXParser;
+import org.codelibs.xerces.util.XMLGrammarPoolImpl;
+import org.codelibs.xerces.xni.grammars.Grammar;
+import org.codelibs.xerces.xni.grammars.XMLGrammarDescription;
+import org.codelibs.xerces.xni.parser.XMLInputSource;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXParseException;
+
+/**
+ * Validates documents against content models large enough for their
+ * transitions to be looked up by element name.
+ */
+public class IndexedTransitionTest {
+
+    private static final String GRAMMAR_POOL = "http://apache.org/xml/properties/internal/grammar-pool";
+
+    private static XMLGrammarPoolImpl fPool;
+
+    @BeforeAll
+    public static void loadSchema() throws Exception {
+        StringBuilder schema = new StringBuilder("<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' xmlns:t='urn:t'"
+                + " targetNamespace='urn:t' elementFormDefault='qualified'>");
+        schema.append("<xs:element name='root'><xs:complexType><xs:sequence>");
+        schema.append("<xs:choice maxOccurs='unbounded'>");
+        for (int i = 0; i < 40; i++) {
+            schema.append("<xs:element name='e").append(i).append("' type='xs:int'/>");
+        }
+        schema.append("<xs:element ref='t:head'/><xs:element ref='t:blocked'/>");
+        schema.append("<xs:any namespace='##other' processContents='skip'/>");
+        schema.append("</xs:choice>");
+        // counting states with the same name allowed twice
+        schema.append("<xs:element name='last' type='xs:string' minOccurs='2' maxOccurs='2'/>");
+        schema.append("<xs:element name='last' type='xs:string' fixed='end'/>");
+        schema.append("</xs:sequence></xs:complexType></xs:element>");
+        schema.append("<xs:element name='head' type='xs:string'/>");
+        schema.append("<xs:element name='member' substitutionGroup='t:head'/>");
+        schema.append("<xs:element name='submember' substitutionGroup='t:member'/>");
+        schema.append("<xs:element name='blocked' type='xs:string' block='substitution'/>");
+        schema.append("<xs:element name='notallowed' substitutionGroup='t:blocked'/>");
+        schema.append("</xs:schema>");
+
+        XMLSchemaLoader loader = new XMLSchemaLoader();
+        XMLInputSource source = new XMLInputSource(null, "t.xsd", null);
+        source.setCharacterStream(new StringReader(schema.toString()));
+        Grammar grammar = loader.loadGrammar(source);
+        fPool = new XMLGrammarPoolImpl();
+        fPool.cacheGrammars(XMLGrammarDescription.XML_SCHEMA, new Grammar[] { grammar });
+        fPool.lockPool();
+    }
+
+    @Test
+    public void testElements() throws Exception {
+        assertEquals(0, validate("<e0>1</e0><e39>2</e39><e17>3</e17>").size());
+        assertEquals(1, validate("<e40>1</e40>").size());
+        // the type of the matched declaration is used
+        assertEquals(2, validate("<e5>x</e5>").size());
+    }
+
+    @Test
+    public void testSubstitutionGroups() throws Exception {
+        assertEquals(0, validate("<head/><member/><submember>x</submember>").size());
+        assertEquals(0, validate("<blocked/>").size());
+        assertEquals(1, validate("<notallowed/>").size());
+    }
+
+    @Test
+    public void testWildcards() throws Exception {
+        assertEquals(0, validate("<o:x xmlns:o='urn:o'><anything/></o:x><e1>1</e1>").size());
+        assertEquals(1, validate("<x/>").size());
+    }
+
+    @Test
+    public void testCountingStates() throws Exception {
+        assertEquals(0, validate("<e0>0</e0>", "<last/><last/><last>end</last>").size());
+        assertEquals(1, validate("<e0>0</e0>", "<last/><last/><last>other</last>").size());
+        assertEquals(1, validate("<e0>0</e0>", "<last/><last>end</last>").size());
+    }
+
+    private static List<String> validate(String content) throws Exception {
+        return validate(content, "<last/><last/><last>end</last>");
+    }
+
+    private static List<String> validate(String content, String last) throws Exception {
+        SAXParser parser = new SAXParser();
+        parser.setFeature("http://xml.org/sax/features/namespaces", true);
+        parser.setFeature("http://xml.org/sax/features/validation", true);
+        parser.setFeature("http://apache.org/xml/features/validation/schema", true);
+        parser.setProperty(GRAMMAR_POOL, fPool);
+        final List<String> errors = new ArrayList<>();
+        parser.setErrorHandler(new ErrorHandler() {
+            public void warning(SAXParseException exception) {
+            }
+
+            public void error(SAXParseException exception) {
+                errors.add(exception.getMessage());
+            }
+
+            public void fatalError(SAXParseException exception) {
+                errors.add(exception.getMessage());
+            }
+        });
+        parser.parse(new InputSource(new StringReader("<root xmlns='urn:t'>" + content + last + "</root>")));
+        return errors;
+    }
+
+} // class IndexedTransitionTest
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package schema;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codelibs.xerces.impl.xs.SchemaGrammar;
+import org.codelibs.xerces.impl.xs.XMLSchemaLoader;
+import org.codelibs.xerces.impl.xs.XSComplexTypeDecl;
+import org.codelibs.xerces.parsers.SAXParser;
+import org.codelibs.xerces.util.ErrorHandlerWrapper;
+import org.codelibs.xerces.util.XMLGrammarPoolImpl;
+import org.codelibs.xerces.xni.grammars.Grammar;
+import org.codelibs.xerces.xni.grammars.XMLGrammarDescription;
+import org.codelibs.xerces.xni.parser.XMLInputSource;
+import org.junit.jupiter.api.Test;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXParseException;
+
+/**
+ * Tests that content models are only built on first use when the
+ * lazy-content-models feature is set.
+ */
+public class LazyContentModelTest {
+
+    private static final String FULL_CHECKING = "http://apache.org/xml/features/validation/schema-full-checking";
+
+    private static final String LAZY_CONTENT_MODELS = "http://apache.org/xml/features/validation/schema/lazy-content-models";
+
+    private static final String GRAMMAR_POOL = "http://apache.org/xml/properties/internal/grammar-pool";
+
+    private static final String SCHEMA = "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' xmlns:t='urn:t' targetNamespace='urn:t'>"
+            + "<xs:element name='root' type='t:root'/>"
+            + "<xs:complexType name='root'><xs:sequence>"
+            + "<xs:element name='a' type='xs:string' maxOccurs='3'/><xs:element name='b' type='xs:int' minOccurs='0'/>"
+            + "</xs:sequence></xs:complexType>"
+            + "<xs:complexType name='unused'><xs:choice maxOccurs='unbounded'>"
+            + "<xs:element name='c' type='xs:string'/><xs:element name='d' type='xs:string'/>"
+            + "</xs:choice></xs:complexType>"
+            + "</xs:schema>";
+
+    @Test
+    public void testEagerContentModels() throws Exception {
+        SchemaGrammar grammar = load(false);
+        assertNotNull(type(grammar, "root").fUPACMValidator);
+        assertNotNull(type(grammar, "unused").fUPACMValidator);
+    }
+
+    @Test
+    public void testLazyContentModels() throws Exception {
+        SchemaGrammar grammar = load(true);
+        assertNull(type(grammar, "root").fCMValidator);
+        assertNull(type(grammar, "root").fUPACMValidator);
+        assertNull(type(grammar, "unused").fCMValidator);
+
+        assertEquals(0, validate(grammar, "<t:root xmlns:t='urn:t'><a/><a/><b>1</b></t:root>").size());
+        assertNotNull(type(grammar, "root").fCMValidator);
+        assertNull(type(grammar, "unused").fCMValidator);
+
+        assertEquals(1, validate(grammar, "<t:root xmlns:t='urn:t'><a/><b>1</b><a/></t:root>").size());
+    }
+
+    @Test
+    public void testUPAViolationStillReported() throws Exception {
+        XMLSchemaLoader loader = new XMLSchemaLoader();
+        loader.setFeature(FULL_CHECKING, true);
+        loader.setFeature(LAZY_CONTENT_MODELS, true);
+        // full checking is done when the grammars are cached
+        loader.setProperty(GRAMMAR_POOL, new XMLGrammarPoolImpl());
+        List<String> errors = new ArrayList<>();
+        loader.setErrorHandler(new ErrorHandlerWrapper(new CollectingHandler(errors)));
+        XMLInputSource source = new XMLInputSource(null, "upa.xsd", null);
+        source.setCharacterStream(new StringReader("<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema'>"
+                + "<xs:complexType name='upa'><xs:sequence>"
+                + "<xs:element name='a' minOccurs='0'/><xs:element name='a'/>"
+                + "</xs:sequence></xs:complexType></xs:schema>"));
+        loader.loadGrammar(source);
+        assertEquals(1, errors.size(), errors.toString());
+    }
+
+    private static SchemaGrammar load(boolean lazy) throws Exception {
+        XMLSchemaLoader loader = new XMLSchemaLoader();
+        loader.setFeature(FULL_CHECKING, true);
+        loader.setFeature(LAZY_CONTENT_MODELS, lazy);
+        loader.setProperty(GRAMMAR_POOL, new XMLGrammarPoolImpl());
+        XMLInputSource source = new XMLInputSource(null, "t.xsd", null);
+        source.setCharacterStream(new StringReader(SCHEMA));
+        return (SchemaGrammar) loader.loadGrammar(source);
+    }
+
+    private static XSComplexTypeDecl type(SchemaGrammar grammar, String name) {
+        return (XSComplexTypeDecl) grammar.getGlobalTypeDecl(name);
+    }
+
+    private static List<String> validate(SchemaGrammar grammar, String document) throws Exception {
+        XMLGrammarPoolImpl pool = new XMLGrammarPoolImpl();
+        pool.cacheGrammars(XMLGrammarDescription.XML_SCHEMA, new Grammar[] { grammar });
+        pool.lockPool();
+        SAXParser parser = new SAXParser();
+        parser.setFeature("http://xml.org/sax/features/namespaces", true);
+        parser.setFeature("http://xml.org/sax/features/validation", true);
+        parser.setFeature("http://apache.org/xml/features/validation/schema", true);
+        parser.setProperty(GRAMMAR_POOL, pool);
+        List<String> errors = new ArrayList<>();
+        parser.setErrorHandler(new CollectingHandler(errors));
+        parser.parse(new InputSource(new StringReader(document)));
+        return errors;
+    }
+
+    private static final class CollectingHandler implements ErrorHandler {
+
+        private final List<String> fErrors;
+
+        CollectingHandler(List<String> errors) {
+            fErrors = errors;
+        }
+
+        public void warning(SAXParseException exception) {
+        }
+
+        public void error(SAXParseException exception) {
+            fErrors.add(exception.getMessage());
+        }
+
+        public void fatalError(SAXParseException exception) {
+            fErrors.add(exception.getMessage());
+        }
+    }
+
+} // class LazyContentModelTest
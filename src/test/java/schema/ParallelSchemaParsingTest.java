@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package schema;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.codelibs.xerces.impl.xs.XMLSchemaLoader;
+import org.codelibs.xerces.xni.XMLResourceIdentifier;
+import org.codelibs.xerces.xni.XNIException;
+import org.codelibs.xerces.xni.grammars.XSGrammar;
+import org.codelibs.xerces.xni.parser.XMLEntityResolver;
+import org.codelibs.xerces.xni.parser.XMLErrorHandler;
+import org.codelibs.xerces.xni.parser.XMLInputSource;
+import org.codelibs.xerces.xni.parser.XMLParseException;
+import org.codelibs.xerces.xs.XSConstants;
+import org.codelibs.xerces.xs.XSModel;
+import org.codelibs.xerces.xs.XSNamedMap;
+import org.codelibs.xerces.xs.XSNamespaceItemList;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Compiles a schema set made of many documents with and without
+ * background parsing of the referenced documents and compares the results.
+ */
+public class ParallelSchemaParsingTest {
+
+    private static final String PARSING_THREADS = "http://apache.org/xml/properties/validation/schema/parsing-threads";
+
+    private static final int NAMESPACES = 12;
+
+    @TempDir
+    File fDir;
+
+    @Test
+    public void testSameComponents() throws Exception {
+        File root = writeSchemaSet(null);
+        List<String> errors = new ArrayList<>();
+        XSModel sequential = load(root, 0, errors);
+        XSModel parallel = load(root, 4, errors);
+        assertEquals(0, errors.size(), errors.toString());
+        assertEquals(describe(sequential), describe(parallel));
+        assertEquals(NAMESPACES + 2, parallel.getNamespaceItems().getLength());
+    }
+
+    @Test
+    public void testErrorsReportedInOrder() throws Exception {
+        File root = writeSchemaSet("stray text\n");
+        List<String> sequential = new ArrayList<>();
+        List<String> parallel = new ArrayList<>();
+        assertNotNull(load(root, 0, sequential));
+        assertNotNull(load(root, 4, parallel));
+        assertEquals(1, sequential.size(), sequential.toString());
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    public void testEntityResolverOnCallingThread() throws Exception {
+        File root = writeSchemaSet(null);
+        // a document with an external subset, which the resolver sees
+        write("n3a.xsd", "<!DOCTYPE xs:schema SYSTEM 'empty.dtd'>\n<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' xmlns:n='urn:n3'"
+                + " targetNamespace='urn:n3'>\n <xs:element name='a' type='n:t'/>\n"
+                + " <xs:simpleType name='t'><xs:restriction base='xs:int'/></xs:simpleType>\n</xs:schema>\n");
+        write("empty.dtd", "");
+        final List<String> ids = new ArrayList<>();
+        final List<Thread> threads = new ArrayList<>();
+        XMLEntityResolver resolver = new XMLEntityResolver() {
+            public XMLInputSource resolveEntity(XMLResourceIdentifier resourceIdentifier) throws XNIException {
+                synchronized (threads) {
+                    ids.add(resourceIdentifier.getLiteralSystemId());
+                    threads.add(Thread.currentThread());
+                }
+                return null;
+            }
+        };
+        List<String> errors = new ArrayList<>();
+        XMLSchemaLoader loader = new XMLSchemaLoader();
+        loader.setProperty(PARSING_THREADS, Integer.valueOf(4));
+        loader.setEntityResolver(resolver);
+        XSModel parallel = ((XSGrammar) loader.loadGrammar(new XMLInputSource(null, root.toURI().toString(), null))).toXSModel();
+        assertEquals(describe(load(root, 0, errors)), describe(parallel));
+        assertEquals(0, errors.size(), errors.toString());
+        assertTrue(ids.contains("empty.dtd"), ids.toString());
+        for (Thread thread : threads) {
+            assertSame(Thread.currentThread(), thread);
+        }
+    }
+
+    @Test
+    public void testResolvedStreamsUsedOnce() throws Exception {
+        File root = writeSchemaSet(null);
+        List<String> references = new ArrayList<>();
+        List<Boolean> closed = new ArrayList<>();
+        XSModel parallel = loadFromStreams(root, 4, references, closed);
+        assertEquals(describe(load(root, 0, new ArrayList<String>())), describe(parallel));
+        // the resolver is called at most once for each reference
+        assertEquals(new HashSet<String>(references).size(), references.size(), references.toString());
+        assertTrue(!closed.contains(Boolean.FALSE), closed.toString());
+    }
+
+    /**
+     * Loads the schema set with a resolver that opens the referenced
+     * documents itself, recording the resolved references and whether each
+     * stream it returned was closed.
+     */
+    private static XSModel loadFromStreams(File root, int threads, final List<String> references, final List<Boolean> closed)
+            throws IOException {
+        final List<boolean[]> streams = new ArrayList<>();
+        XMLSchemaLoader loader = new XMLSchemaLoader();
+        if (threads > 0) {
+            loader.setProperty(PARSING_THREADS, Integer.valueOf(threads));
+        }
+        loader.setEntityResolver(new XMLEntityResolver() {
+            public XMLInputSource resolveEntity(XMLResourceIdentifier resourceIdentifier) throws XNIException, IOException {
+                String id = resourceIdentifier.getExpandedSystemId();
+                File file = id != null ? new File(URI.create(id)) : null;
+                if (file == null || !file.exists()) {
+                    return null;
+                }
+                references.add(resourceIdentifier.getBaseSystemId() + " -> " + resourceIdentifier.getLiteralSystemId());
+                final boolean[] state = new boolean[1];
+                streams.add(state);
+                return new XMLInputSource(null, id, null, new FilterInputStream(new FileInputStream(file)) {
+                    public void close() throws IOException {
+                        state[0] = true;
+                        super.close();
+                    }
+                }, null);
+            }
+        });
+        XSModel model = ((XSGrammar) loader.loadGrammar(new XMLInputSource(null, root.toURI().toString(), null))).toXSModel();
+        for (boolean[] state : streams) {
+            closed.add(Boolean.valueOf(state[0]));
+        }
+        return model;
+    }
+
+    /**
+     * Writes a root schema importing a number of namespaces, each spread over
+     * a main document and two included documents, the last of which
+     * optionally contains the given extra markup.
+     */
+    private File writeSchemaSet(String extra) throws IOException {
+        StringBuilder root = new StringBuilder("<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' targetNamespace='urn:root'>\n");
+        for (int i = 0; i < NAMESPACES; i++) {
+            root.append(" <xs:import namespace='urn:n").append(i).append("' schemaLocation='n").append(i).append(".xsd'/>\n");
+            String next = "urn:n" + ((i + 1) % NAMESPACES);
+            write("n" + i + ".xsd", "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' xmlns:n='urn:n" + i + "' xmlns:m='" + next
+                    + "' targetNamespace='urn:n" + i + "'>\n" + " <xs:import namespace='" + next + "' schemaLocation='n" + ((i + 1) % NAMESPACES)
+                    + ".xsd'/>\n <xs:include schemaLocation='n" + i + "a.xsd'/>\n <xs:include schemaLocation='n" + i + "b.xsd'/>\n"
+                    + " <xs:element name='e'><xs:complexType><xs:sequence><xs:element ref='n:a'/><xs:element ref='m:b' minOccurs='0'/>"
+                    + "</xs:sequence></xs:complexType></xs:element>\n</xs:schema>\n");
+            write("n" + i + "a.xsd", "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' xmlns:n='urn:n" + i + "' targetNamespace='urn:n"
+                    + i + "'>\n <xs:element name='a' type='n:t'/>\n <xs:simpleType name='t'><xs:restriction base='xs:int'/></xs:simpleType>\n"
+                    + "</xs:schema>\n");
+            // chameleon include
+            write("n" + i + "b.xsd", "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema'>\n <xs:element name='b' type='xs:string'/>\n"
+                    + (extra != null && i == NAMESPACES - 1 ? extra : "") + "</xs:schema>\n");
+        }
+        root.append(" <xs:import namespace='urn:missing' schemaLocation='missing.xsd'/>\n");
+        root.append(" <xs:element name='root' type='xs:anyType'/>\n</xs:schema>\n");
+        return write("root.xsd", root.toString());
+    }
+
+    private File write(String name, String content) throws IOException {
+        File file = new File(fDir, name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static XSModel load(File root, int threads, final List<String> errors) throws IOException {
+        XMLSchemaLoader loader = new XMLSchemaLoader();
+        if (threads > 0) {
+            loader.setProperty(PARSING_THREADS, Integer.valueOf(threads));
+        }
+        loader.setErrorHandler(new XMLErrorHandler() {
+            public void warning(String domain, String key, XMLParseException exception) throws XNIException {
+            }
+
+            public void error(String domain, String key, XMLParseException exception) throws XNIException {
+                errors.add(key + "@" + new File(exception.getExpandedSystemId()).getName() + ":" + exception.getLineNumber());
+            }
+
+            public void fatalError(String domain, String key, XMLParseException exception) throws XNIException {
+                errors.add(key + "@" + new File(exception.getExpandedSystemId()).getName() + ":" + exception.getLineNumber());
+            }
+        });
+        return ((XSGrammar) loader.loadGrammar(new XMLInputSource(null, root.toURI().toString(), null))).toXSModel();
+    }
+
+    private static String describe(XSModel model) {
+        StringBuilder buffer = new StringBuilder();
+        XSNamespaceItemList namespaces = model.getNamespaceItems();
+        for (int i = 0; i < namespaces.getLength(); i++) {
+            buffer.append(namespaces.item(i).getSchemaNamespace()).append(namespaces.item(i).getDocumentLocations()).append('\n');
+        }
+        short[] kinds = { XSConstants.ELEMENT_DECLARATION, XSConstants.TYPE_DEFINITION };
+        for (int k = 0; k < kinds.length; k++) {
+            XSNamedMap components = model.getComponents(kinds[k]);
+            for (int i = 0; i < components.getLength(); i++) {
+                buffer.append(components.item(i).getNamespace()).append(':').append(components.item(i).getName()).append('\n');
+            }
+        }
+        return buffer.toString();
+    }
+
+} // class ParallelSchemaParsingTest
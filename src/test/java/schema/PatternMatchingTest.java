@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package schema;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.codelibs.xerces.impl.xpath.regex.Match;
+import org.codelibs.xerces.impl.xpath.regex.REUtil;
+import org.codelibs.xerces.impl.xpath.regex.RegularExpression;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that XML Schema patterns give the same results with the automaton
+ * as with the backtracking matcher, which is used when a match is
+ * requested.
+ */
+public class PatternMatchingTest {
+
+    private static final String[] PATTERNS = { "a*b", "(a|b)*abb", "[a-c]{2,4}x?", "\\d{3}-\\d{4}", "(ab|a)(bc|c)?", "[^abc]+",
+            ".*\\.xml", "\\i\\c*", "[\\p{L}-[a-z]]+", "(a?){5}a{5}", "((a|b){0,3}c)+", "\\s*\\S+", "x{0}y", "[\\-+]?[0-9]+(\\.[0-9]*)?",
+            "\\p{IsBasicLatin}*\\P{Lu}", "\uD800\uDC00+.", "[\uD800\uDC00-\uD800\uDCFF]a", "(\\^|\\$)*", "" };
+
+    private static final String ALPHABET = "abcxy019-+. \n\r\u00E9\u00C9\u2028\uD800\uDC00\uD800\uDC80\uD800";
+
+    @Test
+    public void testSameResults() throws Exception {
+        Random random = new Random(42);
+        for (int p = 0; p < PATTERNS.length; p++) {
+            RegularExpression regex = new RegularExpression(PATTERNS[p], "X");
+            for (int i = 0; i < 2000; i++) {
+                StringBuilder buffer = new StringBuilder();
+                int length = random.nextInt(12);
+                for (int j = 0; j < length; j++) {
+                    buffer.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+                }
+                String text = buffer.toString();
+                assertEquals(regex.matches(text, new Match()), regex.matches(text), PATTERNS[p] + " " + text);
+                assertEquals(regex.matches(text, new Match()), regex.matches(text.toCharArray()), PATTERNS[p] + " " + text);
+            }
+        }
+    }
+
+    @Test
+    public void testNoBacktracking() throws Exception {
+        RegularExpression regex = new RegularExpression("(a?){200}a{200}", "X");
+        StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            buffer.append('a');
+        }
+        assertTrue(regex.matches(buffer.toString()));
+        assertFalse(regex.matches(buffer.append('b').toString()));
+        assertTrue(new RegularExpression("(x+x+)+y", "X").matches("xxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxy"));
+        assertFalse(new RegularExpression("(x+x+)+y", "X").matches("xxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxx"));
+    }
+
+    @Test
+    public void testStateBudget() throws Exception {
+        // needs far more states than the automaton may keep
+        RegularExpression regex = new RegularExpression("(a|b)*a(a|b){20}", "X");
+        Random random = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            StringBuilder buffer = new StringBuilder();
+            for (int j = 0; j < 40; j++) {
+                buffer.append(random.nextBoolean() ? 'a' : 'b');
+            }
+            String text = buffer.toString();
+            assertEquals(regex.matches(text, new Match()), regex.matches(text), text);
+        }
+    }
+
+    @Test
+    public void testSharedCache() throws Exception {
+        RegularExpression regex = REUtil.createSchemaRegex("[A-Z]{2}\\d+", Locale.ENGLISH);
+        assertSame(regex, REUtil.createSchemaRegex("[A-Z]{2}\\d+", Locale.ENGLISH));
+        assertEquals("X", regex.getOptions());
+
+        final RegularExpression shared = REUtil.createSchemaRegex("([a-z]+\\.)*[a-z]+@[a-z]+", Locale.ENGLISH);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < 16; t++) {
+                final int seed = t;
+                results.add(executor.submit(new Callable<Integer>() {
+                    public Integer call() {
+                        int matched = 0;
+                        for (int i = 0; i < 5000; i++) {
+                            if (shared.matches("user" + (char) ('a' + (i + seed) % 26) + ".name@example")) {
+                                matched++;
+                            }
+                            if (shared.matches("user.name@Example")) {
+                                matched += 1000;
+                            }
+                        }
+                        return Integer.valueOf(matched);
+                    }
+                }));
+            }
+            for (Future<Integer> result : results) {
+                assertEquals(5000, result.get().intValue());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+} // class PatternMatchingTest
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package schema;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codelibs.xerces.impl.dv.xs.XSSimpleTypeDecl;
+import org.codelibs.xerces.impl.xs.SchemaGrammar;
+import org.codelibs.xerces.impl.xs.XMLSchemaLoader;
+import org.codelibs.xerces.parsers.SAXParser;
+import org.codelibs.xerces.util.XMLGrammarPoolImpl;
+import org.codelibs.xerces.xni.grammars.Grammar;
+import org.codelibs.xerces.xni.grammars.XMLGrammarDescription;
+import org.codelibs.xerces.xni.parser.XMLInputSource;
+import org.junit.jupiter.api.Test;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXParseException;
+
+/**
+ * Tests that simple values checked without computing their actual values
+ * get the same errors as values validated with the PSVI enabled.
+ */
+public class QuickValidationTest {
+
+    private static final String AUGMENT_PSVI = "http://apache.org/xml/features/validation/schema/augment-psvi";
+
+    private static final String GRAMMAR_POOL = "http://apache.org/xml/properties/internal/grammar-pool";
+
+    private static final String SCHEMA = "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema'>"
+            + "<xs:element name='root'><xs:complexType><xs:choice maxOccurs='unbounded'>"
+            + "<xs:element name='int' type='xs:int'/><xs:element name='range' type='range'/>"
+            + "<xs:element name='big' type='xs:unsignedLong'/><xs:element name='digits' type='digits'/>"
+            + "<xs:element name='numbers' type='numbers'/><xs:element name='bool' type='xs:boolean'/>"
+            + "<xs:element name='code' type='code'/><xs:element name='codes' type='codes'/>"
+            + "<xs:element name='name' type='xs:NCName'/><xs:element name='text' type='text'/>"
+            + "<xs:element name='fixed' type='xs:int' fixed='7'/>"
+            + "<xs:element name='att'><xs:complexType><xs:attribute name='n' type='range'/>"
+            + "<xs:attribute name='c' type='code'/></xs:complexType></xs:element>"
+            + "</xs:choice></xs:complexType></xs:element>"
+            + "<xs:simpleType name='range'><xs:restriction base='xs:integer'>"
+            + "<xs:minExclusive value='-10'/><xs:maxInclusive value='100'/></xs:restriction></xs:simpleType>"
+            + "<xs:simpleType name='digits'><xs:restriction base='xs:nonNegativeInteger'>"
+            + "<xs:totalDigits value='3'/></xs:restriction></xs:simpleType>"
+            + "<xs:simpleType name='numbers'><xs:restriction base='xs:integer'><xs:enumeration value='1'/>"
+            + "<xs:enumeration value='-20'/><xs:enumeration value='123456789012345678901'/></xs:restriction></xs:simpleType>"
+            + "<xs:simpleType name='code'><xs:restriction base='xs:token'><xs:minLength value='2'/><xs:maxLength value='5'/>"
+            + "</xs:restriction></xs:simpleType>"
+            + "<xs:simpleType name='codes'><xs:restriction base='xs:token'><xs:enumeration value='AB'/>"
+            + "<xs:enumeration value='A B'/><xs:enumeration value='Ea'/><xs:enumeration value='FB'/></xs:restriction></xs:simpleType>"
+            + "<xs:simpleType name='text'><xs:restriction base='xs:string'><xs:length value='3'/></xs:restriction></xs:simpleType>"
+            + "</xs:schema>";
+
+    private static final String[][] VALUES = {
+            { "int", "0", " 12 ", "+7", "-2147483648", "2147483648", "007", "1.0", "", "-", "1 2", "99999999999999999999" },
+            { "range", "-10", "-9", "100", "101", "0000000000000000000000000000100" },
+            { "big", "18446744073709551615", "18446744073709551616", "-1", "123" },
+            { "digits", "999", "1000", "000999", "0" },
+            { "numbers", "1", "01", "-20", "2", "123456789012345678901" },
+            { "bool", "true", " false ", "1", "0", "yes", "TRUE" },
+            { "code", "ab", "a  b", "\n a b c \t", "a", "abcdef", "a  b  c" },
+            { "codes", "AB", "A   B", " FB ", "Ea", "FB ", "ABC", "" },
+            { "name", "n1", "1n", "a:b", " x ", "" },
+            { "text", "abc", " ab", "ab", "abcd", "a𐀀" },
+            { "fixed", "7", "007", "8" } };
+
+    @Test
+    public void testSameErrors() throws Exception {
+        SchemaGrammar grammar = load();
+        StringBuilder document = new StringBuilder("<root>");
+        for (int i = 0; i < VALUES.length; i++) {
+            for (int j = 1; j < VALUES[i].length; j++) {
+                document.append('<').append(VALUES[i][0]).append('>').append(VALUES[i][j]).append("</").append(VALUES[i][0]).append('>');
+            }
+        }
+        String[] atts = { "1", " 1 ", "-11", "x", "a b", "a\tb", "abcdef" };
+        for (int i = 0; i < atts.length; i++) {
+            document.append("<att n='").append(atts[i]).append("' c='").append(atts[i]).append("'/>");
+        }
+        document.append("</root>");
+        List<String> psvi = validate(grammar, document.toString(), true);
+        List<String> quick = validate(grammar, document.toString(), false);
+        assertEquals(psvi, quick);
+        assertEquals(65, quick.size());
+    }
+
+    @Test
+    public void testQuickValidate() throws Exception {
+        SchemaGrammar grammar = load();
+        XSSimpleTypeDecl range = (XSSimpleTypeDecl) grammar.getGlobalTypeDecl("range");
+        assertTrue(range.quickValidate("-9", null, false));
+        assertTrue(range.quickValidate(new StringBuffer(" 100\n"), null, false));
+        assertFalse(range.quickValidate(" 100\n", null, true));
+        assertFalse(range.quickValidate("101", null, false));
+        XSSimpleTypeDecl codes = (XSSimpleTypeDecl) grammar.getGlobalTypeDecl("codes");
+        assertTrue(codes.quickValidate(" A \t B", null, false));
+        assertFalse(codes.quickValidate("A  B", null, true));
+        assertFalse(codes.quickValidate("AC", null, false));
+        // not handled: a pattern facet
+        XSSimpleTypeDecl language = (XSSimpleTypeDecl) SchemaGrammar.SG_SchemaNS.getGlobalTypeDecl("language");
+        assertFalse(language.quickValidate("en", null, false));
+    }
+
+    private static SchemaGrammar load() throws Exception {
+        XMLSchemaLoader loader = new XMLSchemaLoader();
+        XMLInputSource source = new XMLInputSource(null, "quick.xsd", null);
+        source.setCharacterStream(new StringReader(SCHEMA));
+        return (SchemaGrammar) loader.loadGrammar(source);
+    }
+
+    private static List<String> validate(SchemaGrammar grammar, String document, boolean augmentPSVI) throws Exception {
+        XMLGrammarPoolImpl pool = new XMLGrammarPoolImpl();
+        pool.cacheGrammars(XMLGrammarDescription.XML_SCHEMA, new Grammar[] { grammar });
+        pool.lockPool();
+        SAXParser parser = new SAXParser();
+        parser.setFeature("http://xml.org/sax/features/namespaces", true);
+        parser.setFeature("http://xml.org/sax/features/validation", true);
+        parser.setFeature("http://apache.org/xml/features/validation/schema", true);
+        parser.setFeature(AUGMENT_PSVI, augmentPSVI);
+        parser.setProperty(GRAMMAR_POOL, pool);
+        final List<String> errors = new ArrayList<>();
+        parser.setErrorHandler(new ErrorHandler() {
+            public void warning(SAXParseException exception) {
+            }
+
+            public void error(SAXParseException exception) {
+                errors.add(exception.getMessage());
+            }
+
+            public void fatalError(SAXParseException exception) {
+                errors.add(exception.getMessage());
+            }
+        });
+        parser.parse(new InputSource(new StringReader(document)));
+        return errors;
+    }
+
+} // class QuickValidationTest
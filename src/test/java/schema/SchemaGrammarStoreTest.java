@@ -0,0 +1,281 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package schema;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.DeflaterOutputStream;
+
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Validator;
+
+import org.codelibs.xerces.impl.Version;
+import org.codelibs.xerces.impl.dv.xs.XSSimpleTypeDecl;
+import org.codelibs.xerces.impl.xs.SchemaGrammar;
+import org.codelibs.xerces.impl.xs.SchemaGrammarStore;
+import org.codelibs.xerces.impl.xs.XMLSchemaLoader;
+import org.codelibs.xerces.impl.xs.XSComplexTypeDecl;
+import org.codelibs.xerces.impl.xs.XSDDescription;
+import org.codelibs.xerces.jaxp.validation.XMLSchemaFactory;
+import org.codelibs.xerces.util.XMLGrammarPoolImpl;
+import org.codelibs.xerces.xni.grammars.XMLGrammarDescription;
+import org.codelibs.xerces.xni.parser.XMLInputSource;
+import org.codelibs.xerces.xs.XSConstants;
+import org.codelibs.xerces.xs.XSElementDeclaration;
+import org.codelibs.xerces.xs.XSSimpleTypeDefinition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.xml.sax.SAXException;
+
+/**
+ * Writes grammars built from schema documents, reads them back and
+ * validates documents against the grammars that were read.
+ */
+public class SchemaGrammarStoreTest {
+
+    private static final String SCHEMA_A = "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema'\n"
+            + "    xmlns:a='urn:a' xmlns:b='urn:b' targetNamespace='urn:a' elementFormDefault='qualified'>\n"
+            + " <xs:import namespace='urn:b' schemaLocation='b.xsd'/>\n"
+            + " <xs:element name='order'>\n"
+            + "  <xs:complexType>\n"
+            + "   <xs:sequence>\n"
+            + "    <xs:element ref='a:line' maxOccurs='unbounded'/>\n"
+            + "    <xs:element name='note' type='b:note' minOccurs='0'/>\n"
+            + "    <xs:any namespace='##other' processContents='lax' minOccurs='0'/>\n"
+            + "   </xs:sequence>\n"
+            + "   <xs:attribute name='status' type='a:status' use='required'/>\n"
+            + "  </xs:complexType>\n"
+            + "  <xs:key name='lineKey'><xs:selector xpath='a:line'/><xs:field xpath='@id'/></xs:key>\n"
+            + " </xs:element>\n"
+            + " <xs:element name='line' type='a:line'/>\n"
+            + " <xs:element name='special' substitutionGroup='a:line'/>\n"
+            + " <xs:complexType name='line'>\n"
+            + "  <xs:all>\n"
+            + "   <xs:element name='sku' type='a:sku'/>\n"
+            + "   <xs:element name='qty' type='xs:positiveInteger'/>\n"
+            + "   <xs:element name='when' type='xs:dateTime' minOccurs='0'/>\n"
+            + "  </xs:all>\n"
+            + "  <xs:attribute name='id' type='xs:ID' use='required'/>\n"
+            + "  <xs:attribute name='price' type='a:price' default='1.00'/>\n"
+            + " </xs:complexType>\n"
+            + " <xs:simpleType name='sku'><xs:restriction base='xs:string'><xs:pattern value='[A-Z]{3}-\\d+'/></xs:restriction></xs:simpleType>\n"
+            + " <xs:simpleType name='price'><xs:restriction base='xs:decimal'>\n"
+            + "  <xs:minInclusive value='0'/><xs:fractionDigits value='2'/></xs:restriction></xs:simpleType>\n"
+            + " <xs:simpleType name='status'><xs:restriction base='xs:token'>\n"
+            + "  <xs:enumeration value='open'/><xs:enumeration value='closed'/></xs:restriction></xs:simpleType>\n"
+            + "</xs:schema>\n";
+
+    private static final String SCHEMA_B = "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema'\n"
+            + "    xmlns:b='urn:b' targetNamespace='urn:b'>\n"
+            + " <xs:complexType name='note' mixed='true'>\n"
+            + "  <xs:choice minOccurs='0' maxOccurs='3'><xs:element name='b' type='xs:string'/><xs:element name='i' type='b:words'/></xs:choice>\n"
+            + " </xs:complexType>\n"
+            + " <xs:simpleType name='words'><xs:list itemType='xs:NCName'/></xs:simpleType>\n"
+            + "</xs:schema>\n";
+
+    private static final String SCHEMA_C = "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' xmlns:c='urn:c' targetNamespace='urn:c'\n"
+            + "    elementFormDefault='qualified'>\n"
+            + " <xs:simpleType name='fl'><xs:restriction base='xs:float'><xs:enumeration value='1.5'/></xs:restriction></xs:simpleType>\n"
+            + " <xs:simpleType name='dt'><xs:restriction base='xs:date'><xs:enumeration value='2020-01-01'/></xs:restriction></xs:simpleType>\n"
+            + " <xs:simpleType name='du'><xs:restriction base='xs:duration'><xs:enumeration value='P1D'/></xs:restriction></xs:simpleType>\n"
+            + " <xs:simpleType name='hx'><xs:restriction base='xs:hexBinary'><xs:enumeration value='0F'/></xs:restriction></xs:simpleType>\n"
+            + " <xs:simpleType name='ls'><xs:restriction><xs:simpleType><xs:list itemType='xs:int'/></xs:simpleType>\n"
+            + "  <xs:enumeration value='1 2'/></xs:restriction></xs:simpleType>\n"
+            + " <xs:simpleType name='un'><xs:restriction><xs:simpleType><xs:union memberTypes='xs:int c:dt'/></xs:simpleType>\n"
+            + "  <xs:enumeration value='2020-01-01'/></xs:restriction></xs:simpleType>\n"
+            + " <xs:element name='root'><xs:complexType><xs:sequence>\n"
+            + "  <xs:element name='x' type='xs:double' maxOccurs='50'/><xs:element name='k' type='c:un' maxOccurs='unbounded'/>\n"
+            + " </xs:sequence><xs:attribute name='f' type='c:fl'/><xs:anyAttribute namespace='##other'/></xs:complexType>\n"
+            + "  <xs:unique name='u'><xs:selector xpath='.//c:k'/><xs:field xpath='.'/></xs:unique>\n"
+            + " </xs:element>\n"
+            + "</xs:schema>\n";
+
+    private static final String VALID = "<order xmlns='urn:a' status='open'>"
+            + "<line id='l1'><qty>2</qty><sku>ABC-1</sku></line>"
+            + "<special id='l2'><sku>XYZ-22</sku><qty>1</qty><when>2024-01-01T00:00:00Z</when></special>"
+            + "<note>text <i xmlns=''>two words</i></note></order>";
+
+    private static final String[] INVALID = {
+            "<order xmlns='urn:a' status='pending'><line id='l1'><sku>ABC-1</sku><qty>2</qty></line></order>",
+            "<order xmlns='urn:a' status='open'><line id='l1'><sku>abc</sku><qty>2</qty></line></order>",
+            "<order xmlns='urn:a' status='open'><line id='l1'><sku>ABC-1</sku><qty>0</qty></line></order>",
+            "<order xmlns='urn:a' status='open'><line id='l1'><sku>ABC-1</sku><qty>1</qty></line>"
+                    + "<line id='l1'><sku>ABC-2</sku><qty>1</qty></line></order>",
+            "<order xmlns='urn:a' status='open'><note>a<b xmlns=''/><b xmlns=''/><b xmlns=''/><b xmlns=''/></note></order>" };
+
+    @TempDir
+    File fDir;
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        SchemaGrammar[] grammars = loadGrammars();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SchemaGrammarStore.write(grammars, bytes);
+
+        SchemaGrammar[] read = SchemaGrammarStore.read(new ByteArrayInputStream(bytes.toByteArray()));
+        assertNotNull(read);
+        assertEquals(grammars.length, read.length);
+
+        XMLGrammarPoolImpl pool = new XMLGrammarPoolImpl();
+        pool.cacheGrammars(XMLGrammarDescription.XML_SCHEMA, read);
+        SchemaGrammar a = (SchemaGrammar) pool.getGrammar(description("urn:a"));
+        assertNotNull(a);
+
+        // built-in components are shared, names are interned
+        XSSimpleTypeDefinition sku = (XSSimpleTypeDefinition) a.getGlobalTypeDecl("sku");
+        assertSame(SchemaGrammar.SG_SchemaNS.getGlobalTypeDecl("string"), sku.getBaseType());
+        assertSame("urn:a", sku.getNamespace());
+        XSElementDeclaration order = a.getGlobalElementDecl("order");
+        assertSame(SchemaGrammar.fAnyType, order.getTypeDefinition().getBaseType());
+        // content models were built before writing
+        assertNotNull(((XSComplexTypeDecl) a.getGlobalTypeDecl("line")).fCMValidator);
+        assertEquals(1, a.getComponents(XSConstants.IDENTITY_CONSTRAINT).getLength());
+
+        Validator validator = new XMLSchemaFactory().newSchema(pool).newValidator();
+        validator.validate(new StreamSource(new StringReader(VALID)));
+        for (int i = 0; i < INVALID.length; i++) {
+            final String document = INVALID[i];
+            assertThrows(SAXException.class, () -> validator.validate(new StreamSource(new StringReader(document))), document);
+        }
+    }
+
+    @Test
+    public void testChangedSource() throws Exception {
+        SchemaGrammar[] grammars = loadGrammars();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SchemaGrammarStore.write(grammars, bytes);
+
+        Files.write(new File(fDir, "b.xsd").toPath(), SCHEMA_B.replace("maxOccurs='3'", "maxOccurs='4'").getBytes(StandardCharsets.UTF_8));
+        assertNull(SchemaGrammarStore.read(new ByteArrayInputStream(bytes.toByteArray())));
+        assertFalse(SchemaGrammarStore.load(new ByteArrayInputStream(bytes.toByteArray()), new XMLGrammarPoolImpl()));
+        // the check may be skipped
+        assertNotNull(SchemaGrammarStore.read(new ByteArrayInputStream(bytes.toByteArray()), false));
+    }
+
+    @Test
+    public void testNotAGrammarFile() {
+        assertThrows(StreamCorruptedException.class,
+                () -> SchemaGrammarStore.read(new ByteArrayInputStream("<xs:schema/>".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    public void testUnexpectedClassRejected() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(bytes);
+        data.writeInt(0x58534752);
+        data.writeInt(SchemaGrammarStore.FORMAT_VERSION);
+        data.writeUTF(Version.getVersion());
+        data.writeInt(0);
+        data.flush();
+        ObjectOutputStream objects = new ObjectOutputStream(new DeflaterOutputStream(bytes));
+        objects.writeObject(new Object[] { new File("x") });
+        objects.close();
+        assertNull(SchemaGrammarStore.read(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    @Test
+    public void testRemoteSourceNotFetched() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(bytes);
+        data.writeInt(0x58534752);
+        data.writeInt(SchemaGrammarStore.FORMAT_VERSION);
+        data.writeUTF(Version.getVersion());
+        data.writeInt(1);
+        // a digest that no document has, at a location that cannot be read
+        data.writeUTF("http://127.0.0.1:9/remote.xsd");
+        data.writeShort(32);
+        data.write(new byte[32]);
+        data.flush();
+        ObjectOutputStream objects = new ObjectOutputStream(new DeflaterOutputStream(bytes));
+        objects.writeObject(new SchemaGrammar[0]);
+        objects.close();
+        SchemaGrammar[] read = SchemaGrammarStore.read(new ByteArrayInputStream(bytes.toByteArray()));
+        assertNotNull(read);
+        assertEquals(0, read.length);
+    }
+
+    @Test
+    public void testLoadIntoPool() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SchemaGrammarStore.write(loadGrammars(), bytes);
+        XMLGrammarPoolImpl pool = new XMLGrammarPoolImpl();
+        assertTrue(SchemaGrammarStore.load(new ByteArrayInputStream(bytes.toByteArray()), pool));
+        assertEquals(2, SchemaGrammarStore.getGrammars(pool).length);
+    }
+
+    @Test
+    public void testEnumerationValues() throws Exception {
+        File c = new File(fDir, "c.xsd");
+        Files.write(c.toPath(), SCHEMA_C.getBytes(StandardCharsets.UTF_8));
+        XMLGrammarPoolImpl pool = new XMLGrammarPoolImpl();
+        XMLSchemaLoader loader = new XMLSchemaLoader();
+        loader.setProperty("http://apache.org/xml/properties/internal/grammar-pool", pool);
+        loader.loadGrammar(new XMLInputSource(null, c.toURI().toString(), null));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SchemaGrammarStore.write(SchemaGrammarStore.getGrammars(pool), bytes);
+
+        SchemaGrammar[] read = SchemaGrammarStore.read(new ByteArrayInputStream(bytes.toByteArray()));
+        assertNotNull(read);
+        String[] types = { "fl", "dt", "du", "hx", "ls", "un" };
+        for (int i = 0; i < types.length; i++) {
+            XSSimpleTypeDecl type = (XSSimpleTypeDecl) read[0].getGlobalTypeDecl(types[i]);
+            assertEquals(1, type.getActualEnumeration().getLength(), types[i]);
+        }
+        XMLGrammarPoolImpl readPool = new XMLGrammarPoolImpl();
+        readPool.cacheGrammars(XMLGrammarDescription.XML_SCHEMA, read);
+        Validator validator = new XMLSchemaFactory().newSchema(readPool).newValidator();
+        validator.validate(new StreamSource(new StringReader("<root xmlns='urn:c' f='1.5'><x>1</x><x>2</x><k>2020-01-01</k></root>")));
+        assertThrows(SAXException.class,
+                () -> validator.validate(new StreamSource(new StringReader("<root xmlns='urn:c' f='2.5'><x>1</x><k>1</k></root>"))));
+    }
+
+    private SchemaGrammar[] loadGrammars() throws IOException {
+        File a = new File(fDir, "a.xsd");
+        Files.write(a.toPath(), SCHEMA_A.getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(fDir, "b.xsd").toPath(), SCHEMA_B.getBytes(StandardCharsets.UTF_8));
+        XMLGrammarPoolImpl pool = new XMLGrammarPoolImpl();
+        XMLSchemaLoader loader = new XMLSchemaLoader();
+        loader.setProperty("http://apache.org/xml/properties/internal/grammar-pool", pool);
+        loader.setFeature("http://apache.org/xml/features/validation/schema-full-checking", true);
+        loader.loadGrammar(new XMLInputSource(null, a.toURI().toString(), null));
+        return SchemaGrammarStore.getGrammars(pool);
+    }
+
+    private static XSDDescription description(String namespace) {
+        XSDDescription desc = new XSDDescription();
+        desc.setNamespace(namespace);
+        return desc;
+    }
+
+} // class SchemaGrammarStoreTest
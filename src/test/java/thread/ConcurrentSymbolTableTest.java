@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package thread;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.codelibs.xerces.parsers.CachingParserPool;
+import org.codelibs.xerces.parsers.DOMParser;
+import org.codelibs.xerces.util.ConcurrentSymbolTable;
+import org.codelibs.xerces.util.XMLGrammarPoolImpl;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+/**
+ * Interns overlapping symbol sets from several threads, forcing the
+ * concurrent symbol table through many resizes, and checks that every
+ * thread receives the same interned reference.
+ */
+public class ConcurrentSymbolTableTest {
+
+    private static final int THREADS = 8;
+
+    private static final int SYMBOLS = 20000;
+
+    @Test
+    public void testConcurrentInterning() throws Exception {
+        final ConcurrentSymbolTable table = new ConcurrentSymbolTable(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<String[]>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int start = t * 7;
+                results.add(executor.submit((Callable<String[]>) () -> {
+                    String[] symbols = new String[SYMBOLS];
+                    for (int i = 0; i < SYMBOLS; i++) {
+                        int n = (start + i) % SYMBOLS;
+                        char[] buffer = ("  sym" + n + "  ").toCharArray();
+                        symbols[n] = (n & 1) == 0 ? table.addSymbol(buffer, 2, buffer.length - 4) : table.addSymbol(new String("sym" + n));
+                    }
+                    return symbols;
+                }));
+            }
+            String[] first = results.get(0).get();
+            for (Future<String[]> result : results) {
+                String[] symbols = result.get();
+                for (int i = 0; i < SYMBOLS; i++) {
+                    assertSame(first[i], symbols[i]);
+                }
+            }
+            for (int i = 0; i < SYMBOLS; i++) {
+                assertSame(("sym" + i).intern(), first[i]);
+                assertTrue(table.containsSymbol("sym" + i));
+            }
+            assertFalse(table.containsSymbol("sym" + SYMBOLS));
+            assertFalse(table.containsSymbol("xsym1".toCharArray(), 0, 5));
+            assertTrue(table.containsSymbol("xsym1".toCharArray(), 1, 4));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testCollidingSymbols() throws Exception {
+        // "Aa" and "BB" have the same String hash code, and so do all
+        // strings made of them
+        String[] symbols = new String[1 << 10];
+        for (int i = 0; i < symbols.length; i++) {
+            StringBuilder buffer = new StringBuilder();
+            for (int bit = 0; bit < 10; bit++) {
+                buffer.append((i & (1 << bit)) != 0 ? "Aa" : "BB");
+            }
+            symbols[i] = buffer.toString();
+        }
+        ConcurrentSymbolTable table = new ConcurrentSymbolTable();
+        assertEquals(table.hash(symbols[0]), table.hash(symbols[1]));
+        for (int i = 0; i < symbols.length; i++) {
+            char[] buffer = symbols[i].toCharArray();
+            assertSame(symbols[i].intern(), (i & 1) == 0 ? table.addSymbol(symbols[i]) : table.addSymbol(buffer, 0, buffer.length));
+        }
+        // the table switched to a randomized hash function
+        int distinct = 0;
+        for (int i = 1; i < symbols.length; i++) {
+            if (table.hash(symbols[i]) != table.hash(symbols[0])) {
+                distinct++;
+            }
+            char[] buffer = symbols[i].toCharArray();
+            assertEquals(table.hash(symbols[i]), table.hash(buffer, 0, buffer.length));
+        }
+        assertTrue(distinct > symbols.length / 2, Integer.toString(distinct));
+        for (int i = 0; i < symbols.length; i++) {
+            assertTrue(table.containsSymbol(symbols[i]));
+            assertSame(symbols[i].intern(), table.addSymbol(symbols[i]));
+        }
+    }
+
+    @Test
+    public void testCachingParserPool() throws Exception {
+        ConcurrentSymbolTable table = new ConcurrentSymbolTable();
+        CachingParserPool pool = new CachingParserPool(table, new XMLGrammarPoolImpl());
+        assertSame(table, pool.getSymbolTable());
+
+        DOMParser parser = pool.createDOMParser();
+        parser.parse(new InputSource(new StringReader("<root><child attr='v'/></root>")));
+        Document document = parser.getDocument();
+        assertEquals("child", document.getDocumentElement().getFirstChild().getNodeName());
+        assertTrue(table.containsSymbol("attr"));
+    }
+
+} // class ConcurrentSymbolTableTest
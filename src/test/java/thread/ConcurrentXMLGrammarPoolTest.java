@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package thread;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.codelibs.xerces.impl.xs.XSDDescription;
+import org.codelibs.xerces.util.ConcurrentXMLGrammarPool;
+import org.codelibs.xerces.xni.grammars.Grammar;
+import org.codelibs.xerces.xni.grammars.XMLGrammarDescription;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the copy-on-write grammar pool, including lookups racing with
+ * writers.
+ */
+public class ConcurrentXMLGrammarPoolTest {
+
+    @Test
+    public void testPoolOperations() {
+        ConcurrentXMLGrammarPool pool = new ConcurrentXMLGrammarPool(1);
+        for (int i = 0; i < 100; i++) {
+            pool.putGrammar(new TestGrammar("urn:" + i));
+        }
+        assertEquals(100, pool.getGrammarCount());
+        assertEquals(100, pool.retrieveInitialGrammarSet(XMLGrammarDescription.XML_SCHEMA).length);
+        assertEquals(0, pool.retrieveInitialGrammarSet(XMLGrammarDescription.XML_DTD).length);
+        assertEquals("urn:42", pool.retrieveGrammar(description("urn:42")).getGrammarDescription().getNamespace());
+
+        // replacing keeps the count
+        TestGrammar replacement = new TestGrammar("urn:42");
+        pool.putGrammar(replacement);
+        assertEquals(100, pool.getGrammarCount());
+        assertSame(replacement, pool.retrieveGrammar(description("urn:42")));
+
+        assertSame(replacement, pool.removeGrammar(description("urn:42")));
+        assertFalse(pool.containsGrammar(description("urn:42")));
+        assertEquals(99, pool.retrieveInitialGrammarSet(XMLGrammarDescription.XML_SCHEMA).length);
+
+        // a locked pool accepts no new grammars
+        pool.lockPool();
+        pool.cacheGrammars(XMLGrammarDescription.XML_SCHEMA, new Grammar[] { new TestGrammar("urn:locked") });
+        assertNull(pool.retrieveGrammar(description("urn:locked")));
+        pool.unlockPool();
+        pool.cacheGrammars(XMLGrammarDescription.XML_SCHEMA, new Grammar[] { new TestGrammar("urn:locked") });
+        assertTrue(pool.containsGrammar(description("urn:locked")));
+
+        pool.clear();
+        assertEquals(0, pool.getGrammarCount());
+        assertNull(pool.retrieveGrammar(description("urn:1")));
+    }
+
+    @Test
+    public void testCacheGrammars() {
+        ConcurrentXMLGrammarPool pool = new ConcurrentXMLGrammarPool(1);
+        TestGrammar first = new TestGrammar("urn:0");
+        pool.putGrammar(first);
+        Grammar[] grammars = new Grammar[1000];
+        for (int i = 0; i < grammars.length; i++) {
+            grammars[i] = new TestGrammar("urn:" + (i % 500));
+        }
+        pool.cacheGrammars(XMLGrammarDescription.XML_SCHEMA, grammars);
+
+        // the second half replaces the first, in place of the grammars it replaces
+        assertEquals(500, pool.getGrammarCount());
+        Grammar[] initial = pool.retrieveInitialGrammarSet(XMLGrammarDescription.XML_SCHEMA);
+        for (int i = 0; i < 500; i++) {
+            assertSame(grammars[500 + i], initial[i]);
+            assertSame(grammars[500 + i], pool.retrieveGrammar(description("urn:" + i)));
+        }
+        pool.cacheGrammars(XMLGrammarDescription.XML_SCHEMA, new Grammar[0]);
+        assertEquals(500, pool.getGrammarCount());
+    }
+
+    @Test
+    public void testReadersDuringWrites() throws Exception {
+        final ConcurrentXMLGrammarPool pool = new ConcurrentXMLGrammarPool();
+        final TestGrammar stable = new TestGrammar("urn:stable");
+        pool.putGrammar(stable);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] readers = new Thread[4];
+        for (int t = 0; t < readers.length; t++) {
+            readers[t] = new Thread(() -> {
+                try {
+                    XSDDescription desc = description("urn:stable");
+                    for (int i = 0; i < 20000; i++) {
+                        assertSame(stable, pool.retrieveGrammar(desc));
+                        assertTrue(pool.retrieveInitialGrammarSet(XMLGrammarDescription.XML_SCHEMA).length >= 1);
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            readers[t].start();
+        }
+        for (int i = 0; i < 2000; i++) {
+            pool.putGrammar(new TestGrammar("urn:" + i));
+            if ((i & 3) == 0) {
+                pool.removeGrammar(description("urn:" + (i / 2)));
+            }
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        assertSame(stable, pool.retrieveGrammar(description("urn:stable")));
+    }
+
+    private static XSDDescription description(String namespace) {
+        XSDDescription desc = new XSDDescription();
+        desc.setNamespace(namespace);
+        return desc;
+    }
+
+    /** A grammar that consists of its description only. */
+    static final class TestGrammar implements Grammar {
+
+        private final XSDDescription fDescription;
+
+        TestGrammar(String namespace) {
+            fDescription = description(namespace);
+        }
+
+        public XMLGrammarDescription getGrammarDescription() {
+            return fDescription;
+        }
+
+    } // class TestGrammar
+
+} // class ConcurrentXMLGrammarPoolTest